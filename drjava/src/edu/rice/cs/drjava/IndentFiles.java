@@ -37,47 +37,65 @@
 package edu.rice.cs.drjava;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Vector;
-// TODO: Change the usage of these classes to Collections style.
-// TODO: Do these need to be synchronized?
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.swing.text.AbstractDocument;
+
 import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.drjava.model.AbstractDJDocument;
 import edu.rice.cs.drjava.model.definitions.indent.Indenter;
-import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
-import edu.rice.cs.drjava.model.GlobalEventNotifier;
 
-/** Allows users to pass filenames to a command-line indenter.  Unfortunately, this uses the Swing API (high 
-  * overhead), but we attempt to run the indentation in "headless AWT" mode to prevent a Java icon from showing 
-  * up on the OS X dock.
+/** Allows users to pass filenames to a command-line indenter.  Each file is indented in a lightweight document
+  * (with no undo history, styling, or change events) by the same Indenter rule tree that the definitions pane 
+  * uses, and the files are indented in parallel.  Directories are searched recursively for Java source files.  In 
+  * check mode, no file is written; the exit status reports whether every file is already indented, so that the
+  * indenter can be used in a pre-commit hook or a continuous integration build.
   * @version $Id$
   */
 public class IndentFiles {
   
   /** Command line interface to the indenter.
     * Usage:
-    *   java edu.rice.cs.drjava.IndentFile [-indent N] [filenames]
-    *   Where N is the number of spaces in an indentation level
+    *   java edu.rice.cs.drjava.IndentFiles [-indent N] [-threads N] [-check] [-silent] [files and directories]
+    *   Where N is the number of spaces in an indentation level (or the number of files indented concurrently)
     * @param args Command line arguments
     */
   public static void main(String[] args) {
     Vector<String> fileNames = new Vector<String>();
     int indentLevel = 2;
+    int threads = Runtime.getRuntime().availableProcessors();
     boolean silent = false;
+    boolean check = false;
     if (args.length < 1) _displayUsage();
     else {
       for (int i = 0; i < args.length; i++) {
         String arg = args[i];
-        if (arg.equals("-indent")) {
+        if (arg.startsWith("--")) arg = arg.substring(1);  // accept GNU-style options as well
+        if (arg.equals("-indent") || arg.equals("-threads")) {
           i++;
-          try { indentLevel = Integer.parseInt(args[i]); }
+          try {
+            int n = Integer.parseInt(args[i]);
+            if (n < 1 && arg.equals("-threads")) throw new NumberFormatException();
+            if (arg.equals("-indent")) indentLevel = n;
+            else threads = n;
+          }
           catch (Exception e) {
             _displayUsage();
             System.exit(-1);
           }
         }
         else if (arg.equals("-silent")) silent = true;
-        else fileNames.add(arg);
+        else if (arg.equals("-check")) check = true;
+        else fileNames.add(args[i]);
       }
-      indentFiles(fileNames, indentLevel, silent);
+      if (! indentFiles(fileNames, indentLevel, silent, check, threads)) System.exit(1);
     }
   }
 
@@ -85,8 +103,13 @@ public class IndentFiles {
   private static void _displayUsage() {
     System.out.println(
       "Usage:" +
-      "  java edu.rice.cs.drjava.IndentFile [-indent N] [-silent] [filenames]\n" +
-      "  Where N is the number of spaces in an indentation level");
+      "  java edu.rice.cs.drjava.IndentFiles [-indent N] [-threads N] [-check] [-silent] [files and directories]\n" +
+      "  -indent N   the number of spaces in an indentation level (default 2)\n" +
+      "  -threads N  the number of files to indent concurrently (default: the number of processors)\n" +
+      "  -check      report the files that are not indented, without changing them; the exit status\n" +
+      "              is nonzero if there are any\n" +
+      "  -silent     print nothing\n" +
+      "  Directories are searched recursively for .java files");
   }
   
   /** Applies the indent logic to each file in the list of file names, saving the new copy of each one.
@@ -95,51 +118,141 @@ public class IndentFiles {
     * @param silent Whether to print any output to System.out
     */
   public static void indentFiles(Vector<String> fileNames, int indentLevel, boolean silent) {
-    //System.setProperty("java.awt.headless", "true"); // attempt headless AWT
-    //System.out.println("Using Headless AWT: " + isHeadless());
-    Indenter indenter = new Indenter(indentLevel);
+    indentFiles(fileNames, indentLevel, silent, false, Runtime.getRuntime().availableProcessors());
+  }
+  
+  /** Applies the indent logic to each of the given files, and to each Java source file in the given directories.
+    * A file is written only if its indentation changes, and only if check is false.
+    * @param fileNames names of the files and directories to be indented
+    * @param indentLevel The number of spaces to use for a level of indentation
+    * @param silent Whether to print any output to System.out
+    * @param check Whether to only report the files that are not indented, leaving them unchanged
+    * @param threads The number of files to indent concurrently
+    * @return true if every file was processed and, in check mode, was already indented
+    */
+  public static boolean indentFiles(List<String> fileNames, final int indentLevel, boolean silent, final boolean check,
+                                    int threads) {
+    List<File> files = new ArrayList<File>();
+    for (String fname : fileNames) _collectFiles(new File(fname), files);
     
-    if (! silent) System.out.println("DrJava - Indenting files:");
-    for (int i = 0; i < fileNames.size(); i++) {
-      String fname = fileNames.get(i);
-      File file = new File(fname);
-      if (!silent) { 
-        System.out.print("  " + fname + " ... ");
+    if (! silent) System.out.println(check ? "DrJava - Checking indentation:" : "DrJava - Indenting files:");
+    long start = System.nanoTime();
+    
+    // The rule trees are independent, so each worker thread builds its own
+    final ThreadLocal<Indenter> indenters = new ThreadLocal<Indenter>() {
+      protected Indenter initialValue() { return new Indenter(indentLevel); }
+    };
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())));
+    List<Future<Integer>> results = new ArrayList<Future<Integer>>(files.size());
+    for (final File file : files) {
+      results.add(pool.submit(new Callable<Integer>() {
+        public Integer call() throws Exception { return indentFile(file, indenters.get(), check); }
+      }));
+    }
+    pool.shutdown();
+    
+    // Results are reported in order, as they become available
+    boolean ok = true;
+    int fileCount = 0;
+    long lineCount = 0;
+    int changedCount = 0;
+    for (int i = 0; i < files.size(); i++) {
+      if (! silent) { 
+        System.out.print("  " + files.get(i).getPath() + " ... ");
         System.out.flush();
       }
       try {
-        String fileContents = IOUtil.toString(file);
-        DefinitionsDocument doc = new DefinitionsDocument(indenter, new GlobalEventNotifier());
-        doc.insertString(0, fileContents, null); // (no attributes)
-        int docLen = doc.getLength();
-        doc.indentLines(0, docLen);
-        fileContents = doc.getText();
-        IOUtil.writeStringToFile(file, fileContents);
-        if (!silent) System.out.println("done.");
+        int lines = results.get(i).get();
+        fileCount++;
+        if (lines < 0) {
+          lines = -lines;
+          changedCount++;
+          if (check) ok = false;
+          if (! silent) System.out.println(check ? "NOT INDENTED" : "done.");
+        }
+        else if (! silent) System.out.println(check ? "ok." : "unchanged.");
+        lineCount += lines;
       }
       catch (Exception e) {
-        if (!silent) {
+        ok = false;
+        if (! silent) {
+          Throwable t = (e instanceof ExecutionException) ? e.getCause() : e;
           System.out.println("ERROR!");
-          System.out.println("  Exception: " + e.toString());
-          e.printStackTrace(System.out);
+          System.out.println("  Exception: " + t.toString());
+          t.printStackTrace(System.out);
           System.out.println();
         }
       }
-      // System.gc();
     }
-    if (!silent) System.out.println();
+    
+    if (! silent) {
+      double seconds = Math.max(System.nanoTime() - start, 1L) / 1e9;
+      System.out.println();
+      System.out.println(String.format("%d files (%d lines), %d %s, in %.2f s: %.1f files/s, %.0f lines/s", 
+                                       fileCount, lineCount, changedCount, 
+                                       check ? "not indented" : "changed", seconds, 
+                                       fileCount / seconds, lineCount / seconds));
+    }
+    return ok;
+  }
+  
+  /** Indents the given file, writing it back if its indentation changes and check is false.
+    * @param file the file to indent
+    * @param indenter the rule tree to use; must not be used by another thread concurrently
+    * @param check Whether to leave the file unchanged
+    * @return the number of lines in the file, negated if the file's indentation changes (or would change)
+    * @throws Exception if the file cannot be read, indented, or written
+    */
+  static int indentFile(File file, Indenter indenter, boolean check) throws Exception {
+    String fileContents = IOUtil.toString(file);
+    String indented = indentText(fileContents, indenter);
+    int lines = 1;
+    for (int i = 0; i < fileContents.length(); i++) { if (fileContents.charAt(i) == '\n') lines++; }
+    if (indented.equals(fileContents)) return lines;
+    if (! check) IOUtil.writeStringToFile(file, indented);
+    return -lines;
+  }
+  
+  /** Indents every line of the given text, as "Indent Lines" would in the definitions pane.
+    * @param text the text to indent
+    * @param indenter the rule tree to use; must not be used by another thread concurrently
+    * @return the indented text
+    * @throws Exception if the text cannot be indented
+    */
+  static String indentText(String text, Indenter indenter) throws Exception {
+    IndentDocument doc = new IndentDocument(indenter);
+    try {
+      doc.insertString(0, text.replace('\t', ' '), null); // tabs become spaces, as in a DefinitionsDocument
+      doc.indentLines(0, doc.getLength());
+      return doc.getText();
+    }
+    finally { doc.dispose(); }
+  }
+  
+  /** Adds the given file to the list, or, if it is a directory, every Java source file that it contains. */
+  private static void _collectFiles(File f, List<File> files) {
+    if (f.isDirectory()) {
+      File[] children = f.listFiles();
+      if (children == null) return;
+      Arrays.sort(children);
+      for (File child : children) {
+        if (child.isDirectory() || child.getName().endsWith(".java")) _collectFiles(child, files);
+      }
+    }
+    else files.add(f);
+  }
+  
+  /** A document with no undo history, no styling, and no change events, used to indent a file. */
+  private static class IndentDocument extends AbstractDJDocument {
+    public IndentDocument(Indenter indenter) { super(indenter); }
+    protected int startCompoundEdit() { return 0; /* Do nothing. */ }
+    protected void endCompoundEdit(int key) { /* Do nothing. */ }
+    protected void endLastCompoundEdit() { /* Do nothing. */ }
+    protected void addUndoRedo(AbstractDocument.DefaultDocumentEvent chng, Runnable undoCommand, Runnable doCommand) {
+      /* Do nothing. */ 
+    }
+    protected void _styleChanged() { /* Do nothing. */ }
+    /** Detaches this document's indenter from the configuration, which would otherwise keep the document alive. */
+    public void dispose() { _removeIndenter(); }
   }
-
-//  /** Java versions 1.4 or above should have this implemented.  
-//    * Return false, if earlier version.
-//    */
-//  private static boolean isHeadless() {
-//    try {
-//      Method isHeadless = java.awt.GraphicsEnvironment.class.getMethod("isHeadless", new Class[0]);
-//      return ((Boolean) isHeadless.invoke(null,new Object[0])).booleanValue();
-//    }
-//    catch(Exception e) {
-//      return false;
-//    }
-//  }
 }
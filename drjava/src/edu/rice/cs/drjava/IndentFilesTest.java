@@ -0,0 +1,110 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava;
+
+import java.io.File;
+import java.util.Arrays;
+
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests the command-line indenter.
+  * @version $Id$
+  */
+public final class IndentFilesTest extends DrJavaTestCase {
+  
+  private static final String UNINDENTED = 
+    "class A {\n" +
+    "void f() {\n" +
+    "if (true)\n" +
+    "return;\n" +
+    "\t}\n" +
+    "}\n";
+  
+  private static final String INDENTED = 
+    "class A {\n" +
+    "  void f() {\n" +
+    "    if (true)\n" +
+    "      return;\n" +
+    "  }\n" +
+    "}\n";
+  
+  private File _tempDir;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_tempDir);
+    _tempDir = null;
+    super.tearDown();
+  }
+  
+  /** Tests that directories are searched for Java files, and that check mode changes nothing. */
+  public void testCheckAndIndentDirectory() throws Exception {
+    File sub = new File(_tempDir, "sub");
+    assertTrue(sub.mkdir());
+    File a = new File(sub, "A.java");
+    File b = new File(_tempDir, "B.java");
+    File notes = new File(sub, "notes.txt");
+    IOUtil.writeStringToFile(a, UNINDENTED);
+    IOUtil.writeStringToFile(b, INDENTED);
+    IOUtil.writeStringToFile(notes, UNINDENTED);
+    
+    assertFalse("unindented file detected", 
+                IndentFiles.indentFiles(Arrays.asList(_tempDir.getPath()), 2, true, true, 2));
+    assertEquals("check leaves file unchanged", UNINDENTED, IOUtil.toString(a));
+    
+    assertTrue("indenting succeeds", IndentFiles.indentFiles(Arrays.asList(_tempDir.getPath()), 2, true, false, 2));
+    assertEquals("file indented", INDENTED, IOUtil.toString(a));
+    assertEquals("indented file unchanged", INDENTED, IOUtil.toString(b));
+    assertEquals("non-Java file ignored", UNINDENTED, IOUtil.toString(notes));
+    
+    assertTrue("all files indented", IndentFiles.indentFiles(Arrays.asList(_tempDir.getPath()), 2, true, true, 2));
+  }
+  
+  /** Tests that a missing file is reported as a failure without preventing other files from being indented. */
+  public void testMissingFile() throws Exception {
+    File a = new File(_tempDir, "A.java");
+    IOUtil.writeStringToFile(a, UNINDENTED);
+    File missing = new File(_tempDir, "Missing.java");
+    assertFalse(IndentFiles.indentFiles(Arrays.asList(missing.getPath(), a.getPath()), 2, true, false, 1));
+    assertEquals(INDENTED, IOUtil.toString(a));
+  }
+}
@@ -1405,6 +1405,17 @@ public interface OptionConstants {
   /** Whether to automatically close comments. */
   public static final BooleanOption AUTO_CLOSE_COMMENTS = new BooleanOption("auto.close.comments", Boolean.FALSE);
   
+  /** Whether the reduced models of documents index their tokens by offset, which makes moving through very large
+    * documents logarithmic rather than linear in the number of tokens.  Read when a document is created. */
+  public static final BooleanOption INDEXED_REDUCED_MODEL = new BooleanOption("indexed.reduced.model", Boolean.FALSE);
+  
+  /** Maximum number of characters retained in the Interactions and Console panes; 0 means unlimited. */
+  public static final NonNegativeIntegerOption CONSOLE_MAX_LENGTH =
+    new NonNegativeIntegerOption("console.max.length", Integer.valueOf(1000000));
+  
+  /** Whether text trimmed from the Interactions and Console panes is saved to a temporary file. */
+  public static final BooleanOption CONSOLE_SPILL_TRIMMED = new BooleanOption("console.spill.trimmed", Boolean.FALSE);
+  
   /** Whether to clear the console when manually resetting the interactions pane. */
   public static final BooleanOption RESET_CLEAR_CONSOLE = new BooleanOption("reset.clear.console", Boolean.TRUE);
   
@@ -1425,6 +1436,10 @@ public interface OptionConstants {
   /** Whether to force test classes in projects to end in "Test". */
   public static final BooleanOption FORCE_TEST_SUFFIX = new BooleanOption("force.test.suffix", Boolean.FALSE);
   
+  /** Whether unit testing reuses class file information, jar class loaders, and test classification between runs. */
+  public static final BooleanOption JUNIT_PERSISTENT_RUNNER = 
+    new BooleanOption("junit.persistent.runner", Boolean.FALSE);
+  
   /** Whether remote control using sockets is enabled. */
   public static final BooleanOption REMOTE_CONTROL_ENABLED = new BooleanOption("remote.control.enabled", Boolean.TRUE);
   
@@ -1459,6 +1474,13 @@ public interface OptionConstants {
   public static final BooleanOption SHOW_PATH_WARNINGS = 
     new BooleanOption("show.path.warnings", Boolean.FALSE);
   
+  /** Whether to compile only changed files and their dependents when a build directory is set */
+  public static final BooleanOption INCREMENTAL_COMPILATION = 
+    new BooleanOption("incremental.compilation", Boolean.FALSE);
+  
+  /** Whether the compiler keeps its class path jar indexes in memory between compilations */
+  public static final BooleanOption WARM_COMPILER = new BooleanOption("warm.compiler", Boolean.FALSE);
+  
   /** Default compiler to use
     * Stores the name of the compiler to use, set by changing the selection in
     * the ForcedChoiceOption created by COMPILER_PREFERENCE_CONTROL.evaluate()
@@ -1575,6 +1597,10 @@ public interface OptionConstants {
   public static final BooleanOption DYNAMICJAVA_REQUIRE_VARIABLE_TYPE =
     new BooleanOption("dynamicjava.require.variable.type", Boolean.TRUE);
   
+  /** Whether to compile loops and method bodies in the Interactions Pane to bytecode where possible. */
+  public static final BooleanOption DYNAMICJAVA_COMPILE_STATEMENTS =
+    new BooleanOption("dynamicjava.compile.statements", Boolean.FALSE);
+  
   
   /** Dynamic Java access control. */
   public static final ArrayList<String> DYNAMICJAVA_ACCESS_CONTROL_CHOICES =
@@ -1776,6 +1802,14 @@ public interface OptionConstants {
   public static final NonNegativeIntegerOption FOLLOW_FILE_LINES =
     new NonNegativeIntegerOption("follow.file.lines", Integer.valueOf(1000));
   
+  /** Memory in megabytes that unmodified documents may occupy in the document cache, or 0 for no limit. */
+  public static final NonNegativeIntegerOption DOCUMENT_CACHE_MEMORY =
+    new NonNegativeIntegerOption("document.cache.memory", Integer.valueOf(64));
+  
+  /** Whether to compress the text of documents evicted from the document cache. */
+  public static final BooleanOption DOCUMENT_CACHE_COMPRESSION =
+    new BooleanOption("document.cache.compression", Boolean.FALSE);
+  
   /** Prefix for the "external saved" settings. */
   public static final String EXTERNAL_SAVED_PREFIX = "external.saved.";
   
@@ -56,17 +56,13 @@ import edu.rice.cs.util.text.SwingDocument;
 import java.awt.EventQueue;
 import java.util.ArrayList;
 import java.util.Set;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.SortedMap;
 import java.util.StringTokenizer;
-import java.util.TreeMap;
 import javax.swing.ProgressMonitor;
 import javax.swing.text.AbstractDocument;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
 import javax.swing.text.Position;
 
 import static edu.rice.cs.drjava.model.definitions.reducedmodel.ReducedModelStates.*;
@@ -99,10 +95,10 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
   protected static final HashSet<String> _primTypes = _makePrimTypes();
   /** The default indent setting. */
   protected volatile int _indent = 2;
-  /** Initial number of elements in _queryCache (see below). */
-  private static final int INIT_CACHE_SIZE = 0x10000;  // 16**4 = 16384 
   /** Constant specifying how large pos must be before incremental analysis is applied in posInBlockComment */
   public static final int POS_THRESHOLD = 10000; 
+  /** The number of characters preceding pos initially fetched by _findPrevCharPos */
+  private static final int PREV_CHAR_WINDOW = 256;
 //  /** Constant specifying how large pos must be before incremental analysis is applied in posInParenPhrase */
 //  public static final int POS_THRESHOLD = 10000; 
   /** The set of closing braces recognized in most indenting operations. */ 
@@ -117,21 +113,25 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     * track of state.  This field together with _currentLocation function as a virtual object for purposes of 
     * synchronization.  All operations that access or modify this virtual object should be synchronized on _reduced.
     */
-  public final ReducedModelControl _reduced = new ReducedModelControl();  // public only for locking purposes
+  public final ReducedModelControl _reduced =   // public only for locking purposes
+    new ReducedModelControl(DrJava.getConfig().getSetting(INDEXED_REDUCED_MODEL).booleanValue());
   
   /** The absolute character offset in the document. Treated as part of the _reduced (model) for locking 
     * purposes. */
   protected volatile int _currentLocation = 0;
   
-  /* The fields _queryCache, _offsetToQueries, and _cacheModified function as an extension of the reduced model. 
-   * When enabled in blockIndent, this data structure caches calls to the reduced model to speed up indent performance.
-   * Must be cleared every time the document is changed.  Use by calling _checkCache, _storeInCache, and _clearCache.
-   * When _queryCache = null, the cache is disabled.
+  /* The field _queryCache functions as an extension of the reduced model.  This bounded data structure caches calls
+   * to the reduced model to speed up indenting, highlighting, and other repeated queries.  It is selectively cleared
+   * every time the document is changed.  Use by calling _checkCache, _storeInCache, and _clearCache.
    */
-  private volatile HashMap<Query, Object> _queryCache;
+  private final QueryCache _queryCache = new QueryCache();
   
-  /** Records the set of queries (as a list) for each offset. */
-  private volatile SortedMap<Integer, List<Query>> _offsetToQueries;
+  /** The highlight runs of recently painted lines.  Cleared from the edit offset forward on every change. */
+  private final HighlightCache _highlightCache = new HighlightCache();
+  
+  /** The line enclosing braces of the lines of a block being indented, computed in a single forward pass; null when
+    * no block indent is in progress.  Only accessed in the event thread. */
+  private LineBraceScanner _lineBraceScanner = null;
   
   /** The instance of the indent decision tree used by Definitions documents. */
   private volatile Indenter _indenter;
@@ -140,6 +140,9 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
   private volatile OptionListener<Integer> _listener1;
   private volatile OptionListener<Boolean> _listener2;
   
+  /** The thread building this document before it is published, or null.  See {@link #confineTo}. */
+  private volatile Thread _builder = null;
+  
   /*-------- CONSTRUCTORS --------*/
   
   /** Constructor used in super calls from DefinitionsDocument and InteractionsDJDocument. */
@@ -157,8 +160,6 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     */
   protected AbstractDJDocument(Indenter indenter) { 
     _indenter = indenter;
-    _queryCache = null;
-    _offsetToQueries = null;
     _initNewIndenter();
 //     System.err.println("AbstractDJDocument constructor with indent level " + indenter.getIndentLevel() 
 //    + " invoked on " + this);
@@ -166,6 +167,18 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
   
   //-------- METHODS ---------//
   
+  /** Confines this document to the given thread instead of the event thread.  A document that no other thread can
+    * see yet may be built (its text inserted and its reduced model updated) by a background thread; it must be 
+    * returned to the event thread by calling confineTo(null) before it is published.
+    * @param builder the thread building the document, or null
+    */
+  public void confineTo(Thread builder) { _builder = builder; }
+  
+  /** @return true if the current thread may modify this document: the event thread, or the thread building it */
+  protected boolean _inDocumentThread() {
+    return Utilities.TEST_MODE || EventQueue.isDispatchThread() || Thread.currentThread() == _builder;
+  }
+  
   /** Get the indenter.
     * @return the indenter
     */
@@ -273,6 +286,35 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     return v;
   }
   
+  /** Returns the highlight runs of the line containing pos as a flat array of (location, length, state) triples
+    * covering the entire line, including its terminating newline.  The runs are cached until the document changes
+    * at or before the end of the line, so repainting a line does not walk the reduced model or allocate.  ONLY runs 
+    * in the event thread.
+    * @param pos a position in the line of interest
+    * @return the highlight runs of the line; the caller must not modify the array
+    */
+  public int[] getLineHighlightRuns(int pos) {
+    
+    assert EventQueue.isDispatchThread();
+    
+    final Element root = getDefaultRootElement();
+    final Element line = root.getElement(root.getElementIndex(pos));
+    final int lineStart = line.getStartOffset();
+    int[] runs = _highlightCache.get(lineStart);
+    if (runs == null) {
+      final int lineEnd = Math.min(line.getEndOffset(), getLength());
+      runs = HighlightCache.toRuns(getHighlightStatus(lineStart, lineEnd));
+      _highlightCache.put(lineStart, runs);
+    }
+    return runs;
+  }
+  
+  /** @return the number of line highlight lookups that were answered from the cache */
+  public long getHighlightCacheHits() { return _highlightCache.getHits(); }
+  
+  /** @return the number of line highlight lookups that required walking the reduced model */
+  public long getHighlightCacheMisses() { return _highlightCache.getMisses(); }
+  
   /** Distinguishes keywords from normal text in the given HighlightStatus element. Specifically, it looks to see
     * if the given text contains a keyword. If it does, it splits the HighlightStatus block into separate blocks
     * so that each keyword has its own block. This process identifies all keywords in the given block.
@@ -695,8 +737,11 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     
     setCurrentLocation(origPos);    // Restore the state of the reduced model;
     
-    if (i == text.length()) reducedPos = -1; // No matching char was found
-    _storeInCache(key, reducedPos, reducedPos);
+    if (i == text.length()) {  // No matching char was found
+      reducedPos = -1;
+      _storeInCache(key, reducedPos, Integer.MAX_VALUE);  // Any change following pos may produce a match
+    }
+    else _storeInCache(key, reducedPos, reducedPos);
     // Return position of matching char or ERROR_INDEX (-1)     
     return reducedPos;  
   }
@@ -872,8 +917,9 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     
     int reducedPos = pos;
     int i = pos - 1;
-    String text;
-    text = getText(0, pos); 
+    // Only the text preceding pos that is actually examined is fetched; the window doubles as needed
+    int textStart = Math.max(0, pos - PREV_CHAR_WINDOW);
+    String text = getText(textStart, pos - textStart);
     
     final int oldPos = _currentLocation;
     // Move reduced model to location reducedPpos
@@ -885,7 +931,12 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       /* Invariant: reduced model points to reducedPos, 0 <= i < reducedPos <= pos, 
        * text[i+1:pos-1] contains invalid chars */
       
-      if (match(text.charAt(i), whitespace)) {
+      if (i - 1 < textStart && textStart > 0) {  // widen the window to include chars i - 1 and i
+        textStart = Math.max(0, pos - 2 * (pos - textStart));
+        text = getText(textStart, pos - textStart);
+      }
+      
+      if (match(text.charAt(i - textStart), whitespace)) {
         // ith char is whitespace
         i--;
         continue;
@@ -902,7 +953,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
         continue;
       }
       
-      if (i > 0 && _isStartOfComment(text, i - 1)) { /* char i is second character in opening comment marker */  
+      if (i > 0 && _isStartOfComment(text, i - 1 - textStart)) { /* char i is second character in opening comment marker */  
         // Move i past the first comment character and continue searching
         i = i - 2;
         continue;
@@ -928,10 +979,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
    * @param key Name of the method and arguments
    * @return the object in the cache associated with key; null if not in the cache.
    */
-  protected Object _checkCache(final Query key) {
-    if (_queryCache == null) return null;
-    return _queryCache.get(key); 
-  }
+  protected Object _checkCache(final Query key) { return _queryCache.get(key); }
   
   /** Stores the given result in the helper method cache. 
    * Query classes define equality structurally.
@@ -943,44 +991,17 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
    *                unchanged, the query should return the same answer.
    */
   protected void _storeInCache(final Query query, final Object answer, final int offset) {
-    if (_queryCache == null) return;
-    _queryCache.put(query, answer);
-    _addToOffsetsToQueries(query, offset);
+    _queryCache.put(query, answer, offset);
   }
   
   /** Clears the memozing cache of queries with offset {@literal >=} than 
    * specified value.  Should be called every time the document is modified. 
    * @param offset the offset beyond which to clear
    */
-  protected void _clearCache(int offset) {
-    if (_queryCache == null) return;
-    
-    if (offset <= 0) {
-      _queryCache.clear();
-      _offsetToQueries.clear();
-      return;
-    }
-    // The Integer[] copy of the key set is required to avoid ConcurrentModifiationExceptions.  Ugh!
-    Integer[] deadOffsets = _offsetToQueries.tailMap(offset).keySet().toArray(new Integer[0]);
-    for (int i: deadOffsets) {
-      for (Query query: _offsetToQueries.get(i)) _queryCache.remove(query);  // remove query entry from cache
-      _offsetToQueries.remove(i);   // remove query bucket for i from offsetToQueries table
-    }
-  }
+  protected void _clearCache(int offset) { _queryCache.clear(offset); }
   
-  /** Add {@literal <query,offset>} pair to _offsetToQueries map. 
-   * Assumes lock on _queryCache is already held.
-   * @param query the query
-   * @param offset the offset
-   */
-  private void _addToOffsetsToQueries(final Query query, final int offset) {
-    List<Query> selectedQueries = _offsetToQueries.get(offset);
-    if (selectedQueries == null) {
-      selectedQueries = new LinkedList<Query>();
-      _offsetToQueries.put(offset, selectedQueries);
-    }
-    selectedQueries.add(query);
-  }
+  /** @return the query cache of this document; exposed for monitoring and testing */
+  public QueryCache getQueryCache() { return _queryCache; }
   
   /** Default indentation - uses OTHER flag and no progress indicator.  Assume write lock is already held.
     * @param selStart the offset of the initial character of the region to indent
@@ -1049,41 +1070,38 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
   private void _indentBlock(final int start, final int end, Indenter.IndentReason reason, ProgressMonitor pm)
     throws OperationCanceledException, BadLocationException {
     
-    // Set up the query cache;
-    _queryCache = new HashMap<Query, Object>(INIT_CACHE_SIZE);
-    _offsetToQueries = new TreeMap<Integer, List<Query>>();
-    
     // Keep marker at the end. This Position will be the correct endpoint no matter how we change 
     // the doc doing the indentLine calls.
     final Position endPos = this.createUnwrappedPosition(end);
     // Iterate, line by line, until we get to/past the end
     int walker = start;
 //    _indentInProgress = true;
-    while (walker < endPos.getOffset()) {
-      setCurrentLocation(walker);
-      // Keep pointer to walker position that will stay current regardless of how indentLine changes things
-      Position walkerPos = this.createUnwrappedPosition(walker);
-      // Indent current line
-      // We ignore current location info from each line, because it probably doesn't make sense in a block context.
-      _indentLine(reason);  // this operation is atomic; boolean result is discarded
-      // Move back to walker spot
-      setCurrentLocation(walkerPos.getOffset());
-      walker = walkerPos.getOffset();
-      
-      if (pm != null) {
-        pm.setProgress(walker); // Update ProgressMonitor.
-        if (pm.isCanceled()) throw new OperationCanceledException(); // Check for cancel button-press.
+    // The lines are indented in order, so their enclosing braces can be found in one forward pass
+    _lineBraceScanner = new LineBraceScanner(this);
+    try {
+      while (walker < endPos.getOffset()) {
+        setCurrentLocation(walker);
+        // Keep pointer to walker position that will stay current regardless of how indentLine changes things
+        Position walkerPos = this.createUnwrappedPosition(walker);
+        // Indent current line
+        // We ignore current location info from each line, because it probably doesn't make sense in a block context.
+        _indentLine(reason);  // this operation is atomic; boolean result is discarded
+        // Move back to walker spot
+        setCurrentLocation(walkerPos.getOffset());
+        walker = walkerPos.getOffset();
+        
+        if (pm != null) {
+          pm.setProgress(walker); // Update ProgressMonitor.
+          if (pm.isCanceled()) throw new OperationCanceledException(); // Check for cancel button-press.
+        }
+        
+        // Adding 1 makes us point to the first character AFTER the next newline. We don't actually move the
+        // location yet. That happens at the top of the loop, after we check if we're past the end. 
+        walker += _reduced.getDistToNextNewline() + 1;
+//        _indentInProgress = false;
       }
-      
-      // Adding 1 makes us point to the first character AFTER the next newline. We don't actually move the
-      // location yet. That happens at the top of the loop, after we check if we're past the end. 
-      walker += _reduced.getDistToNextNewline() + 1;
-//      _indentInProgress = false;
     }
-    
-    // disable the query cache
-    _queryCache = null;
-    _offsetToQueries = null;
+    finally { _lineBraceScanner = null; }
   }
   
   /** Indents a line using the Indenter.  Public ONLY for testing purposes. 
@@ -1437,7 +1455,10 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     finally { setCurrentLocation(origPos); }  // restore _currentLocation
     
     // Search through remaining lines of document; recursion depth is bounded by number of blank lines following pos
-    return getFirstNonWSCharPos(endPos + 1, whitespace, acceptComments);
+    final int result = getFirstNonWSCharPos(endPos + 1, whitespace, acceptComments);
+    // Cache the answer for pos as well, so that a repeated query does not move the reduced model back to pos
+    _storeInCache(key, result, (result == -1) ? Integer.MAX_VALUE : result);
+    return result;
   }
   
   public int _findPrevNonWSCharPos(int pos) throws BadLocationException {
@@ -1520,6 +1541,10 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     final int lineStart = _getLineStartPos(_currentLocation);
 //    System.err.println("_currentLocation = " + origPos + " lineStart = " + lineStart);
     if (lineStart < 0) return BraceInfo.NULL;
+    if (_lineBraceScanner != null) {
+      final BraceInfo scanned = _lineBraceScanner.lineEnclosingBrace(lineStart);
+      if (scanned != null) return scanned;
+    }
     final int keyPos = lineStart;
     final Query key = new Query.LineEnclosingBrace(keyPos);
     final BraceInfo cached = (BraceInfo) _checkCache(key);
@@ -1791,7 +1816,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
    */
   protected void insertUpdate(AbstractDocument.DefaultDocumentEvent chng, AttributeSet attr) {
     
-    assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
+    assert _inDocumentThread();
     
     super.insertUpdate(chng, attr);
     
@@ -1800,8 +1825,6 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       final int length = chng.getLength();
       final String str = getText(offset, length);
       
-      if (length > 0) _clearCache(offset);    // Selectively clear the query cache
-      
       Runnable doCommand = 
         (length == 1) ? new CharInsertCommand(offset, str.charAt(0)) : new InsertCommand(offset, str);
       RemoveCommand undoCommand = new UninsertCommand(offset, length, str);
@@ -1828,7 +1851,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
    */
   protected void removeUpdate(AbstractDocument.DefaultDocumentEvent chng) {
     
-    assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
+    assert _inDocumentThread();
     
     try {
       final int offset = chng.getOffset();
@@ -1837,8 +1860,6 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       final String removedText = getText(offset, length);
       super.removeUpdate(chng);
       
-      if (length > 0) _clearCache(offset);  // Selectively clear the query cache
-      
       Runnable doCommand = new RemoveCommand(offset, length, removedText);
       Runnable undoCommand = new UnremoveCommand(offset, removedText);
       
@@ -1912,6 +1933,17 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     _numLinesChangedAfter = Math.min(_numLinesChangedAfter, offset);
   }
   
+  /** Discards the cached query results, highlight runs, and brace scan at or after offset.  Called by the reduced
+   * model commands rather than insertUpdate/removeUpdate so that undo and redo, which replay these commands, also
+   * invalidate the caches.
+   * @param offset the offset of the change
+   */
+  private void _textChanged(int offset) {
+    _clearCache(offset);    // Selectively clear the query cache
+    _highlightCache.clear(offset);
+    if (_lineBraceScanner != null) _lineBraceScanner.textChanged(offset);
+  }
+  
   /** @return the value of _numLinesChangedAfter field and reset it -1. */
   public int getAndResetNumLinesChangedAfter() {
     int result = _numLinesChangedAfter;
@@ -1928,9 +1960,10 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       _text = text;
     }
     
-    /** Inserts chars in reduced model and moves location to end of insert; cache has already been cleared. */
+    /** Clears the caches, inserts chars in reduced model, and moves location to end of insert. */
     public void run() {
       
+      _textChanged(_offset);
       _reduced.move(_offset - _currentLocation);  
       int len = _text.length();
       // Record any change to line numbering
@@ -1968,9 +2001,10 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       _ch = ch;
     }
     
-    /** Inserts chars in reduced model and moves location to end of insert; cache has already been cleared. */
+    /** Clears the caches, inserts chars in reduced model, and moves location to end of insert. */
     public void run() {
       
+      _textChanged(_offset);
       _reduced.move(_offset - _currentLocation);  
       if (_ch == newline) _numLinesChanged(_offset);  // record change to line numbering
       _addCharToReducedModel(_ch);
@@ -1990,8 +2024,9 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       _removedText = removedText;
     }
     
-    /** Removes chars from reduced model; cache has already been selectively cleared. */
+    /** Selectively clears the caches and removes chars from reduced model. */
     public void run() {
+      _textChanged(_offset);
       setCurrentLocation(_offset);
       if (_removedText.indexOf(newline) >= 0) _numLinesChanged(_offset);  // record change to line numbering
       _reduced.delete(_length);    
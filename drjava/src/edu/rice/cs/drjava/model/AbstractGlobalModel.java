@@ -56,6 +56,7 @@ import java.io.StringReader;
 import java.io.Writer;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -69,6 +70,11 @@ import java.util.List;
 import java.util.Vector;
 import java.util.WeakHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.*;
 import javax.swing.event.DocumentListener;
@@ -88,6 +94,7 @@ import edu.rice.cs.drjava.config.OptionParser;
 import edu.rice.cs.drjava.config.OptionConstants;
 import edu.rice.cs.drjava.config.OptionEvent;
 import edu.rice.cs.drjava.config.OptionListener;
+import edu.rice.cs.drjava.model.cache.CompressedText;
 import edu.rice.cs.drjava.model.cache.DCacheAdapter;
 import edu.rice.cs.drjava.model.cache.DDReconstructor;
 import edu.rice.cs.drjava.model.cache.DocumentCache ;
@@ -128,6 +135,7 @@ import edu.rice.cs.plt.tuple.Pair;
 import edu.rice.cs.plt.io.IOUtil;
 import edu.rice.cs.plt.iter.IterUtil;
 import edu.rice.cs.plt.collect.CollectUtil;
+import edu.rice.cs.plt.lambda.Lambda;
 import edu.rice.cs.plt.lambda.LambdaUtil;
 import edu.rice.cs.plt.lambda.Predicate;
 
@@ -209,6 +217,12 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     */
   private volatile OpenDefinitionsDocument _activeDocument;
   
+  /** Number of previously active documents prewarmed in the document cache when the active document changes. */
+  private static final int RECENT_DOCUMENTS_TO_PREWARM = 3;
+  
+  /** The most recently active documents, most recent first.  Guarded by itself. */
+  private final LinkedList<OpenDefinitionsDocument> _recentlyActive = new LinkedList<OpenDefinitionsDocument>();
+  
   /** A pointer to the active directory, which is not necessarily the parent of the active document
     * The user may click on a folder component in the navigation pane and that will set this field without
     * setting the active document.  It is used by the newFile method to place new files into the active directory.
@@ -360,6 +374,30 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     DrJava.getConfig().addOptionListener(CLIPBOARD_HISTORY_SIZE, clipboardHistorySizeListener);
     ClipboardHistoryModel.singleton().resize(DrJava.getConfig().getSetting(CLIPBOARD_HISTORY_SIZE).intValue());
     
+    // setup option listeners for the memory used by the document cache
+    OptionListener<Integer> cacheMemoryListener = new OptionListener<Integer>() {
+      public void optionChanged(OptionEvent<Integer> oce) { _cache.setByteLimit(((long) oce.value) << 20); }
+    };
+    DrJava.getConfig().addOptionListener(DOCUMENT_CACHE_MEMORY, cacheMemoryListener);
+    _cache.setByteLimit(((long) DrJava.getConfig().getSetting(DOCUMENT_CACHE_MEMORY).intValue()) << 20);
+    OptionListener<Boolean> cacheCompressionListener = new OptionListener<Boolean>() {
+      public void optionChanged(OptionEvent<Boolean> oce) { _cache.setCompressImages(oce.value.booleanValue()); }
+    };
+    DrJava.getConfig().addOptionListener(DOCUMENT_CACHE_COMPRESSION, cacheCompressionListener);
+    _cache.setCompressImages(DrJava.getConfig().getSetting(DOCUMENT_CACHE_COMPRESSION).booleanValue());
+    
+    // setup option listeners for the length of the console document
+    OptionListener<Integer> consoleMaxLengthListener = new OptionListener<Integer>() {
+      public void optionChanged(OptionEvent<Integer> oce) { _consoleDoc.setMaxLength(oce.value.intValue()); }
+    };
+    DrJava.getConfig().addOptionListener(CONSOLE_MAX_LENGTH, consoleMaxLengthListener);
+    _consoleDoc.setMaxLength(DrJava.getConfig().getSetting(CONSOLE_MAX_LENGTH).intValue());
+    OptionListener<Boolean> consoleSpillListener = new OptionListener<Boolean>() {
+      public void optionChanged(OptionEvent<Boolean> oce) { _consoleDoc.setSpillTrimmedText(oce.value.booleanValue()); }
+    };
+    DrJava.getConfig().addOptionListener(CONSOLE_SPILL_TRIMMED, consoleSpillListener);
+    _consoleDoc.setSpillTrimmedText(DrJava.getConfig().getSetting(CONSOLE_SPILL_TRIMMED).booleanValue());
+    
     // setup option listener for browser history
     OptionListener<Integer> browserHistoryMaxSizeListener = new OptionListener<Integer>() {
       public void optionChanged(OptionEvent<Integer> oce) {
@@ -1403,8 +1441,15 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     LinkedList<OpenDefinitionsDocument> filesOpened = new LinkedList<OpenDefinitionsDocument>();
     for (final File f: files) {
       if (f == null) throw new IOException("File name returned from FileSelector is null");
+    }
+    // Canonicalizing a file queries the file system for each path component; overlap these queries
+    List<File> canonicalFiles = _mapFiles(Arrays.asList(files), new Lambda<File, File>() {
+      public File value(File f) { return IOUtil.attemptCanonicalFile(f); }
+    });
+    for (int i = 0; i < files.length; i++) {
+      final File f = files[i];
       try {
-        OpenDefinitionsDocument d = _rawOpenFile(IOUtil.attemptCanonicalFile(f));
+        OpenDefinitionsDocument d = _rawOpenFile(canonicalFiles.get(i));
         //always return last opened Doc
         retDocs.add(d);
         filesOpened.add(d);
@@ -1419,9 +1464,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       catch(FileNotFoundException e) { filesNotFound.add(f); }
     }
     
-    for (final OpenDefinitionsDocument d: filesOpened) {
-      _completeOpenFile(d); // contains view-related calls
-    }
+    _completeOpenFiles(filesOpened); // contains view-related calls
     //        SHOW_GETDOC = false;
     if (filesNotFound.size() > 0)
       _notifier.filesNotFound( filesNotFound.toArray( new File[filesNotFound.size()] ) );
@@ -1897,22 +1940,20 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     
     // Collection of documents that have been modified outside of DrJava
     ArrayList<DocFile> modifiedFiles = new ArrayList<DocFile>();
-    for (DocFile f: srcFiles) {
-      if (f.lastModified() > f.getSavedModDate()) {
-        modifiedFiles.add(f);
-        f.setSavedModDate (f.lastModified());
-      }
-      
-      if (f.isActive()) { active = f; }
-      projFiles.add(f);
-    }
-    for (DocFile f: auxFiles) {
-      if (f.lastModified() > f.getSavedModDate()) {
+    projFiles.addAll(Arrays.asList(srcFiles));
+    projFiles.addAll(Arrays.asList(auxFiles));
+    // Query the time stamps of all project files at once, overlapping the file system accesses
+    List<Long> modDates = _mapFiles(projFiles, new Lambda<DocFile, Long>() {
+      public Long value(DocFile f) { return f.lastModified(); }
+    });
+    for (int i = 0; i < projFiles.size(); i++) {
+      DocFile f = projFiles.get(i);
+      long modDate = modDates.get(i);
+      if (modDate > f.getSavedModDate()) {
         modifiedFiles.add(f);
-        f.setSavedModDate (f.lastModified());
+        f.setSavedModDate(modDate);
       }
       if (f.isActive()) { active = f; }
-      projFiles.add(f);
     }
     
 //    Utilities.showDebug("Project files are: " + projFiles);
@@ -1947,7 +1988,11 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         if (! modifiedFiles.contains(f)) {
           int lnr = dbd.getLineNumber();
           OpenDefinitionsDocument odd = getDocumentForFile(f);
-          getDebugger().toggleBreakpoint(odd, odd._getOffset(lnr), dbd.isEnabled());
+          int offset = odd._getLineStartPos(odd._getOffset(lnr));
+          if (getDebugger().toggleBreakpoint(odd, offset, dbd.isEnabled())) {
+            Breakpoint bp = getBreakpointManager().getRegionAt(odd, offset);
+            if (bp != null) bp.setProperties(dbd.getCondition(), dbd.getLogMessage(), dbd.getHitCount());
+          }
         }
       }
       catch(DebugException de) { /* ignore, just don't add breakpoint */ }
@@ -2122,6 +2167,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       _log.log("Cannot close " + doc + "; not found!");
       return false;
     }
+    synchronized(_recentlyActive) { _recentlyActive.remove(doc); }
     
     // remove regions for this file
     _breakpointManager.removeRegions(doc);
@@ -2520,6 +2566,12 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         getInteractionsModel().setRequireVariableType(oce.value);
       }
     });
+    
+    DrJava.getConfig().addOptionListener(DYNAMICJAVA_COMPILE_STATEMENTS, new OptionListener<Boolean>() {
+      public void optionChanged(OptionEvent<Boolean> oce) {
+        getInteractionsModel().setCompileStatements(oce.value);
+      }
+    });
   }
   
   /** Appends a string to the given document using a particular attribute set (identified by a String key). Also waits
@@ -2737,6 +2789,8 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     
     /** Cached String image of document as last read from or written to disk; initially null */
     private volatile String _image;
+    /** Compressed form of _image kept instead of _image by the DocumentCache when image compression is enabled */
+    private volatile CompressedText _compressedImage;
     private volatile File _file;
     private volatile long _timestamp;
     
@@ -2786,6 +2840,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       _classFile = FileOps.NULL_FILE;
       _timestamp = stamp;
       _image = null;
+      _compressedImage = null;
 //      _lexiName = null;
       if (_file instanceof NullFile)
         _lexiName = ((NullFile) _file).getLexiName();  // multiple untitled files must have distinct lexiNames
@@ -3094,6 +3149,8 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         public String getText() {
           String image = _image;
           if (image != null) return image;
+          CompressedText compressed = _compressedImage;
+          if (compressed != null) return compressed.getText();  // not cached, so the image stays compressed
           
           // Document has not yet been read from disk; read it and set _image before returning text.
           // Synchronization on this was eliminated because it does not prevent the returned string from becoming 
@@ -3107,21 +3164,32 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         }
         
         public DefinitionsDocument make() throws IOException, BadLocationException, FileMovedException {
-          
 //          System.err.println("DDReconstructor.make() called on " + ConcreteOpenDefDoc.this);
+          return make(build(getText()));  // getText() retrieves _image if it has already been set
+        }
+        
+        /** Reads the image into a new document.  The document is attached to this ODD only in make(doc), so reading
+          * the image does not mark this document as modified in the cache.
+          */
+        public DefinitionsDocument build(String image) throws IOException, BadLocationException {
+          assert image != null;  // getText() never returns null
           DefinitionsDocument newDefDoc = new DefinitionsDocument(_notifier);
-          newDefDoc.setOpenDefDoc(ConcreteOpenDefDoc.this);
+          if (! EventQueue.isDispatchThread()) newDefDoc.confineTo(Thread.currentThread());  // e.g. prewarming
           
           /* Initialize doc text contents */
-          String image = getText();  // retrieves _image if it has already been set
-          assert image != null;  // getText() never returns null
-          
           _editorKit.read(new StringReader(image), newDefDoc, 0);
           //  Set document property to write out document using newLine conventions of the host platform.
           newDefDoc.putProperty(DefaultEditorKit.EndOfLineStringProperty, StringOps.EOL);
-          _log.log("Reading from image for " + _file + " containing " + _image.length() + " chars");    
+          _log.log("Reading from image for " + _file + " containing " + image.length() + " chars");    
+          return newDefDoc;
+        }
+        
+        /** Only called from DocumentCache.  Assumes that cache lock is already held. */
+        public DefinitionsDocument make(DefinitionsDocument newDefDoc) throws BadLocationException {
+          newDefDoc.confineTo(null);
+          newDefDoc.setOpenDefDoc(ConcreteOpenDefDoc.this);
           
-          _loc = Math.min(_loc, image.length()); // make sure not past end
+          _loc = Math.min(_loc, newDefDoc.getLength()); // make sure not past end
           _loc = Math.max(_loc, 0); // make sure not less than 0
           newDefDoc.setCurrentLocation(_loc);
           for (DocumentListener d : _list) {
@@ -3146,6 +3214,14 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         }
         
         
+        /** Only called from DocumentCache.  Assumes that cache lock is already held. */
+        public Position createPosition(int offset) throws BadLocationException {
+          if (offset < 0 || offset > getLength()) throw new BadLocationException("Invalid offset", offset);
+          DefinitionsDocument.WrappedPosition wp = DefinitionsDocument.createDetachedPosition(offset);
+          _positions.put(wp, offset);
+          return wp;
+        }
+        
         /** Saves the information for this document before it is kicked out of the cache.  Only called from 
           * DocumentCache.  Assumes that cache lock is already held. 
           */
@@ -3157,6 +3233,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
           String text = doc.getText();
           if (text.length() > 0) {
             _image = text;  
+            _compressedImage = null;
 //            _log.log("Saving image containing " + _image.length() + " chars for " + _file);
           }
           _loc = doc.getCurrentLocation();
@@ -3168,6 +3245,27 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
           _positions = doc.getWrappedPositionOffsets();
         }
         
+        public int getLength() {
+          CompressedText compressed = _compressedImage;
+          if (_image == null && compressed != null) return compressed.length();
+          return getText().length();
+        }
+        
+        /** Only called from DocumentCache after saveDocInfo.  Assumes that cache lock is already held. */
+        public void compressImage() {
+          String image = _image;
+          if (image == null) return;
+          _compressedImage = CompressedText.compress(image);  // set before clearing _image so getText never misses
+          _image = null;
+        }
+        
+        public long getImageSize() {
+          String image = _image;
+          if (image != null) return 2L * image.length();
+          CompressedText compressed = _compressedImage;
+          return (compressed == null) ? 0 : compressed.getCompressedSize();
+        }
+        
         public void addDocumentListener(DocumentListener dl) {
           ArrayList<DocumentListener> tmp = new ArrayList<DocumentListener>();
           for (DocumentListener l: _list) { if (dl != l) tmp.add(l); }
@@ -3386,6 +3484,8 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     /** @return true if this document is resident in memory. _cacheAdapter should be non-null. */
     public boolean isReady() { return _cacheAdapter != null && _cacheAdapter.isReady(); }
     
+    public void prewarm() { if (_cacheAdapter != null) _cacheAdapter.prewarm(); }
+    
     /** Determines if the document has been modified since the last save.
       * @return true if the document has been modified
       */
@@ -3714,8 +3814,9 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       return getDocument().createUnwrappedPosition(offs); 
     }
     
+    /** Creates a position without loading the document if it is not resident. */
     public Position createPosition(int offs) throws BadLocationException {
-      return getDocument().createPosition(offs);
+      return _cacheAdapter.createPosition(offs);
     }
     
     public Element getDefaultRootElement() { return getDocument().getDefaultRootElement(); }
@@ -3789,16 +3890,27 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     /** Decorator pattern for the definitions document. */
     public CompoundUndoManager getUndoManager() { return getDocument().getUndoManager(); }
     
-    /** Gets start of line containing pos. NOTE: this method could be optimized to avoid concretizing a virtual 
-      * document. */    
+    /** Gets start of line containing pos.  If the document is not resident, its text is searched instead, so the 
+      * document is not loaded. */    
     public int _getLineStartPos(int pos) { 
+      if (! _cacheAdapter.isReady()) {
+        String text = _cacheAdapter.getText();
+        if (pos < 0 || pos > text.length()) return -1;
+        return text.lastIndexOf('\n', pos - 1) + 1;
+      }
       DefinitionsDocument doc = getDocument();
       return doc._getLineStartPos(pos); 
     }
     
-    /** Gets end of line containing pos (line includes closing '\n').  NOTE: this method could be optimized to avoid 
-      * concretizing a virtual document.*/
+    /** Gets end of line containing pos (line includes closing '\n').  If the document is not resident, its text is 
+      * searched instead, so the document is not loaded. */
     public int _getLineEndPos(int pos) { 
+      if (! _cacheAdapter.isReady()) {
+        String text = _cacheAdapter.getText();
+        if (pos < 0 || pos > text.length()) return -1;
+        int newline = text.indexOf('\n', pos);
+        return (newline == -1) ? text.length() : newline;
+      }
       DefinitionsDocument doc = getDocument();
       return doc._getLineEndPos(pos); 
     }
@@ -3828,8 +3940,22 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       return getDocument().getIntelligentBeginLinePos(currPos);
     }
     
-    /** Gets offset of beginning of given 1-based line. */    
-    public int _getOffset(int lineNum) { return getDocument()._getOffset(lineNum); }
+    /** Gets offset of beginning of given 1-based line.  If the document is not resident, its text is searched 
+      * instead, so the document is not loaded. */    
+    public int _getOffset(int lineNum) { 
+      if (! _cacheAdapter.isReady()) {
+        if (lineNum <= 0) return -1;
+        String text = _cacheAdapter.getText();
+        int offset = 0;
+        int i;
+        for (i = 1; (i < lineNum) && (offset < text.length()); i++) {
+          int newline = text.indexOf('\n', offset);
+          offset = (newline == -1) ? text.length() : newline + 1;
+        }
+        return (i == lineNum) ? offset : -1;
+      }
+      return getDocument()._getOffset(lineNum); 
+    }
     
     public String getQualifiedClassName() throws ClassNameNotFoundException {
       return getDocument().getQualifiedClassName();
@@ -4173,15 +4299,64 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     * @param doc the document to add to the navigator
     */
   protected void addDocToNavigator(final OpenDefinitionsDocument doc) {
+    addDocsToNavigator(Collections.singletonList(doc));
+  }
+  
+  /** Creates iNavigatorItems for a list of documents, and adds them to the navigator in a single batch, so that the 
+    * navigator is sorted and redisplayed once rather than once per document.  A helper for opening files.
+    * @param docs the documents to add to the navigator
+    */
+  protected void addDocsToNavigator(final List<OpenDefinitionsDocument> docs) {
+    List<String> paths = _mapFiles(docs, new Lambda<OpenDefinitionsDocument, String>() {
+      public String value(OpenDefinitionsDocument doc) {
+        if (doc.isUntitled()) return "";
+        try { return fixPathForNavigator(doc.getFile().getCanonicalPath()); }
+        catch(IOException e) { return ""; }
+      }
+    });
+    _documentNavigator.addDocuments(docs, paths);
+    synchronized(_documentsRepos) {
+      for (OpenDefinitionsDocument doc: docs) _documentsRepos.put(doc.getRawFile(), doc);
+    }
+  }
+  
+  /** Number of files below which _mapFiles does not bother with worker threads. */
+  private static final int PARALLEL_FILE_THRESHOLD = 16;
+  
+  /** Number of worker threads used by _mapFiles.  The work is dominated by file system latency rather than 
+    * computation, so more threads than processors can be kept busy. */
+  private static final int FILE_THREADS = 8;
+  
+  /** Applies f to each of the given items, returning the results in the same order.  When there are many items, 
+    * they are processed by a short-lived pool of worker threads; f is used for file system queries (such as 
+    * canonicalization and time stamps), which are slow on network drives and benefit from being overlapped.  f must
+    * be safe to call concurrently.
+    * @param items the items to process
+    * @param f the function to apply
+    * @return the list of results
+    */
+  private static <T, R> List<R> _mapFiles(List<? extends T> items, final Lambda<? super T, ? extends R> f) {
+    ArrayList<R> results = new ArrayList<R>(items.size());
+    if (items.size() < PARALLEL_FILE_THRESHOLD) {
+      for (T item: items) results.add(f.value(item));
+      return results;
+    }
+    
+    ExecutorService pool = Executors.newFixedThreadPool(FILE_THREADS);
     try {
-      if (doc.isUntitled()) _documentNavigator.addDocument(doc);
-      else {
-        String path = doc.getFile().getCanonicalPath();
-        _documentNavigator.addDocument(doc, fixPathForNavigator(path));
+      ArrayList<Future<? extends R>> futures = new ArrayList<Future<? extends R>>(items.size());
+      for (final T item: items) {
+        futures.add(pool.submit(new Callable<R>() { public R call() { return f.value(item); } }));
       }
+      for (Future<? extends R> future: futures) results.add(future.get());
+      return results;
     }
-    catch(IOException e) { _documentNavigator.addDocument(doc); }
-    synchronized(_documentsRepos) { _documentsRepos.put(doc.getRawFile(), doc); }
+    catch(InterruptedException e) { throw new UnexpectedException(e); }
+    catch(ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new UnexpectedException(e.getCause());
+    }
+    finally { pool.shutdown(); }
   }
   
   /** Add a document to the classpath for the slave JVM. Does nothing here 
@@ -4204,18 +4379,28 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
   }
   
   private void _completeOpenFile(OpenDefinitionsDocument d) {
-    addDocToNavigator(d);
-    addDocToClassPath(d);
-    
-    try {
-      File f = d.getFile();
-      if (! inProject(f) && inProjectPath(d)) setProjectChanged(true);
-    } 
-    catch(FileMovedException fme) {
-      /** project is not modified in this case */
+    _completeOpenFiles(Collections.singletonList(d));
+  }
+  
+  /** Adds newly created documents to the navigator (as a batch) and the class path, and notifies listeners that they
+    * have been opened.
+    * @param docs the documents returned by _rawOpenFile
+    */
+  private void _completeOpenFiles(List<OpenDefinitionsDocument> docs) {
+    addDocsToNavigator(docs);
+    for (OpenDefinitionsDocument d: docs) {
+      addDocToClassPath(d);
+      
+      try {
+        File f = d.getFile();
+        if (! inProject(f) && inProjectPath(d)) setProjectChanged(true);
+      } 
+      catch(FileMovedException fme) {
+        /** project is not modified in this case */
+      }
+      
+      _notifier.fileOpened(d);
     }
-    
-    _notifier.fileOpened(d);
   }
   
 //  private static class BackUpFileOptionListener implements OptionListener<Boolean> {
@@ -4324,6 +4509,24 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
 //     catch(DocumentClosedException dce) { /* do nothing */ }
     _activeDocument = (OpenDefinitionsDocument) idoc;
     installActiveDocument();    // notify single display model listeners   
+    _prewarmAround(_activeDocument);
+  }
+  
+  /** Prewarms the documents most likely to become active after doc: its neighbours in the navigator and the documents
+    * that were active before it.
+    * @param doc the newly active document
+    */
+  private void _prewarmAround(OpenDefinitionsDocument doc) {
+    OpenDefinitionsDocument next = _documentNavigator.getNext(doc);
+    OpenDefinitionsDocument prev = _documentNavigator.getPrevious(doc);
+    if (next != doc) next.prewarm();
+    if (prev != doc && prev != next) prev.prewarm();
+    synchronized(_recentlyActive) {
+      _recentlyActive.remove(doc);
+      for (OpenDefinitionsDocument recent: _recentlyActive) recent.prewarm();
+      _recentlyActive.addFirst(doc);
+      if (_recentlyActive.size() > RECENT_DOCUMENTS_TO_PREWARM) _recentlyActive.removeLast();
+    }
   }
   
   /** Invokes the activeDocumentChanged method in the global listener on the argument _activeDocument.  This process
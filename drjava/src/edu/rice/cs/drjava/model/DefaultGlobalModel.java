@@ -157,6 +157,8 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
 //        Utilities.show("compileEnded called in clearInteractionsListener");
         resetInteractions(workDir);  // use same working directory as current interpreter
       }
+      // if the interpreter is kept, classes it found missing may exist now
+      else _jvm.classFilesChanged();
     }
     public void activeCompilerChanged() {
       File workDir = _interactionsModel.getWorkingDirectory();
@@ -807,6 +809,7 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
     _debugger.addListener(new DebugListener() {
       public void watchSet(final DebugWatchData w) { setProjectChanged(true); }
       public void watchRemoved(final DebugWatchData w) { setProjectChanged(true); }    
+      public void watchesUpdated() { }
       
       public void regionAdded(final Breakpoint bp) { }
       public void regionChanged(final Breakpoint bp) { }
@@ -38,6 +38,7 @@ package edu.rice.cs.drjava.model;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import edu.rice.cs.drjava.model.compiler.CompilerListener;
 import edu.rice.cs.drjava.model.repl.DummyInteractionsListener;
 import edu.rice.cs.util.classloader.ClassFileError;
@@ -87,6 +88,9 @@ public class DummyGlobalModelListener extends DummyInteractionsListener implemen
   /** Called when a compile has finished running. */
   public void compileEnded(File workDir, List<? extends File> excludedFiles) { }
   
+  /** Called when a compile has finished running, with the time spent in each of its phases. */
+  public void compilePhaseTimes(Map<String, Long> phaseTimes) { }
+  
   /** Called if a compile is aborted. */
   public void compileAborted(Exception e) { }
 
@@ -130,6 +134,9 @@ public class DummyGlobalModelListener extends DummyInteractionsListener implemen
   /** Called after JUnit is finished running tests. */
   public void junitEnded() { }
   
+  /** Called after the tests of a run have finished, with the time spent in each phase of the run. */
+  public void junitPhaseTimes(Map<String, Long> phaseTimes) { }
+  
   /** Called when the console window is reset. */
   public void consoleReset() { }
   
@@ -163,6 +163,8 @@ public class DummyOpenDefDoc implements OpenDefinitionsDocument {
   public void clearBrowserRegions() { throw new UnsupportedOperationException("Dummy method"); }
   
   public boolean isReady() { throw new UnsupportedOperationException("Dummy method"); }
+  
+  public void prewarm() { throw new UnsupportedOperationException("Dummy method"); }
 
   public boolean isUntitled() { throw new UnsupportedOperationException("Dummy method"); }
   
@@ -45,6 +45,10 @@ import edu.rice.cs.util.StringOps;
 import edu.rice.cs.drjava.config.OptionConstants;
 
 import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import javax.swing.text.BadLocationException;
 import java.awt.Component;
@@ -276,20 +280,9 @@ public class FindReplaceMachine {
     assert EventQueue.isDispatchThread();
     
     if (searchAll) {
-      int count = 0;           // the number of replacements done so far
-      int n = _docIterator.getDocumentCount();
-      for (int i = 0; i < n; i++) {
-        // replace all in the rest of the documents
-        count += _replaceAllInCurrentDoc(false);
-        _doc = _docIterator.getNextDocument(_doc, _frame);
-        
-        if (_doc == null) break;
-      }
-      
-      // update display (adding "*") in navigatgorPane
-      _model.getDocumentNavigator().repaint();
-      
-      return count;
+      // Scan the files of documents that are not in memory in parallel, so documents without matches are not loaded
+      List<OpenDefinitionsDocument> docs = _model.getOpenDefinitionsDocuments();
+      return _replaceAllInDocuments(docs, _newParallelFinder().findCandidates(docs));
     }
     else if (searchSelectionOnly) {
       int count = 0;
@@ -300,6 +293,51 @@ public class FindReplaceMachine {
       return _replaceAllInCurrentDoc(false);
   }
   
+  /** Replaces all occurrences of the find word with the replace word in all documents, like replaceAll() when 
+    * searching all documents, without blocking the event thread while the files of the documents that are not in
+    * memory are scanned.  The replacements are made in the event thread once the scan completes.  The caller must not
+    * change the state of this machine until done is called.  Only executes in event thread.
+    * @param done called in the event thread with the number of replacements
+    */
+  public void replaceAllInBackground(final Runnable1<Integer> done) {
+    
+    assert EventQueue.isDispatchThread();
+    
+    final List<OpenDefinitionsDocument> docs = _model.getOpenDefinitionsDocuments();
+    _newParallelFinder().findCandidates(docs, new Runnable1<Set<OpenDefinitionsDocument>>() {
+      public void run(Set<OpenDefinitionsDocument> candidates) {
+        int count = 0;
+        try { count = _replaceAllInDocuments(docs, candidates); }
+        finally { done.run(count); }
+      }
+    });
+  }
+  
+  /** Replaces all occurrences in every open document, starting with _doc, except for the scanned documents that are
+    * not candidates.  Only executes in event thread.
+    * @param scanned the documents whose files were scanned
+    * @param candidates the scanned documents that may contain matches
+    * @return the number of replacements
+    */
+  private int _replaceAllInDocuments(List<OpenDefinitionsDocument> scanned, Set<OpenDefinitionsDocument> candidates) {
+    int count = 0;           // the number of replacements done so far
+    int n = _docIterator.getDocumentCount();
+    Set<OpenDefinitionsDocument> skipped = new HashSet<OpenDefinitionsDocument>(scanned);
+    skipped.removeAll(candidates);
+    for (int i = 0; i < n; i++) {
+      // replace all in the rest of the documents; documents opened since the scan are searched as well
+      if (! skipped.contains(_doc)) count += _replaceAllInCurrentDoc(false);
+      _doc = _docIterator.getNextDocument(_doc, _frame);
+      
+      if (_doc == null) break;
+    }
+    
+    // update display (adding "*") in navigatgorPane
+    _model.getDocumentNavigator().repaint();
+    
+    return count;
+  }
+  
   /** Replaces all occurences of _findWord with _replaceWord in _doc. Never searches in other documents.  Starts at
     * the beginning or the end of the document (depending on find direction).  This convention ensures that matches 
     * created by string replacement will not be replaced as in the following example:<p>
@@ -308,7 +346,8 @@ public class FindReplaceMachine {
     *   document text: "hhellollo"<p>
     * Depending on the cursor position, clicking replace all could either make the document text read "hello" 
     * (which is correct) or "e".  This is because of the behavior of findNext(), and it would be incorrect
-    * to change that behavior.  Only executes in event thread.
+    * to change that behavior.  The replacements form a single compound edit, so they are undone together.  Only 
+    * executes in event thread.
     * @param searchSelectionOnly true if we should only search in the current selection of documents
     * @return the number of replacements
     */
@@ -326,17 +365,22 @@ public class FindReplaceMachine {
     else setPosition(_selectionRegion.getEndOffset());
     
     int count = 0;
-    FindResult fr = findNext(false);  // find next match in current doc   
-    //  Utilities.show(fr + " returned by call on findNext()");
-    
-    while (!fr.isWrapped() && fr.getFoundOffset() <= _selectionRegion.getEndOffset()) {
-      replaceCurrent();
-      count++;
-      //  Utilities.show("Found " + count + " occurrences. Calling findNext() inside loop");
-      fr = findNext(false);           // find next match in current doc
-      //  Utilities.show("Call on findNext() returned " + fr.toString() + "in doc '" + 
-      //    _doc.getText().substring(0,fr.getFoundOffset()) + "[|]" + _doc.getText().substring(fr.getFoundOffset()) + "'");
+    OpenDefinitionsDocument doc = _doc;
+    int key = doc.getUndoManager().startCompoundEdit();
+    try {
+      FindResult fr = findNext(false);  // find next match in current doc   
+      //  Utilities.show(fr + " returned by call on findNext()");
+      
+      while (!fr.isWrapped() && fr.getFoundOffset() <= _selectionRegion.getEndOffset()) {
+        replaceCurrent();
+        count++;
+        //  Utilities.show("Found " + count + " occurrences. Calling findNext() inside loop");
+        fr = findNext(false);           // find next match in current doc
+        //  Utilities.show("Call on findNext() returned " + fr.toString() + "in doc '" + 
+        //    _doc.getText().substring(0,fr.getFoundOffset()) + "[|]" + _doc.getText().substring(fr.getFoundOffset()) + "'");
+      }
     }
+    finally { doc.getUndoManager().endCompoundEdit(key); }
     return count;
   }
   
@@ -433,6 +477,56 @@ public class FindReplaceMachine {
     return count;
   }
   
+  /** Starts processing all occurrences of the find word in all documents in the background using a ParallelFinder.
+    * Documents are searched in the order processAll visits them, starting with _doc; documents that are not in memory
+    * are scanned from disk without being loaded.  The search options are copied when the search starts, so the state
+    * of this machine may be changed while the search runs.  Only executes in event thread.
+    * @param listener the listener that receives the results in the event thread
+    * @return the running search, which may be cancelled
+    */
+  public ParallelFinder processAllInBackground(ParallelFinder.Listener listener) {
+    
+    assert EventQueue.isDispatchThread();
+    
+    ParallelFinder finder = _newParallelFinder();
+    finder.start(_getDocumentsToSearch(_doc, _docIterator.getDocumentCount(), _ignoreTestCases), listener);
+    return finder;
+  }
+  
+  /** @return a new ParallelFinder for the current find word and search options. */
+  private ParallelFinder _newParallelFinder() {
+    return new ParallelFinder(_findWord, _matchCase, _matchWholeWord, _ignoreCommentsAndStrings);
+  }
+  
+  /** Collects the documents visited by a search through all documents.  Only executes in event thread.
+    * @param startDoc the first document
+    * @param n the number of documents to visit
+    * @param ignoreTestCases whether to leave out test case documents
+    * @return the documents in the order in which _docIterator visits them, stopping early if the user declines to
+    * continue past a missing file
+    */
+  private List<OpenDefinitionsDocument> _getDocumentsToSearch(OpenDefinitionsDocument startDoc, int n,
+                                                              boolean ignoreTestCases) {
+    List<OpenDefinitionsDocument> docs = new ArrayList<OpenDefinitionsDocument>(n);
+    OpenDefinitionsDocument doc = startDoc;
+    for (int i = 0; i < n && doc != null; i++) {
+      if (! ignoreTestCases || ! _isTestCase(doc)) docs.add(doc);
+      doc = _docIterator.getNextDocument(doc, _frame);
+    }
+    return docs;
+  }
+  
+  /** @param doc the document to check
+    * @return true if the name of doc marks it as a test case
+    */
+  private static boolean _isTestCase(OpenDefinitionsDocument doc) {
+    boolean inTestCase = false;
+    for(String ext: OptionConstants.LANGUAGE_LEVEL_EXTENSIONS) {
+      inTestCase |= doc.getFileName().endsWith("Test"+ext);
+    }
+    return inTestCase;
+  }
+  
   public FindResult findNext() { return findNext(_searchAllDocuments); }
   
   /** Finds the next occurrence of the find word and returns an offset at the end of that occurrence or -1 if the word
@@ -581,12 +675,7 @@ public class FindReplaceMachine {
     
     assert EventQueue.isDispatchThread();
 
-    boolean inTestCase = false;
-    for(String ext: OptionConstants.LANGUAGE_LEVEL_EXTENSIONS) {
-      inTestCase |= doc.getFileName().endsWith("Test"+ext);
-    }
-    
-    if (!_ignoreTestCases || ! inTestCase) {
+    if (!_ignoreTestCases || ! _isTestCase(doc)) {
       final int docLen = doc.getLength();;     // The length of the segment to be searched
       final int wordLen = _findWord.length();   // length of search key (word being searched for)
       
@@ -37,7 +37,9 @@
 package edu.rice.cs.drjava.model;
 
 import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.concurrent.CompletionMonitor;
 import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.lambda.Runnable1;
 import edu.rice.cs.util.StringOps;
 import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.swing.Utilities;
@@ -484,6 +486,51 @@ public class FindReplaceMachineTest extends DrJavaTestCase {
 //    System.err.println("testFindReplaceInAllOpenFilesWholeWord completed");
   }
   
+  /** Replace All over all documents in the background makes the same replacements as replaceAll(), and the
+    * replacements in each document are undone together.
+    * @throws BadLocationException if attempts to reference an invalid location
+    */
+  public void testReplaceAllInBackground() throws BadLocationException {
+    _doc.insertString(0, EVIL_TEXT, null);
+    _docPrev.insertString(0, EVIL_TEXT_PREV, null);
+    _docNext.insertString(0, EVIL_TEXT_NEXT, null);
+    for (OpenDefinitionsDocument doc: new OpenDefinitionsDocument[] { _doc, _docPrev, _docNext }) {
+      doc.addUndoableEditListener(doc.getUndoManager());  // normally done by the DefinitionsPane
+    }
+    _initFrm(0);
+    _frm.setFindWord("evil");
+    _frm.setReplaceWord("monkey");
+    _frm.setMatchCase(false);
+    _frm.setSearchBackwards(false);
+    _frm.setSearchAllDocuments(true);
+    
+    final CompletionMonitor done = new CompletionMonitor();
+    final int[] count = new int[1];
+    Utilities.invokeAndWait(new Runnable() { 
+      public void run() { 
+        _frm.replaceAllInBackground(new Runnable1<Integer>() {
+          public void run(Integer c) { count[0] = c; done.signal(); }
+        });
+      } 
+    });
+    assertTrue("Replace All completes", done.attemptEnsureSignaled(10000));
+    assertEquals("replacements", 9, count[0]);
+    assertEquals("revised text", "Hear no monkey, see no monkey, speak no monkey.", _doc.getText());
+    assertEquals("revised text", "Hear no monkeyprev, see no monkeyprev, speak no monkeyprev.", _docPrev.getText());
+    assertEquals("revised text", "Hear no monkeynext, see no monkeynext, speak no monkeynext.", _docNext.getText());
+    
+    Utilities.invokeAndWait(new Runnable() { 
+      public void run() { 
+        _doc.getUndoManager().undo();
+        _docPrev.getUndoManager().undo();
+        _docNext.getUndoManager().undo();
+      } 
+    });
+    assertEquals("undone text", EVIL_TEXT, _doc.getText());
+    assertEquals("undone text", EVIL_TEXT_PREV, _docPrev.getText());
+    assertEquals("undone text", EVIL_TEXT_NEXT, _docNext.getText());
+  }
+  
   public void testFindMultiLine() throws BadLocationException {
 //    System.err.println("testFindMultiLine");
     _doc.insertString(0, FIND_WHOLE_WORD_TEST_1, null);
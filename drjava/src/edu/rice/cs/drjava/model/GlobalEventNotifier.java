@@ -38,6 +38,7 @@ package edu.rice.cs.drjava.model;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import edu.rice.cs.drjava.model.compiler.CompilerListener;
 import edu.rice.cs.util.FileOpenSelector;
@@ -423,6 +424,13 @@ public class GlobalEventNotifier extends EventNotifier<GlobalModelListener>
     finally { _lock.endRead(); }
   }
   
+  /** Called when a compile has finished running, with the time spent in each of its phases. */
+  public void compilePhaseTimes(Map<String, Long> phaseTimes) {
+    _lock.startRead();
+    try { for (GlobalModelListener l : _listeners) { l.compilePhaseTimes(phaseTimes); } }
+    finally { _lock.endRead(); }
+  }
+  
    /** Called if a compile is aborted. */
   public void compileAborted(Exception e) {
     _lock.startRead();
@@ -535,6 +543,13 @@ public class GlobalEventNotifier extends EventNotifier<GlobalModelListener>
     finally { _lock.endRead(); }
   }
   
+  /** Called after the tests of a run have finished, with the time spent in each phase of the run. */
+  public void junitPhaseTimes(Map<String, Long> phaseTimes) {
+    _lock.startRead();
+    try { for (GlobalModelListener l : _listeners) { l.junitPhaseTimes(phaseTimes); } }
+    finally { _lock.endRead(); }
+  }
+  
 //  /** Called to demand that all files be saved before running JUnit tests. It is up to the caller of this 
 //    * method to check if the documents have been saved, using IGetDocuments.hasModifiedDocuments(). This is 
 //    * never called currently, but it is commented out in case it is needed later. */
@@ -62,6 +62,7 @@ import java.io.IOException;
 import java.rmi.UnmarshalException;
 import java.util.regex.*;
 import java.util.List;
+import java.util.Map;
 
 import static edu.rice.cs.plt.debug.DebugUtil.debug;
 
@@ -946,6 +947,7 @@ public abstract class GlobalModelTestCase extends MultiThreadedTestCase {
       listenerFail("junitTestEnded fired unexpectedly");
     }
     public void junitEnded() { listenerFail("junitEnded fired unexpectedly"); }
+    public void junitPhaseTimes(Map<String, Long> phaseTimes) { /* accompanies every completed test run */ }
     
     public void javadocStarted() { listenerFail("javadocStarted fired unexpectedly"); }
     public void javadocEnded(boolean success, File destDir, boolean allDocs) {
@@ -970,6 +972,7 @@ public abstract class GlobalModelTestCase extends MultiThreadedTestCase {
       listenerFail("compileEnded fired unexpectedly"); 
     }
     public void compileAborted(Exception e) { listenerFail("compileAborted fired unexpectedly"); }
+    public void compilePhaseTimes(Map<String, Long> phaseTimes) { /* accompanies every compileEnded */ }
     public void activeCompilerChanged() { listenerFail("activeCompilerChanged fired unexpectedly"); }
 
     public void prepareForRun(OpenDefinitionsDocument doc) { listenerFail("prepareForRun fired unexpectedly"); }
@@ -0,0 +1,139 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.util.List;
+import java.util.TreeMap;
+
+import edu.rice.cs.drjava.model.definitions.reducedmodel.HighlightStatus;
+
+/** A cache of the highlight runs of the lines of a document, keyed by line start offset.  The runs of a line are
+  * stored as a flat array of (location, length, state) triples so that painting a line whose runs are cached does
+  * not allocate.  Because a change in comment or quote state propagates forward, an edit at offset {@code k}
+  * discards the runs of the line containing {@code k} and of all following lines.  The cache holds a bounded number
+  * of lines; when it is full, the line farthest from the most recently requested line is evicted, so the retained
+  * lines follow the viewport as it scrolls.
+  * @version $Id$
+  */
+class HighlightCache {
+  
+  /** The default maximum number of lines retained. */
+  public static final int DEFAULT_CAPACITY = 2048;
+  
+  /** An empty run array, returned for empty lines. */
+  static final int[] NO_RUNS = new int[0];
+  
+  /** The cached runs, keyed by the start offset of their line. */
+  private final TreeMap<Integer, int[]> _runs = new TreeMap<Integer, int[]>();
+  
+  private final int _capacity;
+  
+  /** The line start offset of the most recent lookup. */
+  private int _lastLineStart = 0;
+  
+  private long _hits = 0;
+  private long _misses = 0;
+  
+  /** Creates a cache holding at most DEFAULT_CAPACITY lines. */
+  public HighlightCache() { this(DEFAULT_CAPACITY); }
+  
+  /** Creates a cache holding at most capacity lines.
+    * @param capacity the maximum number of lines to retain
+    */
+  public HighlightCache(int capacity) { _capacity = capacity; }
+  
+  /** @param lineStart the start offset of a line
+    * @return the cached runs of the line, or null if they are not cached
+    */
+  public synchronized int[] get(int lineStart) {
+    _lastLineStart = lineStart;
+    int[] runs = _runs.get(lineStart);
+    if (runs == null) _misses++;
+    else _hits++;
+    return runs;
+  }
+  
+  /** Records the runs of a line.
+    * @param lineStart the start offset of the line
+    * @param runs the runs of the line as (location, length, state) triples
+    */
+  public synchronized void put(int lineStart, int[] runs) {
+    _runs.put(lineStart, runs);
+    while (_runs.size() > _capacity) {
+      int first = _runs.firstKey();
+      int last = _runs.lastKey();
+      _runs.remove((_lastLineStart - first > last - _lastLineStart) ? first : last);
+    }
+  }
+  
+  /** Discards the runs of the line containing offset and of all following lines.
+    * @param offset the offset of the leftmost changed character
+    */
+  public synchronized void clear(int offset) {
+    Integer lineStart = _runs.floorKey(offset);
+    if (lineStart == null) _runs.clear();
+    else _runs.tailMap(lineStart).clear();
+  }
+  
+  /** Discards all cached runs. */
+  public synchronized void clear() { _runs.clear(); }
+  
+  /** @return the number of lines currently cached */
+  public synchronized int size() { return _runs.size(); }
+  
+  /** @return the number of lookups that found cached runs */
+  public synchronized long getHits() { return _hits; }
+  
+  /** @return the number of lookups that found no cached runs */
+  public synchronized long getMisses() { return _misses; }
+  
+  /** Converts a list of highlight statuses into a flat run array.
+    * @param stats the highlight statuses
+    * @return the corresponding (location, length, state) triples
+    */
+  static int[] toRuns(List<HighlightStatus> stats) {
+    if (stats.isEmpty()) return NO_RUNS;
+    int[] runs = new int[3 * stats.size()];
+    int i = 0;
+    for (HighlightStatus stat: stats) {
+      runs[i++] = stat.getLocation();
+      runs[i++] = stat.getLength();
+      runs[i++] = stat.getState();
+    }
+    return runs;
+  }
+}
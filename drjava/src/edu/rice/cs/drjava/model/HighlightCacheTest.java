@@ -0,0 +1,140 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model;
+
+import java.util.ArrayList;
+
+import javax.swing.text.BadLocationException;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
+import edu.rice.cs.drjava.model.definitions.reducedmodel.HighlightStatus;
+import edu.rice.cs.util.UnexpectedException;
+import edu.rice.cs.util.swing.Utilities;
+
+/** Tests the invalidation and eviction of HighlightCache and its use by AbstractDJDocument.
+  * @version $Id$
+  */
+public final class HighlightCacheTest extends DrJavaTestCase {
+  
+  public void testClearFromOffset() {
+    HighlightCache cache = new HighlightCache();
+    cache.put(0, new int[] { 0, 5, HighlightStatus.NORMAL });
+    cache.put(6, new int[] { 6, 5, HighlightStatus.NORMAL });
+    cache.put(12, new int[] { 12, 5, HighlightStatus.NORMAL });
+    
+    cache.clear(8);
+    assertNotNull("line before edit survives", cache.get(0));
+    assertNull("line containing edit is dropped", cache.get(6));
+    assertNull("following line is dropped", cache.get(12));
+    assertEquals("size after clear", 1, cache.size());
+    
+    cache.put(6, HighlightCache.NO_RUNS);
+    cache.clear(3);
+    assertEquals("size after clear at start", 0, cache.size());
+  }
+  
+  public void testEvictsFarthestLine() {
+    HighlightCache cache = new HighlightCache(2);
+    cache.put(0, HighlightCache.NO_RUNS);
+    cache.put(10, HighlightCache.NO_RUNS);
+    cache.get(20);  // the viewport has scrolled down
+    cache.put(20, HighlightCache.NO_RUNS);
+    assertEquals("size", 2, cache.size());
+    assertNull("top line evicted", cache.get(0));
+    assertNotNull("nearby line retained", cache.get(10));
+    assertEquals("hits", 1, cache.getHits());
+    assertEquals("misses", 2, cache.getMisses());
+  }
+  
+  /** Runs from the cache must match the highlight status of the line and must be refreshed after edits. */
+  public void testDocumentLineRuns() {
+    final DefinitionsDocument doc = new DefinitionsDocument(new GlobalEventNotifier());
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          doc.insertString(0, "int x = 1;\nString s = \"a\";\n", null);
+          int[] runs = doc.getLineHighlightRuns(13);
+          assertRunsMatch(doc, 11, 27, runs);
+          assertSame("second lookup is cached", runs, doc.getLineHighlightRuns(11));
+          
+          doc.insertString(0, "/*", null);
+          int[] commented = doc.getLineHighlightRuns(13);
+          assertRunsMatch(doc, 13, 29, commented);
+          assertEquals("line is now commented", HighlightStatus.COMMENTED, commented[2]);
+          assertTrue("cache hits", doc.getHighlightCacheHits() > 0);
+        }
+        catch (BadLocationException e) { throw new UnexpectedException(e); }
+      }
+    });
+  }
+  
+  /** Undo replays the reduced model change without insertUpdate/removeUpdate; the cached runs must still be dropped. */
+  public void testUndoRefreshesLineRuns() {
+    final DefinitionsDocument doc = new DefinitionsDocument(new GlobalEventNotifier());
+    doc.addUndoableEditListener(doc.getUndoManager());
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          doc.insertString(0, "int x = 1;\nString s = \"a\";\n", null);
+          int key = doc.getUndoManager().startCompoundEdit();
+          doc.insertString(0, "/*", null);
+          doc.getUndoManager().endCompoundEdit(key);
+          assertEquals("line is commented", HighlightStatus.COMMENTED, doc.getLineHighlightRuns(0)[2]);
+          
+          doc.getUndoManager().undo();
+          int[] runs = doc.getLineHighlightRuns(0);
+          assertRunsMatch(doc, 0, 11, runs);
+          assertTrue("line is no longer commented", runs[2] != HighlightStatus.COMMENTED);
+          
+          doc.getUndoManager().redo();
+          assertEquals("line is commented after redo", HighlightStatus.COMMENTED, doc.getLineHighlightRuns(0)[2]);
+        }
+        catch (BadLocationException e) { throw new UnexpectedException(e); }
+      }
+    });
+  }
+  
+  private static void assertRunsMatch(AbstractDJDocument doc, int start, int end, int[] runs) {
+    ArrayList<HighlightStatus> stats = doc.getHighlightStatus(start, end);
+    assertEquals("run count", 3 * stats.size(), runs.length);
+    for (int i = 0; i < stats.size(); i++) {
+      assertEquals("location", stats.get(i).getLocation(), runs[3 * i]);
+      assertEquals("length", stats.get(i).getLength(), runs[3 * i + 1]);
+      assertEquals("state", stats.get(i).getState(), runs[3 * i + 2]);
+    }
+  }
+}
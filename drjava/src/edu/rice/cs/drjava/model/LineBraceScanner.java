@@ -0,0 +1,134 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.util.Arrays;
+
+import edu.rice.cs.drjava.model.definitions.reducedmodel.BraceInfo;
+
+import static edu.rice.cs.drjava.model.definitions.reducedmodel.ReducedModelStates.*;
+
+/** Computes the line enclosing braces of successive lines of a document in a single forward pass.  The reduced model
+  * answers {@link AbstractDJDocument#_getLineEnclosingBrace} by searching backward from the start of the line, which
+  * (during a block indent) is repeated for every line, and edits invalidate the cached answers.  This scanner instead
+  * keeps a stack of the unmatched braces preceding the scanned offset.  Matching pairs cancel as they are scanned, so
+  * the backward search would find exactly the top of the stack: the enclosing brace of a line is the top brace if it
+  * is an opening brace, and there is none if it is a closing brace (a mismatch) or the stack is empty.
+  * <p>
+  * Scanning only moves forward.  An edit at or after the scanned offset does not affect the stack (text preceding
+  * the offset, and thus its comment and quote state, is unchanged), so the whitespace edits made as each line is
+  * indented are harmless; an edit preceding the scanned offset disables the scanner.  Only runs in the event thread.
+  * @version $Id$
+  */
+class LineBraceScanner {
+  
+  private final AbstractDJDocument _doc;
+  
+  /** The unmatched (non-shadowed) braces preceding _scanned, and their offsets. */
+  private char[] _braces = new char[16];
+  private int[] _offsets = new int[16];
+  private int _size = 0;
+  
+  /** The offset up to which the document has been scanned; -1 if the scanner has been disabled by an edit. */
+  private int _scanned = 0;
+  
+  /** @param doc the document to scan */
+  public LineBraceScanner(AbstractDJDocument doc) { _doc = doc; }
+  
+  /** @param lineStart the start offset of a line
+    * @return the brace enclosing the start of the line, as computed by the reduced model, or null if this scanner
+    *         cannot answer (because the line precedes the scanned offset or the scanner has been disabled) 
+    */
+  public BraceInfo lineEnclosingBrace(int lineStart) {
+    if (_scanned < 0 || lineStart < _scanned) return null;
+    _scanTo(lineStart);
+    if (_size == 0 || ! _isOpening(_braces[_size - 1])) return BraceInfo.NULL;
+    return new BraceInfo(String.valueOf(_braces[_size - 1]), lineStart - _offsets[_size - 1]);
+  }
+  
+  /** Records an edit of the document.
+    * @param offset the offset of the inserted or removed text
+    */
+  public void textChanged(int offset) { if (offset < _scanned) _scanned = -1; }
+  
+  /** Scans the text from _scanned to end, pushing and cancelling braces that are not shadowed by comments or
+    * quotes.  The state of each brace is read from the reduced model, whose location is then restored.
+    * @param end the offset up to which to scan
+    */
+  private void _scanTo(int end) {
+    if (end == _scanned) return;
+    final String text = _doc._getText(_scanned, end - _scanned);
+    final int origLocation = _doc.getCurrentLocation();
+    try {
+      for (int i = 0; i < text.length(); i++) {
+        final char c = text.charAt(i);
+        if (c != '{' && c != '}' && c != '(' && c != ')' && c != '[' && c != ']') continue;
+        final int offset = _scanned + i;
+        _doc.setCurrentLocation(offset);
+        if (_doc.getStateAtCurrent() != FREE) continue;
+        if (_size > 0 && _braces[_size - 1] == _opening(c)) _size--;
+        else _push(c, offset);
+      }
+    }
+    finally { _doc.setCurrentLocation(origLocation); }
+    _scanned = end;
+  }
+  
+  private void _push(char c, int offset) {
+    if (_size == _braces.length) {
+      _braces = Arrays.copyOf(_braces, 2 * _size);
+      _offsets = Arrays.copyOf(_offsets, 2 * _size);
+    }
+    _braces[_size] = c;
+    _offsets[_size] = offset;
+    _size++;
+  }
+  
+  private static boolean _isOpening(char c) { return c == '{' || c == '(' || c == '['; }
+  
+  /** @param c a brace character
+    * @return the opening brace matched by c if c is a closing brace; otherwise a character matching no brace 
+    */
+  private static char _opening(char c) {
+    switch (c) {
+      case '}': return '{';
+      case ')': return '(';
+      case ']': return '[';
+      default: return '\0';
+    }
+  }
+}
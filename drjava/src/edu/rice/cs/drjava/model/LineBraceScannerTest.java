@@ -0,0 +1,114 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import javax.swing.text.BadLocationException;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
+import edu.rice.cs.drjava.model.definitions.reducedmodel.BraceInfo;
+import edu.rice.cs.util.UnexpectedException;
+import edu.rice.cs.util.swing.Utilities;
+
+/** Tests that LineBraceScanner finds the same line enclosing braces as the reduced model.
+  * @version $Id$
+  */
+public final class LineBraceScannerTest extends DrJavaTestCase {
+  
+  private static final String[] TEXTS = {
+    "{\nfoo();\n}\n",
+    "class A {\n  void m(int x,\n int y) {\n    if (x < y) {\n      int[] a = new int[] { 1,\n 2 };\n    }\n  }\n}\n",
+    "/* { ( [ */\nfoo(\"{\", '(',\n// )\n']');\n}\nbar[\n1];\n",
+    "/**\n * {@link Foo}\n */\nclass B {\n  String s = \"a\\\"{\";\n  char c = '\\'';\n  { x(); }\n}\n",
+    "( ]\nfoo;\n}\n{\n(\n",
+    "}}}\n{\n  ((\n)\n]\n",
+    "\n\n{\n\n  (\n\n",
+  };
+  
+  /** Compares the scanner with the reduced model on every line of each text. */
+  public void testMatchesReducedModel() {
+    for (final String text : TEXTS) {
+      final DefinitionsDocument doc = new DefinitionsDocument(new GlobalEventNotifier());
+      Utilities.invokeAndWait(new Runnable() {
+        public void run() {
+          try {
+            doc.insertString(0, text, null);
+            LineBraceScanner scanner = new LineBraceScanner(doc);
+            int lineStart = 0;
+            while (lineStart <= doc.getLength()) {
+              doc.setCurrentLocation(lineStart);
+              BraceInfo expected = doc._getLineEnclosingBrace();
+              BraceInfo actual = scanner.lineEnclosingBrace(lineStart);
+              String where = "line at " + lineStart + " of " + text;
+              assertEquals("brace type of " + where, expected.braceType(), actual.braceType());
+              if (! expected.braceType().equals(BraceInfo.NONE)) {
+                assertEquals("distance of " + where, expected.distance(), actual.distance());
+              }
+              assertEquals("location restored", lineStart, doc.getCurrentLocation());
+              int newline = text.indexOf('\n', lineStart);
+              if (newline < 0) break;
+              lineStart = newline + 1;
+            }
+          }
+          catch (BadLocationException e) { throw new UnexpectedException(e); }
+        }
+      });
+    }
+  }
+  
+  /** Edits following the scanned offset are allowed; an edit preceding it disables the scanner. */
+  public void testEditsPrecedingScannedOffset() {
+    final DefinitionsDocument doc = new DefinitionsDocument(new GlobalEventNotifier());
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          doc.insertString(0, "{\nfoo(\nbar);\n}\n", null);
+          LineBraceScanner scanner = new LineBraceScanner(doc);
+          assertEquals("first line", BraceInfo.OPEN_CURLY, scanner.lineEnclosingBrace(2).braceType());
+          doc.insertString(2, "  ", null);
+          scanner.textChanged(2);
+          assertEquals("paren line", BraceInfo.OPEN_PAREN, scanner.lineEnclosingBrace(9).braceType());
+          assertEquals("paren distance", 2, scanner.lineEnclosingBrace(9).distance());
+          scanner.textChanged(4);
+          assertNull("line preceding scanned offset", scanner.lineEnclosingBrace(2));
+          assertNull("disabled scanner", scanner.lineEnclosingBrace(15));
+        }
+        catch (BadLocationException e) { throw new UnexpectedException(e); }
+      }
+    });
+  }
+}
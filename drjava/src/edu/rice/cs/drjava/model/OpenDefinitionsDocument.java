@@ -149,6 +149,11 @@ public interface OpenDefinitionsDocument extends DJDocument, Finalizable<Definit
   /** @return true if this document is resident in memory. */ 
   public boolean isReady();
   
+  /** Asks the document cache to reconstruct this document in the background if it is not resident, because it is
+    * likely to be needed soon.
+    */
+  public void prewarm();
+  
   /** Returns whether this document is currently untitled (indicating whether it has a file yet or not).
    *  @return true if the document is untitled and has no file
    */
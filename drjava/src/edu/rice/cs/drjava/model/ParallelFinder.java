@@ -0,0 +1,450 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.swing.text.BadLocationException;
+
+import edu.rice.cs.drjava.model.definitions.reducedmodel.ShadowingLexer;
+import edu.rice.cs.plt.lambda.Runnable1;
+import edu.rice.cs.util.Log;
+import edu.rice.cs.util.UnexpectedException;
+
+/** Finds all occurrences of a string in a list of open documents without forcing every document to be reconstructed
+  * by the DocumentCache.  Documents that are not resident in memory (and hence cannot have been modified) are read
+  * straight from their files and scanned in parallel on a shared fork-join pool.  Only documents that
+  * are resident, that have no backing file, or that turn out to contain matches are touched in memory, and that work
+  * is done in the event thread one document at a time.  Matches are reported to a {@link Listener} in document order
+  * as soon as all preceding documents have been searched, and a search in progress can be cancelled.
+  * <p>
+  * Matching follows FindReplaceMachine: occurrences do not overlap, case is folded with toLowerCase when case is
+  * ignored, whole words are delimited by anything other than letters, digits, and '_', and matches that begin in a
+  * comment or string are dropped when so requested.  Comments and strings are recognized by a ShadowingLexer for text
+  * read from disk and by the reduced model for documents searched in memory.
+  * @version $Id$
+  */
+public class ParallelFinder {
+  
+  static final Log _log = new Log("ParallelFinder.txt", false);
+  
+  /** Receives the results of a search.  Both methods are called in the event thread. */
+  public interface Listener {
+    /** Called with the matches found in one document, sorted by offset.  Each FindResult holds the right edge of the
+      * match, as forward searches in FindReplaceMachine do.
+      * @param results the non-empty list of matches in a single document
+      */
+    public void resultsFound(List<FindResult> results);
+    
+    /** Called once, after the last document has been searched or after the search has been cancelled.
+      * @param count the number of matches reported to resultsFound
+      * @param cancelled true if the search was cancelled before it completed
+      */
+    public void searchFinished(int count, boolean cancelled);
+  }
+  
+  /** Marker for a document whose file could not be read; it is searched in memory instead. */
+  private static final int[] READ_FAILED = new int[0];
+  
+  /** Maximum time in milliseconds spent searching in-memory documents before yielding the event thread. */
+  private static final long TIME_SLICE = 50;
+  
+  /** Shared pool for scanning files; created lazily, its worker threads are daemon threads. */
+  private static volatile ForkJoinPool _pool = null;
+  
+  private final String _findWord;
+  private final boolean _matchCase;
+  private final boolean _matchWholeWord;
+  private final boolean _ignoreCommentsAndStrings;
+  
+  private volatile boolean _cancelled = false;
+  private volatile boolean _finished = false;
+  
+  /* State of a running search.  Apart from _scanned and _drainPosted, it is only accessed in the event thread. */
+  private OpenDefinitionsDocument[] _docs;
+  private boolean[] _onDisk;
+  private long[] _stamps;
+  private AtomicReferenceArray<int[]> _scanned;
+  private final AtomicBoolean _drainPosted = new AtomicBoolean(false);
+  private Listener _listener;
+  private int _next;
+  private int _count;
+  
+  /** Posted to the event thread whenever a file scan completes; delivers results in document order. */
+  private final Runnable _drain = new Runnable() { public void run() { _drain(); } };
+  
+  /** Creates a finder for the given string and options.
+    * @param findWord the string to find; must not be empty
+    * @param matchCase true if the search is case-sensitive
+    * @param matchWholeWord true if only whole words match
+    * @param ignoreCommentsAndStrings true if matches in comments and strings are ignored
+    */
+  public ParallelFinder(String findWord, boolean matchCase, boolean matchWholeWord, boolean ignoreCommentsAndStrings) {
+    assert findWord.length() > 0;
+    _findWord = findWord;
+    _matchCase = matchCase;
+    _matchWholeWord = matchWholeWord;
+    _ignoreCommentsAndStrings = ignoreCommentsAndStrings;
+  }
+  
+  /** @return the shared fork-join pool used to scan files. */
+  private static ForkJoinPool _getPool() {
+    if (_pool == null) {
+      synchronized(ParallelFinder.class) {
+        if (_pool == null) _pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+      }
+    }
+    return _pool;
+  }
+  
+  /** Starts searching the given documents and returns immediately.  Files are scanned in the background; results are
+    * passed to listener in the event thread.  May only be called once per finder.  Only runs in the event thread.
+    * @param docs the documents to search, in the order in which results should be reported
+    * @param listener the listener that receives the results
+    */
+  public void start(List<OpenDefinitionsDocument> docs, Listener listener) {
+    assert EventQueue.isDispatchThread();
+    assert _listener == null;
+    
+    _listener = listener;
+    _init(docs);
+    _log.log("start: " + _docs.length + " documents");
+    if (_docs.length > 0) _getPool().execute(new ScanAction(0, _docs.length, true));
+    _postDrain();
+  }
+  
+  /** Determines which of the given documents may contain matches, scanning files in parallel and waiting for the
+    * result.  Documents searched in memory are always included, so the caller must still search them; documents read
+    * from disk are included only if their files contain a match.  Blocks the event thread until every file has been
+    * scanned; see {@link #findCandidates(List, Runnable1)}.  Only runs in the event thread.
+    * @param docs the documents to examine
+    * @return the set of documents that need to be searched in memory
+    */
+  public Set<OpenDefinitionsDocument> findCandidates(List<OpenDefinitionsDocument> docs) {
+    assert EventQueue.isDispatchThread();
+    
+    _init(docs);
+    if (_docs.length > 0) _getPool().invoke(new ScanAction(0, _docs.length, false));
+    return _candidates();
+  }
+  
+  /** Like {@link #findCandidates(List)}, but scans the files in the background and returns immediately.  The set of 
+    * candidates is computed in the event thread once every file has been scanned, so a document that has been edited 
+    * or whose file has changed in the meantime is included.  Only runs in the event thread.
+    * @param docs the documents to examine
+    * @param callback receives the set of documents that need to be searched in memory, in the event thread
+    */
+  public void findCandidates(List<OpenDefinitionsDocument> docs, 
+                             final Runnable1<Set<OpenDefinitionsDocument>> callback) {
+    assert EventQueue.isDispatchThread();
+    
+    _init(docs);
+    _getPool().execute(new RecursiveAction() {
+      protected void compute() {
+        try { if (_docs.length > 0) new ScanAction(0, _docs.length, false).invoke(); }
+        finally {
+          // a file whose scan failed has no result, so its document is searched in memory
+          EventQueue.invokeLater(new Runnable() { public void run() { callback.run(_candidates()); } });
+        }
+      }
+    });
+  }
+  
+  /** Collects the documents that must be searched in memory after the files have been scanned: those that are not 
+    * read from disk, whose files could not be scanned or contain a match, or whose scan is stale.  Only runs in the 
+    * event thread.
+    */
+  private Set<OpenDefinitionsDocument> _candidates() {
+    Set<OpenDefinitionsDocument> candidates = new HashSet<OpenDefinitionsDocument>();
+    for (int i = 0; i < _docs.length; i++) {
+      int[] offsets = _scanned.get(i);
+      if (! _onDisk[i] || offsets == null || offsets == READ_FAILED || offsets.length > 0 || _isStale(i)) {
+        candidates.add(_docs[i]);
+      }
+    }
+    _log.log("findCandidates: " + candidates.size() + " of " + _docs.length + " documents");
+    return candidates;
+  }
+  
+  /** @return true if the document at index i has been loaded and edited or its file has changed since the search
+    * started, so its file scan does not reflect its text */
+  private boolean _isStale(int i) {
+    return _docs[i].isModifiedSinceSave() || _docs[i].getRawFile().lastModified() != _stamps[i];
+  }
+  
+  /** Cancels the search.  No results are reported after this call; searchFinished is called with cancelled set to
+    * true unless the search has already finished.  Only runs in the event thread.
+    */
+  public void cancel() {
+    assert EventQueue.isDispatchThread();
+    _cancelled = true;
+    _postDrain();
+  }
+  
+  /** @return true if the search has been cancelled. */
+  public boolean isCancelled() { return _cancelled; }
+  
+  /** @return true if searchFinished has been called. */
+  public boolean isFinished() { return _finished; }
+  
+  /** Records the documents to search and decides which of them can be read from disk.  A document is read from disk
+    * only if it is not resident in memory (so it cannot be modified) and has an existing file.
+    * @param docs the documents to search
+    */
+  private void _init(List<OpenDefinitionsDocument> docs) {
+    final int n = docs.size();
+    _docs = docs.toArray(new OpenDefinitionsDocument[n]);
+    _onDisk = new boolean[n];
+    _stamps = new long[n];
+    _scanned = new AtomicReferenceArray<int[]>(n);
+    for (int i = 0; i < n; i++) {
+      OpenDefinitionsDocument doc = _docs[i];
+      File f = doc.getRawFile();
+      if (! doc.isReady() && ! doc.isUntitled() && f.isFile()) {
+        _onDisk[i] = true;
+        _stamps[i] = f.lastModified();
+      }
+    }
+  }
+  
+  /** Scans the files of the documents in a range of indices, splitting the range in halves.  Must not touch any
+    * document text, since it runs outside the event thread.
+    */
+  private class ScanAction extends RecursiveAction {
+    private final int _lo;
+    private final int _hi;
+    private final boolean _notify;
+    
+    ScanAction(int lo, int hi, boolean notify) {
+      _lo = lo;
+      _hi = hi;
+      _notify = notify;
+    }
+    
+    protected void compute() {
+      if (_hi - _lo > 1) {
+        int mid = (_lo + _hi) >>> 1;
+        invokeAll(new ScanAction(_lo, mid, _notify), new ScanAction(mid, _hi, _notify));
+        return;
+      }
+      if (! _onDisk[_lo] || _cancelled) return;
+      int[] offsets;
+      try {
+        String text = readSwingText(_docs[_lo].getRawFile());
+        offsets = findMatches(text);
+        if (_ignoreCommentsAndStrings) offsets = removeShadowed(text, offsets);
+      }
+      catch (IOException e) {
+        _log.log("Could not read " + _docs[_lo].getRawFile() + ": " + e);
+        offsets = READ_FAILED;
+      }
+      _scanned.set(_lo, offsets);
+      if (_notify) {
+        if (offsets != READ_FAILED && offsets.length > 0) _docs[_lo].prewarm();  // results will need the document
+        _postDrain();
+      }
+    }
+  }
+  
+  /** Schedules _drain in the event thread unless it is already scheduled. */
+  private void _postDrain() {
+    if (_drainPosted.compareAndSet(false, true)) EventQueue.invokeLater(_drain);
+  }
+  
+  /** Reports the results of every document whose turn has come and whose search is complete.  Documents searched in
+    * memory are searched here; after TIME_SLICE milliseconds the remaining work is rescheduled so that the event
+    * thread stays responsive.  Only runs in the event thread.
+    */
+  private void _drain() {
+    assert EventQueue.isDispatchThread();
+    
+    _drainPosted.set(false);
+    if (_finished) return;
+    
+    final long startTime = System.currentTimeMillis();
+    while (! _cancelled && _next < _docs.length) {
+      if (System.currentTimeMillis() - startTime > TIME_SLICE) { _postDrain(); return; }
+      
+      final OpenDefinitionsDocument doc = _docs[_next];
+      int[] offsets = null;  // null until the matches are known
+      if (_onDisk[_next]) {
+        offsets = _scanned.get(_next);
+        if (offsets == null) return;  // not scanned yet; the scan will post another drain
+        if (offsets == READ_FAILED || _isStale(_next)) offsets = null;
+      }
+      final boolean inMemory = (offsets == null);
+      if (inMemory) offsets = _findMatchesInMemory(doc);
+      _next++;
+      
+      List<FindResult> results = new ArrayList<FindResult>(offsets.length);
+      final int wordLen = _findWord.length();
+      for (int offset: offsets) {
+        // matches read from disk have already been filtered by a ShadowingLexer
+        if (inMemory && _ignoreCommentsAndStrings && doc.isShadowed(offset)) continue;
+        results.add(new FindResult(doc, offset + wordLen, false, false));
+      }
+      if (results.size() > 0) {
+        _count += results.size();
+        _listener.resultsFound(results);
+      }
+    }
+    
+    _finished = true;
+    _log.log("finished: " + _count + " matches, cancelled = " + _cancelled);
+    _listener.searchFinished(_count, _cancelled);
+  }
+  
+  /** Finds the matches in the in-memory text of a document.  Only runs in the event thread.
+    * @param doc the document to search
+    * @return the left edges of the matches
+    */
+  private int[] _findMatchesInMemory(OpenDefinitionsDocument doc) {
+    try { return findMatches(doc.getText(0, doc.getLength())); }
+    catch (BadLocationException e) { throw new UnexpectedException(e); }
+  }
+  
+  /** Finds the non-overlapping occurrences of the find word in text, honoring the case and whole-word options but
+    * not the comments-and-strings option, which requires a reduced model.
+    * @param text the text to search
+    * @return the left edges of the matches, in increasing order
+    */
+  int[] findMatches(String text) {
+    final String searchText = _matchCase ? text : text.toLowerCase();
+    final String findWord = _matchCase ? _findWord : _findWord.toLowerCase();
+    final int wordLen = findWord.length();
+    
+    int[] offsets = new int[8];
+    int count = 0;
+    int from = 0;
+    while (true) {
+      int found = searchText.indexOf(findWord, from);
+      if (found < 0) break;
+      from = found + wordLen;  // skip over the match even if it is rejected, as FindReplaceMachine does
+      if (_matchWholeWord && ! _isWholeWord(text, found, found + _findWord.length())) continue;
+      if (count == offsets.length) {
+        int[] larger = new int[2 * count];
+        System.arraycopy(offsets, 0, larger, 0, count);
+        offsets = larger;
+      }
+      offsets[count++] = found;
+    }
+    int[] result = new int[count];
+    System.arraycopy(offsets, 0, result, 0, count);
+    return result;
+  }
+  
+  /** Removes the matches that begin inside a comment or a string, as classified by a ShadowingLexer.
+    * @param text the text that was searched
+    * @param offsets the left edges of the matches, in increasing order
+    * @return the left edges of the matches that are not shadowed
+    */
+  static int[] removeShadowed(CharSequence text, int[] offsets) {
+    ShadowingLexer lexer = new ShadowingLexer(text);
+    int count = 0;
+    int[] result = new int[offsets.length];
+    for (int offset: offsets) {
+      if (! lexer.isShadowed(offset)) result[count++] = offset;
+    }
+    if (count == offsets.length) return offsets;
+    int[] trimmed = new int[count];
+    System.arraycopy(result, 0, trimmed, 0, count);
+    return trimmed;
+  }
+  
+  /** @return true if the characters surrounding text[start, end) are delimiters or lie outside text. */
+  private static boolean _isWholeWord(String text, int start, int end) {
+    return (start == 0 || _isDelimiter(text.charAt(start - 1))) && (end >= text.length() || _isDelimiter(text.charAt(end)));
+  }
+  
+  /** @return true if ch is a delimiter, i.e. neither a letter, a digit, nor '_'. */
+  private static boolean _isDelimiter(char ch) { return ! Character.isLetterOrDigit(ch) && ch != '_'; }
+  
+  /** Reads a file and converts it to the text a DefinitionsDocument would hold, exactly as
+    * FileOps.readFileAsSwingText does: "\r\n" and "\r" become "\n", and other control characters become spaces.
+    * The file is read into a heap buffer rather than mapped: a mapping is only released when it is garbage collected,
+    * and until then it keeps the file from being deleted or renamed on Windows.
+    * @param file the file to read
+    * @return the text of the document loaded from file
+    * @throws IOException if the file cannot be read
+    */
+  static String readSwingText(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) throw new IOException(file + " is too large to open");
+      ByteBuffer bytes = ByteBuffer.allocate((int) size);
+      while (bytes.hasRemaining() && channel.read(bytes) >= 0) { }
+      bytes.flip();
+      CharsetDecoder decoder = Charset.forName("UTF-8").newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+      CharBuffer chars = decoder.decode(bytes);
+      
+      final int len = chars.remaining();
+      final char[] buf = new char[len];
+      int count = 0;
+      char pred = (char) 0;
+      for (int i = 0; i < len; i++) {
+        char c = chars.get(i);
+        if (c == '\n' && pred == '\r') { }  // ignore second character of "\r\n"
+        else if (c == '\r') buf[count++] = '\n';
+        else if (c < 32 && c != '\n') buf[count++] = ' ';
+        else buf[count++] = c;
+        pred = c;
+      }
+      return new String(buf, 0, count);
+    }
+    finally { in.close(); }
+  }
+}
@@ -0,0 +1,243 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.concurrent.CompletionMonitor;
+import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.lambda.Runnable1;
+import edu.rice.cs.util.FileOpenSelector;
+import edu.rice.cs.util.swing.Utilities;
+
+import javax.swing.text.BadLocationException;
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/** Tests the parallel "find all" search in ParallelFinder.
+  * @version $Id$
+  */
+public final class ParallelFinderTest extends DrJavaTestCase {
+  
+  private static final String TEXT1 = "int foo = 1;\n// foo\nString s = \"foo\";\n";
+  private static final String TEXT2 = "no match here\n";
+  private static final String TEXT3 = "Foo\r\nfood\tfoo\n";
+  private static final String TEXT4 = "/* foo */ // foo\r\n\"foo\" 'f' // foo";
+  
+  private volatile DefaultGlobalModel _model;
+  private volatile File _tempDir;
+  private volatile OpenDefinitionsDocument _doc1;
+  private volatile OpenDefinitionsDocument _doc2;
+  private volatile OpenDefinitionsDocument _doc3;
+  private volatile OpenDefinitionsDocument _doc4;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    _model = new GlobalModelTestCase.TestGlobalModel();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+    _model.getDocumentCache().setCacheSize(1);  // opening a file reads it, so only the last file opened stays loaded
+    _doc1 = _openFile(_writeFile("One.java", TEXT1));
+    _doc2 = _openFile(_writeFile("Two.java", TEXT2));
+    _doc3 = _openFile(_writeFile("Three.java", TEXT3));
+    _doc4 = _openFile(_writeFile("Four.java", TEXT4));
+    _openFile(_writeFile("Five.java", "class Five { }\n"));
+  }
+  
+  public void tearDown() throws Exception {
+    _model.dispose();
+    IOUtil.deleteRecursively(_tempDir);
+    _model = null;
+    _tempDir = null;
+    super.tearDown();
+  }
+  
+  private File _writeFile(String name, String text) throws IOException {
+    File f = new File(_tempDir, name).getCanonicalFile();
+    IOUtil.writeStringToFile(f, text);
+    return f;
+  }
+  
+  /** Opens a file without making it the active document. */
+  private OpenDefinitionsDocument _openFile(final File f) throws Exception {
+    return _model.openFileHelper(new FileOpenSelector() { public File[] getFiles() { return new File[] { f }; } });
+  }
+  
+  /** Runs a search in the event thread and waits for it to finish.
+    * @return the results as "file:offset" strings, followed by the count reported to searchFinished
+    */
+  private List<String> _search(final ParallelFinder finder, final List<OpenDefinitionsDocument> docs) 
+    throws InterruptedException {
+    final List<String> found = new ArrayList<String>();
+    final Object lock = new Object();
+    Utilities.invokeAndWait(new Runnable() { public void run() {
+      finder.start(docs, new ParallelFinder.Listener() {
+        public void resultsFound(List<FindResult> results) {
+          for (FindResult fr: results) found.add(fr.getDocument().getFileName() + ":" + fr.getFoundOffset());
+        }
+        public void searchFinished(int count, boolean cancelled) {
+          synchronized(lock) {
+            found.add("count " + count + (cancelled ? " cancelled" : ""));
+            lock.notifyAll();
+          }
+        }
+      });
+    } });
+    synchronized(lock) {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (! finder.isFinished() && System.currentTimeMillis() < deadline) lock.wait(1000);
+    }
+    assertTrue("search finished", finder.isFinished());
+    return found;
+  }
+  
+  public void testFindMatches() {
+    assertEquals("[0, 2, 8]", Arrays.toString(new ParallelFinder("ab", true, false, false).findMatches("ababAb, ab")));
+    assertEquals("[0, 2, 4, 8]", Arrays.toString(new ParallelFinder("ab", false, false, false).findMatches("ababAb, ab")));
+    assertEquals("[8]", Arrays.toString(new ParallelFinder("ab", false, true, false).findMatches("ababAb, ab")));
+    assertEquals("non-overlapping", "[0, 2]", 
+                 Arrays.toString(new ParallelFinder("aa", true, false, false).findMatches("aaaaa")));
+    assertEquals("'_' is not a delimiter", "[4]", 
+                 Arrays.toString(new ParallelFinder("x", true, true, false).findMatches("x_y x")));
+  }
+  
+  public void testReadSwingText() throws IOException {
+    // documents are saved in UTF-8, whatever the platform encoding
+    File f = _writeFile("Text.java", "");
+    FileOutputStream out = new FileOutputStream(f);
+    try { out.write("a\r\nb\rc\td\n\u00e9".getBytes("UTF-8")); }
+    finally { out.close(); }
+    assertEquals("a\nb\nc d\n\u00e9", ParallelFinder.readSwingText(f));
+    assertTrue("the file is not held open", f.delete());
+    assertEquals("", ParallelFinder.readSwingText(_writeFile("Empty.java", "")));
+  }
+  
+  public void testSearchReadsOnlyFilesWithoutMatches() throws Exception {
+    final List<OpenDefinitionsDocument> docs = Arrays.asList(_doc1, _doc2, _doc3);
+    assertFalse("documents start out on disk", _doc1.isReady() || _doc2.isReady() || _doc3.isReady() || _doc4.isReady());
+    
+    List<String> found = _search(new ParallelFinder("foo", false, false, false), docs);
+    assertEquals(Arrays.asList("One.java:7", "One.java:19", "One.java:35", "Three.java:3", "Three.java:7", 
+                               "Three.java:12", "count 6"), found);
+    assertFalse("a document without matches is not loaded", _doc2.isReady());
+    
+    found = _search(new ParallelFinder("foo", true, true, true), docs);
+    assertEquals(Arrays.asList("One.java:7", "Three.java:12", "count 2"), found);
+    assertFalse("a document without matches is not loaded", _doc2.isReady());
+  }
+  
+  public void testMatchesInCommentsDoNotLoadDocuments() throws Exception {
+    List<String> found = _search(new ParallelFinder("foo", true, false, true), Arrays.asList(_doc4, _doc1));
+    assertEquals(Arrays.asList("One.java:7", "count 1"), found);
+    assertFalse("a document with matches only in comments and strings is not loaded", _doc4.isReady());
+    
+    found = _search(new ParallelFinder("foo", true, false, false), Arrays.asList(_doc4));
+    assertEquals(Arrays.asList("Four.java:6", "Four.java:16", "Four.java:21", "Four.java:33", "count 4"), found);
+  }
+  
+  public void testRemoveShadowed() {
+    String text = "a /* a */ \"a\" a // a";
+    ParallelFinder finder = new ParallelFinder("a", true, false, true);
+    assertEquals("[0, 14]", Arrays.toString(ParallelFinder.removeShadowed(text, finder.findMatches(text))));
+  }
+  
+  public void testSearchUsesModifiedDocuments() throws Exception {
+    Utilities.invokeAndWait(new Runnable() { public void run() {
+      try { _doc3.insertString(0, "foo ", null); }
+      catch (BadLocationException e) { fail(e.toString()); }
+    } });
+    assertTrue(_doc3.isModifiedSinceSave());
+    
+    List<String> found = _search(new ParallelFinder("foo", true, false, false), Arrays.asList(_doc3, _doc1));
+    assertEquals(Arrays.asList("Three.java:3", "Three.java:11", "Three.java:16", "One.java:7", "One.java:19", "One.java:35",
+                               "count 6"),
+                 found);
+  }
+  
+  public void testCancel() throws Exception {
+    final ParallelFinder finder = new ParallelFinder("foo", true, false, false);
+    final List<String> found = new ArrayList<String>();
+    Utilities.invokeAndWait(new Runnable() { public void run() {
+      finder.start(Arrays.asList(_doc1, _doc2, _doc3), new ParallelFinder.Listener() {
+        public void resultsFound(List<FindResult> results) { found.add("results"); }
+        public void searchFinished(int count, boolean cancelled) { found.add("count " + count + " " + cancelled); }
+      });
+      finder.cancel();
+    } });
+    Utilities.clearEventQueue();
+    assertTrue(finder.isCancelled());
+    assertEquals(Arrays.asList("count 0 true"), found);
+  }
+  
+  public void testFindCandidates() throws Exception {
+    final ParallelFinder finder = new ParallelFinder("match", true, false, false);
+    final Set<?>[] candidates = new Set<?>[1];
+    Utilities.invokeAndWait(new Runnable() { public void run() {
+      candidates[0] = finder.findCandidates(Arrays.asList(_doc1, _doc2, _doc3));
+    } });
+    assertEquals(1, candidates[0].size());
+    assertTrue(candidates[0].contains(_doc2));
+    assertFalse("candidate search does not load documents", _doc1.isReady() || _doc2.isReady() || _doc3.isReady());
+  }
+  
+  /** The background candidate search reports the same candidates in the event thread. */
+  public void testFindCandidatesInBackground() throws Exception {
+    final ParallelFinder finder = new ParallelFinder("match", true, false, false);
+    final Set<?>[] candidates = new Set<?>[1];
+    final boolean[] inEventThread = new boolean[1];
+    final CompletionMonitor done = new CompletionMonitor();
+    Utilities.invokeAndWait(new Runnable() { public void run() {
+      finder.findCandidates(Arrays.asList(_doc1, _doc2, _doc3), new Runnable1<Set<OpenDefinitionsDocument>>() {
+        public void run(Set<OpenDefinitionsDocument> result) {
+          candidates[0] = result;
+          inEventThread[0] = EventQueue.isDispatchThread();
+          done.signal();
+        }
+      });
+    } });
+    assertTrue("candidate search completes", done.attemptEnsureSignaled(10000));
+    assertTrue("result is reported in the event thread", inEventThread[0]);
+    assertEquals(1, candidates[0].size());
+    assertTrue(candidates[0].contains(_doc2));
+    assertFalse("candidate search does not load documents", _doc1.isReady() || _doc2.isReady() || _doc3.isReady());
+  }
+}
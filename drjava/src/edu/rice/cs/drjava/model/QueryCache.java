@@ -0,0 +1,186 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/** A bounded memo table for the answers to reduced model queries (see {@link Query}) on a document.  Each answer is
+  * recorded together with the offset bounding the right edge of the text on which it depends, so that an edit at
+  * offset {@code k} invalidates exactly the answers recorded with offsets {@code >= k}.  Answers are kept in an
+  * access-ordered map; when the table is full, the least recently used answer is evicted.  All methods are
+  * synchronized because queries may be run by any thread holding the document's read lock.
+  * @version $Id$
+  */
+class QueryCache {
+  
+  /** The default maximum number of answers retained. */
+  public static final int DEFAULT_CAPACITY = 0x4000;  // 16384
+  
+  /** The cached answers in least-recently-used order. */
+  private final LinkedHashMap<Query, Entry> _answers;
+  
+  /** The queries whose answers are cached, bucketed by the offset on which each answer depends. */
+  private final TreeMap<Integer, List<Query>> _offsetToQueries = new TreeMap<Integer, List<Query>>();
+  
+  private final int _capacity;
+  private long _hits = 0;
+  private long _misses = 0;
+  private long _evictions = 0;
+  
+  /** A cached answer and the offset on which it depends. */
+  private static class Entry {
+    final Object _answer;
+    final int _offset;
+    Entry(Object answer, int offset) {
+      _answer = answer;
+      _offset = offset;
+    }
+  }
+  
+  /** Creates a cache holding at most DEFAULT_CAPACITY answers. */
+  public QueryCache() { this(DEFAULT_CAPACITY); }
+  
+  /** Creates a cache holding at most capacity answers.
+    * @param capacity the maximum number of answers to retain
+    */
+  public QueryCache(int capacity) {
+    _capacity = capacity;
+    _answers = new LinkedHashMap<Query, Entry>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<Query, Entry> eldest) {
+        if (size() <= _capacity) return false;
+        _removeFromBucket(eldest.getKey(), eldest.getValue()._offset);
+        _evictions++;
+        return true;
+      }
+    };
+  }
+  
+  /** @param query the query to look up
+    * @return the cached answer to query, or null if there is none
+    */
+  public synchronized Object get(Query query) {
+    Entry e = _answers.get(query);
+    if (e == null) {
+      _misses++;
+      return null;
+    }
+    _hits++;
+    return e._answer;
+  }
+  
+  /** Records the answer to a query.
+    * @param query  a canonical description of the query
+    * @param answer  the answer returned for the query
+    * @param offset  the offset bounding the right edge of the text on which the answer depends
+    */
+  public synchronized void put(Query query, Object answer, int offset) {
+    Entry old = _answers.put(query, new Entry(answer, offset));
+    if (old != null) {
+      if (old._offset == offset) return;  // query is already in the right bucket
+      _removeFromBucket(query, old._offset);
+    }
+    List<Query> bucket = _offsetToQueries.get(offset);
+    if (bucket == null) {
+      bucket = new ArrayList<Query>(4);
+      _offsetToQueries.put(offset, bucket);
+    }
+    bucket.add(query);
+  }
+  
+  /** Discards every answer that depends on text at or beyond offset.
+    * @param offset the offset of the leftmost changed character
+    */
+  public synchronized void clear(int offset) {
+    if (offset <= 0) {
+      clear();
+      return;
+    }
+    SortedMap<Integer, List<Query>> dead = _offsetToQueries.tailMap(offset);
+    for (List<Query> bucket: dead.values()) {
+      for (Query query: bucket) _answers.remove(query);
+    }
+    dead.clear();
+  }
+  
+  /** Discards all answers. */
+  public synchronized void clear() {
+    _answers.clear();
+    _offsetToQueries.clear();
+  }
+  
+  /** Removes query from the bucket for offset, dropping the bucket if it becomes empty. */
+  private void _removeFromBucket(Query query, int offset) {
+    List<Query> bucket = _offsetToQueries.get(offset);
+    if (bucket == null) return;
+    for (Iterator<Query> it = bucket.iterator(); it.hasNext(); ) {
+      if (it.next().equals(query)) {
+        it.remove();
+        break;
+      }
+    }
+    if (bucket.isEmpty()) _offsetToQueries.remove(offset);
+  }
+  
+  /** @return the number of answers currently cached */
+  public synchronized int size() { return _answers.size(); }
+  
+  /** @return the maximum number of answers retained */
+  public int getCapacity() { return _capacity; }
+  
+  /** @return the number of lookups that found an answer */
+  public synchronized long getHits() { return _hits; }
+  
+  /** @return the number of lookups that found no answer */
+  public synchronized long getMisses() { return _misses; }
+  
+  /** @return the number of answers evicted to respect the capacity */
+  public synchronized long getEvictions() { return _evictions; }
+  
+  /** Resets the hit, miss and eviction counters. */
+  public synchronized void resetStatistics() { _hits = _misses = _evictions = 0; }
+  
+  public synchronized String toString() {
+    return "QueryCache[size=" + _answers.size() + ", hits=" + _hits + ", misses=" + _misses + ", evictions=" + 
+      _evictions + "]";
+  }
+}
@@ -0,0 +1,144 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import javax.swing.text.BadLocationException;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
+import edu.rice.cs.util.UnexpectedException;
+import edu.rice.cs.util.swing.Utilities;
+
+/** Tests the invalidation, eviction, and statistics of QueryCache.
+  * @version $Id$
+  */
+public final class QueryCacheTest extends DrJavaTestCase {
+  
+  public void testClearFromOffset() {
+    QueryCache cache = new QueryCache();
+    cache.put(new Query.LineStartPos(5), 0, 4);
+    cache.put(new Query.LineStartPos(20), 12, 19);
+    cache.put(new Query.LineEndPos(20), 30, 30);
+    assertEquals("size", 3, cache.size());
+    
+    cache.clear(19);
+    assertEquals("answer before edit survives", 0, cache.get(new Query.LineStartPos(5)));
+    assertNull("answer depending on edit is dropped", cache.get(new Query.LineStartPos(20)));
+    assertNull("answer depending on later text is dropped", cache.get(new Query.LineEndPos(20)));
+    assertEquals("size after clear", 1, cache.size());
+    
+    cache.clear(0);
+    assertEquals("size after full clear", 0, cache.size());
+  }
+  
+  public void testLeastRecentlyUsedEviction() {
+    QueryCache cache = new QueryCache(2);
+    Query a = new Query.LineStartPos(1);
+    Query b = new Query.LineStartPos(2);
+    Query c = new Query.LineStartPos(3);
+    cache.put(a, 0, 0);
+    cache.put(b, 0, 1);
+    cache.get(a);  // b is now the least recently used
+    cache.put(c, 0, 2);
+    assertEquals("size", 2, cache.size());
+    assertNull("b evicted", cache.get(b));
+    assertEquals("a retained", 0, cache.get(a));
+    assertEquals("c retained", 0, cache.get(c));
+    assertEquals("evictions", 1, cache.getEvictions());
+    
+    // The evicted query must also be gone from the offset index
+    cache.clear(1);
+    assertEquals("size after clear", 1, cache.size());
+  }
+  
+  public void testReplaceMovesOffset() {
+    QueryCache cache = new QueryCache();
+    Query a = new Query.LineEndPos(3);
+    cache.put(a, 10, 10);
+    cache.put(a, 5, 5);
+    cache.clear(8);
+    assertEquals("answer re-recorded at lower offset survives", 5, cache.get(a));
+    cache.clear(5);
+    assertNull("answer dropped", cache.get(a));
+  }
+  
+  public void testStatistics() {
+    QueryCache cache = new QueryCache();
+    Query a = new Query.LineStartPos(1);
+    assertNull(cache.get(a));
+    cache.put(a, 0, 0);
+    cache.get(a);
+    cache.get(a);
+    assertEquals("hits", 2, cache.getHits());
+    assertEquals("misses", 1, cache.getMisses());
+    cache.resetStatistics();
+    assertEquals("hits after reset", 0, cache.getHits());
+  }
+  
+  /** Undo and redo replay the reduced model commands without going through insertUpdate/removeUpdate, so the
+    * commands themselves must invalidate the cached answers.
+    */
+  public void testUndoRedoClearsCache() {
+    final DefinitionsDocument doc = new DefinitionsDocument(new GlobalEventNotifier());
+    doc.addUndoableEditListener(doc.getUndoManager());
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          doc.insertString(0, "abc\ndef {\n", null);
+          int key = doc.getUndoManager().startCompoundEdit();
+          doc.insertString(1, "XYZ\n{Q", null);
+          doc.getUndoManager().endCompoundEdit(key);
+          assertEquals("line end after insert", 4, doc._getLineEndPos(0));
+          assertEquals("line start after insert", 5, doc._getLineStartPos(6));
+          assertEquals("enclosing brace after insert", 5, doc.findPrevEnclosingBrace(7, '{', '}'));
+          
+          doc.getUndoManager().undo();
+          assertEquals("text after undo", "abc\ndef {\n", doc.getText());
+          assertEquals("line end after undo", 3, doc._getLineEndPos(0));
+          assertEquals("line start after undo", 4, doc._getLineStartPos(6));
+          assertEquals("enclosing brace after undo", -1, doc.findPrevEnclosingBrace(7, '{', '}'));
+          
+          doc.getUndoManager().redo();
+          assertEquals("line end after redo", 4, doc._getLineEndPos(0));
+          assertEquals("line start after redo", 5, doc._getLineStartPos(6));
+          assertEquals("enclosing brace after redo", 5, doc.findPrevEnclosingBrace(7, '{', '}'));
+        }
+        catch (BadLocationException e) { throw new UnexpectedException(e); }
+      }
+    });
+  }
+}
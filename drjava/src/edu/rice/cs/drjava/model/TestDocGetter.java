@@ -74,6 +74,7 @@ public class TestDocGetter extends DummyGlobalModel {
       odoc.setFile(files[i]);
       try { doc.insertString(0, texts[i], null); }
       catch (BadLocationException e) { throw new UnexpectedException(e); }
+      doc.resetModification();  // the document matches its (imaginary) file
       docs.put(files[i], odoc);
     }
   }
@@ -88,11 +89,18 @@ public class TestDocGetter extends DummyGlobalModel {
   public List<OpenDefinitionsDocument> getOpenDefinitionsDocuments() {
     return new ArrayList<OpenDefinitionsDocument>(docs.values());
   }
+  
+  /** Marks the document for a file as evicted from the document cache, so that isReady() returns false.  Its 
+    * methods still use the in-memory document.
+    * @param file the key of the document
+    */
+  public void evict(File file) { ((TestOpenDoc) docs.get(file))._ready = false; }
 
   /** Test implementation of OpenDefinitionsDocument interface. */
   private static class TestOpenDoc extends DummyOpenDefDoc {
     DefinitionsDocument _doc;
     File _file;
+    boolean _ready = true;
     TestOpenDoc(DefinitionsDocument d) {
       _doc = d;
       _defDoc = d;
@@ -106,5 +114,13 @@ public class TestDocGetter extends DummyGlobalModel {
     public File getFile() throws FileMovedException  { return _file; }
     
     public void setFile(File f) { _file = f; }
+    
+    public File getRawFile() { return _file; }
+    
+    public boolean isReady() { return _ready; }
+    
+    public String getText() { return _doc.getText(); }
+    
+    public boolean isModifiedSinceSave() { return _doc.isModifiedSinceSave(); }
   }
 }
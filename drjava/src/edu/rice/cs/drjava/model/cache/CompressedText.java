@@ -0,0 +1,115 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import edu.rice.cs.util.UnexpectedException;
+
+/** An immutable, deflate-compressed copy of the text of a document.  DDReconstructors use it to keep the image of a
+  * document evicted from the DocumentCache in memory at a fraction of the size of a String, so the document can be
+  * reconstructed without reading its file again.
+  * @version $Id$
+  */
+public final class CompressedText {
+  
+  private final byte[] _bytes;  // deflated chars of the text, two bytes per char (high byte first)
+  private final int _length;    // length of the text in chars
+  
+  private CompressedText(byte[] bytes, int length) {
+    _bytes = bytes;
+    _length = length;
+  }
+  
+  /** @param text the text to compress
+    * @return a compressed copy of text
+    */
+  public static CompressedText compress(String text) {
+    // Encode the chars directly rather than through a charset, which would not preserve unpaired surrogates
+    final int length = text.length();
+    byte[] encoded = new byte[2 * length];
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      encoded[2 * i] = (byte) (c >>> 8);
+      encoded[2 * i + 1] = (byte) c;
+    }
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(encoded);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length / 4 + 64);
+      byte[] buf = new byte[8192];
+      while (! deflater.finished()) {
+        int n = deflater.deflate(buf);
+        out.write(buf, 0, n);
+      }
+      return new CompressedText(out.toByteArray(), length);
+    }
+    finally { deflater.end(); }
+  }
+  
+  /** @return the uncompressed text */
+  public String getText() {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(_bytes);
+      final int encodedLength = 2 * _length;
+      byte[] encoded = new byte[encodedLength];
+      int off = 0;
+      while (off < encodedLength) {
+        int n = inflater.inflate(encoded, off, encodedLength - off);
+        if (n == 0 && (inflater.finished() || inflater.needsInput())) break;
+        off += n;
+      }
+      if (off != encodedLength) throw new UnexpectedException("Corrupt compressed text");
+      char[] chars = new char[_length];
+      for (int i = 0; i < _length; i++) chars[i] = (char) (((encoded[2 * i] & 0xff) << 8) | (encoded[2 * i + 1] & 0xff));
+      return new String(chars);
+    }
+    catch(DataFormatException e) { throw new UnexpectedException(e); }
+    finally { inflater.end(); }
+  }
+  
+  /** @return the length of the uncompressed text in chars */
+  public int length() { return _length; }
+  
+  /** @return the number of bytes of compressed data held */
+  public int getCompressedSize() { return _bytes.length; }
+}
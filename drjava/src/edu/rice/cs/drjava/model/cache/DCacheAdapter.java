@@ -40,6 +40,7 @@ import java.util.Set;
 import java.io.IOException;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
 
 import edu.rice.cs.drjava.model.FileMovedException;
 import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
@@ -70,12 +71,24 @@ public interface DCacheAdapter {
    */
   public String getText(int offset, int length) throws BadLocationException;
   
+  /** Creates a position in this document without loading the document if it is not resident.
+   * @param offset the offset of the position
+   * @return the new position
+   * @throws BadLocationException if attempts to reference an invalid location
+   */
+  public Position createPosition(int offset) throws BadLocationException;
+  
   /** Checks whether the document is ready to be returned.  If false, then the document would have to be
     * loaded from disk when getDocument() is called.  
     * @return if the document is already loaded
     */
   public boolean isReady();
   
+  /** Asks the cache to reconstruct the document on a background thread, because it is likely to be needed soon.  Does
+    * nothing if the document is already resident.
+    */
+  public void prewarm();
+  
   /** Closes the corresponding document for this adapter. */
   public void close();
   
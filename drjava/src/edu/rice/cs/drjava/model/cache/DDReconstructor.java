@@ -39,6 +39,7 @@ package edu.rice.cs.drjava.model.cache;
 import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
 import java.io.IOException;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
 import javax.swing.event.DocumentListener;
 import edu.rice.cs.drjava.model.FileMovedException;
 
@@ -54,12 +55,40 @@ public interface DDReconstructor {
    */
   public DefinitionsDocument make() throws IOException, BadLocationException, FileMovedException;
   
+  /** Builds the text and reduced model of a new DefinitionsDocument without attaching it to its document, so that no 
+    * cache notifications are generated.  May be called outside the event thread, in which case the new document is
+    * confined to the calling thread (see AbstractDJDocument.confineTo) until make(doc) completes it in the event 
+    * thread.
+    * @param text the text of the document, as returned by getText()
+    * @return a new, unattached DefinitionsDocument
+    * @throws BadLocationException if attempts to reference an invalid location
+    * @throws IOException if an IO operation fails
+    */
+  public DefinitionsDocument build(String text) throws IOException, BadLocationException;
+  
+  /** Completes a document returned by build(text), restoring the information saved by saveDocInfo, and returns it 
+    * to the event thread.  make() is equivalent to make(build(getText())).
+    * @param doc a document returned by build(text)
+    * @return doc
+    * @throws BadLocationException if attempts to reference an invalid location
+    */
+  public DefinitionsDocument make(DefinitionsDocument doc) throws BadLocationException;
+  
   /** Saves information (like cursor location, highlight, etc.) from the DefinitionsDocument before the cache deletes it
     * so that those pieces of info can be restored when reconstructing the DefinitionsDocument again.
     * @param doc the DefinitionsDocument whose data needs saving
     */
   public void saveDocInfo(DefinitionsDocument doc);
   
+  /** Creates a position in the document while it is not resident.  The position is restored, like the positions saved
+    * by saveDocInfo, when the document is reconstructed.  Only called from DocumentCache.  Assumes that cache lock is 
+    * already held.
+    * @param offset the offset of the position
+    * @return the new position
+    * @throws BadLocationException if offset is not within the saved text of the document
+    */
+  public Position createPosition(int offset) throws BadLocationException;
+  
   /** Sets a document listener to be added to the definitions document when it is created
    * @param dl the listener to add to the document
    */
@@ -67,4 +96,15 @@ public interface DDReconstructor {
   
   /** @return the string text for document that has been kicked out; null otherwise. */
   public String getText();
+  
+  /** @return the length of the text returned by getText(), computed without decompressing a compressed image */
+  public int getLength();
+  
+  /** Replaces the saved image of the document with a compressed copy.  Called by the DocumentCache after saveDocInfo
+    * when it is configured to compress the images of evicted documents.
+    */
+  public void compressImage();
+  
+  /** @return the approximate number of bytes held by the saved image of the document */
+  public long getImageSize();
 }
@@ -38,7 +38,9 @@ package edu.rice.cs.drjava.model.cache;
 
 import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.io.IOException;
 
 import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
@@ -71,6 +73,17 @@ import edu.rice.cs.plt.iter.IterUtil;
   * UNMANAGED document remains in memory until it is saved or closed without being saved.  If such a document is
   * saved, it is inserted again in the resident queue.
   * <p>
+  * The resident queue is bounded both by the number of documents and by their estimated memory footprint (text,
+  * reduced model, and undo history), so a few huge files cannot exhaust the heap while many small files stay resident.
+  * The reconstructor of an evicted document keeps an image of its text; if image compression is enabled, that image
+  * is compressed so that the document can be reconstructed without reading its file again at a fraction of the memory.
+  * The cache counts hits, reconstructions, and evictions, and reports the bytes it holds, for monitoring.
+  * <p>
+  * Documents that are likely to be needed soon (neighbours in the navigator, recently used documents, and documents
+  * containing search results) can be prewarmed: a background thread builds their text and reduced model without
+  * holding the cache lock, in a document that no other thread can see, and the event thread then installs the result
+  * as the resident document in one step under the lock if the document is still evicted and the cache has room.
+  * <p>
   * Since the cache and document managers can both be concurrently accessed from multiple threads, the methods in the
   * DocumentCache and DocManager classes are synchronized.  Some operations require locks on both the cache and a
   * document manager, but the code is written so that none of them require these locks to be held simultaneously.
@@ -81,16 +94,42 @@ public class DocumentCache {
   /** Log file. */
   private static final Log _log = new Log("DocumentCache.txt", false);
   
-  private static final int INIT_CACHE_SIZE = 32;
+  private static final int INIT_CACHE_SIZE = 256;
+  
+  /** Default bound on the estimated footprint of the resident queue. */
+  public static final long INIT_BYTE_LIMIT = 64L << 20;
   
   /** invariant {@code _residentQueue.size() <= CACHE_SIZE} */
   private volatile int CACHE_SIZE;
   
+  /** Bound on _residentBytes, or 0 for no bound; exceeded only if the most recently added document alone exceeds it. */
+  private volatile long _byteLimit = INIT_BYTE_LIMIT;
+  
+  /** Whether the images of evicted documents are compressed. */
+  private volatile boolean _compressImages = false;
+  
   /** Data structure representing the queue of resident unmodified documents. */
   private final LinkedHashSet<DocManager> _residentQueue;
   
   private final Object _cacheLock = new Object();
   
+  /* Statistics.  The fields other than _hits are guarded by _cacheLock. */
+  private final AtomicLong _hits = new AtomicLong();
+  private volatile long _reconstructions = 0;
+  private volatile long _evictions = 0;
+  private volatile long _residentBytes = 0;  // sum of the footprints of the documents in _residentQueue
+  private volatile long _imageBytes = 0;     // sum of the image sizes of evicted documents
+  private volatile long _prewarms = 0;       // documents installed by the prewarm thread
+  
+  /** Bound on the number of documents waiting to be prewarmed; the oldest requests are dropped first. */
+  private static final int PREWARM_QUEUE_SIZE = 8;
+  
+  /** Documents waiting to be prewarmed, oldest first.  Guarded by itself. */
+  private final LinkedHashSet<DocManager> _prewarmQueue = new LinkedHashSet<DocManager>();
+  
+  /** Whether a prewarm thread is draining _prewarmQueue.  Guarded by _prewarmQueue. */
+  private boolean _prewarming = false;
+  
   /* General constructor.  Not currently used except when called by default constructor. */
   public DocumentCache(int size) {
 //    Utilities.showDebug("DocumentCache created with size = " + size);
@@ -124,17 +163,121 @@ public class DocumentCache {
     if (size <= 0) throw new IllegalArgumentException("Cannot set the cache size to zero or less.");
     synchronized(_cacheLock) {    // lock the cache so entries can be removed if necessary
       CACHE_SIZE = size;
-      int diff = _residentQueue.size() - CACHE_SIZE;
-      if (diff > 0) {
-        Iterable<DocManager> toRemove = IterUtil.snapshot(IterUtil.truncate(_residentQueue, diff));
-        for (DocManager dm : toRemove) { _residentQueue.remove(dm); dm.kickOut(); }
-      }
+      _evict(null);
     }
   }
   
   public int getCacheSize() { return CACHE_SIZE; }
   public int getNumInCache() { return _residentQueue.size(); }
   
+  /** Changes the bound on the estimated memory footprint of the unmodified documents in the cache, evicting documents
+    * if necessary.
+    * @param bytes the new bound in bytes, or 0 to bound the cache by the number of documents only
+    */
+  public void setByteLimit(long bytes) {
+    if (bytes < 0) throw new IllegalArgumentException("Cannot set the byte limit to less than zero.");
+    synchronized(_cacheLock) {
+      _byteLimit = bytes;
+      _evict(null);
+    }
+  }
+  
+  public long getByteLimit() { return _byteLimit; }
+  
+  /** Determines whether the images of documents evicted from now on are compressed.
+    * @param compress true if images should be compressed
+    */
+  public void setCompressImages(boolean compress) { _compressImages = compress; }
+  
+  public boolean getCompressImages() { return _compressImages; }
+  
+  /** @return the number of document requests served by a resident document */
+  public long getHits() { return _hits.get(); }
+  
+  /** @return the number of documents reconstructed from their images or files */
+  public long getReconstructions() { return _reconstructions; }
+  
+  /** @return the number of documents evicted from the resident queue */
+  public long getEvictions() { return _evictions; }
+  
+  /** @return the estimated footprint in bytes of the unmodified documents resident in the cache */
+  public long getResidentBytes() { return _residentBytes; }
+  
+  /** @return the bytes held by the images of evicted documents */
+  public long getImageBytes() { return _imageBytes; }
+  
+  /** @return the number of documents reconstructed in the background and installed in the cache */
+  public long getPrewarms() { return _prewarms; }
+  
+  /** Determines whether there are documents waiting to be prewarmed or being prewarmed.  Used in testing.
+    * @return true if the prewarm thread is running
+    */
+  public boolean isPrewarming() { synchronized(_prewarmQueue) { return _prewarming; } }
+  
+  /** Queues dm to be prewarmed, starting the prewarm thread if necessary.
+    * @param dm the manager of the document to prewarm
+    */
+  private void _schedulePrewarm(DocManager dm) {
+    synchronized(_prewarmQueue) {
+      _prewarmQueue.remove(dm);  // move dm to the end
+      _prewarmQueue.add(dm);
+      if (_prewarmQueue.size() > PREWARM_QUEUE_SIZE) _prewarmQueue.remove(IterUtil.first(_prewarmQueue));
+      if (_prewarming) return;
+      _prewarming = true;
+    }
+    Thread prewarmer = new Thread(new Runnable() {
+      public void run() {
+        boolean drained = false;
+        try {
+          while (true) {
+            DocManager next;
+            synchronized(_prewarmQueue) {
+              if (_prewarmQueue.isEmpty()) {
+                _prewarming = false;
+                drained = true;
+                return;
+              }
+              next = IterUtil.first(_prewarmQueue);
+              _prewarmQueue.remove(next);
+            }
+            // a document that cannot be prewarmed is left to be reconstructed on demand
+            try { next.prewarmNow(); }
+            catch(RuntimeException e) { _log.log("Prewarming " + next + " failed", e); }
+            catch(AssertionError e) { _log.log("Prewarming " + next + " failed", e); }
+          }
+        }
+        finally {
+          // if this thread dies unexpectedly, let the next request start another one
+          if (! drained) synchronized(_prewarmQueue) { _prewarming = false; }
+        }
+      }
+    }, "DocumentCache Prewarmer");
+    prewarmer.setDaemon(true);
+    prewarmer.setPriority(Thread.MIN_PRIORITY);
+    prewarmer.start();
+  }
+  
+  /** Determines whether a document with the given footprint can be made resident without evicting another document.
+    * Assumes _cacheLock is already held.
+    * @param bytes the estimated footprint of the document
+    * @return true if the document fits
+    */
+  private boolean _hasRoomFor(long bytes) {
+    return _residentQueue.size() < CACHE_SIZE && (_byteLimit == 0 || _residentBytes + bytes <= _byteLimit);
+  }
+  
+  /** Evicts documents from the front of the resident queue until it respects both CACHE_SIZE and _byteLimit.  Assumes
+    * _cacheLock is already held.
+    * @param keep a document that must not be evicted, or null
+    */
+  private void _evict(DocManager keep) {
+    while (_residentQueue.size() > CACHE_SIZE || (_byteLimit > 0 && _residentBytes > _byteLimit && _residentQueue.size() > 1)) {
+      DocManager first = IterUtil.first(_residentQueue);
+      if (first == keep) break;
+      first.remove();
+    }
+  }
+  
   public String toString() { return _residentQueue.toString(); }
   
   
@@ -163,6 +306,15 @@ public class DocumentCache {
     private volatile int _stat; // I know, this is not very OO
     private volatile DefinitionsDocument _doc;
     
+    /* Memory accounting; guarded by _cacheLock. */
+    private long _footprint = 0;   // estimated footprint of _doc while this is in the queue
+    private long _imageBytes = 0;  // size of the image saved by _rec while _doc is evicted
+    
+    /** Incremented whenever _doc is made or evicted, so the prewarm thread can detect that its build is stale. Guarded
+      * by _cacheLock. */
+    private long _generation = 0;
+    private volatile boolean _closed = false;
+    
     /** Instantiates a manager for the documents that are produced by the given document reconstructor.
      * @param rec The reconstructor used to create the document
      * @param isUntitled true if the document is untitled; false otherwise
@@ -182,10 +334,19 @@ public class DocumentCache {
     /** Makes this document; assumes that cacheLock is already held. 
      * @return the newly-created document
      */
-    private DefinitionsDocument makeDocument() {
+    private DefinitionsDocument makeDocument() { return makeDocument(null); }
+    
+    /** Makes this document, completing a document built by the prewarm thread if one is given; assumes that cacheLock 
+      * is already held. 
+      * @param built a document returned by _rec.build(), or null
+      * @return the newly-created document
+      */
+    private DefinitionsDocument makeDocument(DefinitionsDocument built) {
       try { // _doc is not in memory
-        _doc = _rec.make();
+        _doc = (built == null) ? _rec.make() : _rec.make(built);
         assert _doc != null;
+        _reconstructions++;
+        _generation++;
         // update documents if necessary
         if (_keywords != null) {  // copy cached keywords to new copy of doc
           _doc.setKeywords(_keywords); _keywords.clear(); _keywords = null;
@@ -195,7 +356,9 @@ public class DocumentCache {
       catch(BadLocationException e) { throw new UnexpectedException(e); }      
 //        Utilities.showDebug("Document " + _doc + " reconstructed; _stat = " + _stat);
 //      System.err.println("Making document for " + this);
-      if (_stat == NOT_IN_QUEUE) add();       // add this to queue 
+      // add this to queue; make() may already have queued this (via documentReset) before _doc was set, so add() is
+      // repeated in that case to measure the footprint of _doc
+      if (_stat == NOT_IN_QUEUE || _stat == IN_QUEUE) add();
       return _doc;
     }
     
@@ -210,9 +373,15 @@ public class DocumentCache {
       
 //      The following double-check idiom is safe in Java 1.4 and later JVMs provided that _doc is volatile.
       final DefinitionsDocument doc = _doc;  // create a snapshot of _doc
-      if (doc != null) return doc;  
+      if (doc != null) {
+        _hits.incrementAndGet();
+        return doc;
+      }
       synchronized(_cacheLock) { // lock the cache so that this DocManager's state can be updated
-        if (_doc != null) return _doc;  // _doc may have changed since test outside of _cacheLock
+        if (_doc != null) {  // _doc may have changed since test outside of _cacheLock
+          _hits.incrementAndGet();
+          return _doc;
+        }
         return makeDocument();
       }
     }
@@ -221,7 +390,7 @@ public class DocumentCache {
       * to be loaded. */
     public int getLength() {
       final DefinitionsDocument doc = _doc;  // create a snapshot of _doc
-      if (doc == null /* || ! doc.isModifiedSinceSave()*/) return _rec.getText().length();
+      if (doc == null /* || ! doc.isModifiedSinceSave()*/) return _rec.getLength();
       return doc.getLength();
     }
     
@@ -245,23 +414,78 @@ public class DocumentCache {
       return doc.getText(offset, len); 
     }
     
+    /** Creates a position in this document.  If the document is not resident, the position is kept by the 
+      * reconstructor until the document is reconstructed, so the document is not loaded.
+      */
+    public Position createPosition(int offset) throws BadLocationException {
+      synchronized(_cacheLock) {  // the document must not be made or evicted while the position is created
+        if (_doc != null) return _doc.createPosition(offset);
+        return _rec.createPosition(offset);
+      }
+    }
+    
     /** Checks whether the document is resident (in the cache or modified). 
       * @return if the document is resident.
       */
     public boolean isReady() {  return _doc != null; }  // _doc is volatile so synchronization is unnecessary
     
+    public void prewarm() { if (_doc == null && _stat == NOT_IN_QUEUE && ! _closed) _schedulePrewarm(this); }
+    
+    /** Builds the document without holding _cacheLock and has the event thread install it.  The document is confined 
+      * to this thread until it is installed (see DDReconstructor.build).  Only runs in the prewarm thread. 
+      */
+    private void prewarmNow() {
+      final long generation;
+      synchronized(_cacheLock) {
+        if (! _canPrewarm(Long.MIN_VALUE)) return;
+        generation = _generation;
+      }
+      final DefinitionsDocument built;
+      try { built = _rec.build(_rec.getText()); }
+      catch(IOException e) { return; }  // leave the document to be reconstructed on demand
+      catch(BadLocationException e) { return; }
+      Utilities.invokeAndWait(new Runnable() { public void run() { _installPrewarmed(built, generation); } });
+    }
+    
+    /** Installs a document built by the prewarm thread if this document is still evicted, unchanged since generation,
+      * and the built document fits in the cache; otherwise discards it.  Only runs in the event thread.
+      * @param built the document built by the prewarm thread
+      * @param generation the value of _generation when the document was built
+      */
+    private void _installPrewarmed(DefinitionsDocument built, long generation) {
+      synchronized(_cacheLock) {
+        if (_canPrewarm(generation) && _hasRoomFor(built.estimateFootprint())) {
+          makeDocument(built);
+          _prewarms++;
+          return;
+        }
+      }
+      built.close();  // the document changed state while it was being built, or the cache filled up
+    }
+    
+    /** Determines whether this document is still evicted, open, and unchanged and the cache has room for another
+      * document.  Assumes _cacheLock is already held.
+      * @param generation the expected value of _generation, or Long.MIN_VALUE to accept any value
+      * @return true if a prewarmed document may be installed
+      */
+    private boolean _canPrewarm(long generation) {
+      return _doc == null && _stat == NOT_IN_QUEUE && ! _closed && _hasRoomFor(0) &&
+        (generation == Long.MIN_VALUE || _generation == generation);
+    }
+    
     /** Closes the corresponding document for this adapter.  Done when a document is closed by the navigator. */
     public void close() {
 //      Utilities.showDebug("close() called on " + this);
       synchronized(_cacheLock) {
-        _residentQueue.remove(this);
+        _closed = true;
+        dequeue();
         closingKickOut();
       }
     }
     
     public void documentModified() {
       synchronized(_cacheLock) { 
-        _residentQueue.remove(this); // remove modified document from queue if present
+        dequeue(); // remove modified document from queue if present
         _stat = UNMANAGED;
       }
     }
@@ -291,15 +515,38 @@ public class DocumentCache {
         _residentQueue.add(this);
         _stat = IN_QUEUE;
       }
-      if (_residentQueue.size() > CACHE_SIZE) IterUtil.first(_residentQueue).remove();
+      else _residentBytes -= _footprint;
+      // Documents only enter the queue when they are unmodified, so their footprint is measured here
+      final DefinitionsDocument doc = _doc;
+      _footprint = (doc == null) ? 0 : doc.estimateFootprint();
+      _residentBytes += _footprint;
+      _evict(this);
     }
     
     /** Removes this DocManager from the queue and sets status to NOT_IN_QUEUE.  Assumes _cacheLock is already held. */
     private void remove() { 
-      _residentQueue.remove(this);
+      dequeue();
       kickOut();
     }
     
+    /** Removes this DocManager from the queue, if present, without changing its status.  Assumes _cacheLock is 
+      * already held. 
+      */
+    private void dequeue() {
+      if (_residentQueue.remove(this)) {
+        _residentBytes -= _footprint;
+        _footprint = 0;
+      }
+    }
+    
+    /** Records the size of the image saved by _rec.  Assumes _cacheLock is already held.
+      * @param bytes the new image size
+      */
+    private void setImageBytes(long bytes) {
+      DocumentCache.this._imageBytes += bytes - _imageBytes;
+      _imageBytes = bytes;
+    }
+    
     /* All of the following private methods presume that _cacheLock is held */
     private boolean isUnmanagedOrUntitled() { return (_stat & 0x1) != 0; }  // tests if _stat is odd
     
@@ -322,7 +569,12 @@ public class DocumentCache {
         /* virtualize this document */
 //        Utilities.showDebug("Virtualizing " + _doc);
         _rec.saveDocInfo(_doc);
+        if (_compressImages) _rec.compressImage();
+        setImageBytes(_rec.getImageSize());
+        _evictions++;
+        _generation++;
       }
+      else setImageBytes(0);
       if (_doc != null) {
         _doc.close(); 
         _doc = null;
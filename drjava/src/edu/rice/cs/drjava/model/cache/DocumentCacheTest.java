@@ -42,6 +42,7 @@ import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
 import edu.rice.cs.plt.io.IOUtil;
 import edu.rice.cs.util.FileOpenSelector;
 import edu.rice.cs.util.OperationCanceledException;
+import edu.rice.cs.util.swing.Utilities;
 
 import javax.swing.text.BadLocationException;
 import java.io.File;
@@ -365,6 +366,28 @@ public class DocumentCacheTest extends DrJavaTestCase {
     assertFalse("The document 1 should still be out of the cache", _adapterTable.get(doc1).isReady());
   }
   
+  /** Tests that line queries and positions on a document that is not in the cache do not load it. */
+  public void testQueriesOnUnloadedDocument() throws BadLocationException, IOException {
+    File file1 = tempFile(1);
+    IOUtil.writeStringToFile(file1, "abc\ndef\n\nghi");
+    OpenDefinitionsDocument doc1 = openFile(file1);
+    for (int i = 2; i <= 5; i++) openFile(tempFile(i)).getCurrentLine();  // kicks doc1 out of the cache
+    assertFalse("Document 1 shouldn't be ready", _adapterTable.get(doc1).isReady());
+    
+    assertEquals("line start", 4, doc1._getLineStartPos(5));
+    assertEquals("line end", 7, doc1._getLineEndPos(5));
+    assertEquals("line end of last line", 12, doc1._getLineEndPos(11));
+    assertEquals("offset of line 3", 8, doc1._getOffset(3));
+    assertEquals("offset of missing line", -1, doc1._getOffset(6));
+    javax.swing.text.Position pos = doc1.createPosition(10);
+    assertEquals("detached position", 10, pos.getOffset());
+    assertFalse("Document 1 should still not be ready", _adapterTable.get(doc1).isReady());
+    
+    doc1.insertString(0, "x", null);  // loads doc1; the position must track the edit
+    assertTrue("Document 1 should be ready", _adapterTable.get(doc1).isReady());
+    assertEquals("position after edit", 11, pos.getOffset());
+  }
+  
   public void testGetDDocFromCache() throws BadLocationException, IOException, OperationCanceledException {
     File file1 = tempFile(1);
     File file2 = tempFile(2);
@@ -436,6 +459,150 @@ public class DocumentCacheTest extends DrJavaTestCase {
 //    assertEquals("The save in the reconstructor was not called", 0, _doc_saved);
 //  }
   
+  /** @return the text of a class with the given number of fields */
+  private static String classText(String name, int fields) {
+    StringBuilder sb = new StringBuilder("class " + name + " {\n");
+    for (int i = 0; i < fields; i++) sb.append("  int field" + i + " = " + i + ";  // a comment\n");
+    return sb.append("}\n").toString();
+  }
+  
+  public void testByteLimit() throws IOException {
+    File file1 = tempFile(1);
+    File file2 = tempFile(2);
+    File file3 = tempFile(3);
+    IOUtil.writeStringToFile(file1, classText("A", 200));
+    IOUtil.writeStringToFile(file2, classText("B", 200));
+    IOUtil.writeStringToFile(file3, classText("C", 200));
+    
+    OpenDefinitionsDocument doc1 = openFile(file1);
+    doc1.getCurrentLine();  // forces document to be read into memory
+    long footprint = _cache.getResidentBytes();
+    assertTrue("The footprint should include the text", footprint >= 2 * doc1.getLength());
+    
+    _cache.setByteLimit(2 * footprint + footprint / 2);  // room for two of the documents
+    assertEquals("Wrong byte limit", 2 * footprint + footprint / 2, _cache.getByteLimit());
+    long evictions = _cache.getEvictions();
+    OpenDefinitionsDocument doc2 = openFile(file2);
+    doc2.getCurrentLine();
+    OpenDefinitionsDocument doc3 = openFile(file3);
+    doc3.getCurrentLine();
+    
+    assertEquals("There should be 2 documents in the cache", 2, _cache.getNumInCache());
+    assertEquals("Wrong number of evictions", evictions + 1, _cache.getEvictions());
+    assertFalse("Document 1 should have been evicted", _adapterTable.get(doc1).isReady());
+    assertTrue("Document 3 should be ready", _adapterTable.get(doc3).isReady());
+    assertTrue("Resident bytes should respect the limit", _cache.getResidentBytes() <= _cache.getByteLimit());
+    
+    // a single document larger than the limit stays resident
+    _cache.setByteLimit(1);
+    assertEquals("There should be 1 document in the cache", 1, _cache.getNumInCache());
+    assertTrue("Document 3 should be ready", _adapterTable.get(doc3).isReady());
+    
+    _model.closeFile(doc3);
+    assertEquals("There should be no documents in the cache", 0, _cache.getNumInCache());
+    assertEquals("Closed documents hold no bytes", 0, _cache.getResidentBytes());
+    
+    try {
+      _cache.setByteLimit(-1);
+      fail("IllegalArgumentException expected.");
+    }
+    catch (IllegalArgumentException iae) { /* expected */ }
+  }
+  
+  public void testCompressImages() throws IOException {
+    _cache.setCacheSize(1);
+    _cache.setCompressImages(true);
+    File file1 = tempFile(1);
+    File file2 = tempFile(2);
+    String text1 = classText("A", 500);
+    IOUtil.writeStringToFile(file1, text1);
+    IOUtil.writeStringToFile(file2, classText("B", 10));
+    
+    OpenDefinitionsDocument doc1 = openFile(file1);
+    doc1.getCurrentLine();
+    long reconstructions = _cache.getReconstructions();
+    OpenDefinitionsDocument doc2 = openFile(file2);
+    doc2.getCurrentLine();
+    
+    assertFalse("Document 1 should have been evicted", _adapterTable.get(doc1).isReady());
+    long imageBytes = _cache.getImageBytes();
+    assertTrue("The image should be held compressed", imageBytes > 0 && imageBytes < text1.length());
+    assertEquals("Length should be available without reconstruction", text1.length(), doc1.getLength());
+    assertFalse("Document 1 should still be evicted", _adapterTable.get(doc1).isReady());
+    
+    IOUtil.writeStringToFile(file1, "");  // the document must be reconstructed from its image, not its file
+    assertEquals("Wrong text from image", text1, doc1.getText());
+    doc1.getCurrentLine();  // forces document to be reconstructed
+    assertTrue("Document 1 should be ready", _adapterTable.get(doc1).isReady());
+    long hits = _cache.getHits();
+    assertEquals("Wrong reconstructed text", text1, doc1.getText());
+    assertEquals("Document 1 should have been reconstructed", reconstructions + 2, _cache.getReconstructions());
+    doc1.getCurrentLine();
+    assertTrue("A resident document should be a hit", _cache.getHits() > hits);
+  }
+  
+  /** Waits for the prewarm thread to finish. */
+  private void _awaitPrewarm() throws InterruptedException {
+    for (int i = 0; i < 500 && _cache.isPrewarming(); i++) Thread.sleep(10);
+    assertFalse("The prewarm thread should have finished", _cache.isPrewarming());
+  }
+  
+  public void testPrewarm() throws IOException, InterruptedException {
+    _cache.setCacheSize(2);
+    File file1 = tempFile(1);
+    File file2 = tempFile(2);
+    File file3 = tempFile(3);
+    String text1 = classText("A", 20);
+    IOUtil.writeStringToFile(file1, text1);
+    IOUtil.writeStringToFile(file2, classText("B", 20));
+    IOUtil.writeStringToFile(file3, classText("C", 20));
+    
+    OpenDefinitionsDocument doc1 = openFile(file1);
+    doc1.getCurrentLine();
+    OpenDefinitionsDocument doc2 = openFile(file2);
+    doc2.getCurrentLine();
+    OpenDefinitionsDocument doc3 = openFile(file3);
+    doc3.getCurrentLine();
+    _awaitPrewarm();
+    assertFalse("Document 1 should have been evicted", _adapterTable.get(doc1).isReady());
+    
+    // a full cache does not accept prewarmed documents
+    long prewarms = _cache.getPrewarms();
+    doc1.prewarm();
+    _awaitPrewarm();
+    assertFalse("Document 1 should not fit in the cache", _adapterTable.get(doc1).isReady());
+    assertEquals("Wrong number of prewarms", prewarms, _cache.getPrewarms());
+    
+    _cache.setCacheSize(3);
+    Utilities.TEST_MODE = false;  // the document must be built by the prewarm thread without touching the event thread
+    try {
+      doc1.prewarm();
+      _awaitPrewarm();
+    }
+    finally { Utilities.TEST_MODE = true; }
+    assertTrue("Document 1 should have been prewarmed", _adapterTable.get(doc1).isReady());
+    assertEquals("Wrong number of prewarms", prewarms + 1, _cache.getPrewarms());
+    assertEquals("There should be 3 documents in the cache", 3, _cache.getNumInCache());
+    assertFalse("A prewarmed document is unmodified", doc1.isModifiedSinceSave());
+    assertEquals("Wrong prewarmed text", text1, doc1.getText());
+    
+    // a resident document is not prewarmed again
+    doc1.prewarm();
+    _awaitPrewarm();
+    assertEquals("Wrong number of prewarms", prewarms + 1, _cache.getPrewarms());
+  }
+  
+  public void testCompressedText() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 3000; i++) sb.append((char) (i * 37 % 0x10000));
+    String[] texts = { "", "a", "class A { }\n", sb.toString() };
+    for (String text : texts) {
+      CompressedText ct = CompressedText.compress(text);
+      assertEquals("Wrong length", text.length(), ct.length());
+      assertEquals("Wrong text", text, ct.getText());
+    }
+  }
+  
   // not being used.  The new definition of the cache allows for a closed document, if it is used again, to bring its document back.
   // This should be dealt with.
   public void testNoDDocInCache() {
@@ -53,7 +53,6 @@ import edu.rice.cs.drjava.model.FileMovedException;
 import edu.rice.cs.drjava.model.DrJavaFileUtils;
 import edu.rice.cs.util.FileOps;
 import edu.rice.cs.util.OperationCanceledException;
-import edu.rice.cs.util.StringOps;
 import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.swing.Utilities;
 
@@ -61,7 +60,6 @@ import edu.rice.cs.util.swing.Utilities;
   * @version $Id$
   */
 public class CompilerErrorModel {
-  private static final String newLine = StringOps.EOL;
   /** An array of errors to be displayed in the CompilerErrorPanel associated with this model.  After model
     * construction, this array should be sorted in this order:
     * (i)  Errors with no file.
@@ -74,10 +72,17 @@ public class CompilerErrorModel {
   private final DJError[] _errors;
   
   /** An array of file offsets, parallel to the _errors array. NOTE: If there is no position associated with an error,
-    * its entry here should be set to null.
+    * its entry here should be set to null.  The positions in files that are open are calculated just after the model 
+    * is built, before the user can edit them (see _calculateOpenPositions); the positions in other files are only
+    * calculated when they are first needed (see _calculatePositions).
     */
   private final Position[] _positions;
   
+  /** An array parallel to the _errors array, recording the range of errors with line numbers in each error's file.
+    * The entry for an error without a file or line number is null.
+    */
+  private final StartAndEndIndex[] _fileRanges;
+  
   /** The size of _errors and _positions.  This should never change after model construction*/
   private final int _numErrors;
   
@@ -95,16 +100,15 @@ public class CompilerErrorModel {
     */
   private volatile int _onlyWarnings = -1;
   
-  /** Used internally in building _positions.  The file used as the index *must* be a canonical file, or else
-    * errors won't always be associated with the right documents.
+  /** Maps each file with errors that have line numbers to the range of those errors.  The file used as the index 
+    * *must* be a canonical file, or else errors won't always be associated with the right documents.
     */
   private final HashMap<File, StartAndEndIndex> _filesToIndexes = new HashMap<File, StartAndEndIndex>();
   
   /** The global model which created/controls this object. */
   private final GlobalModel _model;
   
-  /** Constructs an empty CompilerErrorModel with no errors and a dummy global model.  As a side effect, it 
-    * opens any documents containing errors/warnings that are not currently open. */
+  /** Constructs an empty CompilerErrorModel with no errors and a dummy global model. */
   public CompilerErrorModel() {
     _model = new DummyGlobalModel() {
       public OpenDefinitionsDocument getDocumentForFile(File file) {
@@ -122,6 +126,7 @@ public class CompilerErrorModel {
     _numWarnings = 0;
     _numCompilerErrors = 0;
     _positions = new Position[0];
+    _fileRanges = new StartAndEndIndex[0];
   }
   
   /** Constructs a new CompilerErrorModel with specified global model.  Performed in DefaultGlobalModel construction 
@@ -180,8 +185,12 @@ public class CompilerErrorModel {
     // Sort the errors by file and position
     Arrays.sort(_errors);
     
-    // Populates _positions.  Must run in event thread because it may open files.
-    Utilities.invokeLater(new Runnable() { public void run() { _calculatePositions(); } });
+    _fileRanges = new StartAndEndIndex[errors.length];
+    _indexFiles();
+    
+    // Anchors the positions in open documents, before they can be edited.  Must run in event thread.  The positions
+    // in files that are not open are calculated when they are first needed.
+    Utilities.invokeLater(new Runnable() { public void run() { _calculateOpenPositions(); } });
   }
   
   /** Accessor for errors field; only used in testing and debugging. */
@@ -200,6 +209,7 @@ public class CompilerErrorModel {
    */
   public Position getPosition(DJError error) {
     int spot = Arrays.binarySearch(_errors, error);
+    if (_fileRanges[spot] != null) _calculatePositions(_fileRanges[spot], null);
     return _positions[spot];
   }
   
@@ -244,6 +254,7 @@ public class CompilerErrorModel {
     
     StartAndEndIndex saei = _filesToIndexes.get(file);
     if (saei == null) return null;
+    _calculatePositions(saei, odd);
     int start = saei.getStartPos();
     int end = saei.getEndPos();
     if (start == end) return null;
@@ -293,7 +304,8 @@ public class CompilerErrorModel {
     return _errors[shouldSelect];
   }
   
-  /** This function tells if there are errors with source locations associated with the given file. 
+  /** This function tells if there are errors with source locations associated with the given file.  Calculates the
+   * positions of the errors in odd if they have not been calculated yet.
    * @param odd the document to check
    * @return true if there are errors with source locations; false otherwise
    */
@@ -311,8 +323,11 @@ public class CompilerErrorModel {
     
     StartAndEndIndex saei = _filesToIndexes.get(file);
     if (saei == null) return false;
-    if (saei.getStartPos() == saei.getEndPos()) return false;
-    return true;
+    _calculatePositions(saei, odd);
+    for (int i = saei.getStartPos(); i < saei.getEndPos(); i++) {
+      if (_positions[i] != null) return true;
+    }
+    return false;
   }
   
   /** Checks whether all CompilerErrors contained here are actually warnings. This would indicate that there were no
@@ -335,113 +350,108 @@ public class CompilerErrorModel {
     }
   }
   
-  /** Create array of positions where each error occurred. Positions are related their corresponding documents. */
-  private void _calculatePositions() {
-    try {
-      int curError = 0;
+  /** Records the range of errors with line numbers in each file.  Does not need the files' documents. */
+  private void _indexFiles() {
+    int curError = nextErrorWithLine(0);
+    while (curError < _numErrors) {
+      File file = _errors[curError].file();
+      final int fileStartIndex = curError;
+      do { curError++; }
+      while ((curError < _numErrors) && file.equals(_errors[curError].file()));
       
-      // for (; numProcessed < _numErrors; numProcessed++) {
-      while ((curError < _numErrors)) {
-        // find the next error with a line number (skipping others)
-        curError = nextErrorWithLine(curError);
-        if (curError >= _numErrors) {break;}
-        
-        //Now find the file and document we are working on
-        File file = _errors[curError].file();
-        OpenDefinitionsDocument document;
-        try { document = _model.getDocumentForFile(file); }
-        catch (Exception e) {
-          // This is intended to catch IOException or OperationCanceledException
-          // skip positions for these errors if the document couldn't be loaded
-          if ((e instanceof IOException) || (e instanceof OperationCanceledException)) {
-            document = null;
-          }
-          else throw new UnexpectedException(e);
-        }
-        if (document == null) {
-          do { curError++;}
-          while ((curError < _numErrors) && (_errors[curError].file().equals(file)));
-          //If the document couldn't be loaded, start the loop over at the top
-          continue;
-        }
-        if (curError >= _numErrors) break;
-        
-        // curError is the first error in a file, and its document is open.
-        final int fileStartIndex = curError;
+      // The errors without line numbers in a file are sorted first, so [fileStartIndex, curError) have line numbers
+      StartAndEndIndex saei = new StartAndEndIndex(file, fileStartIndex, curError);
+      Arrays.fill(_fileRanges, fileStartIndex, curError, saei);
+      
+      // Try to use the canonical file if possible
+      try { file = file.getCanonicalFile(); }
+      catch (IOException ioe) { /* Oh well, store it as is */ }
+      _filesToIndexes.put(file, saei);
+      
+      curError = nextErrorWithLine(curError);
+    }
+  }
+  
+  /** Calculates the positions of the errors in open documents, whether or not they are in memory.  A document that
+    * is not in memory is not loaded; its positions are created from its cached text and are kept by the document
+    * cache until the document is reconstructed.  Only runs in the event thread.
+    */
+  private void _calculateOpenPositions() {
+    if (_filesToIndexes.isEmpty()) return;
+    for (OpenDefinitionsDocument odd : _model.getOpenDefinitionsDocuments()) {
+      File file = odd.getRawFile();
+      if (file == null) continue;
+      try { file = file.getCanonicalFile(); }
+      catch (IOException ioe) { /* Oh well, look for the file as is. */ }
+      StartAndEndIndex saei = _filesToIndexes.get(file);
+      if (saei != null && ! saei.positionsCalculated) {
+        saei.positionsCalculated = true;
+        _createPositions(saei, odd);
+      }
+    }
+  }
+  
+  /** Creates the positions of the errors in the given range, unless they have already been created.  Called for files
+    * that were not open when the model was built.  If the document for such a file has been modified since it was 
+    * opened, the compiler's line numbers no longer describe its text, so its errors get no positions.  Only runs in
+    * the event thread.
+    * @param saei the range of errors, all in the same file
+    * @param document the document for the file, or null if it must be found (and perhaps opened)
+    */
+  private void _calculatePositions(StartAndEndIndex saei, OpenDefinitionsDocument document) {
+    if (saei.positionsCalculated) return;
+    saei.positionsCalculated = true;
+    if (document == null) {
+      try { document = _model.getDocumentForFile(saei.getFile()); }
+      catch (Exception e) {
+        // This is intended to catch IOException or OperationCanceledException
+        // skip positions for these errors if the document couldn't be loaded
+        if ((e instanceof IOException) || (e instanceof OperationCanceledException)) return;
+        else throw new UnexpectedException(e);
+      }
+    }
+    if (document.isModifiedSinceSave()) return;
+    _createPositions(saei, document);
+  }
+  
+  /** Creates the positions of the errors in the given range.  If the document is in memory, each line number is 
+    * resolved through its element structure, so its text is not copied; otherwise the cached text of the document is
+    * scanned, so the document is not loaded.  Only runs in the event thread.
+    * @param saei the range of errors, all in the same file
+    * @param document the document for the file
+    */
+  private void _createPositions(StartAndEndIndex saei, OpenDefinitionsDocument document) {
+    try {
+      if (document.isReady()) {
+        final Element root = document.getDefaultRootElement();
+        final int lineCount = root.getElementCount();
         final int defsLength = document.getLength();
-        final String defsText = document.getText(0, defsLength);
-        int curLine = 0;
-        int offset = 0; // offset is number of chars from beginning of file
-        
-        // offset is always pointing to the first character in the line
-        // containing an error (or the last line of the previous file) at the top of this loop
-        while ((curError < _numErrors) && // we still have errors to find
-               file.equals(_errors[curError].file()) &&  // the next error is in this file
-               (offset <= defsLength)) { // we haven't gone past the end of the file
-          // create new positions for all errors on this line
-          boolean didNotAdvance = false;
-          if (_errors[curError].lineNumber() != curLine) {
-            // if this happens, then we will not advance to the next error in the loop below.
-            // that means we have to advance curError when we reach the end of the document
-            // or we get stuck in an infinite loop (bug 1679178)
-            // this seems to be a problem with incompatible line endings (Windows vs. Unix)
-            didNotAdvance = true;
-          }
-          else {
-            while ((curError < _numErrors) &&
-                   file.equals(_errors[curError].file()) &&  // we are still in this file
-                   (_errors[curError].lineNumber() == curLine)) {
-              _positions[curError] = document.createPosition(offset + _errors[curError].startColumn());
-              curError++;
-            }
-          }
-
-          // At this point, offset is the starting index of the previous error's line.
-          // Update offset to be appropriate for the current error.
-          // ... but don't bother looking if it isn't in this file.
-          // ... or if we're done with all errors already.
-          if (curError < _numErrors) {
-            int curErrorLine = _errors[curError].lineNumber();
-            int nextNewline = 0;
-            while ((curLine != curErrorLine)
-                     && (nextNewline != -1)
-                     && (file.equals(_errors[curError].file()))) {
-              nextNewline = defsText.indexOf(newLine, offset);
-              if (nextNewline == -1) nextNewline = defsText.indexOf("\n", offset);
-              if (nextNewline != -1) {
-                curLine++;
-                offset = nextNewline + 1;
-              }
-              else {
-                // we're at the end of the document
-                if (didNotAdvance) {
-                  // we did not advance to the next error above, so unless we want to
-                  // get stuck in an infinite loop (bug 1679178), we have to advance now.
-                  // otherwise we would never leave the while loop and keep processing
-                  // the same error.
-                  // this situation probably means that the line number information of the
-                  // compiler is different from our line number information;
-                  // probably a Windows vs. Unix line ending problem
-                  _positions[curError] = null;
-                  curError++;
-                }
-              }
-            }
-          }
+        for (int i = saei.getStartPos(); i < saei.getEndPos(); i++) {
+          // If the line is not in the document, the compiler's line number information is different from ours
+          // (probably a Windows vs. Unix line ending problem); the error gets no position
+          int line = _errors[i].lineNumber();
+          if (line >= lineCount) break;  // errors are sorted by line
+          int offset = root.getElement(line).getStartOffset() + _errors[i].startColumn();
+          _positions[i] = document.createPosition(Math.min(offset, defsLength));
         }
-        //Remember the indexes in the _errors and _positions arrays that
-        // are for the errors in this file
-        int fileEndIndex = curError;
-        if (fileEndIndex != fileStartIndex) {
-          // Try to use the canonical file if possible
-          try { file = file.getCanonicalFile(); }
-          catch (IOException ioe) { /* Oh well, store it as is */ }
-          _filesToIndexes.put(file, new StartAndEndIndex(fileStartIndex, fileEndIndex));
+      }
+      else {
+        final String text = document.getText();
+        int line = 0;       // the line starting at lineStart
+        int lineStart = 0;
+        for (int i = saei.getStartPos(); i < saei.getEndPos(); i++) {
+          while (line < _errors[i].lineNumber() && lineStart >= 0) {
+            int newline = text.indexOf('\n', lineStart);
+            lineStart = (newline == -1) ? -1 : newline + 1;
+            line++;
+          }
+          if (lineStart < 0) break;  // the line is not in the document, as above
+          int offset = lineStart + _errors[i].startColumn();
+          _positions[i] = document.createPosition(Math.min(offset, text.length()));
         }
       }
     }
     catch (BadLocationException ble) { throw new UnexpectedException(ble); }
-    catch (StringIndexOutOfBoundsException e) { throw new UnexpectedException(e); }
   }
   
   /** Finds the first error after numProcessed which has a file and line number.
@@ -457,13 +467,18 @@ public class CompilerErrorModel {
     * is inclusive, the ending index is exclusive.
     */
   private static class StartAndEndIndex {
+    private final File file;
     private final int startPos;
     private final int endPos;
+    /** Whether the positions of these errors have been calculated. */
+    private volatile boolean positionsCalculated = false;
     
-    public StartAndEndIndex(int startPos, int endPos) {
+    public StartAndEndIndex(File file, int startPos, int endPos) {
+      this.file = file;
       this.startPos = startPos;
       this.endPos = endPos;
     }
+    public File getFile() { return file; }
     public int getStartPos() { return startPos; }
     public int getEndPos() { return endPos; }
   }
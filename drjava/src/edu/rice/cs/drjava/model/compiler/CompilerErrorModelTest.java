@@ -43,6 +43,9 @@ package edu.rice.cs.drjava.model.compiler;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.Position;
 
 import edu.rice.cs.drjava.model.*;
@@ -294,6 +297,85 @@ public final class CompilerErrorModelTest extends DrJavaTestCase {
     assertEquals("Incorrect error Position.", 38, pos.getOffset());
   }
   
+  /** Tests that the positions in a file that is not open are calculated only when first needed, and that an error on
+    * a line past the end of its document gets no position.
+    */
+  public void testPositionsCalculatedLazily() {
+    setupDocs();
+    final int[] requests = new int[1];
+    getter = new TestDocGetter(files, texts) {
+      public OpenDefinitionsDocument getDocumentForFile(File file) throws IOException {
+        requests[0]++;
+        return super.getDocumentForFile(file);
+      }
+      public List<OpenDefinitionsDocument> getOpenDefinitionsDocuments() {
+        return new ArrayList<OpenDefinitionsDocument>();  // none of the files are open yet
+      }
+    };
+    errors = new DJError[] { 
+      new DJError(files[0], 1, 0, "Test error with File", false),
+      new DJError(files[4], 2, 3, "Test error with File", false),
+      new DJError(files[4], 7, 0, "Test error past the end of the File", false) 
+    };
+    DJError[] copy = new DJError[errors.length];
+    for (int i = 0; i < errors.length; i++) copy[i] = errors[i];
+    model = new CompilerErrorModel(copy, getter);
+    Utilities.clearEventQueue();  // constructor for CompilerErrorModel calls invokeLater
+    assertEquals("No document should be requested before a position is needed.", 0, requests[0]);
+    
+    assertEquals("Incorrect error Position.", 78, model.getPosition(errors[1]).getOffset());
+    assertNull("Error past the end of the document should have no Position.", model.getPosition(errors[2]));
+    assertEquals("Only the document of the error should be requested.", 1, requests[0]);
+  }
+  
+  /** Tests that the positions in an open document that is not in memory are anchored from its cached text before it
+    * can be edited, so that later edits move them.
+    * @throws IOException if an IO operation fails
+    * @throws BadLocationException if an edit is out of range
+    */
+  public void testPositionsAnchoredInEvictedDocument() throws IOException, BadLocationException {
+    setupDocs();
+    getter.evict(files[4]);
+    errors = new DJError[] { 
+      new DJError(files[4], 2, 3, "Test error with File", false),
+      new DJError(files[4], 7, 0, "Test error past the end of the File", false) 
+    };
+    DJError[] copy = new DJError[errors.length];
+    for (int i = 0; i < errors.length; i++) copy[i] = errors[i];
+    model = new CompilerErrorModel(copy, getter);
+    Utilities.clearEventQueue();  // constructor for CompilerErrorModel calls invokeLater
+    
+    // the user inserts two lines before the error before the error panel asks for its position
+    OpenDefinitionsDocument doc = getter.getDocumentForFile(files[4]);
+    doc.insertString(0, "one\ntwo\n", null);
+    assertEquals("Error position should follow the edit.", 78 + 8, model.getPosition(errors[0]).getOffset());
+    assertNull("Error past the end of the document should have no Position.", model.getPosition(errors[1]));
+  }
+  
+  /** Tests that the errors in a file that was opened and edited after the compilation get no positions, since the 
+    * compiler's line numbers no longer describe its text.
+    * @throws IOException if an IO operation fails
+    * @throws BadLocationException if an edit is out of range
+    */
+  public void testNoPositionsInDocumentEditedAfterCompile() throws IOException, BadLocationException {
+    setupDocs();
+    getter = new TestDocGetter(files, texts) {
+      public List<OpenDefinitionsDocument> getOpenDefinitionsDocuments() {
+        return new ArrayList<OpenDefinitionsDocument>();  // none of the files are open yet
+      }
+    };
+    errors = new DJError[] { new DJError(files[4], 2, 3, "Test error with File", false) };
+    DJError[] copy = new DJError[errors.length];
+    for (int i = 0; i < errors.length; i++) copy[i] = errors[i];
+    model = new CompilerErrorModel(copy, getter);
+    Utilities.clearEventQueue();  // constructor for CompilerErrorModel calls invokeLater
+    
+    OpenDefinitionsDocument doc = getter.getDocumentForFile(files[4]);
+    doc.insertString(0, "one\ntwo\n", null);
+    assertFalse("Edited file should have no errors with lines.", model.hasErrorsWithPositions(doc));
+    assertNull("Error in edited file should have no Position.", model.getPosition(errors[0]));
+  }
+  
   /** Tests CompilerErrorModel.getErrorAtOffset(int). 
    * @throws IOException if an IO operation fails
    * @throws OperationCanceledException if an operation is canceled unexpectedly
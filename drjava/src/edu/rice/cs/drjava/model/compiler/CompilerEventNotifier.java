@@ -38,6 +38,7 @@ package edu.rice.cs.drjava.model.compiler;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import edu.rice.cs.drjava.model.EventNotifier;
 
@@ -88,6 +89,13 @@ class CompilerEventNotifier extends EventNotifier<CompilerListener> implements C
     try { for (CompilerListener cl : _listeners) { cl.compileEnded(workDir, excludedFiles); } }
     finally { _lock.endRead(); }
   }
+  
+  /** Called when a compile has finished running, with the time spent in each of its phases. */
+  public void compilePhaseTimes(Map<String, Long> phaseTimes) {
+    _lock.startRead();
+    try { for (CompilerListener cl : _listeners) { cl.compilePhaseTimes(phaseTimes); } }
+    finally { _lock.endRead(); }
+  }
 
   /** Called if the compile cannot be performed. By default, the Exception is an UnexpectedException containing an
     * explanatory message.
@@ -38,6 +38,7 @@ package edu.rice.cs.drjava.model.compiler;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 /** An interface for responding to events generated by the CompilerModel.
  *  @version $Id$
@@ -53,6 +54,11 @@ public interface CompilerListener {
    */
   public void compileEnded(File workDir, List<? extends File> excludedFiles);
   
+  /** Called when a compile has finished running, just before compileEnded, with the time spent in each of its phases.
+   * @param phaseTimes the duration of each phase in milliseconds, keyed by phase name, in the order the phases ran
+   */
+  public void compilePhaseTimes(Map<String, Long> phaseTimes);
+  
   /** Called if a compilation is aborted. 
    * @param e the exception with which the compilation terminated
    */
@@ -36,6 +36,7 @@
 
 package edu.rice.cs.drjava.model.compiler;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
@@ -103,6 +104,9 @@ public interface CompilerModel {
   /** Resets the compiler error state to have no errors. */
   public void resetCompilerErrors();
   
+  /** @return the files of the last compilation that incremental compilation found up to date and did not compile */
+  public List<File> getSkippedFiles();
+  
   //-------------------------- Compiler Management --------------------------//
   
   /** @return all registered compilers that are actually available.  If there are none,
@@ -55,6 +55,7 @@ import edu.rice.cs.drjava.model.definitions.InvalidPackageException;
 
 import edu.rice.cs.util.FileOps;
 import edu.rice.cs.util.Log;
+import edu.rice.cs.util.PhaseTimer;
 import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.swing.ScrollableListDialog;
 import edu.rice.cs.util.swing.Utilities;
@@ -99,6 +100,15 @@ public class DefaultCompilerModel implements CompilerModel {
     * numbers to .dj* line numbers when an error is thrown */
   public LanguageLevelStackTraceMapper _LLSTM;
   
+  /** The files of the last compilation that were found up to date by incremental compilation. */
+  private volatile List<File> _skippedFiles = Collections.emptyList();
+  
+  /** The dependency graph of the build directory, if incremental compilation is enabled.  Guarded by _compilerLock. */
+  private DependencyGraph _dependencyGraph = null;
+  
+  /** The build directory to which _dependencyGraph belongs.  Guarded by _compilerLock. */
+  private File _dependencyGraphDir = null;
+  
   /** Main constructor.  
     * @param m the GlobalModel that is the source of documents for this CompilerModel
     * @param compilers  The compilers to use.  The first will be made active; all are assumed
@@ -335,7 +345,10 @@ public class DefaultCompilerModel implements CompilerModel {
    * @throws IOException if an IO operation fails
    */
   private void _compileFiles(List<File> files, File buildDir) throws IOException {
+    _skippedFiles = Collections.emptyList();
     if (! files.isEmpty()) {
+      final PhaseTimer timer = new PhaseTimer();
+      
       /* Canonicalize buildDir */
       if (buildDir == FileOps.NULL_FILE) buildDir = null; // compiler interface wants null pointer if no build directory
       if (buildDir != null) buildDir = IOUtil.attemptCanonicalFile(buildDir);
@@ -348,28 +361,60 @@ public class DefaultCompilerModel implements CompilerModel {
       if (bootProp != null) { bootClassPath = CollectUtil.makeList(IOUtil.parsePath(bootProp)); }
       
       final LinkedList<DJError> errors = new LinkedList<DJError>();
+      timer.endPhase("setup");
       
       List<? extends File> preprocessedFiles = _compileLanguageLevelsFiles(files, errors, classPath, bootClassPath);
       
       System.out.println("Compiler is using classPath = '" + classPath + "';  bootClassPath = '" + bootClassPath + "'");
       
-      if (preprocessedFiles != null) System.out.println("Performed Language Level Translation of " + preprocessedFiles);
+      if (preprocessedFiles != null) {
+        System.out.println("Performed Language Level Translation of " + preprocessedFiles);
+        timer.endPhase("language levels");
+      }
       if (errors.isEmpty()) {
         CompilerInterface compiler = getActiveCompiler();
         
         // Mutual exclusion with JUnit code that finds all test classes (in DefaultJUnitModel)
         synchronized(_compilerLock) {
+          timer.endPhase("waiting");
           if (preprocessedFiles == null) {
-            errors.addAll(compiler.compile(files, classPath, null, buildDir, bootClassPath, null, true));
+            DependencyGraph graph = _getDependencyGraph(compiler, classPath, bootClassPath, buildDir);
+            if (graph == null) {
+              errors.addAll(compiler.compile(files, classPath, null, buildDir, bootClassPath, null, true));
+              timer.endPhase("compiler");
+            }
+            else {
+              List<File> staleFiles = graph.staleFiles(files, buildDir);
+              ArrayList<File> skippedFiles = new ArrayList<File>(files);
+              skippedFiles.removeAll(staleFiles);
+              _skippedFiles = skippedFiles;
+              _log.log("Incremental compilation of " + staleFiles.size() + " files; skipped " + 
+                       skippedFiles.size() + " up-to-date files");
+              timer.endPhase("dependency analysis");
+              
+              DependencyGraph.Stamps stamps = DependencyGraph.stamp(staleFiles);
+              if (! staleFiles.isEmpty()) {
+                errors.addAll(compiler.compile(staleFiles, classPath, null, buildDir, bootClassPath, null, true));
+              }
+              timer.endPhase("compiler");
+              _recordDependencies(graph, staleFiles, stamps, buildDir, errors);
+              timer.endPhase("dependency recording");
+            }
           }
           else {
             /** If compiling a language level file, do not show warnings, as these are not caught by the language level 
               * parser */
             errors.addAll(compiler.compile(preprocessedFiles, classPath, null, buildDir, bootClassPath, null, false));
+            timer.endPhase("compiler");
           }
         }
       }
       _distributeErrors(errors);
+      timer.endPhase("error distribution");
+      
+      final Map<String, Long> phaseTimes = timer.getPhaseTimes();
+      _log.log("Compilation phase times (ms): " + phaseTimes);
+      Utilities.invokeLater(new Runnable() { public void run() { _notifier.compilePhaseTimes(phaseTimes); } });
     }
     else { 
       // TODO: Is this necessary?
@@ -377,6 +422,54 @@ public class DefaultCompilerModel implements CompilerModel {
     }
   }
   
+  /** Returns the dependency graph of buildDir, loading it if necessary, or null if incremental compilation is disabled
+    * or there is no build directory.  A graph recorded with a different compiler or class path is discarded.  Only
+    * called with _compilerLock held.
+    * @param compiler the compiler that will be used
+    * @param classPath the class path of the compilation
+    * @param bootClassPath the boot class path of the compilation, or null
+    * @param buildDir the canonical build directory, or null
+    * @return the dependency graph to use, or null
+    */
+  private DependencyGraph _getDependencyGraph(CompilerInterface compiler, List<File> classPath, 
+                                              List<File> bootClassPath, File buildDir) {
+    if (buildDir == null || ! DrJava.getConfig().getSetting(OptionConstants.INCREMENTAL_COMPILATION).booleanValue()) {
+      return null;
+    }
+    String configKey = compiler.getName() + " " + compiler.version() + " " + IOUtil.pathToString(classPath) + " " +
+      ((bootClassPath == null) ? "" : IOUtil.pathToString(bootClassPath));
+    if (_dependencyGraph == null || ! buildDir.equals(_dependencyGraphDir) ||
+        ! configKey.equals(_dependencyGraph.getConfigKey())) {
+      _dependencyGraph = DependencyGraph.load(buildDir, configKey);
+      _dependencyGraphDir = buildDir;
+    }
+    return _dependencyGraph;
+  }
+  
+  /** Updates and saves the dependency graph after an incremental compilation.  Files that failed to compile are left
+    * out of the graph so that they are compiled again next time.  Only called with _compilerLock held.
+    * @param graph the dependency graph of buildDir
+    * @param compiled the files that were compiled
+    * @param stamps the stamps of the compiled files, taken before the compilation started
+    * @param buildDir the canonical build directory
+    * @param errors the errors and warnings reported by the compilation
+    */
+  private void _recordDependencies(DependencyGraph graph, List<File> compiled, DependencyGraph.Stamps stamps, 
+                                   File buildDir, List<? extends DJError> errors) {
+    boolean failed = false;
+    for (DJError e: errors) { if (! e.isWarning()) { failed = true; break; } }
+    if (failed) graph.remove(compiled);
+    else {
+      try { graph.update(stamps, buildDir); }
+      catch (IOException e) {
+        _log.log("could not read class files in " + buildDir, e);
+        graph.remove(compiled);
+      }
+    }
+    try { graph.save(buildDir); }
+    catch (IOException e) { _log.log("could not save dependency graph in " + buildDir, e); }
+  }
+  
   /** Reorders files so that all file names containing "Test" are at the end.  
    * @param files the files to be sorted
    * @return the sorted list of files
@@ -556,7 +649,14 @@ public class DefaultCompilerModel implements CompilerModel {
       Options llOpts;  /* Options passed as arguments to LLConverter */
       if (bootClassPath == null) { llOpts = new Options(getActiveCompiler().version(), classPath); }
       else { llOpts = new Options(getActiveCompiler().version(), classPath, bootClassPath); }
-      
+
+      /* Keep the library class signatures read during conversion next to the properties file, so that later
+       * sessions need not read them from the jars again. */
+      File llCache = new File(DrJava.getPropertiesFile().getAbsoluteFile().getParentFile(), ".drjava-llcache");
+      if (! llCache.equals(LanguageLevelConverter.LIBRARY_CLASSES.getFile())) {
+        LanguageLevelConverter.LIBRARY_CLASSES.setFile(llCache);
+      }
+
       // NOTE: the workaround "_testFileSort(files)" instead of simply "files") may no longer be necessary.
       
       /* Perform the LL conversion incorporating the following workaround:  Forward references can generate spurious 
@@ -607,6 +707,9 @@ public class DefaultCompilerModel implements CompilerModel {
   /** @return the total number of current warnings. */  
   public int getNumWarnings() { return getCompilerErrorModel().getNumWarnings(); }
   
+  /** @return the files of the last compilation that incremental compilation found up to date and did not compile */
+  public List<File> getSkippedFiles() { return _skippedFiles; }
+  
   /** Resets the compiler error state to have no errors. */
   public void resetCompilerErrors() {
     // TODO: see if we can get by without this function
@@ -0,0 +1,410 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model.compiler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+
+import org.objectweb.asm.*;
+
+import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.util.Log;
+
+/** The class-level dependency graph of the sources compiled into a build directory, used for incremental compilation.
+  * For each source file, the graph records the size and modification time of the file when it was last compiled
+  * successfully, the classes (in internal form, e.g. {@code java/lang/Object}) that the compilation produced, and the 
+  * classes those class files refer to.  The references are read with ASM from the class files themselves: the class
+  * entries of the constant pool, and the types in member descriptors, signatures, and annotations.
+  * <p>A source must be recompiled if it changed since it was recorded, if one of its class files disappeared, or if it
+  * (transitively) refers to a class produced by such a source.  Like every class file based scheme, the graph cannot
+  * see compile-time constants that javac inlined into other classes; a full compile is required after changing the 
+  * value of a {@code static final} constant that other files use.</p>
+  * <p>The graph is stored as a text file in the build directory.  The file also records a configuration key (the 
+  * compiler and class path); a graph recorded under a different configuration is discarded.</p>
+  * @version $Id$
+  */
+class DependencyGraph {
+  
+  /** for logging debug info */
+  private static final Log _log = new Log("DependencyGraph.txt", false);
+  
+  /** The name of the file in the build directory holding the graph. */
+  public static final String FILE_NAME = ".drjava-dependencies";
+  
+  /** The first line of the file; changes whenever the format changes. */
+  private static final String HEADER = "DrJava dependency graph 1";
+  
+  /** Tolerance for file systems that record modification times in whole seconds (or worse). */
+  private static final long TIMESTAMP_SLACK = 2000L;
+  
+  /** What is known about a source file from its last successful compilation. */
+  private static class SourceRecord {
+    long lastModified;
+    long length;
+    final Set<String> classes = new HashSet<String>();
+    final Set<String> references = new HashSet<String>();
+  }
+  
+  /** The sizes and modification times of a set of sources, and the time at which they were taken.  Taken just before
+    * the sources are compiled, so that a source saved while the compiler runs is not recorded as up to date.
+    */
+  public static class Stamps {
+    final long time;
+    final LinkedHashMap<File, SourceRecord> records = new LinkedHashMap<File, SourceRecord>();
+    private Stamps(long t) { time = t; }
+  }
+  
+  /** The recorded sources, keyed by canonical file. */
+  private final HashMap<File, SourceRecord> _sources = new HashMap<File, SourceRecord>();
+  
+  /** The configuration under which the graph was recorded. */
+  private final String _configKey;
+  
+  /** Creates an empty graph.
+    * @param configKey the compiler configuration of the build directory
+    */
+  public DependencyGraph(String configKey) { _configKey = configKey; }
+  
+  /** @return the configuration under which this graph was recorded */
+  public String getConfigKey() { return _configKey; }
+  
+  /** @return the number of recorded sources */
+  public int size() { return _sources.size(); }
+  
+  /** @param source a source file
+    * @return whether the source is recorded as compiled and up to date with respect to its own text
+    */
+  public boolean isRecorded(File source) { return _sources.containsKey(IOUtil.attemptCanonicalFile(source)); }
+  
+  /** Determines which of the given source files must be compiled: files that are new or changed since they were 
+    * recorded, files whose class files are missing from buildDir, and all files that depend on them, directly or 
+    * transitively.  Recorded files that no longer exist are dropped, and their dependents are recompiled.  Dependents 
+    * that are not among the given files are dropped from the graph so that they are compiled the next time they are 
+    * requested.
+    * @param files the source files requested for compilation
+    * @param buildDir the directory containing the class files
+    * @return the files that must be compiled, in the order in which they were given
+    */
+  public List<File> staleFiles(List<File> files, File buildDir) {
+    final HashSet<File> requested = new HashSet<File>();
+    for (File f: files) requested.add(IOUtil.attemptCanonicalFile(f));
+    
+    // Find the changed sources
+    final LinkedList<File> work = new LinkedList<File>();
+    final HashSet<File> stale = new HashSet<File>();
+    for (File f: requested) {
+      SourceRecord r = _sources.get(f);
+      if (r == null || r.lastModified != f.lastModified() || r.length != f.length() || ! _hasClassFiles(r, buildDir)) {
+        stale.add(f);
+        work.add(f);
+      }
+    }
+    for (File f: new ArrayList<File>(_sources.keySet())) {
+      if (! requested.contains(f) && ! f.exists()) {
+        stale.add(f);
+        work.add(f);
+      }
+    }
+    
+    // Propagate to the transitive dependents
+    if (! work.isEmpty()) {
+      final HashMap<String, List<File>> referrers = new HashMap<String, List<File>>();
+      for (Map.Entry<File, SourceRecord> e: _sources.entrySet()) {
+        for (String c: e.getValue().references) {
+          List<File> l = referrers.get(c);
+          if (l == null) { l = new ArrayList<File>(2); referrers.put(c, l); }
+          l.add(e.getKey());
+        }
+      }
+      while (! work.isEmpty()) {
+        SourceRecord r = _sources.get(work.removeFirst());
+        if (r == null) continue;
+        for (String c: r.classes) {
+          List<File> l = referrers.get(c);
+          if (l == null) continue;
+          for (File dependent: l) {
+            if (stale.add(dependent)) work.add(dependent);
+          }
+        }
+      }
+    }
+    
+    // Everything stale must be recompiled before it can be trusted again
+    for (File f: stale) _sources.remove(f);
+    
+    final ArrayList<File> result = new ArrayList<File>();
+    for (File f: files) if (stale.contains(IOUtil.attemptCanonicalFile(f))) result.add(f);
+    _log.log("staleFiles: " + result.size() + " of " + files.size() + " files must be compiled");
+    return result;
+  }
+  
+  /** @return true iff all class files produced from r are present in buildDir */
+  private static boolean _hasClassFiles(SourceRecord r, File buildDir) {
+    for (String c: r.classes) { if (! new File(buildDir, c + ".class").isFile()) return false; }
+    return true;
+  }
+  
+  /** Takes the stamps of the given sources.  Must be called before they are compiled.
+    * @param sources the source files about to be compiled
+    * @return the sizes and modification times of the sources, and the current time
+    */
+  public static Stamps stamp(List<File> sources) {
+    final Stamps stamps = new Stamps(System.currentTimeMillis());
+    for (File f: sources) {
+      f = IOUtil.attemptCanonicalFile(f);
+      SourceRecord r = new SourceRecord();
+      r.lastModified = f.lastModified();
+      r.length = f.length();
+      stamps.records.put(f, r);
+    }
+    return stamps;
+  }
+  
+  /** Records the result of a successful compilation.  Scans buildDir for class files written since the stamps were
+    * taken, attributes each one to one of the compiled sources (by its SourceFile attribute and package), and records 
+    * the classes it refers to.  Each source is recorded with its stamp, so a source changed during the compilation 
+    * is stale.
+    * @param compiled the stamps of the source files that were compiled, taken before the compilation started
+    * @param buildDir the directory containing the class files
+    * @throws IOException if a class file cannot be read
+    */
+  public void update(Stamps compiled, File buildDir) throws IOException {
+    // Index the compiled sources by simple name; several packages may contain files with the same name
+    final HashMap<String, List<File>> byName = new HashMap<String, List<File>>();
+    for (Map.Entry<File, SourceRecord> e: compiled.records.entrySet()) {
+      File f = e.getKey();
+      SourceRecord r = new SourceRecord();
+      r.lastModified = e.getValue().lastModified;
+      r.length = e.getValue().length;
+      _sources.put(f, r);
+      List<File> l = byName.get(f.getName());
+      if (l == null) { l = new ArrayList<File>(1); byName.put(f.getName(), l); }
+      l.add(f);
+    }
+    
+    final ArrayList<File> classFiles = new ArrayList<File>();
+    _collectClassFiles(buildDir, compiled.time - TIMESTAMP_SLACK, classFiles);
+    for (File cf: classFiles) {
+      final ClassInfo info = readClassFile(cf);
+      if (info.sourceName == null) continue;
+      final File source = _findSource(info, byName.get(info.sourceName));
+      if (source == null) continue;  // e.g. a file compiled implicitly from the source path
+      final SourceRecord r = _sources.get(source);
+      r.classes.add(info.name);
+      r.references.addAll(info.references);
+    }
+    for (File f: compiled.records.keySet()) {
+      SourceRecord r = _sources.get(f);
+      r.references.removeAll(r.classes);
+    }
+  }
+  
+  /** Drops the given sources from the graph, for example because their compilation failed.
+    * @param sources the source files to forget
+    */
+  public void remove(List<File> sources) {
+    for (File f: sources) _sources.remove(IOUtil.attemptCanonicalFile(f));
+  }
+  
+  /** Recursively collects the class files under dir modified at or after the given time. */
+  private static void _collectClassFiles(File dir, long since, List<File> result) {
+    File[] children = dir.listFiles();
+    if (children == null) return;
+    for (File f: children) {
+      if (f.isDirectory()) _collectClassFiles(f, since, result);
+      else if (f.getName().endsWith(".class") && f.lastModified() >= since) result.add(f);
+    }
+  }
+  
+  /** Chooses the source of a class among the compiled sources with the class's source file name.  Prefers the
+    * source whose directory matches the package of the class.
+    */
+  private static File _findSource(ClassInfo info, List<File> candidates) {
+    if (candidates == null) return null;
+    if (candidates.size() == 1) return candidates.get(0);
+    final int slash = info.name.lastIndexOf('/');
+    final String pkgPath = (slash < 0) ? "" : info.name.substring(0, slash).replace('/', File.separatorChar);
+    for (File f: candidates) {
+      String parent = f.getParent();
+      if (parent != null && parent.endsWith(pkgPath)) return f;
+    }
+    return null;
+  }
+  
+  /** The dependency information extracted from a class file. */
+  static class ClassInfo {
+    /** The internal name of the class. */
+    String name;
+    /** The SourceFile attribute, or null if the class was compiled without it. */
+    String sourceName;
+    /** The internal names of all referenced classes. */
+    final Set<String> references = new HashSet<String>();
+  }
+  
+  /** Reads the name, source file name, and referenced classes of a class file.
+    * @param classFile the class file
+    * @return the dependency information of the class
+    * @throws IOException if the file cannot be read
+    */
+  static ClassInfo readClassFile(File classFile) throws IOException {
+    final ClassInfo info = new ClassInfo();
+    final ClassReader cr = new ClassReader(IOUtil.toByteArray(classFile));
+    info.name = cr.getClassName();
+    
+    // Class entries, and the descriptors of referenced members and method types, from the constant pool
+    final char[] buf = new char[cr.getMaxStringLength()];
+    for (int i = 1; i < cr.getItemCount(); i++) {
+      int index = cr.getItem(i);
+      if (index == 0) continue;  // the unusable slot following a long or double
+      switch (cr.b[index - 1]) {
+        case 7:  // CONSTANT_Class
+          String c = cr.readUTF8(index, buf);
+          if (c.startsWith("[")) _addDescriptor(c, info.references);
+          else info.references.add(c);
+          break;
+        case 12:  // CONSTANT_NameAndType
+          _addDescriptor(cr.readUTF8(index + 2, buf), info.references);
+          break;
+        case 16:  // CONSTANT_MethodType
+          _addDescriptor(cr.readUTF8(index, buf), info.references);
+          break;
+        default:
+      }
+    }
+    
+    // Types that only occur in declarations of this class
+    cr.accept(new ClassVisitor(Opcodes.ASM5) {
+      public void visit(int version, int access, String name, String sig, String sup, String[] inters) {
+        _addDescriptor(sig, info.references);
+      }
+      public void visitSource(String source, String debug) { info.sourceName = source; }
+      public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+        _addDescriptor(desc, info.references);
+        return null;
+      }
+      public FieldVisitor visitField(int a, String n, String d, String s, Object v) {
+        _addDescriptor(d, info.references);
+        _addDescriptor(s, info.references);
+        return null;
+      }
+      public MethodVisitor visitMethod(int a, String n, String d, String s, String[] e) {
+        _addDescriptor(d, info.references);
+        _addDescriptor(s, info.references);
+        if (e != null) info.references.addAll(Arrays.asList(e));
+        return null;
+      }
+    }, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+    
+    info.references.remove(info.name);
+    return info;
+  }
+  
+  /** Adds the class names occurring in a descriptor or generic signature to names.  The scan is deliberately 
+    * approximate: a spurious name only causes an unnecessary recompilation.
+    */
+  private static void _addDescriptor(String desc, Set<String> names) {
+    if (desc == null) return;
+    final int len = desc.length();
+    int i = 0;
+    while (i < len) {
+      if (desc.charAt(i++) != 'L') continue;
+      int start = i;
+      while (i < len && desc.charAt(i) != ';' && desc.charAt(i) != '<') i++;
+      if (i > start) names.add(desc.substring(start, i));
+    }
+  }
+  
+  /** Loads the graph stored in buildDir.  Returns an empty graph if there is none, if it cannot be read, or if it was
+    * recorded under a different configuration.
+    * @param buildDir the build directory
+    * @param configKey the current compiler configuration
+    * @return the loaded graph
+    */
+  public static DependencyGraph load(File buildDir, String configKey) {
+    final DependencyGraph g = new DependencyGraph(configKey);
+    final File file = new File(buildDir, FILE_NAME);
+    if (! file.isFile()) return g;
+    BufferedReader in = null;
+    try {
+      in = new BufferedReader(new FileReader(file));
+      if (! HEADER.equals(in.readLine()) || ! ("config\t" + configKey).equals(in.readLine())) return g;
+      SourceRecord r = null;
+      String line;
+      while ((line = in.readLine()) != null) {
+        int tab = line.indexOf('\t');
+        if (tab < 0) continue;
+        String kind = line.substring(0, tab);
+        String rest = line.substring(tab + 1);
+        if (kind.equals("source")) {
+          String[] parts = rest.split("\t");
+          r = new SourceRecord();
+          r.lastModified = Long.parseLong(parts[1]);
+          r.length = Long.parseLong(parts[2]);
+          g._sources.put(new File(parts[0]), r);
+        }
+        else if (r == null) continue;
+        else if (kind.equals("class")) r.classes.add(rest);
+        else if (kind.equals("ref")) r.references.add(rest);
+      }
+      return g;
+    }
+    catch (IOException e) { _log.log("could not read " + file, e); }
+    catch (RuntimeException e) { _log.log("malformed " + file, e); }  // e.g. NumberFormatException
+    finally { IOUtil.attemptClose(in); }
+    return new DependencyGraph(configKey);
+  }
+  
+  /** Stores the graph in buildDir.
+    * @param buildDir the build directory
+    * @throws IOException if the file cannot be written
+    */
+  public void save(File buildDir) throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(HEADER).append('\n');
+    sb.append("config\t").append(_configKey).append('\n');
+    for (Map.Entry<File, SourceRecord> e: _sources.entrySet()) {
+      final SourceRecord r = e.getValue();
+      sb.append("source\t").append(e.getKey().getPath()).append('\t').append(r.lastModified).append('\t');
+      sb.append(r.length).append('\n');
+      for (String c: r.classes) sb.append("class\t").append(c).append('\n');
+      for (String c: r.references) sb.append("ref\t").append(c).append('\n');
+    }
+    IOUtil.writeStringToFile(new File(buildDir, FILE_NAME), sb.toString());
+  }
+}
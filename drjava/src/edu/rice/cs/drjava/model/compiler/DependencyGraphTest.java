@@ -0,0 +1,165 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests the dependency tracking of DependencyGraph on class files produced by javac.
+  * @version $Id$
+  */
+public final class DependencyGraphTest extends DrJavaTestCase {
+  
+  private File _tempDir;
+  private File _srcDir;
+  private File _buildDir;
+  private File _a, _b, _c, _d;
+  private List<File> _all;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+    _srcDir = new File(_tempDir, "src");
+    _buildDir = new File(_tempDir, "classes");
+    File pkgDir = new File(_srcDir, "p");
+    pkgDir.mkdirs();
+    _buildDir.mkdirs();
+    _a = _write(pkgDir, "A", "package p; public class A { public int f() { return 1; } }");
+    _b = _write(pkgDir, "B", "package p; public class B extends A { }");
+    _c = _write(pkgDir, "C", "package p; public class C { int g(B b) { return b.f(); } }");
+    _d = _write(pkgDir, "D", "package p; public class D { class Inner { } }");
+    _all = Arrays.asList(_a, _b, _c, _d);
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_tempDir);
+    super.tearDown();
+  }
+  
+  private static File _write(File dir, String name, String text) throws IOException {
+    File f = new File(dir, name + ".java");
+    IOUtil.writeStringToFile(f, text);
+    return IOUtil.attemptCanonicalFile(f);
+  }
+  
+  /** Compiles the given files into the build directory and records them in graph. */
+  private void _compile(DependencyGraph graph, List<File> files) throws IOException {
+    JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+    ArrayList<String> args = new ArrayList<String>(Arrays.asList("-d", _buildDir.getPath(), "-cp", _buildDir.getPath()));
+    for (File f: files) args.add(f.getPath());
+    DependencyGraph.Stamps stamps = DependencyGraph.stamp(files);
+    assertEquals("javac exit code", 0, javac.run(null, null, null, args.toArray(new String[0])));
+    graph.update(stamps, _buildDir);
+  }
+  
+  public void testReadClassFile() throws IOException {
+    _compile(new DependencyGraph(""), _all);
+    DependencyGraph.ClassInfo info = DependencyGraph.readClassFile(new File(_buildDir, "p/C.class"));
+    assertEquals("name", "p/C", info.name);
+    assertEquals("source", "C.java", info.sourceName);
+    assertTrue("parameter type", info.references.contains("p/B"));
+    assertFalse("self", info.references.contains("p/C"));
+    
+    info = DependencyGraph.readClassFile(new File(_buildDir, "p/D$Inner.class"));
+    assertEquals("nested class source", "D.java", info.sourceName);
+  }
+  
+  public void testTransitiveDependents() throws IOException {
+    DependencyGraph graph = new DependencyGraph("");
+    assertEquals("everything is stale at first", _all, graph.staleFiles(_all, _buildDir));
+    _compile(graph, _all);
+    assertEquals("nothing is stale after compiling", 0, graph.staleFiles(_all, _buildDir).size());
+    
+    IOUtil.writeStringToFile(_a, "package p; public class A { public int f() { return 2; } public int h; }");
+    _a.setLastModified(_a.lastModified() + 10000);
+    assertEquals("A, its subclass, and users of the subclass are stale", Arrays.asList(_a, _b, _c), 
+                 graph.staleFiles(_all, _buildDir));
+    _compile(graph, Arrays.asList(_a, _b, _c));
+    
+    assertTrue(new File(_buildDir, "p/D$Inner.class").delete());
+    assertEquals("a missing class file makes its source stale", Arrays.asList(_d), graph.staleFiles(_all, _buildDir));
+  }
+  
+  public void testSourceSavedDuringCompilation() throws IOException {
+    DependencyGraph graph = new DependencyGraph("");
+    DependencyGraph.Stamps stamps = DependencyGraph.stamp(_all);
+    JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+    ArrayList<String> args = new ArrayList<String>(Arrays.asList("-d", _buildDir.getPath()));
+    for (File f: _all) args.add(f.getPath());
+    assertEquals("javac exit code", 0, javac.run(null, null, null, args.toArray(new String[0])));
+    
+    // D is saved after javac read it but before the graph is updated
+    IOUtil.writeStringToFile(_d, "package p; public class D { class Inner { } int x; }");
+    _d.setLastModified(_d.lastModified() + 10000);
+    graph.update(stamps, _buildDir);
+    assertEquals("the file saved during the compilation is stale", Arrays.asList(_d), 
+                 graph.staleFiles(_all, _buildDir));
+  }
+  
+  public void testDependentsOutsideRequest() throws IOException {
+    DependencyGraph graph = new DependencyGraph("");
+    _compile(graph, _all);
+    _b.setLastModified(_b.lastModified() + 10000);
+    assertEquals("only requested files are returned", Arrays.asList(_b), 
+                 graph.staleFiles(Arrays.asList(_b, _d), _buildDir));
+    assertFalse("the unrequested dependent is dropped", graph.isRecorded(_c));
+    assertTrue("the unrelated file is kept", graph.isRecorded(_d));
+  }
+  
+  public void testSaveAndLoad() throws IOException {
+    DependencyGraph graph = new DependencyGraph("javac 1.8");
+    _compile(graph, _all);
+    graph.save(_buildDir);
+    
+    DependencyGraph loaded = DependencyGraph.load(_buildDir, "javac 1.8");
+    assertEquals("size", 4, loaded.size());
+    assertEquals("nothing is stale after loading", 0, loaded.staleFiles(_all, _buildDir).size());
+    _a.setLastModified(_a.lastModified() + 10000);
+    assertEquals("loaded references", Arrays.asList(_a, _b, _c), loaded.staleFiles(_all, _buildDir));
+    
+    assertEquals("graph of another configuration is discarded", 0, DependencyGraph.load(_buildDir, "javac 9").size());
+  }
+}
@@ -38,6 +38,7 @@ package edu.rice.cs.drjava.model.compiler;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 /** An interface for responding to events generated by the CompilerModel.
  *  @version $Id$
@@ -45,6 +46,7 @@ import java.util.List;
 public class DummyCompilerListener implements CompilerListener {
   public void compileStarted() { }
   public void compileEnded(File workDir, List<? extends File> excludedFiles) { }
+  public void compilePhaseTimes(Map<String, Long> phaseTimes) { }
   public void compileAborted(Exception e) { }
   public void saveBeforeCompile() { }
   public void saveUntitled() { }
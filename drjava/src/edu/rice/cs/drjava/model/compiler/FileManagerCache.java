@@ -0,0 +1,170 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+import edu.rice.cs.util.Log;
+
+/** Keeps a compiler's StandardJavaFileManager alive between compilations, so that the indexes javac builds for the
+  * jar files on the class path and boot class path are read once rather than on every compile.  The file manager is
+  * discarded and recreated when the class path or boot class path changes, or when one of their jar files is
+  * replaced (its size or modification time changes).  Directories are listed afresh by javac on every compile, so
+  * changes to the build directory need no invalidation.  Diagnostics reported by the file manager itself are
+  * forwarded to the listener of the compilation in progress.
+  * <p>A compiler acquires the file manager with {@link #acquire}, runs its task, and hands it back with 
+  * {@link #release}, which drops cached source file contents.  Only one compilation may use the file manager at a 
+  * time; callers must serialize compilations, for example by synchronizing on this cache.</p>
+  * @version $Id$
+  */
+public class FileManagerCache {
+  
+  /** for logging debug info */
+  private static final Log _log = new Log("FileManagerCache.txt", false);
+  
+  /** The charset in which DrJava passes sources to the compiler. */
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  
+  /** The cached file manager, or null. */
+  private StandardJavaFileManager _fileManager = null;
+  
+  /** The class of the compiler that created _fileManager.  Compiler instances of the same class are interchangeable. */
+  private Class<?> _compilerClass = null;
+  
+  /** The class path and boot class path for which _fileManager was created. */
+  private List<File> _paths = null;
+  
+  /** The size and modification time of each jar file in _paths when _fileManager was created.  Missing files are 
+    * included, so that creating one also invalidates the file manager. */
+  private final Map<File, Long> _jarStamps = new HashMap<File, Long>();
+  
+  /** The listener of the compilation in progress. */
+  private volatile DiagnosticListener<? super JavaFileObject> _listener = null;
+  
+  private int _reuses = 0;
+  private int _creations = 0;
+  
+  /** Forwards the diagnostics of the file manager to the current compilation. */
+  private final DiagnosticListener<JavaFileObject> _forwarder = new DiagnosticListener<JavaFileObject>() {
+    public void report(Diagnostic<? extends JavaFileObject> d) {
+      DiagnosticListener<? super JavaFileObject> l = _listener;
+      if (l != null) l.report(d);
+    }
+  };
+  
+  /** Returns a file manager of the given compiler for the given paths, reusing the cached one if it is still valid.
+    * @param compiler the compiler that will run the compilation
+    * @param classPath the class path of the compilation, or null
+    * @param bootClassPath the boot class path of the compilation, or null
+    * @param listener the listener for diagnostics of the compilation
+    * @return a file manager to pass to the compiler's task
+    */
+  public synchronized StandardJavaFileManager acquire(JavaCompiler compiler, List<? extends File> classPath, 
+                                                      List<? extends File> bootClassPath, 
+                                                      DiagnosticListener<? super JavaFileObject> listener) {
+    final List<File> paths = new ArrayList<File>();
+    if (classPath != null) paths.addAll(classPath);
+    paths.add(null);  // separates the class path from the boot class path
+    if (bootClassPath != null) paths.addAll(bootClassPath);
+    
+    if (_fileManager != null && compiler.getClass() == _compilerClass && paths.equals(_paths) && _jarsUnchanged()) _reuses++;
+    else {
+      close();
+      _fileManager = compiler.getStandardFileManager(_forwarder, null, UTF8);
+      _compilerClass = compiler.getClass();
+      _paths = paths;
+      for (File f: paths) { if (f != null && ! f.isDirectory()) _jarStamps.put(f, _stamp(f)); }
+      _creations++;
+      _log.log("created file manager for " + paths);
+    }
+    _listener = listener;
+    return _fileManager;
+  }
+  
+  /** Ends the use of the file manager by a compilation.  Drops the source file contents cached by the file manager
+    * so that the next compilation reads the current text of its sources.
+    * @param fileManager the file manager returned by {@link #acquire}
+    */
+  public synchronized void release(StandardJavaFileManager fileManager) {
+    _listener = null;
+    try { fileManager.flush(); }
+    catch (IOException e) {
+      _log.log("flush failed", e);
+      close();
+    }
+  }
+  
+  /** Closes the cached file manager, if any, releasing the jar files it holds open. */
+  public synchronized void close() {
+    if (_fileManager != null) {
+      try { _fileManager.close(); }
+      catch (IOException e) { _log.log("close failed", e); }
+    }
+    _fileManager = null;
+    _compilerClass = null;
+    _paths = null;
+    _jarStamps.clear();
+  }
+  
+  /** @return the number of times a cached file manager was reused */
+  public synchronized int getReuses() { return _reuses; }
+  
+  /** @return the number of times a file manager was created */
+  public synchronized int getCreations() { return _creations; }
+  
+  /** @return true iff no jar file recorded in _jarStamps has been created, replaced, or removed */
+  private boolean _jarsUnchanged() {
+    for (Map.Entry<File, Long> e: _jarStamps.entrySet()) {
+      if (_stamp(e.getKey()) != e.getValue().longValue()) return false;
+    }
+    return true;
+  }
+  
+  /** @return a value that changes when the file is replaced */
+  private static long _stamp(File f) { return f.lastModified() * 31 + f.length(); }
+}
@@ -0,0 +1,117 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests the reuse and invalidation of file managers by FileManagerCache.
+  * @version $Id$
+  */
+public final class FileManagerCacheTest extends DrJavaTestCase {
+  
+  private File _tempDir;
+  private File _jar;
+  private File _source;
+  private FileManagerCache _cache;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+    _jar = new File(_tempDir, "lib.jar");
+    IOUtil.writeStringToFile(_jar, "not really a jar");
+    _source = new File(_tempDir, "A.java");
+    _cache = new FileManagerCache();
+  }
+  
+  public void tearDown() throws Exception {
+    _cache.close();
+    IOUtil.deleteRecursively(_tempDir);
+    super.tearDown();
+  }
+  
+  /** Compiles _source with a file manager from the cache and returns the diagnostics. */
+  private List<?> _compile(JavaCompiler javac, List<File> classPath) {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    StandardJavaFileManager fm = _cache.acquire(javac, classPath, null, diagnostics);
+    try {
+      List<String> options = Arrays.asList("-d", _tempDir.getPath(), "-classpath", IOUtil.pathToString(classPath));
+      javac.getTask(null, fm, diagnostics, options, null, fm.getJavaFileObjects(_source)).call();
+    }
+    finally { _cache.release(fm); }
+    return diagnostics.getDiagnostics();
+  }
+  
+  public void testReuseAndInvalidation() throws IOException {
+    JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+    List<File> classPath = Arrays.asList(_tempDir);
+    
+    IOUtil.writeStringToFile(_source, "public class A { }");
+    assertEquals("first compile succeeds", Collections.emptyList(), _compile(javac, classPath));
+    assertEquals("created", 1, _cache.getCreations());
+    
+    // The second compilation must see the new text of the source
+    IOUtil.writeStringToFile(_source, "public class A { int x = ; }");
+    assertFalse("second compile sees the edit", _compile(javac, classPath).isEmpty());
+    assertEquals("reused", 1, _cache.getReuses());
+    assertEquals("not recreated", 1, _cache.getCreations());
+    
+    IOUtil.writeStringToFile(_source, "public class A { }");
+    List<File> withJar = Arrays.asList(_tempDir, _jar);
+    _compile(javac, withJar);
+    assertEquals("recreated for a new class path", 2, _cache.getCreations());
+    
+    _jar.setLastModified(_jar.lastModified() + 10000);
+    _compile(javac, withJar);
+    assertEquals("recreated for a replaced jar", 3, _cache.getCreations());
+    
+    _compile(javac, withJar);
+    assertEquals("reused again", 2, _cache.getReuses());
+  }
+}
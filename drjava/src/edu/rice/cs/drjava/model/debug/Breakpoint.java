@@ -46,6 +46,14 @@ public interface Breakpoint extends DebugBreakpointData, OrderedDocumentRegion {
    * @param isEnabled true if the breakpoint is to be enabled; false otherwise
    */
   public void setEnabled(boolean isEnabled);
+  
+  /** Changes when the breakpoint takes effect and what it does.  Enabling a breakpoint that has a hit count restarts
+    * the count.
+    * @param condition  a boolean expression, or null to take effect unconditionally
+    * @param logMessage  an expression to print instead of suspending the thread, or null to suspend
+    * @param hitCount  the number of times the breakpoint must be reached to take effect once, or 0 to always take effect
+    */
+  public void setProperties(String condition, String logMessage, int hitCount);
 
   /** Update positions and line nubmers from the position that moves with the document. */
   public void update();
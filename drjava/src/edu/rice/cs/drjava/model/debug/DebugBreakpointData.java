@@ -48,4 +48,13 @@ public interface DebugBreakpointData {
   
   /** @return true if breakpoint is enabled. */
   public boolean isEnabled();
+  
+  /** @return the boolean expression that must hold for the breakpoint to take effect, or null if unconditional. */
+  public String getCondition();
+  
+  /** @return the expression whose value is printed instead of suspending the thread, or null to suspend. */
+  public String getLogMessage();
+  
+  /** @return the number of times the breakpoint is reached before it takes effect, or 0 if it always takes effect. */
+  public int getHitCount();
 }
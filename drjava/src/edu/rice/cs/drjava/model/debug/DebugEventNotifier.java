@@ -177,6 +177,17 @@ public class DebugEventNotifier extends EventNotifier<DebugListener> implements
     }
     finally { _lock.endRead(); }
   }
+  
+  /** Called when new values have been obtained for the watches.  Must be executed in event thread. */
+  public void watchesUpdated() {
+    assert EventQueue.isDispatchThread();
+    _lock.startRead();
+    try {
+      int size = _listeners.size();
+      for (int i = 0; i < size; i++) { _listeners.get(i).watchesUpdated(); }
+    }
+    finally { _lock.endRead(); }
+  }
 
   /** Called when a breakpoint is removed from a document.  Must be executed in event thread.
     * @param bp the breakpoint
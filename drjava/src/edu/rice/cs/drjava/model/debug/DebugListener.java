@@ -74,6 +74,9 @@ public interface DebugListener extends RegionManagerListener<Breakpoint> {
     */
   public void watchRemoved(DebugWatchData w);
   
+  /** Called when new values have been obtained for the watches.  Must be executed in event thread. */
+  public void watchesUpdated();
+  
   /** Called when a step is requested on the current thread.  Must be executed in event thread. */
   public void stepRequested();
   
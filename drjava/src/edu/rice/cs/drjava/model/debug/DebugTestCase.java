@@ -537,6 +537,9 @@ public abstract class DebugTestCase extends GlobalModelTestCase {
     
     public void watchRemoved(DebugWatchData w) { fail("watchRemoved fired unexpectedly"); }
     
+    /** This won't fail because watch values are obtained asynchronously after every suspension. */
+    public void watchesUpdated() { }
+    
     public void stepRequested() { fail("stepRequested fired unexpectedly"); }
     
     public void currThreadSuspended() { fail("currThreadSuspended fired unexpectedly"); }
@@ -37,7 +37,10 @@
 package edu.rice.cs.drjava.model.debug;
 
 import java.util.ArrayList;
+import java.util.List;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
+import edu.rice.cs.plt.lambda.Runnable1;
+import edu.rice.cs.plt.lambda.Runnable2;
 
 /** Interface for any debugger implementation to be used by DrJava.
   * @version $Id$
@@ -173,6 +176,23 @@ public interface Debugger {
     */
   public ArrayList<DebugStackData> getCurrentStackFrameData() throws DebugException;
   
+  /** Obtains the threads tracked by the debugger without blocking the event thread.  Must be called in the event
+    * thread.  The callback is run in the event thread, and is not run at all if threads are suspended, resumed, 
+    * started or die before the data is available.
+    * @param callback  receives an unmodifiable list of the threads
+    */
+  public void getCurrentThreadData(Runnable1<? super List<DebugThreadData>> callback);
+  
+  /** Obtains some of the stack frames of the current thread without blocking the event thread.  Must be called in the
+    * event thread.  The callback is run in the event thread, and is not run at all if threads are suspended, resumed,
+    * started or die before the data is available.
+    * @param start  depth of the first frame wanted, 0 being the top of the stack
+    * @param count  maximum number of frames wanted
+    * @param callback  receives the total number of frames in the current thread and an unmodifiable list of the
+    *                  frames from start on, which is shorter than count near the bottom of the stack
+    */
+  public void getCurrentStackFrameData(int start, int count, Runnable2<Integer, List<DebugStackData>> callback);
+  
   /** @return true if there are any threads in the program currently being
     * debugged which have been suspended (by the user or by hitting a breakpoint).
     * @throws DebugException if an error occurs 
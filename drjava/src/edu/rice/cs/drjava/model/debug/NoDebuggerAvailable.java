@@ -37,7 +37,11 @@
 package edu.rice.cs.drjava.model.debug;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
+import edu.rice.cs.plt.lambda.Runnable1;
+import edu.rice.cs.plt.lambda.Runnable2;
 
 /** * Placeholder class indicating that no debugger is available to DrJava.
  * This class follows the Singleton pattern.
@@ -151,6 +155,16 @@ public class NoDebuggerAvailable implements Debugger {
   /** @return a Vector of StackData for the current thread or null if the current thread is null. */
   public ArrayList<DebugStackData> getCurrentStackFrameData() { return new ArrayList<DebugStackData>(); }
   
+  /** Passes an empty list of threads to the callback. */
+  public void getCurrentThreadData(Runnable1<? super List<DebugThreadData>> callback) {
+    callback.run(Collections.<DebugThreadData>emptyList());
+  }
+  
+  /** Passes an empty stack to the callback. */
+  public void getCurrentStackFrameData(int start, int count, Runnable2<Integer, List<DebugStackData>> callback) {
+    callback.run(0, Collections.<DebugStackData>emptyList());
+  }
+  
   /** Adds a listener to this Debugger. 
    * @param listener the listener to add
    */
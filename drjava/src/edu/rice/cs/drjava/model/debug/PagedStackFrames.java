@@ -0,0 +1,141 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+
+package edu.rice.cs.drjava.model.debug;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import edu.rice.cs.plt.lambda.Runnable2;
+
+/** The stack frames of the debugger's current thread, obtained from the debugger a page at a time as they are
+  * displayed.  Frames that have not been obtained yet are null.  Results requested before the last update are
+  * dropped when they arrive.  Only accessed in the event thread.
+  * @version $Id$
+  */
+public class PagedStackFrames {
+  
+  /** Number of stack frames requested from the debugger at a time. */
+  public static final int PAGE_SIZE = 32;
+  
+  /** Notified when frames arrive from the debugger. */
+  public interface Listener {
+    /** The number of frames may have changed; all of them must be redisplayed. */
+    public void framesReplaced();
+    /** The frames in the given range (inclusive) have been obtained. */
+    public void framesUpdated(int first, int last);
+  }
+  
+  private final Debugger _debugger;
+  private final Listener _listener;
+  
+  /** The frames, with null for the frames not obtained yet. */
+  private List<DebugStackData> _frames = new ArrayList<DebugStackData>();
+  
+  /** Incremented by each update; frames requested by earlier updates are dropped when they arrive. */
+  private int _version = 0;
+  
+  /** Whether no frames have arrived since the last update. */
+  private boolean _stale = true;
+  
+  /** The pages requested since the last update. */
+  private final HashSet<Integer> _requestedPages = new HashSet<Integer>();
+  
+  public PagedStackFrames(Debugger debugger, Listener listener) {
+    _debugger = debugger;
+    _listener = listener;
+  }
+  
+  /** Drops the frames and, if the current thread is suspended, requests the first page of its frames.  Until it
+    * arrives, the previous frames are kept.
+    * @param suspended whether the current thread is suspended
+    */
+  public void update(boolean suspended) {
+    _version++;
+    _stale = true;
+    _requestedPages.clear();
+    if (suspended) requestFrame(0);
+    else clear();
+  }
+  
+  /** Drops the frames, and any frames still to arrive. */
+  public void clear() {
+    _version++;
+    _requestedPages.clear();
+    _frames = new ArrayList<DebugStackData>();
+    _listener.framesReplaced();
+  }
+  
+  /** @return the number of frames */
+  public int size() { return _frames.size(); }
+  
+  /** @param depth the depth of the frame, 0 being the top of the stack
+    * @return the frame, or null if it has not been obtained yet (see {@link #requestFrame})
+    */
+  public DebugStackData get(int depth) { return _frames.get(depth); }
+  
+  /** Requests the page containing the given frame from the debugger, unless it has been requested since the last
+    * update.
+    * @param depth the depth of the frame
+    */
+  public void requestFrame(int depth) {
+    final int page = depth / PAGE_SIZE;
+    if (! _requestedPages.add(page)) return;
+    final int version = _version;
+    final int start = page * PAGE_SIZE;
+    _debugger.getCurrentStackFrameData(start, PAGE_SIZE, new Runnable2<Integer, List<DebugStackData>>() {
+      public void run(Integer frameCount, List<DebugStackData> frames) {
+        if (version != _version) return;
+        boolean replaced = _stale || _frames.size() != frameCount;
+        if (replaced) {
+          // The first page since the update, or the stack could not be read or changed since then: start over
+          _stale = false;
+          _frames = new ArrayList<DebugStackData>(Collections.<DebugStackData>nCopies(frameCount, null));
+          _requestedPages.clear();
+          _requestedPages.add(page);
+        }
+        int end = Math.min(frameCount, start + frames.size());
+        for (int i = start; i < end; i++) { _frames.set(i, frames.get(i - start)); }
+        
+        if (replaced) _listener.framesReplaced();
+        else if (end > start) _listener.framesUpdated(start, end - 1);
+      }
+    });
+  }
+}
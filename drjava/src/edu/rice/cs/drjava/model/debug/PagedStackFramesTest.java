@@ -0,0 +1,218 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.debug;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.lambda.Runnable2;
+
+/** Tests the paging of stack frames in PagedStackFrames, using a debugger whose requests are answered by the test.
+  * @version $Id$
+  */
+public final class PagedStackFramesTest extends DrJavaTestCase {
+  
+  /** A request made to the debugger, still to be answered. */
+  private static class Request {
+    final int start;
+    final int count;
+    final Runnable2<Integer, List<DebugStackData>> callback;
+    Request(int s, int c, Runnable2<Integer, List<DebugStackData>> cb) { start = s; count = c; callback = cb; }
+    
+    /** Answers with the frames of a stack of the given depth. */
+    void answer(int frameCount) {
+      List<DebugStackData> frames = new ArrayList<DebugStackData>();
+      for (int i = start; i < Math.min(frameCount, start + count); i++) { frames.add(_frame(i)); }
+      callback.run(frameCount, frames);
+    }
+    
+    /** Answers the way the debugger does when the stack cannot be read. */
+    void fail() { callback.run(0, Collections.<DebugStackData>emptyList()); }
+  }
+  
+  private final List<Request> _requests = new ArrayList<Request>();
+  private int _replaced;
+  private final List<String> _updated = new ArrayList<String>();
+  private PagedStackFrames _frames;
+  
+  private static DebugStackData _frame(int depth) { return new DebugStackData("method" + depth, depth); }
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    _requests.clear();
+    _replaced = 0;
+    _updated.clear();
+    // Only the paged query is used; any other call to the debugger fails the test
+    Debugger debugger = (Debugger) Proxy.newProxyInstance(Debugger.class.getClassLoader(),
+                                                          new Class<?>[] { Debugger.class },
+                                                          new InvocationHandler() {
+      @SuppressWarnings("unchecked")
+      public Object invoke(Object proxy, Method m, Object[] args) {
+        if (m.getName().equals("getCurrentStackFrameData") && args != null && args.length == 3) {
+          _requests.add(new Request((Integer) args[0], (Integer) args[1],
+                                    (Runnable2<Integer, List<DebugStackData>>) args[2]));
+          return null;
+        }
+        throw new UnsupportedOperationException(m.getName());
+      }
+    });
+    _frames = new PagedStackFrames(debugger, new PagedStackFrames.Listener() {
+      public void framesReplaced() { _replaced++; }
+      public void framesUpdated(int first, int last) { _updated.add(first + "-" + last); }
+    });
+  }
+  
+  /** Asserts that the frame at the given depth has been obtained. */
+  private void _assertFrame(int depth) {
+    DebugStackData frame = _frames.get(depth);
+    assertNotNull("frame " + depth, frame);
+    assertEquals("method" + depth, frame.getMethod());
+    assertEquals(depth, frame.getLine());
+  }
+  
+  public void testFirstPage() {
+    _frames.update(true);
+    assertEquals(1, _requests.size());
+    assertEquals(0, _requests.get(0).start);
+    assertEquals(PagedStackFrames.PAGE_SIZE, _requests.get(0).count);
+    assertEquals("previous frames are kept until the first page arrives", 0, _replaced);
+    
+    _requests.get(0).answer(70);
+    assertEquals(1, _replaced);
+    assertEquals(70, _frames.size());
+    for (int i = 0; i < PagedStackFrames.PAGE_SIZE; i++) { _assertFrame(i); }
+    assertNull(_frames.get(PagedStackFrames.PAGE_SIZE));
+    assertNull(_frames.get(69));
+  }
+  
+  public void testLaterPages() {
+    _frames.update(true);
+    _requests.get(0).answer(70);
+    
+    _frames.requestFrame(40);
+    _frames.requestFrame(63);
+    _frames.requestFrame(5);
+    assertEquals("one request per page", 2, _requests.size());
+    Request second = _requests.get(1);
+    assertEquals(PagedStackFrames.PAGE_SIZE, second.start);
+    
+    _frames.requestFrame(69);
+    assertEquals(3, _requests.size());
+    _requests.get(2).answer(70);
+    second.answer(70);
+    assertEquals(1, _replaced);
+    assertEquals("[64-69, 32-63]", _updated.toString());
+    for (int i = 0; i < 70; i++) { _assertFrame(i); }
+    
+    _frames.requestFrame(40);
+    assertEquals("pages are not requested again", 3, _requests.size());
+  }
+  
+  public void testStaleResultsAreDropped() {
+    _frames.update(true);
+    Request stale = _requests.get(0);
+    _frames.update(true);
+    Request current = _requests.get(1);
+    
+    stale.answer(10);
+    assertEquals(0, _replaced);
+    assertEquals(0, _frames.size());
+    current.answer(50);
+    assertEquals(1, _replaced);
+    assertEquals(50, _frames.size());
+    
+    _frames.requestFrame(40);
+    Request later = _requests.get(2);
+    _frames.clear();
+    assertEquals(2, _replaced);
+    assertEquals(0, _frames.size());
+    later.answer(50);
+    assertEquals(2, _replaced);
+    assertEquals(0, _frames.size());
+    assertTrue(_updated.isEmpty());
+  }
+  
+  public void testResumedThread() {
+    _frames.update(true);
+    _requests.get(0).answer(10);
+    _frames.update(false);
+    assertEquals("no request for a running thread", 1, _requests.size());
+    assertEquals(2, _replaced);
+    assertEquals(0, _frames.size());
+  }
+  
+  /** A page that cannot be read must not leave rows that are never filled in. */
+  public void testFailedPage() {
+    _frames.update(true);
+    _requests.get(0).answer(70);
+    _frames.requestFrame(40);
+    _requests.get(1).fail();
+    assertEquals(2, _replaced);
+    assertEquals(0, _frames.size());
+    
+    _frames.update(true);
+    _requests.get(2).answer(70);
+    _frames.requestFrame(40);
+    assertEquals("the page is requested again after an update", 4, _requests.size());
+    _requests.get(3).answer(70);
+    _assertFrame(40);
+  }
+  
+  /** If the stack changed between pages, the frames are replaced and the pages requested again. */
+  public void testChangedStack() {
+    _frames.update(true);
+    _requests.get(0).answer(70);
+    _frames.requestFrame(40);
+    _requests.get(1).answer(50);
+    assertEquals(2, _replaced);
+    assertEquals(50, _frames.size());
+    assertNull(_frames.get(0));
+    _assertFrame(40);
+    
+    _frames.requestFrame(0);
+    assertEquals(3, _requests.size());
+    _requests.get(2).answer(50);
+    _assertFrame(0);
+    _assertFrame(40);
+    assertEquals(2, _replaced);
+  }
+}
@@ -167,12 +167,17 @@ public class EventHandlerThread extends Thread {
     }
   }
   
-  /** Responds to a breakpoint event.
+  /** Responds to a breakpoint event.  The condition and log message of a breakpoint, if any, are evaluated before the
+    * event thread is involved, so that a breakpoint that does not suspend the thread does not slow down the UI.
     * @param e breakpoint event from JPDA
     */
   private void _handleBreakpointEvent(final BreakpointEvent e) /* throws DebugException */ {
-    // To ensure non-interference, run in Event Thread
-    SwingUtilities.invokeLater(new Runnable() {
+    if (_debugger.isEvaluatingBreakpoint(e.thread())) {
+      // reached by the evaluation of another breakpoint's condition or log message in this thread
+      e.thread().resume();
+      return;
+    }
+    Runnable suspend = new Runnable() {
       public void run() {
 //        System.err.println("handleBreakpointEvent(" + e + ") called");
         try {
@@ -184,7 +189,21 @@ public class EventHandlerThread extends Thread {
         }
         catch(DebugException e) { throw new UnexpectedException(e); }
       }
-    });
+    };
+    Object property = e.request().getProperty("debugAction");
+    if (property instanceof JPDABreakpoint) {
+      final JPDABreakpoint breakpoint = (JPDABreakpoint) property;
+      if (breakpoint.getHitCount() > 0) {
+        // the count filter has expired the request; enabling the breakpoint again restarts the count
+        SwingUtilities.invokeLater(new Runnable() { public void run() { breakpoint.setEnabled(false); } });
+      }
+      if (breakpoint.isEvaluated()) {
+        _debugger.evaluateBreakpoint(e.thread(), breakpoint, suspend);
+        return;
+      }
+    }
+    // To ensure non-interference, run in Event Thread
+    SwingUtilities.invokeLater(suspend);
   }
   
   /** Responds to a step event.
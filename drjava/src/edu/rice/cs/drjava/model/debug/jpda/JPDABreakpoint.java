@@ -67,6 +67,12 @@ public class JPDABreakpoint extends DocumentDebugAction<BreakpointRequest> imple
   /** Note that _position, which records the breakpoint position, is inherited from DocumentDebugAction. */
   private volatile OpenDefinitionsDocument _doc;
   
+  /** The boolean expression that must hold for the breakpoint to take effect, or null. */
+  private volatile String _condition = null;
+  
+  /** The expression printed instead of suspending the thread, or null. */
+  private volatile String _logMessage = null;
+  
   /** @param doc the document within which to create the breakpoint
    * @param offset offset within the document at which to set the breakpoint
    * @param isEnabled true if the breakpoint is enabled; false for disabled
@@ -266,6 +272,57 @@ public class JPDABreakpoint extends DocumentDebugAction<BreakpointRequest> imple
    */
 //  public int hashCode() { return ObjectUtil.hash(_doc, getStartOffset(), getEndOffset()); }
   
+  /** @return the boolean expression that must hold for the breakpoint to take effect, or null if unconditional. */
+  public String getCondition() { return _condition; }
+  
+  /** @return the expression whose value is printed instead of suspending the thread, or null to suspend. */
+  public String getLogMessage() { return _logMessage; }
+  
+  /** The hit count is implemented by a count filter on the requests, so it is counted in the interactions JVM.
+    * @return the number of times the breakpoint is reached before it takes effect, or 0 if it always takes effect.
+    */
+  public int getHitCount() { return Math.max(_countFilter, 0); }
+  
+  /** @return true if the breakpoint has a condition or log message, which must be evaluated in the interactions JVM
+    *         each time the breakpoint is reached.
+    */
+  public boolean isEvaluated() { return _condition != null || _logMessage != null; }
+  
+  /** Changes when the breakpoint takes effect and what it does.  Blank expressions are treated as absent.
+    * @param condition  a boolean expression, or null to take effect unconditionally
+    * @param logMessage  an expression to print instead of suspending the thread, or null to suspend
+    * @param hitCount  the number of times the breakpoint must be reached to take effect once, or 0 to always take effect
+    */
+  public void setProperties(String condition, String logMessage, int hitCount) {
+    assert EventQueue.isDispatchThread();
+    _condition = (condition == null || condition.trim().length() == 0) ? null : condition.trim();
+    _logMessage = (logMessage == null || logMessage.trim().length() == 0) ? null : logMessage.trim();
+    int countFilter = (hitCount > 0) ? hitCount : -1;
+    if (countFilter != _countFilter) {
+      _countFilter = countFilter;
+      _recreateRequests();
+    }
+    _manager.notifyBreakpointChange(this);
+  }
+  
+  /** Replaces the requests, which have the old count filter, by new requests at the same locations.  A count filter
+    * cannot be removed from an existing request.
+    */
+  private void _recreateRequests() {
+    if (_manager == null || ! _manager.isReady()) return;  // requests get created when the debugger is started
+    try {
+      EventRequestManager erm = _manager.getEventRequestManager();
+      for (int i = 0; i < _requests.size(); i++) {
+        BreakpointRequest old = _requests.get(i);
+        BreakpointRequest request = erm.createBreakpointRequest(old.location());
+        _prepareRequest(request);
+        erm.deleteEventRequest(old);
+        _requests.set(i, request);
+      }
+    }
+    catch(VMDisconnectedException vmde) { /* just ignore */ }
+  }
+  
   /** Enable/disable the breakpoint. */
   public void setEnabled(boolean isEnabled) {
     assert EventQueue.isDispatchThread();
@@ -40,14 +40,21 @@ import java.awt.EventQueue;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.TreeMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.Stack;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 // DrJava stuff
 import edu.rice.cs.util.UnexpectedException;
@@ -62,6 +69,9 @@ import edu.rice.cs.drjava.model.compiler.LanguageLevelStackTraceMapper;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 import edu.rice.cs.util.Log;
 import edu.rice.cs.plt.lambda.Lambda;
+import edu.rice.cs.plt.lambda.Runnable1;
+import edu.rice.cs.plt.lambda.Runnable2;
+import edu.rice.cs.plt.object.ObjectUtil;
 import edu.rice.cs.drjava.model.debug.*;
 import edu.rice.cs.drjava.DrJava;
 import edu.rice.cs.drjava.config.OptionConstants;
@@ -99,6 +109,20 @@ public class JPDADebugger implements Debugger {
     "(Ljava/lang/String;Ljava/lang/Object;Ljava/lang/Class;" +
     "[Ljava/lang/Object;[Ljava/lang/String;[Ljava/lang/Class;)V";
   
+  /** Signature of the InterpreterJVM.evaluateBreakpoint method.
+    * @see edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM#evaluateBreakpoint
+    * @see #evaluateBreakpoint
+    */
+  private static final String EVALUATE_BREAKPOINT_SIG =
+    "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/Object;Ljava/lang/Class;" +
+    "[Ljava/lang/Object;[Ljava/lang/String;[Ljava/lang/Class;)Z";
+  
+  /** Signature of the InterpreterJVM.getBreakpointVariables method.
+    * @see edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM#getBreakpointVariables
+    * @see #evaluateBreakpoint
+    */
+  private static final String GET_BREAKPOINT_VARIABLES_SIG = "(Ljava/lang/String;)[Ljava/lang/String;";
+  
   /** Signature of the InterpreterJVM.getVariableValue method.
     * @see edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM#getVariableValue
     * @see #_copyVariablesFromInterpreter
@@ -143,6 +167,55 @@ public class JPDADebugger implements Debugger {
   
   /*Determines whether automatic trace has been enabled*/
   private volatile boolean _isAutomaticTraceEnabled = false;
+  
+  /** Runs the JDI and interpreter queries that refresh the view, so that the event thread does not wait for round
+    * trips to the interactions JVM.  The state of the debugger is still only changed in the event thread.
+    */
+  private final ExecutorService _queryThread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "Debugger Query Thread");
+      t.setDaemon(true);
+      return t;
+    }
+  });
+  
+  /** Evaluate breakpoint conditions and log messages, each in its own thread, since an evaluation may have to wait for
+    * another thread that reached a breakpoint.
+    */
+  private final ExecutorService _evaluationThreads = Executors.newCachedThreadPool(new ThreadFactory() {
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "Breakpoint Evaluation Thread");
+      t.setDaemon(true);
+      return t;
+    }
+  });
+  
+  /** The threads in which a breakpoint condition or log message is being evaluated.  Breakpoints reached by the
+    * evaluation itself are ignored.  Guarded by itself.
+    */
+  private final Set<ThreadReference> _evaluatingThreads = new HashSet<ThreadReference>();
+  
+  /** The mirrors of the conditions and log messages of the breakpoints reached in this session.  Guarded by itself. */
+  private final Map<JPDABreakpoint, BreakpointMirror> _breakpointMirrors = 
+    new HashMap<JPDABreakpoint, BreakpointMirror>();
+  
+  /** Incremented whenever threads are suspended, resumed, started or die.  Query results obtained for an earlier state
+    * are dropped.  Only accessed in the event thread.
+    */
+  private int _stateVersion = 0;
+  
+  /** The threads obtained since the last state change, or null.  Only accessed in the event thread. */
+  private List<DebugThreadData> _threadSnapshot = null;
+  
+  /** The frames of the current thread obtained since the last state change, indexed by depth, with null for the frames
+    * not obtained yet; null if the number of frames is not known.  Only accessed in the event thread.
+    */
+  private ArrayList<DebugStackData> _frameSnapshot = null;
+  
+  /** Incremented whenever watch values are requested or the active interpreter changes.  Watch values obtained for an
+    * earlier request are dropped.  Only accessed in the event thread.
+    */
+  private int _watchVersion = 0;
       
   /** Builds a new JPDADebugger to debug code in the Interactions JVM, using 
    * the JPDA/JDI interfaces.
@@ -249,7 +322,9 @@ public class JPDADebugger implements Debugger {
         Breakpoint bp = oldBreakpoints.get(i);
         bp.update();
         OpenDefinitionsDocument odd = bp.getDocument();
-        setBreakpoint(new JPDABreakpoint(odd, bp.getLineStartOffset(), bp.isEnabled(), this)); 
+        JPDABreakpoint newBp = new JPDABreakpoint(odd, bp.getLineStartOffset(), bp.isEnabled(), this);
+        setBreakpoint(newBp);
+        newBp.setProperties(bp.getCondition(), bp.getLogMessage(), bp.getHitCount());
       }
     }
     
@@ -278,10 +353,12 @@ public class JPDADebugger implements Debugger {
       catch (VMDisconnectedException vmde) { /* VM was shutdown prematurely */ }
       finally {
         _model.getInteractionsModel().setToDefaultInterpreter();
+        synchronized(_breakpointMirrors) { _breakpointMirrors.clear(); }  // the references died with the VM
         _vm = null;
         _suspendedThreads = new RandomAccessStack();
         _eventManager = null;
         _runningThread = null;
+        _stateChanged();
         _updateWatches();
       }
     }
@@ -660,12 +737,19 @@ public class JPDADebugger implements Debugger {
     */
   public StackTraceElement getLLStackTraceElement(Location l, List<File> files) {
     // map Java line numbers to LL line numbers
+    return getLLSTM().replaceStackTraceElement(_stackTraceElement(l), files);
+  }
+  
+  /** Return a stack trace element for the given location with Java line numbers.  Only makes JDI calls, so it may
+    * run in any thread.
+    * @param l location
+    * @return stack trace element with Java line numbers
+    */
+  private static StackTraceElement _stackTraceElement(Location l) {
     String sourceName = null;
     try { sourceName = l.sourceName(); }
     catch(com.sun.jdi.AbsentInformationException aie) { sourceName = null; }
-    StackTraceElement ste = 
-      new StackTraceElement(l.declaringType().name(), l.method().name(), sourceName, l.lineNumber());
-    return getLLSTM().replaceStackTraceElement(ste, files);
+    return new StackTraceElement(l.declaringType().name(), l.method().name(), sourceName, l.lineNumber());
   }
   
   /** Return a JDI location that matches the given location, but Java line numbers
@@ -710,6 +794,10 @@ public class JPDADebugger implements Debugger {
       
       // Always remove from pending request, since it's always there
       _pendingRequestManager.removePendingRequest(breakpoint);
+      
+      BreakpointMirror mirror;
+      synchronized(_breakpointMirrors) { mirror = _breakpointMirrors.remove(breakpoint); }
+      if (mirror != null) { mirror.release(); }
     }
   }
   
@@ -730,20 +818,65 @@ public class JPDADebugger implements Debugger {
   public /* synchronized */ ArrayList<DebugThreadData> getCurrentThreadData() throws DebugException {
     assert EventQueue.isDispatchThread();
     if (! isReady()) { return new ArrayList<DebugThreadData>(); }
-    Iterable<ThreadReference> listThreads;
-    try { listThreads = _vm.allThreads(); }
-    catch (VMDisconnectedException vmde) {
-      // We're quitting, just pass back an empty Vector
-      return new ArrayList<DebugThreadData>();
+    if (_threadSnapshot == null) _threadSnapshot = Collections.unmodifiableList(_readThreadData(_vm));
+    return new ArrayList<DebugThreadData>(_threadSnapshot);
+  }
+  
+  /** Obtains the threads tracked by the debugger on the query thread, unless they have been obtained since the last
+    * state change.
+    * @param callback  receives an unmodifiable list of the threads in the event thread
+    */
+  public void getCurrentThreadData(final Runnable1<? super List<DebugThreadData>> callback) {
+    assert EventQueue.isDispatchThread();
+    if (! isReady()) { 
+      callback.run(Collections.<DebugThreadData>emptyList());
+      return;
     }
-    
+    if (_threadSnapshot != null) {
+      callback.run(_threadSnapshot);
+      return;
+    }
+    final int version = _stateVersion;
+    final VirtualMachine vm = _vm;
+    _queryThread.execute(new Runnable() {
+      public void run() {
+        List<DebugThreadData> result;
+        try { result = Collections.unmodifiableList(_readThreadData(vm)); }
+        catch (RuntimeException e) {
+          // deliver no threads rather than nothing at all
+          error.log("Unable to obtain threads.", e);
+          result = Collections.emptyList();
+        }
+        final List<DebugThreadData> threads = result;
+        EventQueue.invokeLater(new Runnable() {
+          public void run() {
+            if (version != _stateVersion) return;
+            _threadSnapshot = threads;
+            callback.run(threads);
+          }
+        });
+      }
+    });
+  }
+  
+  /** Reads the live threads of the given virtual machine.  Only makes JDI calls, so it may run in any thread.
+    * @param vm the virtual machine
+    * @return the data of the threads, or an empty list if the virtual machine has disconnected
+    */
+  private static ArrayList<DebugThreadData> _readThreadData(VirtualMachine vm) {
     ArrayList<DebugThreadData> threads = new ArrayList<DebugThreadData>();
-    for (ThreadReference ref : listThreads) {
-      try { threads.add(new JPDAThreadData(ref)); }
-      catch (ObjectCollectedException e) {
-        // this thread just died, we don't want to list it anyway
+    try {
+      for (ThreadReference ref : vm.allThreads()) {
+        try { threads.add(new JPDAThreadData(ref)); }
+        catch (ObjectCollectedException e) {
+          // this thread just died, we don't want to list it anyway
+        }
       }
     }
+    catch (VMDisconnectedException vmde) {
+      // We're quitting, just pass back an empty list
+      threads.clear();
+    }
     return threads;
   }
   
@@ -759,20 +892,14 @@ public class JPDADebugger implements Debugger {
     if (_runningThread != null || _suspendedThreads.size() <= 0) {
       throw new DebugException("No suspended thread to obtain stack frames.");
     }
+    if (_frameSnapshot != null && ! _frameSnapshot.contains(null)) return new ArrayList<DebugStackData>(_frameSnapshot);
     
     try {
       ThreadReference thread = _suspendedThreads.peek();
-      ArrayList<DebugStackData> frames = new ArrayList<DebugStackData>();
-      // get a list of language level files whose line numbers need to be translated 
-      final List<File> files = new ArrayList<File>();
-      for (OpenDefinitionsDocument odd: _model.getLLOpenDefinitionsDocuments()) { files.add(odd.getRawFile()); }
-      for (StackFrame f : thread.frames()) {
-        // map Java line numbers to LL line numbers
-        String method = JPDAStackData.methodName(f);
-        StackTraceElement ste = getLLStackTraceElement(f.location(), files);
-        frames.add(new JPDAStackData(method, ste.getLineNumber()));
-      }
-      return frames;
+      List<StackTraceElement> elements = new ArrayList<StackTraceElement>();
+      for (StackFrame f : thread.frames()) { elements.add(_stackTraceElement(f.location())); }
+      _cacheFrames(elements.size(), 0, elements);
+      return new ArrayList<DebugStackData>(_frameSnapshot);
     }
     catch (IncompatibleThreadStateException itse) {
       error.log("Unable to obtain stack frame.", itse);
@@ -788,6 +915,95 @@ public class JPDADebugger implements Debugger {
     }
   }
   
+  /** Obtains some of the frames of the current thread on the query thread, unless they have been obtained since the
+    * last state change.  Only the frames asked for are read from the interactions JVM.
+    * @param start  depth of the first frame wanted
+    * @param count  maximum number of frames wanted
+    * @param callback  receives the number of frames and an unmodifiable list of the frames wanted in the event thread
+    */
+  public void getCurrentStackFrameData(final int start, final int count, 
+                                       final Runnable2<Integer, List<DebugStackData>> callback) {
+    assert EventQueue.isDispatchThread();
+    if (! isReady() || _runningThread != null || _suspendedThreads.size() <= 0) {
+      callback.run(0, Collections.<DebugStackData>emptyList());
+      return;
+    }
+    if (_frameSnapshot != null) {
+      int end = Math.min(_frameSnapshot.size(), start + count);
+      if (start >= end || ! _frameSnapshot.subList(start, end).contains(null)) {
+        callback.run(_frameSnapshot.size(), _cachedFrames(start, end));
+        return;
+      }
+    }
+    final int version = _stateVersion;
+    final ThreadReference thread = _suspendedThreads.peek();
+    _queryThread.execute(new Runnable() {
+      public void run() {
+        final List<StackTraceElement> elements = new ArrayList<StackTraceElement>();
+        int total;
+        try {
+          total = thread.frameCount();
+          int end = Math.min(total, start + count);
+          if (start < end) {
+            for (StackFrame f : thread.frames(start, end - start)) { elements.add(_stackTraceElement(f.location())); }
+          }
+        }
+        // The thread has been resumed or collected, or the VM is gone.  Usually the state has changed, so the result
+        // will be dropped; otherwise an empty stack is delivered, so that the caller does not wait for these frames.
+        catch (IncompatibleThreadStateException itse) { total = -1; }
+        catch (RuntimeException e) {
+          // ObjectCollectedException, VMDisconnectedException, InvalidStackFrameException, or an unexpected failure
+          if (! (e instanceof ObjectCollectedException || e instanceof VMDisconnectedException ||
+                 e instanceof InvalidStackFrameException)) {
+            error.log("Unable to obtain stack frames.", e);
+          }
+          total = -1;
+        }
+        final int frameCount = total;
+        EventQueue.invokeLater(new Runnable() {
+          public void run() {
+            if (version != _stateVersion) return;
+            if (frameCount < 0) {
+              callback.run(0, Collections.<DebugStackData>emptyList());
+              return;
+            }
+            _cacheFrames(frameCount, start, elements);
+            callback.run(frameCount, _cachedFrames(start, Math.min(frameCount, start + count)));
+          }
+        });
+      }
+    });
+  }
+  
+  /** Maps the given frames to language level line numbers and stores them in the frame snapshot.  Only runs in the
+    * event thread, which owns the LanguageLevelStackTraceMapper.
+    * @param frameCount  the number of frames in the current thread
+    * @param start  depth of the first frame given
+    * @param elements  the frames, with Java line numbers
+    */
+  private void _cacheFrames(int frameCount, int start, List<StackTraceElement> elements) {
+    if (_frameSnapshot == null || _frameSnapshot.size() != frameCount) {
+      _frameSnapshot = new ArrayList<DebugStackData>(Collections.<DebugStackData>nCopies(frameCount, null));
+    }
+    // get a list of language level files whose line numbers need to be translated 
+    final List<File> files = new ArrayList<File>();
+    for (OpenDefinitionsDocument odd: _model.getLLOpenDefinitionsDocuments()) { files.add(odd.getRawFile()); }
+    for (int i = 0; i < elements.size(); i++) {
+      StackTraceElement ste = elements.get(i);
+      int line = getLLSTM().replaceStackTraceElement(ste, files).getLineNumber();
+      _frameSnapshot.set(start + i, new JPDAStackData(ste.getClassName() + "." + ste.getMethodName(), line));
+    }
+  }
+  
+  /** @param start  depth of the first frame
+    * @param end  depth after the last frame
+    * @return an unmodifiable copy of the given range of the frame snapshot
+    */
+  private List<DebugStackData> _cachedFrames(int start, int end) {
+    if (start >= end) return Collections.emptyList();
+    return Collections.unmodifiableList(new ArrayList<DebugStackData>(_frameSnapshot.subList(start, end)));
+  }
+  
   /** Return the adjusted location (identical to input unless the matching 
    * document is a LL file) and document associated with this location 
    * generated by the JVM and hence associated with a conventional Java (not 
@@ -1251,9 +1467,8 @@ public class JPDADebugger implements Debugger {
     
     _runningThread = thread;
     if (!fromStep) {
-      // Copy variables back into the thread
+      // Copy variables back into the thread; the watches already show these values
       _copyVariablesFromInterpreter();
-      _updateWatches();
     }
     try {
       _removeCurrentDebugInterpreter(fromStep);
@@ -1338,6 +1553,116 @@ public class JPDADebugger implements Debugger {
     }
   }
   
+  /** @param thread a thread that reached a breakpoint
+    * @return true if a breakpoint condition or log message is being evaluated in the thread
+    */
+  boolean isEvaluatingBreakpoint(ThreadReference thread) {
+    synchronized(_evaluatingThreads) { return _evaluatingThreads.contains(thread); }
+  }
+  
+  /** Evaluates the condition and log message of a breakpoint in the thread that reached it, in an evaluation thread
+    * rather than the event thread, since the evaluation may take arbitrarily long.  The local variables are passed to
+    * InterpreterJVM.evaluateBreakpoint, which prints the log message itself.  If the breakpoint should suspend the
+    * thread, suspend is run in the event thread; otherwise the thread is resumed without involving the event thread.
+    * <p>Each hit still costs several JDI round trips.  To keep them few, the condition and log message are mirrored
+    * once per breakpoint, and once the interpreter has checked them, only the local variables they refer to are passed;
+    * the arrays of their names and classes are mirrored once per location.  Each hit then reads the frame and the
+    * values of those variables, boxes each primitive value, mirrors one array of values and invokes
+    * evaluateBreakpoint.</p>
+    * @param thread the thread suspended at the breakpoint
+    * @param breakpoint the breakpoint that was reached
+    * @param suspend  the handling of a breakpoint that suspends the thread
+    */
+  void evaluateBreakpoint(final ThreadReference thread, final JPDABreakpoint breakpoint, final Runnable suspend) {
+    _evaluationThreads.execute(new Runnable() {
+      public void run() {
+        boolean suspends = true;
+        List<ObjectReference> toRelease = new LinkedList<ObjectReference>();
+        synchronized(_evaluatingThreads) { _evaluatingThreads.add(thread); }
+        try {
+          BreakpointMirror mirror = _breakpointMirror(breakpoint);
+          StackFrame frame = thread.frame(0);
+          ObjectReference thisVal = frame.thisObject();
+          Location location = frame.location();
+          ClassObjectReference thisClass = location.declaringType().classObject();
+          
+          // frame is invalidated by the first method invocation, so read the values before mirroring anything
+          LocalsMirror locals = mirror.locals(location);
+          List<LocalVariable> vars = (locals == null) ? _visibleVariables(frame, mirror.variables()) : locals.vars;
+          Map<LocalVariable, Value> values = frame.getValues(vars);
+          if (locals == null) {
+            List<ObjectReference> holder = mirror.isChecked() ? mirror.held : toRelease;
+            locals = new LocalsMirror(location, vars, _mirrorVariableNames(vars, thread, holder), 
+                                      _mirrorVariableClasses(vars, thread, holder));
+            if (mirror.isChecked()) { mirror.setLocals(locals); }
+          }
+          
+          ArrayReference mirroredValues = _mirrorVariableValues(vars, values, thread, toRelease);
+          Value result = _invokeMethod(thread, _interpreterJVM, "evaluateBreakpoint", EVALUATE_BREAKPOINT_SIG,
+                                       mirror.mirroredCondition, mirror.mirroredLogMessage, thisVal, thisClass,
+                                       mirroredValues, locals.names, locals.classes);
+          suspends = ((BooleanValue) result).value();
+          if (! mirror.isChecked()) { _checkBreakpointVariables(thread, mirror); }
+        }
+        catch (VMDisconnectedException e) { return; }
+        catch (IncompatibleThreadStateException e) { error.log("Can't evaluate breakpoint " + breakpoint, e); }
+        catch (DebugException e) { error.log("Can't evaluate breakpoint " + breakpoint, e); }
+        catch (ObjectCollectedException e) { error.log("Can't evaluate breakpoint " + breakpoint, e); }
+        finally {
+          synchronized(_evaluatingThreads) { _evaluatingThreads.remove(thread); }
+          try { for (ObjectReference ref : toRelease) { ref.enableCollection(); } }
+          catch (VMDisconnectedException e) { /* ignore */ }
+          catch (ObjectCollectedException e) { /* ignore */ }
+        }
+        try {
+          if (suspends) { EventQueue.invokeLater(suspend); }
+          else { thread.resume(); }
+        }
+        catch (VMDisconnectedException e) { /* ignore */ }
+      }
+    });
+  }
+  
+  /** Gets the mirror of the condition and log message of a breakpoint, mirroring them again if they have changed.
+    * @param breakpoint a breakpoint that has a condition or log message
+    * @return the mirror
+    * @throws DebugException if something goes wrong
+    */
+  private BreakpointMirror _breakpointMirror(JPDABreakpoint breakpoint) throws DebugException {
+    synchronized(_breakpointMirrors) {
+      BreakpointMirror mirror = _breakpointMirrors.get(breakpoint);
+      String condition = breakpoint.getCondition();
+      String logMessage = breakpoint.getLogMessage();
+      if (mirror == null || ! ObjectUtil.equal(mirror.condition, condition) || 
+          ! ObjectUtil.equal(mirror.logMessage, logMessage)) {
+        if (mirror != null) { mirror.release(); }
+        List<ObjectReference> held = Collections.synchronizedList(new LinkedList<ObjectReference>());
+        mirror = new BreakpointMirror(condition, (condition == null) ? null : _mirrorString(condition, held),
+                                      logMessage, (logMessage == null) ? null : _mirrorString(logMessage, held), held);
+        _breakpointMirrors.put(breakpoint, mirror);
+      }
+      return mirror;
+    }
+  }
+  
+  /** Asks the interpreter which local variables the condition and log message of a breakpoint refer to, now that they
+    * have been checked, so that later hits only pass those variables.
+    * @param thread the thread suspended at the breakpoint
+    * @param mirror the mirror of the breakpoint's expressions
+    * @throws DebugException if something goes wrong
+    */
+  private void _checkBreakpointVariables(ThreadReference thread, BreakpointMirror mirror) throws DebugException {
+    Set<String> names = new HashSet<String>();
+    for (StringReference source : Arrays.asList(mirror.mirroredCondition, mirror.mirroredLogMessage)) {
+      if (source == null) { continue; }
+      Value result = _invokeMethod(thread, _interpreterJVM, "getBreakpointVariables", GET_BREAKPOINT_VARIABLES_SIG,
+                                   source);
+      if (result == null) { names = null; break; }  // not checked or erroneous: keep passing all variables
+      for (Value name : ((ArrayReference) result).getValues()) { names.add(((StringReference) name).value()); }
+    }
+    mirror.setVariables(names);
+  }
+  
   // Not currently used
 //  /** Takes the location of event e, opens the document corresponding to its class and centers the definition pane's
 //    * view on the appropriate line number.
@@ -1438,49 +1763,47 @@ public class JPDADebugger implements Debugger {
     }
   }
   
-  /** Updates the stored value of each watched field and variable. Synchronization is necessary because this method is 
-    * called from unsynchronized listeners. */
+  /** Requests new values for the watched fields and variables from the active interpreter.  The values are obtained
+    * on the query thread and stored in the event thread, after which listeners are notified by watchesUpdated.  Only
+    * runs in the event thread.
+    */
   private /* synchronized */ void _updateWatches() {
     assert EventQueue.isDispatchThread();
     if (! isReady()) return;
     
-    for (DebugWatchData w : _watches) {
-      String name = w.getName();
-      String val = "";
-      String type = "";
-//      ArrayList<Integer> arr_index = new ArrayList<Integer>();
-//      
-//      if(name.indexOf("[") != -1 && name.indexOf("]") != -1) {
-//        name = name.substring(0, name.indexOf("["));
-//        arr_index.add(Integer.parseInt(w.getName().substring(w.getName().indexOf("[")+1, w.getName().indexOf("]"))));      
-//        if(w.getName().indexOf("]")<(w.getName().length()-1)) {
-//          String iter = w.getName().substring(w.getName().indexOf("]")+1, w.getName().length());
-//          while(iter.indexOf("[") != -1 && iter.indexOf("]") != -1) {
-//            arr_index.add(Integer.parseInt(iter.substring(iter.indexOf("[")+1, iter.indexOf("]"))));      
-//            if(iter.indexOf("]")<(iter.length()-1))
-//              iter = iter.substring(iter.indexOf("]")+1, iter.length());
-//            else 
-//              iter = "";
-//          }
-//        }
-//      }
-//     
-//      int [] indices = new int[arr_index.size()];
-//      for (int i = 0; i < arr_index.size(); i++) {
-//        indices[i] = arr_index.get(i);
-//      }
-      Pair<String,String> pair = _model.getInteractionsModel().getVariableToString(name);
-      // System.out.println("pair == null? "+(pair == null));
-      val = pair.first();
-      type = pair.second();
-      
-      if (val == null) { w.setNoValue(); }
-      else { w.setValue(val); }
-      if (type == null) { w.setNoType(); }
-      else { w.setType(type); }
-    }
+    final int version = ++_watchVersion;
+    if (_watches.isEmpty()) return;
+    final DebugWatchData[] watches = _watches.toArray(new DebugWatchData[_watches.size()]);
+    final DefaultInteractionsModel interactionsModel = _model.getInteractionsModel();
+    _queryThread.execute(new Runnable() {
+      public void run() {
+        final List<Pair<String,String>> values = new ArrayList<Pair<String,String>>(watches.length);
+        for (DebugWatchData w : watches) { values.add(interactionsModel.getVariableToString(w.getName())); }
+        EventQueue.invokeLater(new Runnable() {
+          public void run() {
+            if (version != _watchVersion) return;
+            for (int i = 0; i < watches.length; i++) {
+              DebugWatchData w = watches[i];
+              String val = values.get(i).first();
+              String type = values.get(i).second();
+              
+              if (val == null) { w.setNoValue(); }
+              else { w.setValue(val); }
+              if (type == null) { w.setNoType(); }
+              else { w.setType(type); }
+            }
+            _notifier.watchesUpdated();
+          }
+        });
+      }
+    });
   }
   
+  /** Drops the watch values being obtained, if any, since they may come from either interpreter.  Called in the event
+    * thread before the active interpreter changes.
+    */
+  private void _dropWatchUpdate() { _watchVersion++; }
+  
   /** Copy the current selected thread's visible variables (those in scope) into
    * an interpreter's environment and then switch the Interactions window's
    * interpreter to that interpreter.
@@ -1498,46 +1821,15 @@ public class JPDADebugger implements Debugger {
       ObjectReference thisVal = thread.frame(0).thisObject();
       ClassObjectReference thisClass = thread.frame(0).location().declaringType().classObject();
       
-      List<ObjectReference> localVars = new LinkedList<ObjectReference>();
-      List<StringReference> localVarNames = new LinkedList<StringReference>();
-      List<ClassObjectReference> localVarClasses = new LinkedList<ClassObjectReference>();
-      try {
-        // we don't store the value thread.frame(0) anywhere, because it is invalidated
-        // each time we invoke a method in thread (as in _box)
-        for (LocalVariable v : thread.frame(0).visibleVariables()) {
-          try {
-            // Get the type first, so that if an error occurs, we haven't mutated the lists.
-            Type t = v.type();
-            if (t instanceof ReferenceType) {
-              localVarClasses.add(((ReferenceType) t).classObject());
-            }
-            else {
-              // primitive types are represented by null
-              localVarClasses.add(null);
-            }
-            localVarNames.add(_mirrorString(v.name(), toRelease));
-            Value val = thread.frame(0).getValue(v);
-            if (val == null || val instanceof ObjectReference) { localVars.add((ObjectReference) val); }
-            else { localVars.add(_box((PrimitiveValue) val, thread, toRelease)); }
-          }
-          catch (ClassNotLoadedException e) {
-            // This is a real possibility, as documented in the ClassNotLoadedException
-            // javadocs.  We'll just ignore the exception, treating the variable as
-            // out-of-scope, since we can't talk about values of its type.
-          }
-        }
-      }
-      catch (AbsentInformationException e) { /* ignore -- we just won't include any local variables */ }
-      ArrayReference mirroredVars = _mirrorArray("java.lang.Object", localVars, thread, toRelease);
-      ArrayReference mirroredVarNames = _mirrorArray("java.lang.String", localVarNames, thread, toRelease);
-      ArrayReference mirroredVarClasses = _mirrorArray("java.lang.Class", localVarClasses, thread, toRelease);
+      ArrayReference[] locals = _mirrorLocalVariables(thread, toRelease);
       
       _invokeMethod(thread, _interpreterJVM, "addInterpreter", ADD_INTERPRETER_SIG,
-                    mirroredName, thisVal, thisClass, mirroredVars, mirroredVarNames, mirroredVarClasses);
+                    mirroredName, thisVal, thisClass, locals[0], locals[1], locals[2]);
       
       // Set the new interpreter and prompt
       String prompt = _getPromptString(thread);
       _log.log(this + " is setting active interpreter");
+      _dropWatchUpdate();
       _model.getInteractionsModel().setActiveInterpreter(interpreterName, prompt);
     }
     catch (IncompatibleThreadStateException e) { throw new DebugException(e); }
@@ -1546,6 +1838,103 @@ public class JPDADebugger implements Debugger {
     }
   }
   
+  /** Mirror the visible variables of the top frame of a suspended thread as arrays in the VM.
+   * @param thread the suspended thread
+   * @param toRelease a list of objects to be released after use
+   * @return the values (with primitives boxed), names and classes (with null for primitive types) of the variables
+   * @throws IncompatibleThreadStateException if the thread is not suspended
+   * @throws DebugException if something goes wrong
+   */
+  private ArrayReference[] _mirrorLocalVariables(ThreadReference thread, List<ObjectReference> toRelease)
+    throws IncompatibleThreadStateException, DebugException {
+    // we don't store the value thread.frame(0) anywhere, because it is invalidated
+    // each time we invoke a method in thread (as in _box)
+    StackFrame frame = thread.frame(0);
+    List<LocalVariable> vars = _visibleVariables(frame, null);
+    Map<LocalVariable, Value> values = frame.getValues(vars);
+    return new ArrayReference[] {
+      _mirrorVariableValues(vars, values, thread, toRelease),
+      _mirrorVariableNames(vars, thread, toRelease),
+      _mirrorVariableClasses(vars, thread, toRelease)
+    };
+  }
+  
+  /** @param frame the top frame of a suspended thread
+    * @param names the names of the variables to include, or null to include all of them
+    * @return the visible variables of the frame with the given names whose types are loaded
+    */
+  private List<LocalVariable> _visibleVariables(StackFrame frame, Set<String> names) {
+    List<LocalVariable> vars = new ArrayList<LocalVariable>();
+    try {
+      for (LocalVariable v : frame.visibleVariables()) {
+        if (names != null && ! names.contains(v.name())) { continue; }
+        try {
+          v.type();
+          vars.add(v);
+        }
+        catch (ClassNotLoadedException e) {
+          // This is a real possibility, as documented in the ClassNotLoadedException
+          // javadocs.  We'll just ignore the exception, treating the variable as
+          // out-of-scope, since we can't talk about values of its type.
+        }
+      }
+    }
+    catch (AbsentInformationException e) { /* ignore -- we just won't include any local variables */ }
+    return vars;
+  }
+  
+  /** @param vars local variables whose types are loaded
+    * @param values the values of the variables, read before any method was invoked in thread
+    * @param thread the suspended thread
+    * @param toRelease a list of objects to be released after use
+    * @return an array of the values in the VM, with primitives boxed
+    * @throws DebugException if something goes wrong
+    */
+  private ArrayReference _mirrorVariableValues(List<LocalVariable> vars, Map<LocalVariable, Value> values,
+                                               ThreadReference thread, List<ObjectReference> toRelease)
+    throws DebugException {
+    List<ObjectReference> localVars = new ArrayList<ObjectReference>(vars.size());
+    for (LocalVariable v : vars) {
+      Value val = values.get(v);
+      if (val == null || val instanceof ObjectReference) { localVars.add((ObjectReference) val); }
+      else { localVars.add(_box((PrimitiveValue) val, thread, toRelease)); }
+    }
+    return _mirrorArray("java.lang.Object", localVars, thread, toRelease);
+  }
+  
+  /** @param vars local variables
+    * @param thread the suspended thread
+    * @param toRelease a list of objects to be released after use
+    * @return an array of the names of the variables in the VM
+    * @throws DebugException if something goes wrong
+    */
+  private ArrayReference _mirrorVariableNames(List<LocalVariable> vars, ThreadReference thread,
+                                              List<ObjectReference> toRelease) throws DebugException {
+    List<StringReference> localVarNames = new ArrayList<StringReference>(vars.size());
+    for (LocalVariable v : vars) { localVarNames.add(_mirrorString(v.name(), toRelease)); }
+    return _mirrorArray("java.lang.String", localVarNames, thread, toRelease);
+  }
+  
+  /** @param vars local variables whose types are loaded
+    * @param thread the suspended thread
+    * @param toRelease a list of objects to be released after use
+    * @return an array of the classes of the variables in the VM, with null for primitive types
+    * @throws DebugException if something goes wrong
+    */
+  private ArrayReference _mirrorVariableClasses(List<LocalVariable> vars, ThreadReference thread,
+                                                List<ObjectReference> toRelease) throws DebugException {
+    List<ClassObjectReference> localVarClasses = new ArrayList<ClassObjectReference>(vars.size());
+    for (LocalVariable v : vars) {
+      try {
+        Type t = v.type();
+        // primitive types are represented by null
+        localVarClasses.add((t instanceof ReferenceType) ? ((ReferenceType) t).classObject() : null);
+      }
+      catch (ClassNotLoadedException e) { throw new DebugException(e); }  // already loaded by _visibleVariables
+    }
+    return _mirrorArray("java.lang.Class", localVarClasses, thread, toRelease);
+  }
+  
   /** @param threadRef refence to the thread being debugged
    * @return the prompt to display in the itneractions console
    * based upon the ThreadReference threadRef, which is being debugged.
@@ -1755,6 +2144,7 @@ public class JPDADebugger implements Debugger {
   private void _switchToSuspendedThread(BreakpointRequest request, boolean updateWatches) throws DebugException {
     _log.log(this + " executing _switchToSuspendedThread()");
     _runningThread = null;
+    _stateChanged();
     if (updateWatches) _updateWatches();
     final ThreadReference currThread = _suspendedThreads.peek();
     _notifier.currThreadSuspended();
@@ -1840,6 +2230,7 @@ public class JPDADebugger implements Debugger {
   
   /** Removes all of the debug interpreters as part of shutting down.  Assumes lock is already held. */
   private void _removeAllDebugInterpreters() {
+    _dropWatchUpdate();
     DefaultInteractionsModel interactionsModel = _model.getInteractionsModel();
     String oldInterpreterName;
     if (_runningThread != null) {
@@ -1859,6 +2250,7 @@ public class JPDADebugger implements Debugger {
     * an hourglass over the interactions pane, but the interpreterJVM must have an active interpreter.
     */
   private void _removeCurrentDebugInterpreter(boolean fromStep) {
+    _dropWatchUpdate();
     DefaultInteractionsModel interactionsModel =
       _model.getInteractionsModel();
     // switch to next interpreter on the stack
@@ -1880,6 +2272,7 @@ public class JPDADebugger implements Debugger {
    */
   private void _currThreadResumed() throws DebugException {
     _log.log(this + " is executing _currThreadResumed()");
+    _stateChanged();
     EventQueue.invokeLater(new Runnable() { public void run() { _notifier.currThreadResumed(); } });
   }
   
@@ -1888,13 +2281,19 @@ public class JPDADebugger implements Debugger {
    * @param threadRef The ThreadRefernce corresponding to the interpreter to switch to
    */
   private void _switchToInterpreterForThreadReference(ThreadReference threadRef) {
+    _dropWatchUpdate();
     String threadName = _getUniqueThreadName(threadRef);
     String prompt = _getPromptString(threadRef);
     _model.getInteractionsModel().setActiveInterpreter(threadName, prompt);
   }
   
   void threadStarted() {
-    EventQueue.invokeLater(new Runnable() { public void run() { _notifier.threadStarted(); } });
+    EventQueue.invokeLater(new Runnable() { 
+      public void run() {
+        _stateChanged();
+        _notifier.threadStarted();
+      }
+    });
   }
   
   /** Notifies all listeners that the current thread has died.  updateThreads 
@@ -1906,8 +2305,7 @@ public class JPDADebugger implements Debugger {
     assert EventQueue.isDispatchThread();
     printMessage("The current thread has finished.");
     _runningThread = null;
-    
-    _updateWatches();
+    _stateChanged();
     
     if (_suspendedThreads.size() > 0) {
       ThreadReference thread = _suspendedThreads.peek();
@@ -1925,11 +2323,27 @@ public class JPDADebugger implements Debugger {
       // there are suspended threads on the stack
       _switchToSuspendedThread();
     }
+    else _updateWatches();
     _notifier.currThreadDied();
   }
   
   void nonCurrThreadDied() {
-    EventQueue.invokeLater(new Runnable() { public void run() { _notifier.nonCurrThreadDied(); } }); 
+    EventQueue.invokeLater(new Runnable() { 
+      public void run() {
+        _stateChanged();
+        _notifier.nonCurrThreadDied();
+      }
+    }); 
+  }
+  
+  /** Drops the cached threads and frames and any query results not yet delivered.  Called in the event thread whenever
+    * threads are suspended, resumed, started or die.
+    */
+  private void _stateChanged() {
+    assert EventQueue.isDispatchThread();
+    _stateVersion++;
+    _threadSnapshot = null;
+    _frameSnapshot = null;
   }
   
   /** Notifies all listeners that the debugger has shut down. updateThreads is set to true if the threads and stack 
@@ -2063,6 +2477,75 @@ public class JPDADebugger implements Debugger {
      catch (ClassNotPreparedException e) { throw new DebugException(e); }
    }
    
+   /** The condition and log message of a breakpoint mirrored in the VM, together with what is known about the local 
+     * variables they refer to.  The mirrored objects are kept from being collected until the breakpoint changes.
+     */
+   private static class BreakpointMirror {
+     final String condition;
+     final StringReference mirroredCondition;
+     final String logMessage;
+     final StringReference mirroredLogMessage;
+     /** The objects whose collection is disabled until release is called. */
+     final List<ObjectReference> held;
+     private volatile boolean _checked = false;
+     private volatile Set<String> _variables = null;
+     private volatile LocalsMirror _locals = null;
+     
+     BreakpointMirror(String c, StringReference mc, String l, StringReference ml, List<ObjectReference> h) {
+       condition = c;
+       mirroredCondition = mc;
+       logMessage = l;
+       mirroredLogMessage = ml;
+       held = h;
+     }
+     
+     /** @return true once the interpreter has reported which variables the expressions refer to */
+     boolean isChecked() { return _checked; }
+     
+     /** @return the names of the variables the expressions refer to, or null if all variables must be passed */
+     Set<String> variables() { return _variables; }
+     
+     /** @param names the names of the variables the expressions refer to, or null if all variables must be passed */
+     void setVariables(Set<String> names) {
+       _variables = names;
+       _checked = true;
+     }
+     
+     /** @param location the location of the breakpoint hit
+       * @return the mirrored variables at location, or null if they have not been mirrored
+       */
+     LocalsMirror locals(Location location) {
+       LocalsMirror locals = _locals;
+       return (locals != null && locals.location.equals(location)) ? locals : null;
+     }
+     
+     void setLocals(LocalsMirror locals) { _locals = locals; }
+     
+     /** Allows the mirrored objects to be collected. */
+     void release() {
+       synchronized(held) {
+         try { for (ObjectReference ref : held) { ref.enableCollection(); } }
+         catch (VMDisconnectedException e) { /* ignore */ }
+         catch (ObjectCollectedException e) { /* ignore */ }
+         held.clear();
+       }
+     }
+   }
+   
+   /** The local variables passed to evaluateBreakpoint at a location, with their names and classes mirrored. */
+   private static class LocalsMirror {
+     final Location location;
+     final List<LocalVariable> vars;
+     final ArrayReference names;
+     final ArrayReference classes;
+     LocalsMirror(Location l, List<LocalVariable> v, ArrayReference n, ArrayReference c) {
+       location = l;
+       vars = v;
+       names = n;
+       classes = c;
+     }
+   }
+   
    /** A thread-safe stack from which you can remove any element, not just the top of the stack.  All synchronization is 
      * performed on the wrapped vector.
      * TODO: make a generic Collection extending/replacing Stack.
@@ -39,7 +39,6 @@ package edu.rice.cs.drjava.model.definitions;
 import javax.swing.text.*;
 import java.awt.*;
 import javax.swing.event.DocumentEvent;
-import java.util.ArrayList;
 
 import edu.rice.cs.drjava.DrJava;
 import edu.rice.cs.drjava.model.*;
@@ -153,18 +152,27 @@ public class ColoringView extends PlainView implements OptionConstants {
     
     final AbstractDJDocument _doc = (AbstractDJDocument) doc;
     
-    ArrayList<HighlightStatus> stats = _doc.getHighlightStatus(start, end);
-    if (stats.size() < 1) throw new UnexpectedException("GetHighlightStatus returned nothing!");
+    // The runs cover the whole line containing start and are cached by the document, so repainting lines in the
+    // viewport while scrolling neither walks the reduced model nor allocates highlight status objects.
+    final int[] runs = _doc.getLineHighlightRuns(start);
+    if (runs.length < 1) throw new UnexpectedException("GetLineHighlightRuns returned nothing!");
     
-    for (HighlightStatus stat: stats) {
-      int location = stat.getLocation();
-      int length = stat.getLength();
+    final boolean isInteractions = _doc instanceof InteractionsDJDocument;
+    for (int i = 0; i < runs.length; i += 3) {
+      int location = runs[i];
+      int length = runs[i + 1];
       
-      // If this highlight status extends past p1, end at p1
-      if (location + length > end) length = end - stat.getLocation();
+      // Clip this run to [start, end)
+      if (location + length <= start) continue;
+      if (location >= end) break;
+      if (location < start) {
+        length -= start - location;
+        location = start;
+      }
+      if (location + length > end) length = end - location;
       
-      if (! (_doc instanceof InteractionsDJDocument) || ! ((InteractionsDJDocument)_doc).setColoring((start + end)/2, g))      
-        setFormattingForState(g, stat.getState());
+      if (! isInteractions || ! ((InteractionsDJDocument)_doc).setColoring((start + end)/2, g))      
+        setFormattingForState(g, runs[i + 2]);
       Segment text = getLineBuffer(); 
       _doc.getText(location, length, text);
       x = Utilities.drawTabbedText(text, x, y, g, this, location);  // updates x on each iteration
@@ -0,0 +1,138 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model.definitions;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import javax.swing.JEditorPane;
+import javax.swing.text.BadLocationException;
+
+import edu.rice.cs.drjava.model.GlobalEventNotifier;
+import edu.rice.cs.drjava.model.definitions.indent.Indenter;
+import edu.rice.cs.util.UnexpectedException;
+import edu.rice.cs.util.swing.Utilities;
+
+/** Measures how fast ColoringView repaints a viewport while scrolling through a large file.  Builds a synthetic Java
+  * source of the given number of lines (default 50000), then paints consecutive viewport-sized clips of a
+  * JEditorPane into an offscreen image: once from top to bottom (every line is highlighted for the first time) and
+  * then repeatedly over a window of recently visited lines (highlight runs come from the document's line cache).
+  * Usage: java edu.rice.cs.drjava.model.definitions.ColoringViewBenchmark [lines] [viewportLines]
+  * @version $Id$
+  */
+public class ColoringViewBenchmark {
+  
+  /** The pixel width of the painted viewport. */
+  private static final int WIDTH = 800;
+  
+  public static void main(String[] args) {
+    final int lines = (args.length > 0) ? Integer.parseInt(args[0]) : 50000;
+    final int viewportLines = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+    
+    final DefinitionsDocument doc = new DefinitionsDocument(new Indenter(2), new GlobalEventNotifier());
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          doc.insertString(0, _source(lines), null);
+          JEditorPane pane = new JEditorPane();
+          pane.setEditorKit(new DefinitionsEditorKit(new GlobalEventNotifier()));
+          pane.setDocument(doc);
+          pane.setFont(ColoringView.MAIN_FONT);
+          int lineHeight = pane.getFontMetrics(pane.getFont()).getHeight();
+          pane.setSize(WIDTH, lines * lineHeight);
+          
+          BufferedImage image = new BufferedImage(WIDTH, viewportLines * lineHeight, BufferedImage.TYPE_INT_RGB);
+          int frames = lines / viewportLines;
+          
+          long hits = doc.getHighlightCacheHits();
+          long misses = doc.getHighlightCacheMisses();
+          long t = System.nanoTime();
+          for (int f = 0; f < frames; f++) _paint(pane, image, f * viewportLines * lineHeight);
+          _report("scroll through", frames, System.nanoTime() - t, doc, hits, misses);
+          
+          // Scroll back and forth over the last screens, as when browsing around an edit location
+          int window = Math.min(frames, 20);
+          hits = doc.getHighlightCacheHits();
+          misses = doc.getHighlightCacheMisses();
+          t = System.nanoTime();
+          for (int f = 0; f < frames; f++) {
+            int screen = frames - 1 - (f % window);
+            _paint(pane, image, screen * viewportLines * lineHeight);
+          }
+          _report("revisit", frames, System.nanoTime() - t, doc, hits, misses);
+        }
+        catch (BadLocationException e) { throw new UnexpectedException(e); }
+      }
+    });
+    System.exit(0);
+  }
+  
+  /** Paints the viewport of the pane whose top is at pixel y into image. */
+  private static void _paint(JEditorPane pane, BufferedImage image, int y) {
+    Graphics g = image.getGraphics();
+    try {
+      g.translate(0, -y);
+      g.setClip(0, y, image.getWidth(), image.getHeight());
+      pane.paint(g);
+    }
+    finally { g.dispose(); }
+  }
+  
+  private static void _report(String phase, int frames, long nanos, DefinitionsDocument doc, long hits, long misses) {
+    double seconds = nanos / 1e9;
+    System.out.printf("%-15s %6d frames %8.3f s %9.1f fps  line cache hits %d, misses %d%n", phase, frames, seconds,
+                      frames / seconds, doc.getHighlightCacheHits() - hits, doc.getHighlightCacheMisses() - misses);
+  }
+  
+  /** @return a synthetic Java source with the given number of lines, mixing code, comments, and literals */
+  private static String _source(int lines) {
+    StringBuilder sb = new StringBuilder(lines * 40);
+    sb.append("public class Big {\n");
+    for (int i = 1; i < lines - 1; i++) {
+      switch (i % 8) {
+        case 0: sb.append("  /* block comment ").append(i).append(" */\n"); break;
+        case 1: sb.append("  public int m").append(i).append("(int x) {\n"); break;
+        case 2: sb.append("    String s = \"line ").append(i).append("\"; // trailing\n"); break;
+        case 3: sb.append("    char c = 'q';\n"); break;
+        case 4: sb.append("    if (x > ").append(i).append(") { x = x * 2 + 1; }\n"); break;
+        case 5: sb.append("\tfor (int j = 0; j < x; j++) x += j;\n"); break;
+        case 6: sb.append("    return x;\n"); break;
+        default: sb.append("  }\n");
+      }
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
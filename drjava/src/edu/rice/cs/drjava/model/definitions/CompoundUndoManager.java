@@ -249,6 +249,9 @@ public class CompoundUndoManager extends UndoManager {
     return editToBeUndone() != _savePoint; 
   }
   
+  /** @return the number of edits held by this manager, which bounds the memory used by the undo history */
+  public int getEditCount() { return edits.size(); }
+  
   public String toString() { return "(CompoundUndoManager: " + id + ")"; }
   
   /** Used to help track down memory leaks. */
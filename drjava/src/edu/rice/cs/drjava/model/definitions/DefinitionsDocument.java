@@ -317,7 +317,7 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     * Assumes that write lock is already held. 
     */
   private void _setModifiedSinceSave() {
-    /* */ assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
+    /* */ assert _inDocumentThread();
     if (! _isModifiedSinceSave) {
       _isModifiedSinceSave = true;
       if (_odd != null) _odd.documentModified();  // null test required for some unit tests
@@ -1256,6 +1256,16 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     return wp;
   }
   
+  /** Creates a position for a document that is not resident.  The position is linked to the document by 
+    * setWrappedPositionOffsets when the document is reconstructed; until then, its offset cannot change, since only
+    * a resident document can be edited.
+    * @param offset the offset of the position
+    * @return a position that always has the given offset until it is linked to a document
+    */
+  public static WrappedPosition createDetachedPosition(final int offset) {
+    return new WrappedPosition(new Position() { public int getOffset() { return offset; } });
+  }
+  
   /** Remove all positions that have been garbage-collected from the list of positions, then return a weakly-linked
     * hashmap with positions and their current offsets.
     * @return list of weak references to all positions that have been created and that have not been garbage-collected yet.
@@ -1328,6 +1338,23 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     */
   public CompoundUndoManager getUndoManager() { return _undoManager; }
   
+  /* Rough costs in bytes of the parts of a document, used by estimateFootprint. */
+  private static final int BYTES_PER_CHAR = 2;     // gap buffer content
+  private static final int BYTES_PER_LINE = 120;   // line element with its start and end positions
+  private static final int BYTES_PER_TOKEN = 48;   // reduced model token and its list node
+  private static final int BYTES_PER_EDIT = 200;   // undoable edit, including the text it saves
+  
+  /** Estimates the memory held by this document: its text, line structure, reduced model, and undo history.  The 
+    * estimate is cheap to compute and is used by the DocumentCache to bound the memory of resident documents.
+    * @return the estimated footprint in bytes
+    */
+  public long estimateFootprint() {
+    return (long) BYTES_PER_CHAR * getLength() + 
+      (long) BYTES_PER_LINE * getDefaultRootElement().getElementCount() +
+      (long) BYTES_PER_TOKEN * _reduced.getTokenCount() + 
+      (long) BYTES_PER_EDIT * _undoManager.getEditCount();
+  }
+  
   /** Resets the undo manager. */
   public void resetUndoManager() {
     _undoManager = new CompoundUndoManager(_notifier);
@@ -85,6 +85,47 @@ public final class DefinitionsDocumentTest extends DrJavaTestCase implements Red
     _doc.indentLines(selStart, selEnd); 
   }
   
+  /** Tests that a document may be built outside the event thread by the thread it is confined to, and only by it.
+    * @throws Exception if the builder thread is interrupted
+    */
+  public void testConfinedToBuilderThread() throws Exception {
+    final DefinitionsDocument[] built = new DefinitionsDocument[1];
+    final Throwable[] failures = new Throwable[2];
+    Thread builder = new Thread("Builder") {
+      public void run() {
+        try {
+          DefinitionsDocument doc = new DefinitionsDocument(_notifier);
+          doc.confineTo(this);
+          doc.insertString(0, "class A { /* } */ }", null);
+          doc.remove(0, 6);
+          built[0] = doc;
+        }
+        catch(Throwable t) { failures[0] = t; }
+        try { new DefinitionsDocument(_notifier).insertString(0, "x", null); }
+        catch(Throwable t) { failures[1] = t; }
+      }
+    };
+    boolean testMode = Utilities.TEST_MODE;
+    Utilities.TEST_MODE = false;  // check the event thread assertions
+    try {
+      builder.start();
+      builder.join();
+    }
+    finally { Utilities.TEST_MODE = testMode; }
+    
+    if (failures[0] != null) throw new UnexpectedException(failures[0]);
+    built[0].confineTo(null);
+    assertEquals("built text", "A { /* } */ }", built[0].getText());
+    built[0].setCurrentLocation(13);
+    assertEquals("the reduced model skips the brace in the comment", 11, built[0].balanceBackward());
+    
+    boolean assertionsEnabled = false;
+    assert assertionsEnabled = true;
+    if (assertionsEnabled) {
+      assertTrue("unconfined document modified outside the event thread", failures[1] instanceof AssertionError);
+    }
+  }
+  
   /** Test insertion. 
    * @throws BadLocationException if attempts to reference an invalid location
    */
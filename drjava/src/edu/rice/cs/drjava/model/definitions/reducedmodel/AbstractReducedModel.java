@@ -53,8 +53,13 @@ public abstract class AbstractReducedModel implements ReducedModelStates {
   TokenList.Iterator _cursor;
   
   /** Constructor.  Creates a new reduced model with the cursor at the start of a blank "page." */
-  public AbstractReducedModel() {
-    _tokens = new TokenList();
+  public AbstractReducedModel() { this(false); }
+  
+  /** Constructor.  Creates a new reduced model with the cursor at the start of a blank "page."
+    * @param indexed true if the token list should be indexed by offset
+    */
+  public AbstractReducedModel(boolean indexed) {
+    _tokens = new TokenList(indexed);
     _cursor = _tokens.getIterator();
     // we should be pointing to the head of the list
     _cursor.setBlockOffset(0);
@@ -76,11 +81,13 @@ public abstract class AbstractReducedModel implements ReducedModelStates {
    */
   public int absOffset() { return absOffset(_cursor); }
   
-  /** Absolute offset of the specified iterator.  Inefficient so only used for testing purposes. 
+  /** Absolute offset of the specified iterator.  Inefficient unless the token list is indexed, so only used for testing
+   * purposes. 
    * @param cursor the cursor for which to get the offset
    * @return the absolute offset of the cursor
    */
   public int absOffset(TokenList.Iterator cursor) {
+    if (_tokens.isIndexed()) return cursor.startOffset() + cursor.getBlockOffset();
     int off = cursor.getBlockOffset();
     TokenList.Iterator it = cursor.copy();
     if (! it.atStart()) it.prev();
@@ -94,6 +101,7 @@ public abstract class AbstractReducedModel implements ReducedModelStates {
   }
   
   public int getLength() {
+    if (_tokens.isIndexed()) return _tokens.weight();
     TokenList.Iterator it = _tokens.getIterator();
     it.next();
     if (it.atEnd()) return 0;
@@ -50,10 +50,16 @@ public abstract class BraceReductionTestCase extends DrJavaTestCase {
   /** Sets up the reduced model controls before each test. */
   protected void setUp() throws Exception {
     super.setUp();
-    model0 = new ReducedModelControl();
-    model1 = new ReducedModelControl();
-    model2 = new ReducedModelControl();
+    model0 = createModel();
+    model1 = createModel();
+    model2 = createModel();
   }
+  
+  /** Creates the reduced model under test.  Subclasses may override this method to run the same tests against a
+    * differently configured reduced model.
+    * @return a new, empty reduced model
+    */
+  protected ReducedModelControl createModel() { return new ReducedModelControl(); }
 
   /** Convenience function to insert a number of non-special characters into a reduced model.
     * @param model the model being modified
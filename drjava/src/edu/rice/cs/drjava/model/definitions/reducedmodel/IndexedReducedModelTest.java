@@ -0,0 +1,88 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.definitions.reducedmodel;
+
+/** Runs the tests in ReducedModelTest against a reduced model whose token lists are indexed by offset, and checks
+  * that long moves and deletions in such a model agree with an unindexed one.
+  * @version $Id$
+  */
+public final class IndexedReducedModelTest extends ReducedModelTest {
+  
+  protected ReducedModelControl createModel() { return new ReducedModelControl(true); }
+  
+  /** Inserts the given text into the model, one character at a time. */
+  private static void _insert(ReducedModelControl model, String text) {
+    for (int i = 0; i < text.length(); i++) model.insertChar(text.charAt(i));
+  }
+  
+  /** Tests that random moves, inserts, and deletions leave an indexed model in the same state as an unindexed one. */
+  public void testAgreesWithUnindexed() {
+    ReducedModelControl plain = new ReducedModelControl();
+    ReducedModelControl indexed = createModel();
+    String[] snippets = { "{\n", "  int x = 5; // comment\n", "/* block { ( */", "\"str}\\\"ing\"", "'\\''", "}\n", 
+      "  foo(bar[1]);\n", "*/", "//", "\\\\" };
+    java.util.Random random = new java.util.Random(42);
+    int length = 0;
+    int offset = 0;
+    for (int i = 0; i < 2000; i++) {
+      int op = random.nextInt(3);
+      if (op == 0 || length < 20) {
+        String s = snippets[random.nextInt(snippets.length)];
+        _insert(plain, s);
+        _insert(indexed, s);
+        length += s.length();
+        offset += s.length();
+      }
+      else if (op == 1) {
+        int target = random.nextInt(length + 1);
+        plain.move(target - offset);
+        indexed.move(target - offset);
+        offset = target;
+      }
+      else {
+        int count = Math.min(random.nextInt(10) + 1, length - offset);
+        if (count == 0) continue;
+        plain.delete(count);
+        indexed.delete(count);
+        length -= count;
+      }
+      assertEquals("offset after step " + i, offset, indexed.absOffset());
+      assertEquals("length after step " + i, length, indexed._rmc.getLength());
+      assertEquals("model after step " + i, plain.simpleString(), indexed.simpleString());
+    }
+  }
+}
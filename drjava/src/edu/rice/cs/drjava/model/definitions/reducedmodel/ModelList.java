@@ -40,7 +40,10 @@ import edu.rice.cs.plt.collect.WeakHashSet;
 import java.util.Set;
 
 /** A doubly-linked list class with header and trailer nodes. Allows multiple iterators to make modifications to the 
-  * same list without failing unlike the iterators for java.util.*List.
+  * same list without failing unlike the iterators for java.util.*List.  An <i>indexed</i> list additionally threads its
+  * item nodes through a randomized balanced tree (a treap) that records the node count and the total item weight of
+  * each subtree, so that the position and the weighted offset of a node, and the node at a given weighted offset, can
+  * be computed in O(log n) time instead of by walking the list.
   * @version $Id$
   */
 class ModelList<T> {
@@ -50,9 +53,20 @@ class ModelList<T> {
   private int _length;
   /** a set of objects that can trigger and listen for updates to the list */
   private Set<ModelIterator> _listeners;
+  /** true if the item nodes of this list are also kept in the order-statistics tree rooted at _root */
+  private final boolean _indexed;
+  /** the root of the order-statistics tree; null if this list is not indexed or is empty */
+  private Node<T> _root;
+  /** the state of the pseudo-random generator used to assign tree priorities */
+  private int _seed = 0x2545F491;
 
   /** Constructor.  Initializes the head and tail nodes, as well as the listener table and the length variable. */
-  ModelList() {
+  ModelList() { this(false); }
+  
+  /** Constructor.
+    * @param indexed true if this list should maintain an order-statistics tree over its nodes
+    */
+  ModelList(boolean indexed) {
     // This node is the only node that exists in an empty list.
     // If an Iterator points to this node, the iterator is considered to be in "initial position."
     _head = new Node<T>();
@@ -62,6 +76,7 @@ class ModelList<T> {
     _tail._prev = _head;
     _tail._next = null;
     _length = 0;
+    _indexed = indexed;
     
     /* We use a WeakHashSet so that listeners do not leak. That is, even if the dispose method is not called, when they
      * are no longer strongly referenced, they will be automatically removed from the listener set. */
@@ -79,6 +94,7 @@ class ModelList<T> {
     assert point != _head;
     Node<T> newNode = point.insert(item);
     _length++;
+    if (_indexed) _treeInsertBefore(point, newNode);
     return newNode;
   }
 
@@ -89,6 +105,7 @@ class ModelList<T> {
     assert point != _head && point != _tail;
     point.remove();
     _length--;
+    if (_indexed) _treeRemove(point);
   } 
 
   private void addListener(ModelIterator that) { _listeners.add(that); }
@@ -101,6 +118,12 @@ class ModelList<T> {
   public boolean isEmpty() { return _head._next == _tail; }
 
   public int length() { return _length; }
+  
+  /** @return true if this list maintains an order-statistics tree over its nodes. */
+  public boolean isIndexed() { return _indexed; }
+  
+  /** @return the sum of the weights of all items in this list; only meaningful for an indexed list. */
+  public int weight() { return _weight(_root); }
 
   /** Create a new iterator for this list and register it as one of the 
    * listeners which are notified when the list is
@@ -108,12 +131,166 @@ class ModelList<T> {
    * @return the newly-created iterator
    */
   public ModelIterator getIterator() { return new ModelIterator(); }
+  
+  /** Returns the weight of an item of an indexed list.  The weight of an item may change while it is in the list
+    * provided that the item reports each change through the WeightListener passed to {@link #attach}.  The default
+    * weight is 0.
+    * @param item the item in question
+    * @return the weight of item
+    */
+  protected int weightOf(T item) { return 0; }
+  
+  /** Hook called when an item enters (listener != null) or leaves (listener == null) an indexed list.  Items whose
+    * weight can change must report changes to the given listener.  The default implementation does nothing.
+    * @param item the item in question
+    * @param listener the listener to notify of weight changes, or null to detach the item
+    */
+  protected void attach(T item, WeightListener listener) { }
+  
+  /** Receives notification that the weight of an item of an indexed list has changed. */
+  interface WeightListener {
+    /** @param delta the change in the weight of the item */
+    void weightChanged(int delta);
+  }
+  
+  /* ---- order-statistics tree operations; only used if _indexed ---- */
+  
+  private static <T> int _count(Node<T> n) { return (n == null) ? 0 : n._count; }
+  
+  private static <T> int _weight(Node<T> n) { return (n == null) ? 0 : n._subtreeWeight; }
+  
+  /** @return the next pseudo-random priority (xorshift) */
+  private int _nextPriority() {
+    int x = _seed;
+    x ^= x << 13;
+    x ^= x >>> 17;
+    x ^= x << 5;
+    _seed = x;
+    return x;
+  }
+  
+  /** Replaces child old of parent (or the root if parent is null) with child new. */
+  private void _replaceChild(Node<T> parent, Node<T> oldChild, Node<T> newChild) {
+    if (parent == null) _root = newChild;
+    else if (parent._left == oldChild) parent._left = newChild;
+    else parent._right = newChild;
+    if (newChild != null) newChild._parent = parent;
+  }
+  
+  /** Rotates x above its parent, preserving the in-order sequence of the tree. */
+  private void _rotateUp(Node<T> x) {
+    Node<T> p = x._parent;
+    _replaceChild(p._parent, p, x);
+    if (x == p._left) {
+      p._left = x._right;
+      if (p._left != null) p._left._parent = p;
+      x._right = p;
+    }
+    else {
+      p._right = x._left;
+      if (p._right != null) p._right._parent = p;
+      x._left = p;
+    }
+    p._parent = x;
+    p.updateAggregates();
+    x.updateAggregates();
+  }
+  
+  /** Inserts the detached node n into the tree immediately before point, which is either the tail or a tree node. */
+  private void _treeInsertBefore(Node<T> point, Node<T> n) {
+    n._priority = _nextPriority();
+    n._weight = weightOf(n._item);
+    n.updateAggregates();
+    if (_root == null) _root = n;
+    else {
+      Node<T> parent;
+      if (point == _tail) {
+        parent = _root;
+        while (parent._right != null) parent = parent._right;
+        parent._right = n;
+      }
+      else if (point._left == null) {
+        parent = point;
+        parent._left = n;
+      }
+      else {
+        parent = point._left;
+        while (parent._right != null) parent = parent._right;
+        parent._right = n;
+      }
+      n._parent = parent;
+      for (Node<T> a = parent; a != null; a = a._parent) a.updateAggregates();
+      while (n._parent != null && n._priority > n._parent._priority) _rotateUp(n);
+    }
+    attach(n._item, n);
+  }
+  
+  /** Removes node n from the tree. */
+  private void _treeRemove(Node<T> n) {
+    attach(n._item, null);
+    while (n._left != null && n._right != null) {
+      _rotateUp((n._left._priority > n._right._priority) ? n._left : n._right);
+    }
+    Node<T> parent = n._parent;
+    _replaceChild(parent, n, (n._left != null) ? n._left : n._right);
+    for (Node<T> a = parent; a != null; a = a._parent) a.updateAggregates();
+    n._parent = n._left = n._right = null;
+  }
+  
+  /** @return the 0-based index of item node n in the list */
+  private int _rank(Node<T> n) {
+    int r = _count(n._left);
+    for (Node<T> x = n; x._parent != null; x = x._parent) {
+      if (x == x._parent._right) r += _count(x._parent._left) + 1;
+    }
+    return r;
+  }
+  
+  /** @return the sum of the weights of all items preceding item node n */
+  private int _offset(Node<T> n) {
+    int off = _weight(n._left);
+    for (Node<T> x = n; x._parent != null; x = x._parent) {
+      if (x == x._parent._right) off += _weight(x._parent._left) + x._parent._weight;
+    }
+    return off;
+  }
+  
+  /** @param offset a weighted offset in the range [0, weight())
+    * @return the first item node n such that {@code _offset(n) <= offset < _offset(n) + n._weight}
+    */
+  private Node<T> _nodeAt(int offset) {
+    Node<T> x = _root;
+    while (true) {
+      int leftWeight = _weight(x._left);
+      if (offset < leftWeight) x = x._left;
+      else {
+        offset -= leftWeight;
+        if (offset < x._weight) return x;
+        offset -= x._weight;
+        x = x._right;
+      }
+    }
+  }
 
-  /** The Node class for ModelLists.  The _prev and _next pointers are mutable.  The _item field is null in _head and _tail. */
-  private static class Node<T> {
+  /** The Node class for ModelLists.  The _prev and _next pointers are mutable.  The _item field is null in _head and
+    * _tail.  The remaining fields are only used by indexed lists, whose item nodes (but not _head or _tail) also form
+    * an order-statistics tree.
+    */
+  private static class Node<T> implements WeightListener {
     Node<T> _prev;
     Node<T> _next;
     T _item;
+    
+    Node<T> _parent;
+    Node<T> _left;
+    Node<T> _right;
+    int _priority;
+    /** the number of nodes in the subtree rooted here */
+    int _count;
+    /** the weight of _item */
+    int _weight;
+    /** the sum of the weights of the items in the subtree rooted here */
+    int _subtreeWeight;
 
     /** Constructor for _head and _tail nodes. */
     Node() { }
@@ -147,6 +324,17 @@ class ModelList<T> {
       _prev._next = _next;
       _next._prev = _prev;
     }
+    
+    /** Recomputes _count and _subtreeWeight from the children of this node. */
+    void updateAggregates() {
+      _count = 1 + _count(_left) + _count(_right);
+      _subtreeWeight = _weight + _weight(_left) + _weight(_right);
+    }
+    
+    public void weightChanged(int delta) {
+      _weight += delta;
+      for (Node<T> x = this; x != null; x = x._parent) x._subtreeWeight += delta;
+    }
   }
 
   /** The iterator class for ModelList.  Package private instead of private so that it can be extended.  The methods of
@@ -269,6 +457,33 @@ class ModelList<T> {
       _pos++;
     }
 
+    /** Gets the weighted offset of the current item in an indexed list.  Runs in O(log n) time.
+      * @return the sum of the weights of the items preceding the current one; 0 at the head and weight() at the tail
+      */
+    public int startOffset() {
+      assert _indexed;
+      if (_point == _head) return 0;
+      if (_point == _tail) return weight();
+      return _offset(_point);
+    }
+    
+    /** Moves this iterator to the item of an indexed list whose weighted span contains the given offset, or to the
+      * tail if offset == weight().  Runs in O(log n) time.
+      * @param offset a weighted offset in the range [0, weight()]
+      * @return the distance from the start of the new current item to offset
+      */
+    public int seek(int offset) {
+      assert _indexed && offset >= 0 && offset <= weight();
+      if (offset == weight()) {
+        _point = _tail;
+        _pos = _length + 1;
+        return 0;
+      }
+      _point = _nodeAt(offset);
+      _pos = _rank(_point) + 1;
+      return offset - _offset(_point);
+    }
+
     /** Delete all nodes between the current position of this and the current position of the given iterator.
      * 1) Two iterators pointing to same node: do nothing
      * 2) Iterator 2 is before iterator 1: remove between iterator 2 and iterator 1
@@ -297,6 +512,9 @@ class ModelList<T> {
         rightPoint = iter._point;
       }
       
+      if (_indexed) {
+        for (Node<T> n = leftPoint._next; n != rightPoint; n = n._next) _treeRemove(n);
+      }
       rightPoint._prev = leftPoint;
       leftPoint._next = rightPoint;
       _length -= rightPos - leftPos - 1;  //determine new length
@@ -291,12 +291,45 @@ public final class ModelListTest extends DrJavaTestCase {
     
     assertEquals("Removed second iterator", 0, testList.listenerCount());
   }
+  
+  /** Tests positional and weighted lookups in an indexed list whose items weigh their own value. */
+  public void testIndexedSeek() {
+    ModelList<Integer> list = new ModelList<Integer>(true) {
+      protected int weightOf(Integer item) { return item.intValue(); }
+    };
+    ModelList<Integer>.ModelIterator it = list.getIterator();
+    for (int i = 1; i <= 100; i++) { 
+      it.insert(Integer.valueOf(i));
+      it.next();
+    }
+    assertEquals("length", 100, list.length());
+    assertEquals("total weight", 5050, list.weight());
+    assertTrue("at end", it.atEnd());
+    assertEquals("offset of tail", 5050, it.startOffset());
+    
+    // item k starts at offset k(k-1)/2
+    assertEquals("seek into item 10", 3, it.seek(48));
+    assertEquals("item 10", Integer.valueOf(10), it.current());
+    assertEquals("position of item 10", 10, it.pos());
+    assertEquals("start of item 10", 45, it.startOffset());
+    assertEquals("seek to start of item 11", 0, it.seek(55));
+    assertEquals("item 11", Integer.valueOf(11), it.current());
+    assertEquals("seek to end", 0, it.seek(5050));
+    assertTrue("at end after seek", it.atEnd());
+    
+    // remove items 11..88 with collapse
+    it.seek(45);
+    ModelList<Integer>.ModelIterator it2 = it.copy();
+    it2.seek(89 * 88 / 2);
+    it.collapse(it2);
+    assertEquals("length after collapse", 22, list.length());
+    assertEquals("weight after collapse", 55 + 5050 - 88 * 89 / 2, list.weight());
+    it.next();
+    assertEquals("item after 10", Integer.valueOf(89), it.current());
+    assertEquals("start of item 89", 55, it.startOffset());
+    it.remove();
+    assertEquals("item after removal", Integer.valueOf(90), it.current());
+    assertEquals("start of item 90", 55, it.startOffset());
+    assertEquals("position of item 90", 11, it.pos());
+  }
 }
-
-
-
-
-
-
-
-
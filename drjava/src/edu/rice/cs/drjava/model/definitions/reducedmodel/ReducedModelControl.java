@@ -64,9 +64,15 @@ public class ReducedModelControl implements BraceReduction {
   volatile int _offset;
   
   /** Standard constructor. */
-  public ReducedModelControl() {
-    _rmb = new ReducedModelBrace(this);
-    _rmc = new ReducedModelComment();
+  public ReducedModelControl() { this(false); }
+  
+  /** Constructor.
+    * @param indexed true if the token lists of the sub-models should be indexed by offset, making moves over long
+    *                distances, absOffset(), and deletions logarithmic in the number of tokens
+    */
+  public ReducedModelControl(boolean indexed) {
+    _rmb = new ReducedModelBrace(this, indexed);
+    _rmc = new ReducedModelComment(indexed);
   }
   
   /** @return the absolute offset of the cursor in the brace model, which is expensive.  Used for testing purposes only. 
@@ -115,6 +121,9 @@ public class ReducedModelControl implements BraceReduction {
     _rmc.delete(count);
   }
   
+  /** @return the number of tokens in the brace and comment sub-models */
+  public int getTokenCount() { return _rmb._tokens.length() + _rmc._tokens.length(); }
+  
   /** @return true if cursor position is shadowed by comment or string (does not include opening comment or quotation "brace"). */
   public boolean isShadowed() { return _rmc.isShadowed(); }
   
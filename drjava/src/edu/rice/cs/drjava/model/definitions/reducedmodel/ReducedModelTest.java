@@ -39,7 +39,7 @@ package edu.rice.cs.drjava.model.definitions.reducedmodel;
 /** Tests insertion and move and other non-delete functionality of the reduced model.
   * @version $Id$
   */
-public final class ReducedModelTest extends BraceReductionTestCase implements ReducedModelStates {
+public class ReducedModelTest extends BraceReductionTestCase implements ReducedModelStates {
   /** tests backwards balancer, e.g., ')' balances with '(' */
   public void testBalanceBackward() {
     assertEquals("#0.0", -1, model0.balanceBackward());
@@ -1001,7 +1001,7 @@ public final class ReducedModelTest extends BraceReductionTestCase implements Re
    * @return a ReducedModelControl object
    */
   protected ReducedModelControl setUpExample() {
-    ReducedModelControl model = new ReducedModelControl();
+    ReducedModelControl model = createModel();
     model.insertChar('{');
     model.insertChar('\n');
     insertGap(model, 3);
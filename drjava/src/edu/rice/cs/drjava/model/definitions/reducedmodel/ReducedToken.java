@@ -42,6 +42,9 @@ package edu.rice.cs.drjava.model.definitions.reducedmodel;
 public abstract class ReducedToken implements ReducedModelStates {
   private volatile ReducedModelState _state;
   
+  /** Listener notified of size changes while this token belongs to an indexed TokenList; otherwise null. */
+  private volatile ModelList.WeightListener _sizeListener;
+  
   public ReducedToken(ReducedModelState state) {
     _state = state;
   }
@@ -103,6 +106,20 @@ public abstract class ReducedToken implements ReducedModelStates {
     */
   public void setState(ReducedModelState state) { _state = state; }
   
+  /** Sets the listener that is notified when the size of this token changes.
+    * @param listener the new listener or null
+    */
+  void setSizeListener(ModelList.WeightListener listener) { _sizeListener = listener; }
+  
+  /** Reports a change in the size of this token to the size listener, if any.  Must be called by every operation that
+    * changes the value of getSize().
+    * @param delta the change in size
+    */
+  void sizeChanged(int delta) {
+    ModelList.WeightListener listener = _sizeListener;
+    if (listener != null && delta != 0) listener.weightChanged(delta);
+  }
+  
   /** Increases the size of the gap.
     * @param delta the change in the size of the gap
     */
@@ -0,0 +1,118 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.definitions.reducedmodel;
+
+import static edu.rice.cs.drjava.model.definitions.reducedmodel.ReducedModelStates.*;
+
+/** A streaming lexer that computes the shadowing state of positions in plain text, such as a CharBuffer read from a
+  * file, without building a reduced model.  It walks the text with the same state machine as the update functions of
+  * Free, InsideLineComment, InsideBlockComment, InsideDoubleQuote, and InsideSingleQuote, splitting the text into the
+  * tokens the reduced comment model would form: the two-character braces "//", "/*", and "*&#47;" and the escapes
+  * "\\\\", "\\\"", and "\\'" are combined greedily from left to right; everything else is a single character.
+  * <p>
+  * The state reported for a position matches getStateAtCurrent() in the reduced model: at a token boundary it is the
+  * state after the preceding token, and strictly inside a two-character token it is the state before that token.
+  * Queries are expected in increasing order; a query for an earlier position restarts the scan from the beginning.
+  * The text must be Swing text, i.e. use "\n" as the only line separator.
+  * @version $Id$
+  */
+public class ShadowingLexer {
+  
+  private final CharSequence _text;
+  private final int _length;
+  
+  /** The position of the next token to scan; always a token boundary. */
+  private int _pos;
+  
+  /** The state at _pos. */
+  private ReducedModelState _state;
+  
+  /** Creates a lexer positioned at the start of text.
+    * @param text the text to classify
+    */
+  public ShadowingLexer(CharSequence text) {
+    _text = text;
+    _length = text.length();
+    reset();
+  }
+  
+  /** Moves the lexer back to the start of the text. */
+  public void reset() {
+    _pos = 0;
+    _state = FREE;
+  }
+  
+  /** @param pos a position in [0, length] 
+    * @return true if pos is inside a comment or a string, as AbstractDJDocument.isShadowed(pos) would report
+    */
+  public boolean isShadowed(int pos) { return getStateAt(pos) != FREE; }
+  
+  /** Returns the shadowing state at the given position, scanning forward from the last position queried.
+    * @param pos a position in [0, length]
+    * @return FREE, INSIDE_LINE_COMMENT, INSIDE_BLOCK_COMMENT, INSIDE_SINGLE_QUOTE, or INSIDE_DOUBLE_QUOTE
+    */
+  public ReducedModelState getStateAt(int pos) {
+    if (pos < 0 || pos > _length) throw new IndexOutOfBoundsException("pos = " + pos + ", length = " + _length);
+    if (pos < _pos) reset();
+    
+    while (_pos < pos) {
+      final char c = _text.charAt(_pos);
+      final char next = (_pos + 1 < _length) ? _text.charAt(_pos + 1) : 0;
+      
+      int len = 1;
+      ReducedModelState nextState = _state;
+      if (c == '\\' && (next == '\\' || next == '"' || next == '\'')) len = 2;  // escapes never change the state
+      else if (_state == FREE) {
+        if (c == '/' && next == '/') { len = 2; nextState = INSIDE_LINE_COMMENT; }
+        else if (c == '/' && next == '*') { len = 2; nextState = INSIDE_BLOCK_COMMENT; }
+        else if (c == '"') nextState = INSIDE_DOUBLE_QUOTE;
+        else if (c == '\'') nextState = INSIDE_SINGLE_QUOTE;
+      }
+      else if (_state == INSIDE_BLOCK_COMMENT) {
+        if (c == '*' && next == '/') { len = 2; nextState = FREE; }
+      }
+      else if (c == '\n') nextState = FREE;  // ends line comments and unterminated quotes
+      else if (c == '"' && _state == INSIDE_DOUBLE_QUOTE) nextState = FREE;
+      else if (c == '\'' && _state == INSIDE_SINGLE_QUOTE) nextState = FREE;
+      
+      if (_pos + len > pos) break;  // pos lies inside a two-character token
+      _pos += len;
+      _state = nextState;
+    }
+    return _state;
+  }
+}
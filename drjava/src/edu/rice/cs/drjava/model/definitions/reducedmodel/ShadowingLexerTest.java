@@ -0,0 +1,101 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.definitions.reducedmodel;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.drjava.model.GlobalEventNotifier;
+import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+
+/** Tests that ShadowingLexer classifies positions exactly as the reduced model of a document does.
+  * @version $Id$
+  */
+public final class ShadowingLexerTest extends DrJavaTestCase implements ReducedModelStates {
+  
+  /** Characters that are significant to the reduced comment model, plus some that are not. */
+  private static final String ALPHABET = "/*\"'\\\nab ";
+  
+  /** Asserts that the lexer and a DefinitionsDocument agree on every position of text. */
+  private void _assertSameAsReducedModel(String text) throws Exception {
+    DefinitionsDocument doc = new DefinitionsDocument(new GlobalEventNotifier());
+    doc.insertString(0, text, null);
+    ShadowingLexer lexer = new ShadowingLexer(CharBuffer.wrap(text));
+    for (int pos = 0; pos <= text.length(); pos++) {
+      doc.setCurrentLocation(pos);
+      assertEquals("state at " + pos + " in [" + text + "]", doc.getStateAtCurrent(), lexer.getStateAt(pos));
+    }
+  }
+  
+  public void testSimpleText() {
+    String text = "a /* b */ \"c\" // d\n'e' f";
+    ShadowingLexer lexer = new ShadowingLexer(text);
+    assertFalse(lexer.isShadowed(0));
+    assertFalse("inside /*", lexer.isShadowed(3));
+    assertTrue(lexer.isShadowed(5));
+    assertTrue("before */", lexer.isShadowed(7));
+    assertFalse("after */", lexer.isShadowed(9));
+    assertFalse("at opening quote", lexer.isShadowed(10));
+    assertTrue(lexer.isShadowed(11));
+    assertTrue("at closing quote", lexer.isShadowed(12));
+    assertFalse(lexer.isShadowed(13));
+    assertTrue(lexer.isShadowed(17));
+    assertFalse("after newline", lexer.isShadowed(19));
+    assertEquals(INSIDE_SINGLE_QUOTE, lexer.getStateAt(20));
+    assertEquals("backward query restarts", INSIDE_LINE_COMMENT, lexer.getStateAt(17));
+    assertEquals(FREE, lexer.getStateAt(text.length()));
+  }
+  
+  public void testEscapesAndNestedBraces() throws Exception {
+    _assertSameAsReducedModel("\"a\\\"b\" c");
+    _assertSameAsReducedModel("'\\'' '\\\\' x");
+    _assertSameAsReducedModel("/*/ a */ //* b\n*/ c");
+    _assertSameAsReducedModel("/**/ \"//\" '/*' \\\"");
+    _assertSameAsReducedModel("\"unterminated\n/* \\*/ x");
+  }
+  
+  public void testRandomTextAgreesWithReducedModel() throws Exception {
+    Random random = new Random(20061017);
+    for (int i = 0; i < 300; i++) {
+      StringBuilder sb = new StringBuilder();
+      int len = random.nextInt(30);
+      for (int j = 0; j < len; j++) sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+      _assertSameAsReducedModel(sb.toString());
+    }
+  }
+}
@@ -36,11 +36,25 @@
 
 package edu.rice.cs.drjava.model.definitions.reducedmodel;
 
-/** A list of reduced model tokens.  Uses ModelList as its base.
+/** A list of reduced model tokens.  Uses ModelList as its base.  An indexed TokenList weighs each token by its size,
+  * so that cursor movement over arbitrary distances takes O(log n) time rather than time proportional to the number of
+  * tokens traversed.
   * @version $Id$
   */
 public class TokenList extends ModelList<ReducedToken> implements /*imports*/ ReducedModelStates {
   
+  /** Creates an unindexed TokenList. */
+  public TokenList() { this(false); }
+  
+  /** Creates a TokenList.
+    * @param indexed true if the list should maintain an index over the offsets of its tokens
+    */
+  public TokenList(boolean indexed) { super(indexed); }
+  
+  protected int weightOf(ReducedToken token) { return token.getSize(); }
+  
+  protected void attach(ReducedToken token, WeightListener listener) { token.setSizeListener(listener); }
+  
   /** Gets a TokenList.Iterator for this list.  Overrides the weaker method in {@code ModelList<ReducedToken>.Iterator}. */
   public Iterator getIterator() { return new Iterator(); }
   
@@ -212,6 +226,7 @@ public class TokenList extends ModelList<ReducedToken> implements /*imports*/ Re
         next();
       }
       if (atEnd()) throw new IllegalArgumentException("At end");
+      if (isIndexed()) return _seekRight(count, currentOffset);
       
       // Initialize loop variables
       int size = current().getSize();
@@ -256,6 +271,7 @@ public class TokenList extends ModelList<ReducedToken> implements /*imports*/ Re
         currentOffset = current().getSize(); // ! atStart() is precondition for calling current()
       }
       else if (atStart()) throw new IllegalArgumentException("At Start");
+      if (isIndexed()) return _seekLeft(count, currentOffset);
       
       while (count > currentOffset) {
         count = count - currentOffset;
@@ -267,6 +283,31 @@ public class TokenList extends ModelList<ReducedToken> implements /*imports*/ Re
       return currentOffset - count;  // Note: returned offset can be 0
     }
     
+    /** Indexed version of the loop in _moveRight.  Assumes that the cursor is on a token and that count {@literal >} 0.
+      * @param count number of characters by which to move the cursor
+      * @param currentOffset current offset
+      * @return new offset
+      */
+    private int _seekRight(int count, int currentOffset) {
+      int size = current().getSize();
+      if (count + currentOffset < size) return count + currentOffset;  // target lies within the current token
+      int target = startOffset() + currentOffset + count;
+      if (target > weight()) throw new IllegalArgumentException("At end");
+      return seek(target);
+    }
+    
+    /** Indexed version of the loop in _moveLeft.  Assumes that the cursor is on a token and that count {@literal >} 0.
+      * @param count number of characters by which to move the cursor
+      * @param currentOffset current offset
+      * @return new offset
+      */
+    private int _seekLeft(int count, int currentOffset) {
+      if (count <= currentOffset) return currentOffset - count;  // target lies within the current token
+      int target = startOffset() + currentOffset - count;
+      if (target < 0) throw new IllegalArgumentException("At Start");
+      return seek(target);
+    }
+    
     /** <P>Update the BraceReduction to reflect text deletion.</P>
       * @param count  A number specifying the size and direction of text deletion. Negative values delete text to the 
       *               left of the cursor; positive values delete text to the right. Assumes deletion is within range!
@@ -46,6 +46,7 @@ import java.util.LinkedList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import edu.rice.cs.drjava.config.BooleanOption;
 import edu.rice.cs.drjava.model.GlobalModel;
@@ -62,16 +63,13 @@ import edu.rice.cs.drjava.config.OptionConstants;
 
 import edu.rice.cs.plt.io.IOUtil;
 import edu.rice.cs.plt.iter.IterUtil;
-import edu.rice.cs.plt.lambda.Box;
-import edu.rice.cs.plt.lambda.SimpleBox;
 import edu.rice.cs.util.FileOps;
 import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.classloader.ClassFileError;
 import edu.rice.cs.util.text.SwingDocument;
 import edu.rice.cs.util.swing.Utilities;
 import edu.rice.cs.util.Log;
-
-import org.objectweb.asm.*;
+import edu.rice.cs.util.PhaseTimer;
 
 import static edu.rice.cs.plt.debug.DebugUtil.debug;
 
@@ -114,6 +112,11 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
   /** State flag to record if test classes in projects must end in "Test" */
   private boolean _forceTestSuffix = false;
   
+  /** Class files examined by previous runs; used instead of rereading every class file when the
+    * JUNIT_PERSISTENT_RUNNER option is set.  Only accessed by _rawJUnitOpenDefDocs.
+    */
+  private final JUnitClassIndex _classIndex = new JUnitClassIndex();
+  
   /** The document used to display JUnit test results.  Used only for testing. */
   private final SwingDocument _junitDoc = new SwingDocument();
   
@@ -325,7 +328,18 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
    */
   private void _rawJUnitOpenDefDocs(List<OpenDefinitionsDocument> lod, final boolean allTests) {
 
+    final PhaseTimer timer = new PhaseTimer();
     File buildDir = _model.getBuildDirectory();
+    
+    /** Whether to reuse the class file index and the loaders of unchanged jar files from previous runs. */
+    final boolean persistent = 
+      edu.rice.cs.drjava.DrJava.getConfig().getSetting(OptionConstants.JUNIT_PERSISTENT_RUNNER).booleanValue();
+    final JUnitClassIndex classIndex;
+    if (persistent) classIndex = _classIndex;
+    else {
+      _classIndex.clear();
+      classIndex = null;
+    }
 
 //    Utilities.show("Running JUnit tests. Build directory is " + buildDir);
     
@@ -418,25 +432,8 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
             // Finding the source file is non-trivial because it may be a language-levels file
             
             try {
-              final Box<String> className = new SimpleBox<String>();
-              final Box<String> sourceName = new SimpleBox<String>();
-              new ClassReader(IOUtil.toByteArray(entry)).accept(new ClassVisitor(Opcodes.ASM4) {
-                public void visit(int version, int access, String name, String sig, String sup, String[] inters) {
-                	name = name.replace('/', '.');
-                	name = name.replace(File.separatorChar, '.');
-                	className.set(name);
-                }
-                public void visitSource(String source, String debug) {
-                  sourceName.set(source);
-                }
-                public void visitOuterClass(String owner, String name, String desc) { }
-                public AnnotationVisitor visitAnnotation(String desc, boolean visible) { return null; }
-                public void visitAttribute(Attribute attr) { }
-                public void visitInnerClass(String name, String out, String in, int access) { }
-                public FieldVisitor visitField(int a, String n, String d, String s, Object v) { return null; }
-                public MethodVisitor visitMethod(int a, String n, String d, String s, String[] e) { return null; }
-                public void visitEnd() { }
-              }, 0);
+              final JUnitClassIndex.Entry classInfo = 
+                (classIndex == null) ? JUnitClassIndex.read(entry) : classIndex.lookup(entry);
               
               File rootDir = classDirsAndRoots.get(dir);
               
@@ -445,7 +442,7 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
               // !! remove extra trailing slash(es) 
               while(canonicalRoot.endsWith(File.separator))
             	  canonicalRoot = canonicalRoot.substring(0, canonicalRoot.length()-1);
-              String javaSourceFileName = canonicalRoot + File.separator + sourceName.value();
+              String javaSourceFileName = canonicalRoot + File.separator + classInfo.getSourceName();
               
 //              System.err.println("Full java source fileName = " + javaSourceFileName);
               
@@ -473,12 +470,13 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
               else continue; // no matching source file is open
               
               File sourceFile = new File(sourceFileName);
-              classNames.add(className.value());
+              classNames.add(classInfo.getClassName());
               files.add(sourceFile);
-              _log.log("Class " + className + "added to classNames.   File " + sourceFileName + " added to files.");
+              _log.log("Class " + classInfo.getClassName() + "added to classNames.   File " + sourceFileName + " added to files.");
             }
             catch(IOException e) { /* ignore it; can't read class file */ }
           }
+          if (classIndex != null) classIndex.prune(dir, listing);
         }
       }
     }
@@ -488,6 +486,8 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
       throw new UnexpectedException(e); // triggers _junitInterrupted which runs hourglassOff
     }
     
+    timer.endPhase("discovery");
+    
     /** Run the junit test suite that has already been set up on the slave JVM */
     _testInProgress = true;
     // System.err.println("Spawning test thread");
@@ -504,9 +504,11 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
         // This, however, doesn't get executed because the event thread is still blocking --> deadlock.
         synchronized(_compilerModel.getCompilerLock()) {
           // synchronized over _compilerModel to ensure that compilation and junit testing are mutually exclusive.
+          timer.endPhase("waiting");
           /** Set up junit test suite on slave JVM; get TestCase classes forming that suite */
           _log.log("Calling findTestClasses(" + classNames + ", " + files + " ... )");
-          List<String> tests = _jvm.findTestClasses(classNames, files, coverageMetadata).unwrap(null);
+          List<String> tests = _jvm.findTestClasses(classNames, files, coverageMetadata, persistent).unwrap(null);
+          timer.endPhase("loading");
 
           if (tests == null || tests.isEmpty()) {
             nonTestCase(allTests, false);
@@ -521,6 +523,10 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
           if (!testsPresent) {
               throw new RemoteException("No unit test classes were passed to the slave JVM");
           }
+          timer.endPhase("execution");
+          final Map<String, Long> phaseTimes = timer.getPhaseTimes();
+          _log.log("JUnit phase times (ms): " + phaseTimes);
+          EventQueue.invokeLater(new Runnable() { public void run() { _notifier.junitPhaseTimes(phaseTimes); } });
         }
         catch (RemoteException e) { // Unit testing aborted; cleanup; hourglassOff already called in junitStarted
           _notifyJUnitEnded();  // balances junitStarted()
@@ -0,0 +1,159 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.lambda.Box;
+import edu.rice.cs.plt.lambda.SimpleBox;
+
+import org.objectweb.asm.*;
+
+/** Remembers, for each class file examined by a JUnit run, the name of the class it defines and the name of the 
+  * source file it was compiled from, so that later runs only read class files that have changed.  A class file is 
+  * considered changed when its size or modification time differs from the recorded one.  Entries for class files that
+  * have disappeared from a directory are dropped when that directory is listed again.  Runs in the main JVM and is only
+  * accessed from one JUnit run at a time, so it is not synchronized.
+  * @version $Id$
+  */
+public class JUnitClassIndex {
+  
+  /** The information recorded for one class file. */
+  public static class Entry {
+    private final long _stamp;
+    private final String _className;
+    private final String _sourceName;
+    
+    private Entry(long stamp, String className, String sourceName) {
+      _stamp = stamp;
+      _className = className;
+      _sourceName = sourceName;
+    }
+    
+    /** @return the fully qualified name of the class defined by the class file */
+    public String getClassName() { return _className; }
+    
+    /** @return the name of the source file recorded in the class file, or null if there is none */
+    public String getSourceName() { return _sourceName; }
+  }
+  
+  /** The entries of each directory, keyed by class file. */
+  private final HashMap<File, Map<File, Entry>> _dirs = new HashMap<File, Map<File, Entry>>();
+  
+  private int _reads = 0;
+  private int _hits = 0;
+  
+  /** Returns the entry for the given class file, reading the file only if it is not indexed or has changed.
+    * @param classFile a class file
+    * @return the entry for classFile
+    * @throws IOException if the class file cannot be read
+    */
+  public Entry lookup(File classFile) throws IOException {
+    File dir = classFile.getParentFile();
+    Map<File, Entry> entries = _dirs.get(dir);
+    if (entries == null) {
+      entries = new HashMap<File, Entry>();
+      _dirs.put(dir, entries);
+    }
+    long stamp = _stamp(classFile);
+    Entry e = entries.get(classFile);
+    if (e != null && e._stamp == stamp) {
+      _hits++;
+      return e;
+    }
+    e = read(classFile, stamp);
+    _reads++;
+    entries.put(classFile, e);
+    return e;
+  }
+  
+  /** Drops the entries of dir for class files that are not in listing.
+    * @param dir a directory whose class files have been looked up
+    * @param listing the current contents of dir
+    */
+  public void prune(File dir, File[] listing) {
+    Map<File, Entry> entries = _dirs.get(dir);
+    if (entries != null) entries.keySet().retainAll(Arrays.asList(listing));
+  }
+  
+  /** Drops all entries. */
+  public void clear() { _dirs.clear(); }
+  
+  /** @return the number of lookups that read a class file */
+  public int getReads() { return _reads; }
+  
+  /** @return the number of lookups answered without reading a class file */
+  public int getHits() { return _hits; }
+  
+  /** Reads the class name and source file name from a class file without consulting any index.
+    * @param classFile a class file
+    * @return a new entry for classFile
+    * @throws IOException if the class file cannot be read
+    */
+  public static Entry read(File classFile) throws IOException { return read(classFile, _stamp(classFile)); }
+  
+  private static Entry read(File classFile, long stamp) throws IOException {
+    final Box<String> className = new SimpleBox<String>();
+    final Box<String> sourceName = new SimpleBox<String>();
+    new ClassReader(IOUtil.toByteArray(classFile)).accept(new ClassVisitor(Opcodes.ASM4) {
+      public void visit(int version, int access, String name, String sig, String sup, String[] inters) {
+        name = name.replace('/', '.');
+        name = name.replace(File.separatorChar, '.');
+        className.set(name);
+      }
+      public void visitSource(String source, String debug) {
+        sourceName.set(source);
+      }
+      public void visitOuterClass(String owner, String name, String desc) { }
+      public AnnotationVisitor visitAnnotation(String desc, boolean visible) { return null; }
+      public void visitAttribute(Attribute attr) { }
+      public void visitInnerClass(String name, String out, String in, int access) { }
+      public FieldVisitor visitField(int a, String n, String d, String s, Object v) { return null; }
+      public MethodVisitor visitMethod(int a, String n, String d, String s, String[] e) { return null; }
+      public void visitEnd() { }
+    }, ClassReader.SKIP_CODE);
+    return new Entry(stamp, className.value(), sourceName.value());
+  }
+  
+  /** @return a value that changes when the file is replaced */
+  private static long _stamp(File f) { return f.lastModified() * 31 + f.length(); }
+}
@@ -0,0 +1,92 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.junit;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests the reuse and invalidation of class file information by JUnitClassIndex.
+  * @version $Id$
+  */
+public final class JUnitClassIndexTest extends DrJavaTestCase {
+  
+  private File _tempDir;
+  private File _original;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+    _original = new File(JUnitClassIndexTest.class.getResource("JUnitClassIndexTest.class").toURI());
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_tempDir);
+    super.tearDown();
+  }
+  
+  public void testLookupAndPrune() throws IOException {
+    JUnitClassIndex index = new JUnitClassIndex();
+    File classFile = new File(_tempDir, "JUnitClassIndexTest.class");
+    IOUtil.copyFile(_original, classFile);
+    
+    JUnitClassIndex.Entry e = index.lookup(classFile);
+    assertEquals("class name", JUnitClassIndexTest.class.getName(), e.getClassName());
+    assertEquals("source name", "JUnitClassIndexTest.java", e.getSourceName());
+    assertEquals("read", 1, index.getReads());
+    
+    assertSame("unchanged file is not read again", e, index.lookup(classFile));
+    assertEquals("hit", 1, index.getHits());
+    
+    classFile.setLastModified(classFile.lastModified() + 10000);
+    index.lookup(classFile);
+    assertEquals("changed file is read again", 2, index.getReads());
+    
+    index.prune(_tempDir, new File[0]);
+    index.lookup(classFile);
+    assertEquals("pruned file is read again", 3, index.getReads());
+    
+    try {
+      index.lookup(new File(_tempDir, "Missing.class"));
+      fail("missing class file should not be indexed");
+    }
+    catch (IOException expected) { }
+  }
+}
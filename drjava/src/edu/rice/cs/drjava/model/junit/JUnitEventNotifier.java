@@ -41,6 +41,7 @@ import edu.rice.cs.drjava.model.compiler.CompilerListener;
 import edu.rice.cs.util.classloader.ClassFileError;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 import java.util.List;
+import java.util.Map;
 
 /** * Keeps track of all listeners to a JUnitModel, and has the ability
  * to notify them of some event.
@@ -152,5 +153,12 @@ class JUnitEventNotifier extends EventNotifier<JUnitListener> implements JUnitLi
     try { for(JUnitListener jul : _listeners) { jul.junitEnded(); } }
     finally { _lock.endRead(); }
   }
+  
+  /** Called after the tests of a run have finished, with the time spent in each phase of the run. */
+  public void junitPhaseTimes(Map<String, Long> phaseTimes) {
+    _lock.startRead();
+    try { for(JUnitListener jul : _listeners) { jul.junitPhaseTimes(phaseTimes); } }
+    finally { _lock.endRead(); }
+  }
 }
 
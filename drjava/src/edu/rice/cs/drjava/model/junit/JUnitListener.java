@@ -40,6 +40,7 @@ import edu.rice.cs.drjava.model.compiler.CompilerListener;
 import edu.rice.cs.util.classloader.ClassFileError;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 import java.util.List;
+import java.util.Map;
 
 /** * An interface for responding to events generated by the JUnitModel.
  *
@@ -84,6 +85,11 @@ public interface JUnitListener {
   /** Called after JUnit is finished running tests. */
   public void junitEnded();
   
+  /** Called after the tests of a run have finished, with the time spent in each phase of the run.
+    * @param phaseTimes the duration of each phase in milliseconds, keyed by phase name, in the order the phases ran
+    */
+  public void junitPhaseTimes(Map<String, Long> phaseTimes);
+  
   /** Demands that all source files be in sync before running JUnit tests. 
    * The caller of this method must check if the documents are in sync with 
    * their class files using OpenDefinitionsDocument.checkIfClassFileInSync().
@@ -47,9 +47,12 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Enumeration;
 import java.util.Arrays;
 
@@ -68,6 +71,7 @@ import edu.rice.cs.plt.iter.IterUtil;
 
 import edu.rice.cs.drjava.model.coverage.JacocoClassLoader;
 import edu.rice.cs.plt.reflect.EmptyClassLoader;
+import edu.rice.cs.plt.reflect.PathClassLoader;
 
 import static edu.rice.cs.plt.debug.DebugUtil.error;
 
@@ -125,6 +129,27 @@ public class JUnitTestManager {
   private List<String> _nonTestClassNames = null;
   private JUnitResultTuple _finalResult = new JUnitResultTuple(false, null);
   
+  // State kept between persistent runs (see findTestClasses)
+  
+  /** The loader for the jar files on the class path, shared by persistent runs while those jars are unchanged. */
+  private ClassLoader _jarLoader = null;
+  
+  /** The jar files (all class path entries that are not directories) loaded by _jarLoader. */
+  private List<File> _jarPath = null;
+  
+  /** The size and modification time of each file in _jarPath when _jarLoader was created. */
+  private final Map<File, Long> _jarStamps = new HashMap<File, Long>();
+  
+  /** The directories on the class path of the current persistent run. */
+  private List<File> _classDirs = null;
+  
+  /** The stamps of the class files of the candidates of the last persistent run, keyed by class name. */
+  private final Map<String, Long> _classStamps = new HashMap<String, Long>();
+  
+  /** Candidates of previous persistent runs that were not test classes.  Cleared whenever a class file or jar changes,
+    * since a change to a superclass can turn a class into a test class. */
+  private final Set<String> _nonTests = new HashSet<String>();
+  
   /** Standard constructor 
     * @param jmc a JUnitModelCallback
     * @param loaderFactory factory to create class loaders
@@ -153,22 +178,33 @@ public class JUnitTestManager {
 
   /** Find the test classes among the given classNames and accumulate them in
     * TestSuite for junit.  Returns null if a test suite is already pending.
+    * <p>In a persistent run (which is never a coverage run), the classes in the jar files on the class path are loaded
+    * by a loader that is kept until one of those jars changes, so only the classes in class path directories are 
+    * loaded afresh.  This gives jar files precedence over directories.  Candidates that were found not to be test
+    * classes are not loaded again as long as no candidate class file and no jar has changed.</p>
     * @param classNames the (fully qualified) class names that are test class candidates
     * @param files Java File objects for the source files corresponding to classNames
     * @param coverageMetadata metadata to be used to generate the coverage report
+    * @param persistent whether to reuse the class loaders and test classification of previous runs
     * @return list of test class names
     */
   @SuppressWarnings({"unchecked","rawtypes"})
   public List<String> findTestClasses(final List<String> classNames, final List<File> files, 
-                                      final CoverageMetadata coverageMetadata) {
+                                      final CoverageMetadata coverageMetadata, boolean persistent) {
     
-    _log.log("findTestClasses(" + classNames + ", " + files + ", " + coverageMetadata + ") called");
+    _log.log("findTestClasses(" + classNames + ", " + files + ", " + coverageMetadata + ", " + persistent + 
+             ") called");
     boolean doCoverage = coverageMetadata.getFlag();
+    persistent = persistent && ! doCoverage;
     
     // Set up the loader
     final ClassLoader defaultLoader = JUnitTestManager.class.getClassLoader();
     final ClassLoader loader;
-    if (! doCoverage) loader = _classPathManager.value(defaultLoader);
+    if (persistent) {
+      loader = _persistentLoader(defaultLoader);
+      _updateClassStamps(classNames);
+    }
+    else if (! doCoverage) loader = _classPathManager.value(defaultLoader);
     else {
       // create a Jacoco runtime, output directory, report descriptors, and loader
       _coverageOutdir = coverageMetadata.getOutdirPath();
@@ -197,6 +233,10 @@ public class JUnitTestManager {
     // Assemble test suite (as _suite) and return list of test class names
     for (Pair<String, File> pair : IterUtil.zip(classNames, files)) {
       String cName = pair.first();
+      if (persistent && _nonTests.contains(cName)) {
+        _nonTestClassNames.add(cName);
+        continue;
+      }
       try {
         Class<?> possibleTest = _testRunner.loadPossibleTest(cName); 
         _log.log("Exploring possibleTest " + possibleTest);
@@ -208,6 +248,7 @@ public class JUnitTestManager {
           _log.log("Adding test " + test + " to test suite"); 
         } else { // cName is a program class that is not a test class
           _nonTestClassNames.add(cName);
+          if (persistent) _nonTests.add(cName);
           _log.log("adding " + cName + " to nonTestClassNames");
         }
       }
@@ -226,6 +267,65 @@ public class JUnitTestManager {
     return _testClassNames;
   }
   
+  /** Returns a loader for a persistent run: a fresh loader for the directories on the class path whose parent is the
+    * loader for the jar files on the class path, which is reused if those jars are unchanged.  Sets _classDirs.
+    * @param parent the parent of the jar loader
+    * @return a class loader for the full class path
+    */
+  private ClassLoader _persistentLoader(ClassLoader parent) {
+    List<File> jars = new ArrayList<File>();
+    _classDirs = new ArrayList<File>();
+    for (File f: IterUtil.snapshot(_classPathManager.getClassPath())) {
+      if (f.isDirectory()) _classDirs.add(f);
+      else jars.add(f);
+    }
+    if (_jarLoader == null || ! jars.equals(_jarPath) || ! _jarsUnchanged()) {
+      _jarLoader = new PathClassLoader(parent, jars);
+      _jarPath = jars;
+      _jarStamps.clear();
+      for (File f: jars) _jarStamps.put(f, _stamp(f));
+      _nonTests.clear();
+      _log.log("created jar loader for " + jars);
+    }
+    return new PathClassLoader(_jarLoader, _classDirs);
+  }
+  
+  /** Records the stamps of the class files of the given candidates, and forgets which classes are not tests if any of
+    * them has changed.  Assumes _classDirs has been set by _persistentLoader.
+    * @param classNames the test class candidates of the current run
+    */
+  private void _updateClassStamps(List<String> classNames) {
+    boolean changed = false;
+    for (String cName: classNames) {
+      Long stamp = _classFileStamp(cName);
+      Long previous = _classStamps.put(cName, stamp);
+      if (! stamp.equals(previous)) changed = true;
+    }
+    if (changed) _nonTests.clear();
+  }
+  
+  /** @return the stamp of the class file of the given class in the first class path directory containing it, or -1 if 
+    * there is none */
+  private Long _classFileStamp(String cName) {
+    String path = cName.replace('.', File.separatorChar) + ".class";
+    for (File dir: _classDirs) {
+      File f = new File(dir, path);
+      if (f.isFile()) return _stamp(f);
+    }
+    return -1L;
+  }
+  
+  /** @return true iff no jar file recorded in _jarStamps has been created, replaced, or removed */
+  private boolean _jarsUnchanged() {
+    for (Map.Entry<File, Long> e: _jarStamps.entrySet()) {
+      if (_stamp(e.getKey()) != e.getValue().longValue()) return false;
+    }
+    return true;
+  }
+  
+  /** @return a value that changes when the file is replaced */
+  private static long _stamp(File f) { return f.lastModified() * 31 + f.length(); }
+  
   /** Runs the pending test suite set up by the preceding call to findTestClasses.  Runs in a single auxiliary thread,
     * so no need for explicit synchronization.
     * @return false if no test suite (even an empty one) has been set up
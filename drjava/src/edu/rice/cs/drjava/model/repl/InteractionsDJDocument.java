@@ -51,6 +51,7 @@ import edu.rice.cs.util.swing.Utilities;
 import java.awt.*;
 import java.util.List;
 import java.util.LinkedList;
+import java.util.ListIterator;
 import javax.swing.text.AbstractDocument;
 import javax.swing.undo.*;
 
@@ -221,6 +222,24 @@ public class InteractionsDJDocument extends AbstractDJDocument implements Consol
 //    }
   }
   
+  /** Discards the colorings that lie entirely within the first len characters and shifts the remaining colorings left
+    * by len.  Called after the head of the document has been trimmed.  Only runs in event thread.
+    */
+  public void trimColoring(int len) {
+    synchronized(_stylesList) {
+      if (_toClear) return;
+      ListIterator<Pair<Pair<Integer,Integer>,String>> it = _stylesList.listIterator();
+      while (it.hasNext()) {
+        Pair<Pair<Integer,Integer>,String> p = it.next();
+        int start = p.first().first().intValue() - len;
+        int end = p.first().second().intValue() - len;
+        if (end < 0) it.remove();
+        else it.set(new Pair<Pair<Integer,Integer>,String>
+                      (new Pair<Integer,Integer>(Integer.valueOf(Math.max(0, start)), Integer.valueOf(end)), p.second()));
+      }
+    }
+  }
+  
   /** Accessor method used to copy contents of _stylesList to an array.  Used in test cases. 
    * @return a copy of the contents of _styleList
    */
@@ -36,6 +36,7 @@
 
 package edu.rice.cs.drjava.model.repl;
 
+import java.awt.EventQueue;
 import java.io.*;
 import java.net.ServerSocket;
 import java.util.ArrayList;
@@ -53,7 +54,6 @@ import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.swing.Utilities;
 import edu.rice.cs.util.text.ConsoleDocumentInterface;
 import edu.rice.cs.util.text.ConsoleDocument;
-import edu.rice.cs.util.text.EditDocumentException;
 import edu.rice.cs.plt.tuple.Pair;
 import edu.rice.cs.drjava.DrJava;
 import edu.rice.cs.drjava.config.OptionConstants;
@@ -70,10 +70,13 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
   /** Banner prefix. */
   public static final String BANNER_PREFIX = "Welcome to DrJava.";
 
-  /** Number of milliseconds to wait after each println, to prevent the JVM from being flooded
-    * with print calls. */
+  /** Maximum number of milliseconds that a writer waits for the event thread to display pending output, to prevent
+    * the JVM from being flooded with print calls. */
   public static final int WRITE_DELAY = 50;
   
+  /** Number of characters of pending output at which writers wait for the event thread to display it. */
+  public static final int MAX_PENDING_OUTPUT = 64 * 1024;
+  
   public static Log _log = new Log("Interactions.txt", false);
   
 //  public static final String _newLine = "\n"; // was StringOps.EOL; but Swing uses '\n' for newLine
@@ -93,11 +96,18 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
   /** The working directory for the current interpreter. */
   protected volatile File _workingDirectory;
   
-  /** A lock object to prevent print calls to System.out or System.err from flooding the JVM, ensuring the UI remains
-    * responsive.  Only public for testing purposes. */
-  public final Object _writerLock;
+  /** Output to System.out and System.err waiting to be inserted in the document by the event thread, as pairs of text
+    * and style; adjacent output in the same style is coalesced.  Guarded by itself, which writers also wait on when 
+    * too much output is pending, so that print calls cannot flood the JVM and the UI remains responsive. */
+  private final ArrayList<Pair<StringBuilder, String>> _pendingOutput = new ArrayList<Pair<StringBuilder, String>>();
+  
+  /** Number of characters in _pendingOutput.  Guarded by _pendingOutput. */
+  private int _pendingChars = 0;
   
-  /** Number of milliseconds to wait after each println, to prevent the JVM from being flooded with print calls. */
+  /** Whether _outputInserter has been queued in the event thread and has not run yet.  Guarded by _pendingOutput. */
+  private boolean _inserterQueued = false;
+  
+  /** Maximum number of milliseconds that a writer waits for the event thread to display pending output. */
   private final int _writeDelay;
   
   /** Port used by the debugger to connect to the Interactions JVM. Uniquely created in getDebugPort(). */
@@ -142,7 +152,7 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
     * @param cDoc document to use in the InteractionsDocument
     * @param wd Working directory for the interpreter
     * @param historySize Number of lines to store in the history
-    * @param writeDelay Number of milliseconds to wait after each println
+    * @param writeDelay Maximum number of milliseconds that a writer waits for pending output to be displayed
     */
   public InteractionsModel(ConsoleDocumentInterface cDoc, final File wd, int historySize, int writeDelay) {
     _document = new InteractionsDocument(cDoc, historySize);
@@ -150,7 +160,6 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
     _writeDelay = writeDelay;
     _waitingForFirstInterpreter = true;
     _workingDirectory = wd;
-    _writerLock = new Object();
     _debugPort = -1;
     _debugPortSet = false;
     _inputListener = NoInputListener.ONLY;
@@ -539,42 +548,68 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
     _debugPortSet = true;
   }
     
-  private static final int DELAY_INTERVAL = 10;
-  private volatile int delayCount = DELAY_INTERVAL;
-  
-  /** Called when the repl prints to System.out.  Includes a delay to prevent flooding the interactions document.  This
-    * method can safely be called from outside the event thread.
+  /** Called when the repl prints to System.out.  Waits while too much output is pending to prevent flooding the 
+    * interactions document.  This method can safely be called from outside the event thread.
     * @param s String to print
     */
-  public void replSystemOutPrint(final String s) {
-    Utilities.invokeLater(new Runnable() {
-      public void run() { _document.insertBeforeLastPrompt(s, ConsoleDocument.SYSTEM_OUT_STYLE); }
-    });
-    if (delayCount == 0) {
-      scrollToCaret();
-//      System.err.println(s + " printed; caretPostion = " + _pane.getCaretPosition());
-      _writerDelay();
-      delayCount = DELAY_INTERVAL;
-    }
-    else delayCount--;   
-  }
+  public void replSystemOutPrint(final String s) { _queueOutput(s, ConsoleDocument.SYSTEM_OUT_STYLE); }
   
-  /** Called when the repl prints to System.err.  Includes a delay to prevent flooding the interactions document.  This
-    * method can safely be called from outside the event thread.
+  /** Called when the repl prints to System.err.  Waits while too much output is pending to prevent flooding the 
+    * interactions document.  This method can safely be called from outside the event thread.
     * @param s String to print 
     */
-  public void replSystemErrPrint(final String s) {
-      Utilities.invokeLater(new Runnable() {
-        public void run() { _document.insertBeforeLastPrompt(s, ConsoleDocument.SYSTEM_ERR_STYLE); } 
-      });
-      if (delayCount == 0) {
-        scrollToCaret();
-//      System.err.println(s + " printed; caretPostion = " + _pane.getCaretPosition());
-        _writerDelay();
-        delayCount = DELAY_INTERVAL;
+  public void replSystemErrPrint(final String s) { _queueOutput(s, ConsoleDocument.SYSTEM_ERR_STYLE); }
+  
+  /** Adds output to _pendingOutput and makes sure that _outputInserter is queued in the event thread, so all output 
+    * that arrives before the event thread gets to it is inserted at once.  Outside the event thread, waits up to 
+    * _writeDelay milliseconds while more than MAX_PENDING_OUTPUT characters are pending.  The wait is bounded so that
+    * a writer cannot deadlock with an event thread that is waiting for it.
+    * @param s the output
+    * @param style the style of the output
+    */
+  private void _queueOutput(String s, String style) {
+    boolean inEventThread = EventQueue.isDispatchThread();
+    synchronized(_pendingOutput) {
+      int last = _pendingOutput.size() - 1;
+      if (last >= 0 && _pendingOutput.get(last).second().equals(style)) _pendingOutput.get(last).first().append(s);
+      else _pendingOutput.add(Pair.make(new StringBuilder(s), style));
+      _pendingChars += s.length();
+      
+      if (inEventThread) { /* insert below */ }
+      else {
+        // queue the inserter while holding the lock, so that it precedes any task queued after this output
+        if (! _inserterQueued) {
+          _inserterQueued = true;
+          EventQueue.invokeLater(_outputInserter);
+        }
+        long deadline = System.currentTimeMillis() + _writeDelay;
+        long wait;
+        while (_pendingChars > MAX_PENDING_OUTPUT && (wait = deadline - System.currentTimeMillis()) > 0) {
+          try { _pendingOutput.wait(wait); }
+          catch (InterruptedException e) { break; }
+        }
+        return;
       }
-      else delayCount--;
-  }
+    }
+    _outputInserter.run();
+  }
+  
+  /** Inserts all pending output in the document and scrolls to the caret.  Only runs in the event thread. */
+  private final Runnable _outputInserter = new Runnable() {
+    public void run() {
+      ArrayList<Pair<StringBuilder, String>> output;
+      synchronized(_pendingOutput) {
+        _inserterQueued = false;
+        if (_pendingOutput.isEmpty()) return;
+        output = new ArrayList<Pair<StringBuilder, String>>(_pendingOutput);
+        _pendingOutput.clear();
+        _pendingChars = 0;
+        _pendingOutput.notifyAll();
+      }
+      for (Pair<StringBuilder, String> p: output) _document.insertBeforeLastPrompt(p.first().toString(), p.second());
+      scrollToCaret();
+    }
+  };
   
   /** Returns a line of text entered by the user at the equivalent of System.in.  Only executes in the event thread. */
   public String getConsoleInput() { return _inputListener.getConsoleInput(); }
@@ -631,18 +666,6 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
     scrollToCaret();
   }
   
-  /** Waits for a small amount of time on a shared writer lock. */
-  public void _writerDelay() {
-    synchronized(_writerLock) {
-      try {
-        // Wait to prevent being flooded with println's
-        _writerLock.wait(_writeDelay);
-      }
-      catch (EditDocumentException e) { throw new UnexpectedException(e); }
-      catch (InterruptedException e) { /* Not a problem. continue */}
-    }
-  }
-  
   /** Signifies that the most recent interpretation completed successfully, returning no value. */
   public void replReturnedVoid() {
     _secondToLastError = _lastError;
@@ -62,12 +62,16 @@ public class ClassPathManager implements Lambda<ClassLoader, ClassLoader> {
   
   private final Iterable<File> _fullPath;
   
+  /** Listeners run whenever an entry is added to the class path. */
+  private final LinkedList<Runnable> _changeListeners;
+  
   public ClassPathManager(Iterable<File> builtInCP) {
     _projectCP = new LinkedList<File>();
     _buildCP = new LinkedList<File>();
     _projectFilesCP = new LinkedList<File>();
     _externalFilesCP = new LinkedList<File>();
     _extraCP = new LinkedList<File>();
+    _changeListeners = new LinkedList<Runnable>();
     // conversions to SizedIterables are necessary to support 1.4 compatibility
     Iterable<Iterable<File>> allPaths =
       IterUtil.<Iterable<File>>make(IterUtil.asSizedIterable(_projectCP),
@@ -88,6 +92,17 @@ public class ClassPathManager implements Lambda<ClassLoader, ClassLoader> {
     System.setProperty(INTERACTIONS_CLASS_PATH_PROPERTY,IOUtil.pathToString(_fullPath));
   }
   
+  /** Adds a listener that is run (while holding the lock on this) whenever an entry is added to the class path.
+    * @param l the listener
+    */
+  public synchronized void addChangeListener(Runnable l) { _changeListeners.add(l); }
+  
+  /** Updates the class path property and notifies the change listeners. */
+  protected void changed() {
+    updateProperty();
+    for (Runnable l : _changeListeners) { l.run(); }
+  }
+  
   private final Lambda<Iterable<File>, Iterable<File>> _makeSafeSnapshot =
     new Lambda<Iterable<File>, Iterable<File>>() {
     public Iterable<File> value(Iterable<File> arg) {
@@ -98,7 +113,7 @@ public class ClassPathManager implements Lambda<ClassLoader, ClassLoader> {
   /** Adds the entry to the front of the project classpath (this is the classpath specified in project properties)
     * @param f the file to be added to the classpath
     */
-  public synchronized void addProjectCP(File f) { _projectCP.addFirst(f); updateProperty(); }
+  public synchronized void addProjectCP(File f) { _projectCP.addFirst(f); changed(); }
   
   public synchronized Iterable<File> getProjectCP() { return IterUtil.snapshot(_projectCP); }
   
@@ -108,7 +123,7 @@ public class ClassPathManager implements Lambda<ClassLoader, ClassLoader> {
   public synchronized void addBuildDirectoryCP(File f) {
     _buildCP.remove(f); // eliminate duplicates
     _buildCP.addFirst(f);
-    updateProperty();
+    changed();
   }
   
   public synchronized Iterable<File> getBuildDirectoryCP() { return IterUtil.snapshot(_buildCP); }
@@ -119,7 +134,7 @@ public class ClassPathManager implements Lambda<ClassLoader, ClassLoader> {
   public synchronized void addProjectFilesCP(File f) {
     _projectFilesCP.remove(f); // eliminate duplicates
     _projectFilesCP.addFirst(f);
-    updateProperty();
+    changed();
   }
   
   public synchronized Iterable<File> getProjectFilesCP() { return IterUtil.snapshot(_projectFilesCP); }
@@ -130,7 +145,7 @@ public class ClassPathManager implements Lambda<ClassLoader, ClassLoader> {
   public synchronized void addExternalFilesCP(File f) {
     _externalFilesCP.remove(f); // eliminate duplicates
     _externalFilesCP.addFirst(f);
-    updateProperty();
+    changed();
   }
   
   public synchronized Iterable<File> getExternalFilesCP() { return IterUtil.snapshot(_externalFilesCP); }
@@ -141,7 +156,7 @@ public class ClassPathManager implements Lambda<ClassLoader, ClassLoader> {
   public synchronized void addExtraCP(File f) {
     _extraCP.remove(f); // eliminate duplicates
     _extraCP.addFirst(f);
-    updateProperty();
+    changed();
   }
   
   public Iterable<File> getExtraCP() { return IterUtil.snapshot(_extraCP); }
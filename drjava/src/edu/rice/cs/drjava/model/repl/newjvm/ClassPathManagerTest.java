@@ -0,0 +1,117 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.repl.newjvm;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.dynamicjava.symbol.CachingLibrary;
+import edu.rice.cs.dynamicjava.symbol.SymbolUtil;
+import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.iter.IterUtil;
+
+/** Tests the change notifications of ClassPathManager and their use to clear the interpreter's class cache.
+  * @version $Id$
+  */
+public final class ClassPathManagerTest extends DrJavaTestCase {
+  
+  private File _tempDir;
+  private File _buildDir;
+  private ClassPathManager _cpm;
+  private CachingLibrary _library;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+    _buildDir = new File(_tempDir, "classes");
+    _buildDir.mkdirs();
+    _cpm = new ClassPathManager(IterUtil.<File>empty());
+    // set up the way InterpreterJVM does it
+    _library = new CachingLibrary(SymbolUtil.classLibrary(_cpm.makeClassLoader(null)));
+    _cpm.addChangeListener(new Runnable() { public void run() { _library.clear(); } });
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_tempDir);
+    super.tearDown();
+  }
+  
+  /** Compiles class p.Probe into the build directory. */
+  private void _compileProbe() throws IOException {
+    File src = new File(_tempDir, "Probe.java");
+    IOUtil.writeStringToFile(src, "package p; public class Probe { }");
+    JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+    assertEquals("javac exit code", 0, javac.run(null, null, null, "-d", _buildDir.getPath(), src.getPath()));
+  }
+  
+  private boolean _probeFound() { return ! IterUtil.isEmpty(_library.declaredClasses("p.Probe")); }
+  
+  public void testListenersRunOnEveryAddition() {
+    final int[] runs = { 0 };
+    _cpm.addChangeListener(new Runnable() { public void run() { runs[0]++; } });
+    _cpm.addProjectCP(new File(_tempDir, "project"));
+    _cpm.addBuildDirectoryCP(new File(_tempDir, "build"));
+    _cpm.addProjectFilesCP(new File(_tempDir, "projectFiles"));
+    _cpm.addExternalFilesCP(new File(_tempDir, "external"));
+    _cpm.addExtraCP(new File(_tempDir, "extra"));
+    assertEquals("one run per addition", 5, runs[0]);
+  }
+  
+  public void testAdditionClearsMissingClass() throws IOException {
+    _compileProbe();
+    assertFalse("not yet on the class path", _probeFound());
+    assertFalse("the miss is cached", _probeFound());
+    _cpm.addBuildDirectoryCP(_buildDir);
+    assertTrue("found after the class path changed", _probeFound());
+  }
+  
+  /** The cache is not cleared when a class file appears in a directory that is already on the class path; the
+    * interpreter JVM relies on classFilesChanged() after DrJava's compiles. */
+  public void testClassFileWrittenLater() throws IOException {
+    _cpm.addBuildDirectoryCP(_buildDir);
+    assertFalse("not compiled yet", _probeFound());
+    _compileProbe();
+    assertFalse("the miss is still cached", _probeFound());
+    _library.clear();
+    assertTrue("found after clearing", _probeFound());
+  }
+}
@@ -51,6 +51,7 @@ import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.classloader.ClassFileError;
 import edu.rice.cs.util.newjvm.*;
 import edu.rice.cs.plt.iter.IterUtil;
+import edu.rice.cs.plt.lambda.WrappedException;
 import edu.rice.cs.plt.reflect.ReflectUtil;
 import edu.rice.cs.plt.tuple.Option;
 import edu.rice.cs.plt.tuple.OptionVisitor;
@@ -68,6 +69,13 @@ import edu.rice.cs.drjava.model.repl.InteractionsPaneOptions;
 import edu.rice.cs.dynamicjava.interpreter.*;
 import edu.rice.cs.dynamicjava.symbol.*;
 import edu.rice.cs.dynamicjava.symbol.type.Type;
+import koala.dynamicjava.interpreter.error.ExecutionError;
+import koala.dynamicjava.parser.wrapper.JavaCCParser;
+import koala.dynamicjava.parser.wrapper.ParseError;
+import koala.dynamicjava.tree.Expression;
+import koala.dynamicjava.tree.ExpressionStatement;
+import koala.dynamicjava.tree.Node;
+import koala.dynamicjava.tree.SourceInfo;
 
 // For Windows focus fix
 import javax.swing.JDialog;
@@ -104,15 +112,35 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
   private final ClassPathManager _classPathManager;
   private final ClassLoader _interpreterLoader;
   
+  /** The classes visible through _interpreterLoader, shared by all interpreters.  Caches both found and missing
+    * classes; cleared whenever the class path changes or class files are recompiled.  Class files written outside
+    * DrJava into a directory already on the class path are not seen until the next compile or reset. */
+  private final CachingLibrary _classLibrary;
+  
   // Lock object for ensuring mutual exclusion on updates and compound accesses
   private final Object _stateLock = new Object();
   
+  /** Breakpoint conditions and log messages that have been parsed and checked, keyed by their context and source.
+    * Guarded by _stateLock; cleared whenever class files change.
+    */
+  private final Map<List<Object>, BreakpointExpression> _breakpointExpressions;
+  
+  /** The names of the local variables referenced by the breakpoint expressions that have been checked, keyed by their
+    * source, with null for an expression that has errors.  Guarded by _stateLock; cleared whenever class files change.
+    */
+  private final Map<String, Set<String>> _breakpointVariables;
+  
   /** Responsible for running JUnit tests in this JVM. */
   private final JUnitTestManager _junitTestManager;
   
   /** Remote reference to the MainJVM class in DrJava's primary JVM.  Assigned ONLY once. */
   private volatile MainJVMRemoteI _mainJVM;
   
+  /** Sends System.out and System.err to the main JVM in batches. */
+  private final OutputBatcher _output = new OutputBatcher() {
+    protected void send(String[] texts, boolean[] toErr) throws RemoteException { _mainJVM.systemPrint(texts, toErr); }
+  };
+  
   /** Private constructor; use the singleton ONLY instance. */
   private InterpreterJVM() {
     super("Reset Interactions Thread", "Poll DrJava Thread");
@@ -120,6 +148,18 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     /* Important singleton objects embedded in an InterpreterJVM */
     _classPathManager = new ClassPathManager(ReflectUtil.SYSTEM_CLASS_PATH);
     _interpreterLoader = _classPathManager.makeClassLoader(InterpreterJVM.class.getClassLoader());
+    _classLibrary = new CachingLibrary(SymbolUtil.classLibrary(_interpreterLoader));
+    _breakpointExpressions = new HashMap<List<Object>, BreakpointExpression>();
+    _breakpointVariables = new HashMap<String, Set<String>>();
+    _classPathManager.addChangeListener(new Runnable() {
+      public void run() {
+        _classLibrary.clear();
+        synchronized(_stateLock) {
+          _breakpointExpressions.clear();
+          _breakpointVariables.clear();
+        }
+      }
+    });
     _junitTestManager = new JUnitTestManager(this, _classPathManager);
 
     // set the thread context class loader, this way NextGen and Mint can use the interpreter's class loader
@@ -127,13 +167,23 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     
     // _interpreterOptions = Options.DEFAULT;
     _interpreterOptions = new InteractionsPaneOptions();
-    _defaultInterpreter = new Interpreter(_interpreterOptions, _interpreterLoader);
+    _defaultInterpreter = _newInterpreter();
     _interpreters = new HashMap<String,Interpreter>();
     _busyInterpreters = new HashSet<Interpreter>();
 //    _environments = new HashMap<String, Pair<TypeContext, RuntimeBindings>>();
     _activeInterpreter = Pair.make("", _defaultInterpreter);
   }
   
+  /** @return a new top-level context that looks up classes in _classLibrary */
+  private TypeContext _newImportContext() {
+    return new ImportContext(new LibraryContext(_classLibrary), _interpreterOptions);
+  }
+  
+  /** @return a new interpreter that looks up classes in _classLibrary */
+  private Interpreter _newInterpreter() {
+    return new Interpreter(_interpreterOptions, _newImportContext(), RuntimeBindings.EMPTY);
+  }
+  
   /** Actions to perform when this JVM is started (through its superclass, AbstractSlaveJVM). Not synchronized
     * because "this" is not initialized for general access until this method has run. */
   protected void handleStart(MasterRemote mainJVM) {
@@ -143,6 +193,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     // redirect stdin
     System.setIn(new InputStreamRedirector() {
       protected String _getInput() {
+        _output.flush();  // show any prompt before asking for input
         try { return _mainJVM.getConsoleInput(); }
         catch(RemoteException re) {
           error.log(re);
@@ -153,26 +204,21 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     
     // redirect stdout
     System.setOut(new PrintStream(new OutputStreamRedirector() {
-      public void print(String s) {
-        try { _mainJVM.systemOutPrint(s); }
-        catch (RemoteException re) {
-          error.log(re);
-          throw new UnexpectedException("Main JVM can't be reached for output.\n" + re);
-        }
-      }
+      public void print(String s) { _output.write(s, false); }
+      public void flush() { _output.flush(); }
     }));
     
     // redirect stderr
     System.setErr(new PrintStream(new OutputStreamRedirector() {
-      public void print(String s) {
-        try { _mainJVM.systemErrPrint(s); }
-        catch (RemoteException re) {
-          error.log(re);
-          throw new UnexpectedException("Main JVM can't be reached for output.\n" + re);
-        }
-      }
+      public void print(String s) { _output.write(s, true); }
+      public void flush() { _output.flush(); }
     }));
     
+    // deliver output written just before System.exit
+    Runtime.getRuntime().addShutdownHook(new Thread("Flush Output") {
+      public void run() { _output.flush(); }
+    });
+    
     /* On Windows, any frame or dialog opened from Interactions pane will appear *behind* DrJava's frame, unless a 
      * previous frame or dialog is shown here.  Not sure what the difference is, but this hack seems to work.  (I'd
      * be happy to find a better solution, though.)  Only necessary on Windows, since frames and dialogs on other 
@@ -236,7 +282,26 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     return interpret(s, i);
   }
   
+  /** Interprets the given string of source code with the given interpreter, and sends all output produced while doing 
+    * so to the main JVM before returning.
+    * @param input Source code to interpret
+    * @param interpreter the interpreter to use
+    * @return the result of interpretation
+    */
   private InterpretResult interpret(String input, Interpreter interpreter) {
+    long lookups = _classLibrary.lookups();
+    long hits = _classLibrary.hits();
+    long loadTime = _classLibrary.loadTime();
+    try { return _interpret(input, interpreter); }
+    finally {
+      _output.flush();  // the main JVM prints the result and a new prompt after this output
+      debug.logValues(new String[]{ "classLookups", "classLookupHits", "classLoadNanos" },
+                      _classLibrary.lookups() - lookups, _classLibrary.hits() - hits,
+                      _classLibrary.loadTime() - loadTime);
+    }
+  }
+  
+  private InterpretResult _interpret(String input, Interpreter interpreter) {
     debug.logStart("Interpret " + input);
     
     boolean available = addBusyInterpreter(interpreter);
@@ -387,7 +452,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
       if (isInterpreterName(name)) {
         throw new IllegalArgumentException("'" + name + "' is not a unique interpreter name");
       }
-      Interpreter i = new Interpreter(_interpreterOptions, _interpreterLoader);
+      Interpreter i = _newInterpreter();
       putInterpreter(name, i);
     }
   }
@@ -418,31 +483,9 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
         throw new IllegalArgumentException("Local variable arrays are inconsistent");
       }
       
-      // TODO: handle inner classes
-      // TODO: enforce final vars?
-      Package pkg = thisClass.getPackage();
-      DJClass c = SymbolUtil.wrapClass(thisClass);
-      List<LocalVariable> vars = new LinkedList<LocalVariable>();
-      for (int i = 0; i < localVars.length; i++) {
-        if (localVarClasses[i] == null) {
-          try { localVarClasses[i] = (Class<?>) localVars[i].getClass().getField("TYPE").get(null); }
-          catch (IllegalAccessException e) { throw new IllegalArgumentException(e); }
-          catch (NoSuchFieldException e) { throw new IllegalArgumentException(e); }
-        }
-        Type varT = SymbolUtil.typeOfGeneralClass(localVarClasses[i], _interpreterOptions.typeSystem());
-        vars.add(new LocalVariable(localVarNames[i], varT, false));
-      }
-      
-      TypeContext ctx = new ImportContext(_interpreterLoader, _interpreterOptions);
-      if (pkg != null) { ctx = ctx.setPackage(pkg.getName()); }
-      ctx = new ClassSignatureContext(ctx, c, _interpreterLoader);
-      ctx = new ClassContext(ctx, c);
-      ctx = new DebugMethodContext(ctx, thisVal == null);
-      ctx = new LocalContext(ctx, vars);
-      
-      RuntimeBindings bindings = RuntimeBindings.EMPTY;
-      if (thisVal != null) { bindings = new RuntimeBindings(bindings, c, thisVal); }
-      bindings = new RuntimeBindings(bindings, vars, IterUtil.asIterable(localVars));
+      List<LocalVariable> vars = _localVariables(localVars, localVarNames, localVarClasses);
+      TypeContext ctx = _debugContext(thisVal, thisClass, vars);
+      RuntimeBindings bindings = _debugBindings(thisVal, thisClass, vars, localVars);
       
       Interpreter i = new Interpreter(_interpreterOptions, ctx, bindings);
 //      _environments.put(name, Pair.make(ctx, bindings));
@@ -450,6 +493,209 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     }
   }
   
+  /** Creates local variables for the values of a suspended method.
+    * @param localVars  Values of the local variables
+    * @param localVarNames  Names of the local variables
+    * @param localVarClasses  Classes of the local variables; null entries (for primitive types) are replaced by the
+    *                         primitive class of the value
+    * @return the local variables
+    */
+  private List<LocalVariable> _localVariables(Object[] localVars, String[] localVarNames, Class<?>[] localVarClasses) {
+    List<LocalVariable> vars = new LinkedList<LocalVariable>();
+    for (int i = 0; i < localVars.length; i++) {
+      if (localVarClasses[i] == null) {
+        try { localVarClasses[i] = (Class<?>) localVars[i].getClass().getField("TYPE").get(null); }
+        catch (IllegalAccessException e) { throw new IllegalArgumentException(e); }
+        catch (NoSuchFieldException e) { throw new IllegalArgumentException(e); }
+      }
+      Type varT = SymbolUtil.typeOfGeneralClass(localVarClasses[i], _interpreterOptions.typeSystem());
+      vars.add(new LocalVariable(localVarNames[i], varT, false));
+    }
+    return vars;
+  }
+  
+  /** Creates a type context for code interpreted within the body of a suspended method.
+    * @param thisVal  The value of {@code this} (null in a static context)
+    * @param thisClass  The class declaring the method
+    * @param vars  The local variables of the method
+    * @return the context
+    */
+  private TypeContext _debugContext(Object thisVal, Class<?> thisClass, List<LocalVariable> vars) {
+    // TODO: handle inner classes
+    // TODO: enforce final vars?
+    Package pkg = thisClass.getPackage();
+    DJClass c = SymbolUtil.wrapClass(thisClass);
+    TypeContext ctx = _newImportContext();
+    if (pkg != null) { ctx = ctx.setPackage(pkg.getName()); }
+    ctx = new ClassSignatureContext(ctx, c, _interpreterLoader);
+    ctx = new ClassContext(ctx, c);
+    ctx = new DebugMethodContext(ctx, thisVal == null);
+    return new LocalContext(ctx, vars);
+  }
+  
+  /** Creates the runtime bindings matching _debugContext.
+    * @param thisVal  The value of {@code this} (null in a static context)
+    * @param thisClass  The class declaring the method
+    * @param vars  The local variables of the method
+    * @param localVars  The values of the local variables
+    * @return the bindings
+    */
+  private RuntimeBindings _debugBindings(Object thisVal, Class<?> thisClass, List<LocalVariable> vars,
+                                         Object[] localVars) {
+    RuntimeBindings bindings = RuntimeBindings.EMPTY;
+    if (thisVal != null) { bindings = new RuntimeBindings(bindings, SymbolUtil.wrapClass(thisClass), thisVal); }
+    return new RuntimeBindings(bindings, vars, IterUtil.asIterable(localVars));
+  }
+  
+  /** Evaluates the condition and log message of a breakpoint reached by the current thread.  Invoked reflectively by
+    * the debugger in the thread that reached the breakpoint, so that a breakpoint that does not suspend costs no
+    * round trip to the main JVM.  Each expression is parsed and checked only once for a given method context; later
+    * hits just evaluate it.  The log message is printed to System.out, and errors are printed to System.err.
+    * @param condition  A boolean expression, or null if the breakpoint is unconditional
+    * @param logMessage  An expression to print instead of suspending the thread, or null
+    * @param thisVal  The value of {@code this} (may be null, implying this is a static context)
+    * @param thisClass  The class in whose context the expressions are evaluated
+    * @param localVars  Values of local variables
+    * @param localVarNames  Names of the local variables
+    * @param localVarClasses  Classes of the local variables, with {@code null} for primitive types
+    * @return true if the debugger should suspend the thread: the condition holds and there is no log message, or an
+    *         expression could not be evaluated
+    * @see edu.rice.cs.drjava.model.debug.jpda.JPDADebugger#EVALUATE_BREAKPOINT_SIG
+    */
+  public boolean evaluateBreakpoint(String condition, String logMessage, Object thisVal, Class<?> thisClass,
+                                    Object[] localVars, String[] localVarNames, Class<?>[] localVarClasses) {
+    try {
+      if (condition != null) {
+        Object holds = _evaluateBreakpointExpression(condition, thisVal, thisClass, localVars, localVarNames,
+                                                     localVarClasses);
+        if (! (holds instanceof Boolean)) {
+          System.err.println("Breakpoint condition '" + condition + "' is not a boolean expression");
+          return true;
+        }
+        if (! (Boolean) holds) return false;
+      }
+      if (logMessage == null) return true;
+      Object message = _evaluateBreakpointExpression(logMessage, thisVal, thisClass, localVars, localVarNames,
+                                                     localVarClasses);
+      System.out.println(TextUtil.toString(message));
+      return false;
+    }
+    catch (InterpreterException e) {
+      System.err.println("Error in breakpoint expression: " + e.getUserMessage());
+      return true;
+    }
+  }
+  
+  /** Evaluates a breakpoint expression, parsing and checking it first if it has not been used in this context.
+    * @param source  the expression
+    * @return the value of the expression
+    * @throws InterpreterException if the expression cannot be parsed, checked or evaluated
+    */
+  private Object _evaluateBreakpointExpression(String source, Object thisVal, Class<?> thisClass, Object[] localVars,
+                                               String[] localVarNames, Class<?>[] localVarClasses)
+    throws InterpreterException {
+    BreakpointExpression exp;
+    synchronized(_stateLock) {
+      List<LocalVariable> vars = _localVariables(localVars, localVarNames, localVarClasses);
+      List<Object> key = Arrays.<Object>asList(source, thisClass, thisVal == null, Arrays.asList(localVarNames),
+                                               Arrays.asList(localVarClasses));
+      exp = _breakpointExpressions.get(key);
+      if (exp == null) {
+        exp = new BreakpointExpression(source, _debugContext(thisVal, thisClass, vars), vars);
+        _breakpointExpressions.put(key, exp);
+        Set<String> names = exp.referencedNames();
+        if (! _breakpointVariables.containsKey(source)) { _breakpointVariables.put(source, names); }
+        else if (names == null) { _breakpointVariables.put(source, null); }
+        else if (_breakpointVariables.get(source) != null) { _breakpointVariables.get(source).addAll(names); }
+      }
+    }
+    return exp.evaluate(_debugBindings(thisVal, thisClass, exp.vars(), localVars));
+  }
+  
+  /** Returns the names of the local variables that a breakpoint expression refers to, so that the debugger only has
+    * to pass those variables to evaluateBreakpoint once the expression has been checked.
+    * @param source  a condition or log message previously passed to evaluateBreakpoint
+    * @return the names of the local variables the expression refers to, or null if the expression has not been checked
+    *         or has errors, in which case all visible variables must be passed
+    * @see edu.rice.cs.drjava.model.debug.jpda.JPDADebugger#GET_BREAKPOINT_VARIABLES_SIG
+    */
+  public String[] getBreakpointVariables(String source) {
+    synchronized(_stateLock) {
+      Set<String> names = _breakpointVariables.get(source);
+      return (names == null) ? null : names.toArray(new String[names.size()]);
+    }
+  }
+  
+  /** An expression parsed and checked in the context of a breakpoint, which can be evaluated repeatedly. */
+  private class BreakpointExpression {
+    private final List<LocalVariable> _vars;
+    private final Set<String> _referencedNames;
+    private final Expression _expression;
+    private final InterpreterException _error;
+    
+    /** Parses and checks source; any error is reported each time the expression is evaluated.
+      * @param source  the expression
+      * @param ctx  the context of the breakpoint
+      * @param vars  the local variables declared in ctx
+      */
+    public BreakpointExpression(String source, TypeContext ctx, List<LocalVariable> vars) {
+      _vars = vars;
+      _referencedNames = new HashSet<String>();
+      Expression expression = null;
+      InterpreterException error = null;
+      try {
+        List<Node> tree = new JavaCCParser(new StringReader(source), _interpreterOptions).parseStream();
+        if (tree.size() != 1 || ! (tree.get(0) instanceof ExpressionStatement)) {
+          SourceInfo si = tree.isEmpty() ? SourceInfo.NONE : tree.get(0).getSourceInfo();
+          throw new ParseError("'" + source + "' is not an expression", si);
+        }
+        expression = ((ExpressionStatement) tree.get(0)).getExpression();
+        new ExpressionChecker(new VariableRecordingContext(ctx, vars, _referencedNames), _interpreterOptions)
+          .check(expression);
+      }
+      catch (ParseError e) { error = new ParserException(e); }
+      catch (ExecutionError e) { error = new CheckerException(e); }
+      _expression = expression;
+      _error = error;
+    }
+    
+    /** @return the local variables declared in the context of the expression */
+    public List<LocalVariable> vars() { return _vars; }
+    
+    /** @return the names of the local variables the expression refers to, or null if the expression has errors */
+    public Set<String> referencedNames() { return (_error == null) ? _referencedNames : null; }
+    
+    /** @param bindings  the values of the local variables and of {@code this}
+      * @return the value of the expression
+      * @throws InterpreterException if the expression is erroneous or throws an exception
+      */
+    public Object evaluate(RuntimeBindings bindings) throws InterpreterException {
+      if (_error != null) throw _error;
+      try { return new ExpressionEvaluator(bindings, _interpreterOptions).value(_expression); }
+      catch (WrappedException e) {
+        if (e.getCause() instanceof InterpreterException) { throw (InterpreterException) e.getCause(); }
+        else { throw e; }
+      }
+    }
+  }
+  
+  /** Records the names of the given local variables as they are looked up while checking an expression. */
+  private static class VariableRecordingContext extends DelegatingContext {
+    private final List<LocalVariable> _vars;
+    private final Set<String> _names;
+    public VariableRecordingContext(TypeContext next, List<LocalVariable> vars, Set<String> names) {
+      super(next);
+      _vars = vars;
+      _names = names;
+    }
+    protected TypeContext duplicate(TypeContext next) { return new VariableRecordingContext(next, _vars, _names); }
+    @Override public LocalVariable getLocalVariable(String name, TypeSystem ts) {
+      LocalVariable result = super.getLocalVariable(name, ts);
+      if (result != null && _vars.contains(result)) { _names.add(result.declaredName()); }
+      return result;
+    }
+  }
+  
   /** A custom context for interpreting within the body of a defined method. */
   private static class DebugMethodContext extends DelegatingContext {
     private final boolean _isStatic;
@@ -523,16 +769,24 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     }
   }
   
+  /** Compile loops and method bodies to bytecode where possible. */
+  public void setCompileStatements(boolean compile) {
+    synchronized(_stateLock) {
+      _interpreterOptions.setCompileStatements(compile);
+    }
+  }
+  
   // ---------- JUnit methods ----------
   /** Sets up a JUnit test suite in the Interpreter JVM and finds which classes are really TestCases classes (by 
     * loading them).  Unsynchronized because it contains a remote call and does not involve mutable local state.
     * @param classNames the class names to run in a test
     * @param files the associated file
+    * @param persistent whether to reuse state from previous test runs
     * @return the class names that are actually test cases
     */
   public List<String> findTestClasses(List<String> classNames, 
-    List<File> files, CoverageMetadata coverageMetadata) throws RemoteException {
-    return _junitTestManager.findTestClasses(classNames, files, coverageMetadata);
+    List<File> files, CoverageMetadata coverageMetadata, boolean persistent) throws RemoteException {
+    return _junitTestManager.findTestClasses(classNames, files, coverageMetadata, persistent);
   }
   
   /** Runs JUnit test suite already cached in the Interpreter JVM.  Unsynchronized because it contains a remote call
@@ -547,6 +801,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     * @param didCompileFail whether or not a compile before this JUnit attempt failed
     */
   public void nonTestCase(boolean isTestAll, boolean didCompileFail) {
+    _output.flush();
     try { _mainJVM.nonTestCase(isTestAll, didCompileFail); }
     catch (RemoteException re) { error.log(re); }
   }
@@ -556,6 +811,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     * @param e the ClassFileError object describing the error on loading the file
     */
   public void classFileError(ClassFileError e) {
+    _output.flush();
     try { _mainJVM.classFileError(e); }
     catch (RemoteException re) { error.log(re); }
   }
@@ -565,6 +821,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     * @param numTests The number of tests in the suite to be run.
     */
   public void testSuiteStarted(int numTests) {
+    _output.flush();
     try { _mainJVM.testSuiteStarted(numTests); }
     catch (RemoteException re) { error.log(re); }
   }
@@ -574,6 +831,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     * @param testName The name of the test being started.
     */
   public void testStarted(String testName) {
+    _output.flush();
     try { _mainJVM.testStarted(testName); }
     catch (RemoteException re) { error.log(re); }
   }
@@ -584,6 +842,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     * @param causedError If not successful, whether the test caused an error or simply failed.
     */
   public void testEnded(String testName, boolean wasSuccessful, boolean causedError) {
+    _output.flush();
     try { _mainJVM.testEnded(testName, wasSuccessful, causedError); }
     catch (RemoteException re) { error.log(re); }
   }
@@ -593,6 +852,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     * @param errors The array of errors from all failed tests in the suite.
     */
   public void testSuiteEnded(JUnitError[] errors) {
+    _output.flush();
     try { _mainJVM.testSuiteEnded(errors); }
     catch (RemoteException re) { error.log(re); }
   }
@@ -615,6 +875,7 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
   public void addBuildDirectoryClassPath(File f) { _classPathManager.addBuildDirectoryCP(f); }
   public void addProjectFilesClassPath(File f) { _classPathManager.addProjectFilesCP(f); }
   public void addExternalFilesClassPath(File f) { _classPathManager.addExternalFilesCP(f); }
+  public void classFilesChanged() { _classLibrary.clear(); }
   public Iterable<File> getClassPath() {
     // need to make a serializable snapshot
     return IterUtil.snapshot(_classPathManager.getClassPath());
@@ -51,7 +51,7 @@ import edu.rice.cs.drjava.model.coverage.CoverageMetadata;
 public interface InterpreterJVMRemoteI extends SlaveRemote {
   
   public List<String> findTestClasses(List<String> classNames, 
-    List<File> files, CoverageMetadata coverageMetadata) throws RemoteException;
+    List<File> files, CoverageMetadata coverageMetadata, boolean persistent) throws RemoteException;
   
   public boolean runTestSuite() throws RemoteException;
 
@@ -78,6 +78,11 @@ public interface InterpreterJVMRemoteI extends SlaveRemote {
    */
   public void setRequireVariableType(boolean require) throws RemoteException;
   
+  /** @param compile true if the interpreter compiles loops and method bodies to bytecode where possible.
+   * @throws RemoteException if communication over RMI fails
+   */
+  public void setCompileStatements(boolean compile) throws RemoteException;
+  
   /** Adds a named Interpreter to the list.
    * @param name the unique name for the interpreter
    * @throws IllegalArgumentException if the name is not unique
@@ -161,4 +166,10 @@ public interface InterpreterJVMRemoteI extends SlaveRemote {
    */
   public void addExtraClassPath(File f) throws RemoteException;
   
+  /** Notifies the interpreters that class files on the class path may have been added or replaced, so that
+   * classes previously looked up (or found missing) are looked up again.
+   * @throws RemoteException if communication over RMI fails
+   */
+  public void classFilesChanged() throws RemoteException;
+  
 }
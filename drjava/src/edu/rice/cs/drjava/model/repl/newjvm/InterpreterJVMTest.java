@@ -0,0 +1,124 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model.repl.newjvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+
+import static edu.rice.cs.util.StringOps.EOL;
+
+/** Tests the evaluation of breakpoint conditions and log messages in the interpreter JVM.
+  * @version $Id$
+  */
+public final class InterpreterJVMTest extends DrJavaTestCase {
+  
+  /** The object whose method reached the breakpoint. */
+  public static class Counter {
+    public int limit = 3;
+  }
+  
+  private final ByteArrayOutputStream _out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream _err = new ByteArrayOutputStream();
+  private PrintStream _oldOut;
+  private PrintStream _oldErr;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    _oldOut = System.out;
+    _oldErr = System.err;
+    System.setOut(new PrintStream(_out, true));
+    System.setErr(new PrintStream(_err, true));
+  }
+  
+  public void tearDown() throws Exception {
+    System.setOut(_oldOut);
+    System.setErr(_oldErr);
+    super.tearDown();
+  }
+  
+  /** Evaluates a breakpoint in a method of Counter with a local int variable i. */
+  private boolean _evaluate(String condition, String logMessage, int i) {
+    return InterpreterJVM.ONLY.evaluateBreakpoint(condition, logMessage, new Counter(), Counter.class,
+                                                  new Object[] { i }, new String[] { "i" }, new Class<?>[] { null });
+  }
+  
+  public void testCondition() {
+    assertTrue("unconditional", _evaluate(null, null, 0));
+    assertFalse("condition false", _evaluate("i >= limit", null, 2));
+    assertTrue("condition true", _evaluate("i >= limit", null, 3));
+    assertFalse("condition false again", _evaluate("i >= limit", null, 1));
+    assertEquals("nothing printed", "", _out.toString() + _err.toString());
+  }
+  
+  public void testLogMessage() {
+    assertFalse("log message", _evaluate(null, "\"i = \" + i", 5));
+    assertFalse("condition false", _evaluate("i > 5", "\"i = \" + i", 5));
+    assertFalse("condition true", _evaluate("i > 5", "\"i = \" + i", 6));
+    assertEquals("printed", "i = 5" + EOL + "i = 6" + EOL, _out.toString());
+  }
+  
+  public void testErrors() {
+    assertTrue("syntax error", _evaluate("i >", null, 0));
+    assertTrue("unknown name", _evaluate("j > 0", null, 0));
+    assertTrue("not boolean", _evaluate("i + 1", null, 0));
+    assertTrue("exception", _evaluate("i / 0 > 1", null, 0));
+    assertEquals("nothing printed to System.out", "", _out.toString());
+    assertTrue("errors printed to System.err", _err.toString().contains("Error in breakpoint expression"));
+  }
+  
+  public void testBreakpointVariables() {
+    String condition = "i + j > limit";
+    assertNull("not checked yet", InterpreterJVM.ONLY.getBreakpointVariables(condition));
+    Object[] values = new Object[] { 2, 1, "unused" };
+    String[] names = new String[] { "i", "j", "k" };
+    Class<?>[] classes = new Class<?>[] { null, null, String.class };
+    assertFalse("all variables", InterpreterJVM.ONLY.evaluateBreakpoint(condition, null, new Counter(), Counter.class,
+                                                                        values, names, classes));
+    String[] referenced = InterpreterJVM.ONLY.getBreakpointVariables(condition);
+    Arrays.sort(referenced);
+    assertEquals("referenced variables", Arrays.asList("i", "j"), Arrays.asList(referenced));
+    assertTrue("referenced variables only", 
+               InterpreterJVM.ONLY.evaluateBreakpoint(condition, null, new Counter(), Counter.class,
+                                                      new Object[] { 2, 2 }, new String[] { "i", "j" }, 
+                                                      new Class<?>[2]));
+    
+    assertTrue("error", _evaluate("i > undefined", null, 0));
+    assertNull("erroneous expression", InterpreterJVM.ONLY.getBreakpointVariables("i > undefined"));
+  }
+}
@@ -209,23 +209,18 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
   
   // TODO: export other objects, such as the interactionsModel, thus avoiding the need to delegate here?
   
-  /** Forwards a call to System.err from InterpreterJVM to the local InteractionsModel.
-    * @param s String that was printed in the other JVM
+  /** Forwards a batch of output to System.out and System.err from InterpreterJVM to the local InteractionsModel.
+    * Blocks while the InteractionsModel has too much output waiting for the event thread, which slows down the other
+    * JVM instead of flooding this one.
+    * @param texts the strings that were printed in the other JVM, in order
+    * @param toErr whether each string was printed to System.err rather than System.out
     */
-  public void systemErrPrint(String s) {
+  public void systemPrint(String[] texts, boolean[] toErr) {
     debug.logStart();
-    _interactionsModel.replSystemErrPrint(s);
-//    Utilities.clearEventQueue();               // wait for event queue task to complete
-    debug.logEnd();
-  }
-  
-  /** Forwards a call to System.out from InterpreterJVM to the local InteractionsModel.
-    * @param s String that was printed in the other JVM
-    */
-  public void systemOutPrint(String s) {
-    debug.logStart();
-    _interactionsModel.replSystemOutPrint(s); 
-//    Utilities.clearEventQueue();                // wait for event queue task to complete
+    for (int i = 0; i < texts.length; i++) {
+      if (toErr[i]) _interactionsModel.replSystemErrPrint(texts[i]);
+      else _interactionsModel.replSystemOutPrint(texts[i]);
+    }
     debug.logEnd();
   }
   
@@ -438,6 +433,16 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
     catch (RemoteException e) { _handleRemoteException(e); return false; }
   }
   
+  /** Tells the interpreter that class files may have been added or replaced, discarding its cached class lookups.
+    * @return {@code true} if the notification was successfully passed to the remote JVM.
+    */
+  public boolean classFilesChanged() {
+    InterpreterJVMRemoteI remote = _state.value().interpreter(false);
+    if (remote == null) { return false; }
+    try { remote.classFilesChanged(); return true; }
+    catch (RemoteException e) { _handleRemoteException(e); return false; }
+  }
+  
   /** Returns the current class path of the interpreter as a list of unique entries.  
    * The result is "none" if the remote JVM is unavailable or if an exception occurs. 
    * Blocks until the interpreter is connected.
@@ -466,13 +471,14 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
    * @param classNames the class names to run in a test
    * @param files the associated file
    * @param coverageMetadata metadata used to generate a coverage report
+   * @param persistent whether to reuse the class loaders and test classification of previous runs
    * @return the class names that are actually test cases
    */
   public Option<List<String>> findTestClasses(List<String> classNames, 
-    List<File> files, CoverageMetadata coverageMetadata) {
+    List<File> files, CoverageMetadata coverageMetadata, boolean persistent) {
     InterpreterJVMRemoteI remote = _state.value().interpreter(false);
     if (remote == null) { return Option.none(); }
-    try { return Option.some(remote.findTestClasses(classNames, files, coverageMetadata)); } 
+    try { return Option.some(remote.findTestClasses(classNames, files, coverageMetadata, persistent)); } 
     catch (RemoteException e) { _handleRemoteException(e); return Option.none(); }
   }
   
@@ -595,6 +601,18 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
     catch (RemoteException e) { _handleRemoteException(e); return false; }
   }
   
+  /** Compile loops and method bodies to bytecode where possible. 
+   * Blocks until the interpreter is connected.
+   * @param compile value to be set
+   * @return {@code false} if the remote JVM is unavailable or if an exception occurs; true otherwise.
+   */
+  public boolean setCompileStatements(boolean compile) {
+    InterpreterJVMRemoteI remote = _state.value().interpreter(false);
+    if (remote == null) { return false; }
+    try { remote.setCompileStatements(compile); return true; }
+    catch (RemoteException e) { _handleRemoteException(e); return false; }
+  }
+  
   /*
    * === Helper methods ===
    */
@@ -897,6 +915,10 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
         try { i.setRequireVariableType(requireVariableType); }
         catch (RemoteException re) { _handleRemoteException(re); }
         
+        Boolean compileStatements = DrJava.getConfig().getSetting(OptionConstants.DYNAMICJAVA_COMPILE_STATEMENTS);
+        try { i.setCompileStatements(compileStatements); }
+        catch (RemoteException re) { _handleRemoteException(re); }
+        
         // Note that _workingDir isn't guaranteed to be the dir at the time startup began.  Is that a problem?
         // (Is the user ever going to see a working dir message that doesn't match the actual setting?)
         _interactionsModel.interpreterReady(_workingDir);
@@ -48,17 +48,12 @@ import edu.rice.cs.util.classloader.ClassFileError;
  */
 public interface MainJVMRemoteI extends MasterRemote {
   
-  /** Forwards a call to System.err from InterpreterJVM to the MainJVM for output to the user.
-    * @param s String that was printed in the other JVM
+  /** Forwards a batch of output to System.out and System.err from InterpreterJVM to the MainJVM for output to the user.
+    * @param texts the strings that were printed in the other JVM, in order
+    * @param toErr whether each string was printed to System.err rather than System.out
     * @throws RemoteException if remote communication fails
     */
-  public void systemErrPrint(String s) throws RemoteException;
-  
-  /** Forwards a call to System.out from InterpreterJVM to the MainJVM for output to the user.
-    * @param s String that was printed in the other JVM
-    * @throws RemoteException if remote communication fails
-    */
-  public void systemOutPrint(String s) throws RemoteException;
+  public void systemPrint(String[] texts, boolean[] toErr) throws RemoteException;
   
   /** Asks the main jvm for input from the console.
    * @return the console input
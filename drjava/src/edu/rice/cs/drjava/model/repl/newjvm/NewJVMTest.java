@@ -97,6 +97,22 @@ public final class NewJVMTest extends DrJavaTestCase {
     debug.logEnd();
   }
 
+  /** Output printed in many small pieces must arrive completely before the interaction ends. */
+  public void testBatchedPrintln() throws Throwable {
+    debug.logStart();
+    _log.log("NewJVMTest.testBatchedPrintln executing");
+    
+    _jvm.resetFlags();
+    assertTrue(_jvm.interpret("for (int i = 0; i < 2000; i++) { System.out.print(i % 10); System.err.print('e'); }"));
+    assertEquals("void return flag", true, _jvm.voidReturnFlag());
+    String out = _jvm.outBuf();
+    assertEquals("system out length", 2000, out.length());
+    assertTrue("system out order", out.startsWith("0123456789012"));
+    assertEquals("system err length", 2000, _jvm.errBuf().length());
+    
+    debug.logEnd();
+  }
+
   public void testReturnConstant() throws Throwable {
     debug.logStart();
    _log.log("NewJVMTest.testReturnConstant executing");
@@ -268,8 +284,12 @@ public final class NewJVMTest extends DrJavaTestCase {
       return _voidReturnFlag;
     }
 
-    public void systemErrPrint(String s) { _errBuf += s; }
-    public void systemOutPrint(String s) { _outBuf += s; }
+    public void systemPrint(String[] texts, boolean[] toErr) {
+      for (int i = 0; i < texts.length; i++) {
+        if (toErr[i]) _errBuf += texts[i];
+        else _outBuf += texts[i];
+      }
+    }
 
     private class TestResultHandler implements InterpretResult.Visitor<Void> {
       public Void forNoValue() {
@@ -0,0 +1,179 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.repl.newjvm;
+
+import java.util.ArrayList;
+
+import edu.rice.cs.util.Log;
+
+/** Collects the text written to System.out and System.err in the interpreter JVM and sends it to the main JVM in 
+  * batches, so that a program printing many short strings does not make one remote call per string.  Adjacent writes
+  * to the same stream are coalesced into one chunk, and a batch is an ordered sequence of chunks, so the interleaving
+  * of System.out and System.err is preserved.
+  * <p>A daemon thread sends the pending text as soon as it exceeds FLUSH_SIZE characters, or FLUSH_DELAY milliseconds
+  * after the oldest pending write.  Writers block while CAPACITY characters are pending, so a program that prints 
+  * faster than the main JVM can display the text is slowed down rather than filling the heap.  {@link #flush} sends 
+  * the pending text immediately; the interpreter JVM calls it before every reply that the main JVM might display 
+  * after the output (the end of an interaction, a request for console input, JUnit events).</p>
+  * <p>Batches are sent one at a time and in order.  A failed send is logged and its text is dropped, since it means 
+  * that the main JVM cannot be reached.</p>
+  * @version $Id$
+  */
+public abstract class OutputBatcher {
+  
+  /** Number of pending characters that makes the flusher send a batch without waiting for FLUSH_DELAY. */
+  public static final int FLUSH_SIZE = 8 * 1024;
+  
+  /** Number of pending characters at which writers block until a batch has been sent. */
+  public static final int CAPACITY = 64 * 1024;
+  
+  /** Milliseconds that the oldest pending write waits before the flusher sends it. */
+  public static final int FLUSH_DELAY = 20;
+  
+  private static final Log _log = new Log("OutputBatcher.txt", false);
+  
+  /** Guards the pending chunks and the flusher state. */
+  private final Object _lock = new Object();
+  
+  /** Held while taking and sending a batch, so that batches arrive in the order they were taken. */
+  private final Object _sendLock = new Object();
+  
+  /** The pending chunks in order and, for each, whether it was written to System.err.  Guarded by _lock. */
+  private final ArrayList<StringBuilder> _chunks = new ArrayList<StringBuilder>();
+  private final ArrayList<Boolean> _toErr = new ArrayList<Boolean>();
+  
+  /** The number of characters in _chunks.  Guarded by _lock. */
+  private int _pendingChars = 0;
+  
+  /** The time of the oldest pending write.  Guarded by _lock. */
+  private long _oldestWrite = 0;
+  
+  /** The thread that sends batches after FLUSH_DELAY, or null if it has not been started.  Guarded by _lock. */
+  private Thread _flusher = null;
+  
+  /** Whether the flusher is started by the first write. */
+  private final boolean _timed;
+  
+  public OutputBatcher() { this(true); }
+  
+  /** @param timed false if text is only sent by {@link #flush}, which lets tests control the batches; writers 
+    *        then block at CAPACITY until another thread flushes
+    */
+  OutputBatcher(boolean timed) { _timed = timed; }
+  
+  /** Sends a batch to its destination.
+    * @param texts the chunks of the batch, in the order they were written
+    * @param toErr whether each chunk was written to System.err rather than System.out
+    * @throws Exception if the batch cannot be delivered
+    */
+  protected abstract void send(String[] texts, boolean[] toErr) throws Exception;
+  
+  /** Adds text to the pending output, blocking while CAPACITY characters are pending.
+    * @param s the text that was written
+    * @param toErr true if s was written to System.err, false if to System.out
+    */
+  public void write(String s, boolean toErr) {
+    if (s.length() == 0) return;
+    synchronized(_lock) {
+      boolean interrupted = false;
+      while (_pendingChars >= CAPACITY && Thread.currentThread() != _flusher) {
+        try { _lock.wait(); }
+        catch (InterruptedException e) { interrupted = true; }  // the text must still be written
+      }
+      if (interrupted) Thread.currentThread().interrupt();
+      
+      int last = _chunks.size() - 1;
+      if (last >= 0 && _toErr.get(last) == toErr) _chunks.get(last).append(s);
+      else {
+        _chunks.add(new StringBuilder(s));
+        _toErr.add(toErr);
+      }
+      if (_pendingChars == 0) _oldestWrite = System.currentTimeMillis();
+      _pendingChars += s.length();
+      
+      if (_flusher == null && _timed) _startFlusher();
+      _lock.notifyAll();
+    }
+  }
+  
+  /** Sends the pending text now, blocking until it has been delivered. */
+  public void flush() {
+    synchronized(_sendLock) {
+      String[] texts;
+      boolean[] toErr;
+      synchronized(_lock) {
+        if (_pendingChars == 0) return;
+        texts = new String[_chunks.size()];
+        toErr = new boolean[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+          texts[i] = _chunks.get(i).toString();
+          toErr[i] = _toErr.get(i);
+        }
+        _chunks.clear();
+        _toErr.clear();
+        _pendingChars = 0;
+        _lock.notifyAll();  // wake writers blocked on CAPACITY
+      }
+      try { send(texts, toErr); }
+      catch (Exception e) { _log.log("Dropping " + texts.length + " chunks of output", e); }
+    }
+  }
+  
+  /** Starts the daemon thread that sends batches.  Assumes _lock is held. */
+  private void _startFlusher() {
+    _flusher = new Thread("Output Batcher") {
+      public void run() {
+        while (true) {
+          synchronized(_lock) {
+            try {
+              while (_pendingChars == 0) _lock.wait();
+              long wait;
+              while (_pendingChars < FLUSH_SIZE && 
+                     (wait = _oldestWrite + FLUSH_DELAY - System.currentTimeMillis()) > 0) {
+                _lock.wait(wait);
+              }
+            }
+            catch (InterruptedException e) { /* send what is pending */ }
+          }
+          flush();
+        }
+      }
+    };
+    _flusher.setDaemon(true);
+    _flusher.start();
+  }
+}
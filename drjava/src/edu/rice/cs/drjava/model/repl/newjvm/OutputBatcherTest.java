@@ -0,0 +1,103 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2016, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.repl.newjvm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+
+/** Tests the coalescing and ordering of output by OutputBatcher.
+  * @version $Id$
+  */
+public final class OutputBatcherTest extends DrJavaTestCase {
+  
+  /** The chunks received by the batcher under test, rendered as "out:text" or "err:text". */
+  private final List<String> _received = new ArrayList<String>();
+  private int _batches = 0;
+  
+  private final OutputBatcher _batcher = new TestBatcher(true);
+  
+  /** Records the batches it is asked to send. */
+  private class TestBatcher extends OutputBatcher {
+    TestBatcher(boolean timed) { super(timed); }
+    protected void send(String[] texts, boolean[] toErr) {
+      synchronized(_received) {
+        _batches++;
+        for (int i = 0; i < texts.length; i++) _received.add((toErr[i] ? "err:" : "out:") + texts[i]);
+      }
+    }
+  }
+  
+  public void testCoalescing() {
+    // without the flusher, nothing is sent before the flush, however slowly this test runs
+    OutputBatcher batcher = new TestBatcher(false);
+    batcher.write("a", false);
+    batcher.write("b", false);
+    batcher.write("c", true);
+    batcher.write("", false);
+    batcher.write("d", false);
+    synchronized(_received) { assertEquals("nothing sent before the flush", 0, _batches); }
+    batcher.flush();
+    synchronized(_received) {
+      assertEquals("one batch", 1, _batches);
+      assertEquals("coalesced chunks", "[out:ab, err:c, out:d]", _received.toString());
+    }
+    batcher.flush();
+    synchronized(_received) { assertEquals("nothing more to send", 1, _batches); }
+  }
+  
+  public void testDelayedFlush() throws InterruptedException {
+    _batcher.write("late", false);
+    for (int i = 0; i < 100; i++) {
+      synchronized(_received) { if (_batches > 0) break; }
+      Thread.sleep(OutputBatcher.FLUSH_DELAY);
+    }
+    synchronized(_received) { assertEquals("sent by the flusher", "[out:late]", _received.toString()); }
+  }
+  
+  public void testBackPressure() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) sb.append('x');
+    String s = sb.toString();
+    for (int i = 0; i < 4 * OutputBatcher.CAPACITY / s.length(); i++) _batcher.write(s, false);
+    _batcher.flush();
+    int total = 0;
+    synchronized(_received) { for (String r: _received) total += r.length() - "out:".length(); }
+    assertEquals("all output delivered", 4 * OutputBatcher.CAPACITY / s.length() * s.length(), total);
+  }
+}
@@ -505,6 +505,9 @@ public class ProjectFileParser extends ProjectFileParserFacade {
           public File getFile() { return f; }
           public int getLineNumber() { return lineNumber; }
           public boolean isEnabled() { return isEnabled; }
+          public String getCondition() { return null; }
+          public String getLogMessage() { return null; }
+          public int getHitCount() { return 0; }
         };
       }
       else {
@@ -513,6 +516,9 @@ public class ProjectFileParser extends ProjectFileParserFacade {
           public File getFile() { return f; }
           public int getLineNumber() { return lineNumber; }
           public boolean isEnabled() { return isEnabled; }
+          public String getCondition() { return null; }
+          public String getLogMessage() { return null; }
+          public int getHitCount() { return 0; }
         };
       }
     }
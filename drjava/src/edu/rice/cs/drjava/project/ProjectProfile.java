@@ -460,6 +460,9 @@ public class ProjectProfile implements ProjectFileIR {
         xc.set(".file", path, f, true);
         xc.set(".line", String.valueOf(bp.getLineNumber()), f, true);
         xc.set(".enabled", String.valueOf(bp.isEnabled()), f, true);
+        if (bp.getCondition() != null) xc.set(".condition", bp.getCondition(), f, true);
+        if (bp.getLogMessage() != null) xc.set(".log", bp.getLogMessage(), f, true);
+        if (bp.getHitCount() > 0) xc.set(".hitcount", String.valueOf(bp.getHitCount()), f, true);
       }
     }
     xc.createNode("drjava/project/watches");
@@ -330,6 +330,9 @@ public class XMLProjectFileParser extends ProjectFileParserFacade {
       String name = _xc.get(".file", n);
       final int lnr = _xc.getInt(".line", n);
       final boolean enabled = _xc.getBool(".enabled", n);
+      final String condition = _xc.get(".condition", n, null);
+      final String logMessage = _xc.get(".log", n, null);
+      final int hitCount = _xc.getInt(".hitcount", n, 0);
       DebugBreakpointData dbd;
       if ((_srcFileBase == null) || (new File(name).isAbsolute())) {
         final File f = new File(name);
@@ -337,6 +340,9 @@ public class XMLProjectFileParser extends ProjectFileParserFacade {
           public File getFile() { return f; }
           public int getLineNumber() { return lnr; }
           public boolean isEnabled() { return enabled; }
+          public String getCondition() { return condition; }
+          public String getLogMessage() { return logMessage; }
+          public int getHitCount() { return hitCount; }
         };
       }
       else {
@@ -345,6 +351,9 @@ public class XMLProjectFileParser extends ProjectFileParserFacade {
           public File getFile() { return f; }
           public int getLineNumber() { return lnr; }
           public boolean isEnabled() { return enabled; }
+          public String getCondition() { return condition; }
+          public String getLogMessage() { return logMessage; }
+          public int getHitCount() { return hitCount; }
         };
       }
       bpList.add(dbd);
@@ -115,7 +115,8 @@ public class XMLProjectFileParserTest extends DrJavaTestCase {
       "    <breakpoints>\n" + 
 
       "      <breakpoint file=\"edu/rice/cs/drjava/DrJava.java\" line=\"50\" enabled=\"true\"/>\n" + 
-      "      <breakpoint file=\"edu/rice/cs/drjava/DrJava.java\" line=\"55\" enabled=\"true\"/>\n" + 
+      "      <breakpoint file=\"edu/rice/cs/drjava/DrJava.java\" line=\"55\" enabled=\"true\" " +
+      "condition=\"i &gt; 3\" log=\"&quot;i = &quot; + i\" hitcount=\"2\"/>\n" + 
       "      <breakpoint file=\"edu/rice/cs/drjava/DrJava.java\" line=\"53\" enabled=\"true\"/>\n" + 
 
       "    </breakpoints>\n" + 
@@ -166,5 +167,11 @@ public class XMLProjectFileParserTest extends DrJavaTestCase {
                  IterUtil.first(pfir.getClassPaths()).getCanonicalPath());
     assertEquals("main-class name", "some.main.ClassName", 
                  pfir.getMainClass());
+    assertEquals("number of breakpoints", 3, pfir.getBreakpoints().length);
+    assertEquals("first breakpoint condition", null, pfir.getBreakpoints()[0].getCondition());
+    assertEquals("first breakpoint hit count", 0, pfir.getBreakpoints()[0].getHitCount());
+    assertEquals("second breakpoint condition", "i > 3", pfir.getBreakpoints()[1].getCondition());
+    assertEquals("second breakpoint log message", "\"i = \" + i", pfir.getBreakpoints()[1].getLogMessage());
+    assertEquals("second breakpoint hit count", 2, pfir.getBreakpoints()[1].getHitCount());
   }
 }
@@ -175,6 +175,10 @@ public class BreakpointsPanel extends RegionsTreePanel<Breakpoint> {
           public void actionPerformed(ActionEvent e) {
             for (Breakpoint bp: getSelectedRegions()) getRegionManager() .removeRegion(bp);
           }
+        },
+        
+        new AbstractAction("Properties...") {
+          public void actionPerformed(ActionEvent e) { editBreakpointProperties(); }
         }
     };
     return acts;
@@ -203,6 +207,46 @@ public class BreakpointsPanel extends RegionsTreePanel<Breakpoint> {
   }
   
   
+  /** Edit the condition, log message and hit count of the selected breakpoints. */
+  protected void editBreakpointProperties() {
+    final ArrayList<Breakpoint> bps = getSelectedRegions();
+    if (bps.size() == 0) return;
+    Breakpoint first = bps.get(0);
+    JTextField conditionField = new JTextField(first.getCondition() == null ? "" : first.getCondition(), 30);
+    JTextField logMessageField = new JTextField(first.getLogMessage() == null ? "" : first.getLogMessage(), 30);
+    JTextField hitCountField = new JTextField(first.getHitCount() == 0 ? "" : String.valueOf(first.getHitCount()), 5);
+    Object[] components = new Object[] {
+      "Suspend only if this condition is true:", conditionField,
+      "Print the value of this expression instead of suspending:", logMessageField,
+      "Take effect only once, on this hit:", hitCountField
+    };
+    int rc = JOptionPane.showConfirmDialog(_frame, components, "Breakpoint Properties", JOptionPane.OK_CANCEL_OPTION,
+                                           JOptionPane.PLAIN_MESSAGE);
+    if (rc != JOptionPane.OK_OPTION) return;
+    
+    final String condition = conditionField.getText();
+    final String logMessage = logMessageField.getText();
+    int count = 0;
+    if (hitCountField.getText().trim().length() > 0) {
+      try { count = Integer.parseInt(hitCountField.getText().trim()); }
+      catch (NumberFormatException nfe) { count = -1; }
+      if (count <= 0) {
+        JOptionPane.showMessageDialog(_frame, "The hit count must be a positive number.", "Breakpoint Properties",
+                                      JOptionPane.ERROR_MESSAGE);
+        return;
+      }
+    }
+    final int hitCount = count;
+    for (Breakpoint bp: bps) {
+      getRegionManager().changeRegion(bp, new Lambda<Breakpoint,Object>() {
+        public Object value(Breakpoint bp) {
+          bp.setProperties(condition, logMessage, hitCount);
+          return null;
+        }
+      });
+    }
+  }
+  
   /** Factory method to create user objects put in the tree.
     *  If subclasses extend RegionTreeUserObj, they need to override this method. */
   protected RegionTreeUserObj<Breakpoint> makeRegionTreeUserObj(Breakpoint bp) {
@@ -217,6 +261,9 @@ public class BreakpointsPanel extends RegionsTreePanel<Breakpoint> {
       sb.append(lineNumber());
       try {
         if (!_region.isEnabled()) { sb.append(" (disabled)"); }
+        if (_region.getCondition() != null) { sb.append(" [if ").append(_region.getCondition()).append("]"); }
+        if (_region.getLogMessage() != null) { sb.append(" [log ").append(_region.getLogMessage()).append("]"); }
+        if (_region.getHitCount() > 0) { sb.append(" [hit ").append(_region.getHitCount()).append("]"); }
         sb.append(": ");
         int length = Math.min(120, _region.getEndOffset()-_region.getStartOffset());
         sb.append(_region.getDocument().getText(_region.getStartOffset(), length).trim());
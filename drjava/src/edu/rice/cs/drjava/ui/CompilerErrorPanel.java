@@ -182,6 +182,7 @@ public class CompilerErrorPanel extends ErrorPanel {
         }
         doc.append(msgBuffer.toString(), NORMAL_ATTRIBUTES);
       }
+      doc.append(_skippedFilesMessage(), NORMAL_ATTRIBUTES);
 
       String failureName = "error";
       if (getErrorModel().hasOnlyWarnings()) failureName = "warning";
@@ -219,6 +220,8 @@ public class CompilerErrorPanel extends ErrorPanel {
           }
           message = msgBuffer.toString();
         }
+        final String skipped = _skippedFilesMessage();
+        if (skipped.length() > 0) message += (message.endsWith("\n") ? "" : "\n") + skipped;
       }
       else if (!getModel().getCompilerModel().getActiveCompiler().isAvailable())
         message = "No compiler available.";
@@ -230,6 +233,14 @@ public class CompilerErrorPanel extends ErrorPanel {
       _updateScrollButtons();
       selectNothing();
     }
+    
+    /** @return a note on the files that incremental compilation found up to date, or "" if there were none */
+    private String _skippedFilesMessage() {
+      final int n = getModel().getCompilerModel().getSkippedFiles().size();
+      if (n == 0) return "";
+      return n + " up-to-date file" + (n == 1 ? " was" : "s were") + " not recompiled.\n";
+    }
+    
     public String getErrorDocumentTitle() { return "Compiler Errors"; }
   }
 }
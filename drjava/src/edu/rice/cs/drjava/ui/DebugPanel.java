@@ -37,6 +37,7 @@
 package edu.rice.cs.drjava.ui;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.*;
 import javax.swing.table.*;
@@ -50,6 +51,7 @@ import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 import edu.rice.cs.drjava.config.*;
 import edu.rice.cs.util.swing.Utilities;
 import edu.rice.cs.util.swing.RightClickMouseAdapter;
+import edu.rice.cs.plt.lambda.Runnable1;
 
 /** * Panel for displaying the debugger input and output in MainFrame.  This
  * class is a swing view class and hence should only be accessed from the 
@@ -88,8 +90,12 @@ public class DebugPanel extends JPanel implements OptionConstants {
   private JLabel _statusBar;
 
   private ArrayList<DebugWatchData> _watches;
-  private ArrayList<DebugThreadData> _threads;
-  private ArrayList<DebugStackData> _stackFrames;
+  private List<DebugThreadData> _threads;
+  /** The frames of the current thread; a page of frames is only requested once one of its rows is displayed. */
+  private final PagedStackFrames _stackFrames;
+  
+  /** Incremented by updateData; threads requested by earlier updates are dropped when they arrive. */
+  private int _dataVersion = 0;
   
   /* The following field is commented out because it was never written (and hence always null). */
 //  private DefaultTreeCellRenderer dtcr;
@@ -109,7 +115,12 @@ public class DebugPanel extends JPanel implements OptionConstants {
 
     _watches = new ArrayList<DebugWatchData>();
     _threads = new ArrayList<DebugThreadData>();
-    _stackFrames = new ArrayList<DebugStackData>();
+    _stackFrames = new PagedStackFrames(_debugger, new PagedStackFrames.Listener() {
+      public void framesReplaced() { ((AbstractTableModel)_stackTable.getModel()).fireTableDataChanged(); }
+      public void framesUpdated(int first, int last) {
+        ((AbstractTableModel)_stackTable.getModel()).fireTableRowsUpdated(first, last);
+      }
+    });
     _leftPane = new JTabbedPane();
     _rightPane = new JTabbedPane();
 
@@ -149,17 +160,25 @@ public class DebugPanel extends JPanel implements OptionConstants {
     new BackgroundColorListener(c);
   }
 
-  /** Causes all display tables to update their information from the debug manager. */
+  /** Causes all display tables to update their information from the debug manager.  The threads and the frames are
+    * obtained asynchronously; the tables keep showing the previous data until they arrive.
+    */
   public void updateData() {
     assert EventQueue.isDispatchThread();
+    final int version = ++_dataVersion;
     if (_debugger.isReady()) {
       try {
         _watches = _debugger.getWatches();
         
-        if (_debugger.isCurrentThreadSuspended())  _stackFrames = _debugger.getCurrentStackFrameData();
-        else  _stackFrames = new ArrayList<DebugStackData>();
+        _stackFrames.update(_debugger.isCurrentThreadSuspended());
         
-        _threads = _debugger.getCurrentThreadData();
+        _debugger.getCurrentThreadData(new Runnable1<List<DebugThreadData>>() {
+          public void run(List<DebugThreadData> threads) {
+            if (version != _dataVersion) return;
+            _threads = threads;
+            ((AbstractTableModel)_threadTable.getModel()).fireTableDataChanged();
+          }
+        });
       }
       catch (DebugException de) {
         // Thrown if
@@ -170,7 +189,7 @@ public class DebugPanel extends JPanel implements OptionConstants {
       // Clean up if debugger dies
       _watches = new ArrayList<DebugWatchData>();
       _threads = new ArrayList<DebugThreadData>();
-      _stackFrames = new ArrayList<DebugStackData>();
+      _stackFrames.clear();
     }
 
     ((AbstractTableModel)_watchTable.getModel()).fireTableDataChanged();
@@ -354,13 +373,17 @@ public class DebugPanel extends JPanel implements OptionConstants {
     public String getColumnName(int col) { return _columnNames[col]; }
     
     public int getRowCount() {
-      if (_stackFrames == null)  return 0;
       return _stackFrames.size();
     }
     public int getColumnCount() { return _columnNames.length; }
 
-    public Object getValueAt(int row, int col) {
+    public Object getValueAt(final int row, int col) {
       DebugStackData frame = _stackFrames.get(row);
+      if (frame == null) {
+        // Request the page containing this row after painting is done
+        EventQueue.invokeLater(new Runnable() { public void run() { _stackFrames.requestFrame(row); } });
+        return null;
+      }
       switch(col) {
         case 0: return frame.getMethod();
         case 1: return Integer.valueOf(frame.getLine());
@@ -542,7 +565,8 @@ public class DebugPanel extends JPanel implements OptionConstants {
     _stackPopupMenu.add(new AbstractAction("Scroll to Source") {
       public void actionPerformed(ActionEvent e) {
         try {
-          _debugger.scrollToSource(getSelectedStackItem());
+          DebugStackData frame = getSelectedStackItem();
+          if (frame != null) _debugger.scrollToSource(frame);
         }
         catch (DebugException de) { MainFrameStatics.showDebugError(_frame, de); }
       }
@@ -590,7 +614,7 @@ public class DebugPanel extends JPanel implements OptionConstants {
   }
 
   /** Gets the DebugStackData that is currently selected in the stack table
-   *  @return the highlighted stack element
+   *  @return the highlighted stack element, or null if it has not been obtained from the debugger yet
    */
   public DebugStackData getSelectedStackItem() {
     return _stackFrames.get(_stackTable.getSelectedRow());
@@ -640,6 +664,10 @@ public class DebugPanel extends JPanel implements OptionConstants {
     public void breakpointReached(final Breakpoint bp) { }
     public void watchSet(final DebugWatchData w) { }
     public void watchRemoved(final DebugWatchData w) { }
+    
+    /** Called when new values have been obtained for the watches.  Only runs in event thread. */
+    public void watchesUpdated() { ((AbstractTableModel)_watchTable.getModel()).fireTableDataChanged(); }
+    
     public void stepRequested() { }
     public void regionAdded(Breakpoint r) { }
     public void regionChanged(Breakpoint r) { }
@@ -720,7 +748,8 @@ public class DebugPanel extends JPanel implements OptionConstants {
 
     protected void _action() {
       try {
-        _debugger.scrollToSource(_stackFrames.get(_lastRow));
+        DebugStackData frame = _stackFrames.get(_lastRow);
+        if (frame != null) _debugger.scrollToSource(frame);
       }
       catch (DebugException de) {
         MainFrameStatics.showDebugError(_frame, de);
@@ -53,6 +53,7 @@ import edu.rice.cs.drjava.model.SingleDisplayModel;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 import edu.rice.cs.drjava.model.FindReplaceMachine;
 import edu.rice.cs.drjava.model.FindResult;
+import edu.rice.cs.drjava.model.ParallelFinder;
 import edu.rice.cs.drjava.model.ClipboardHistoryModel;
 import edu.rice.cs.drjava.model.MovingDocumentRegion;
 import edu.rice.cs.drjava.model.RegionManager;
@@ -112,6 +113,10 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
   
   private volatile boolean _isFindReplaceActive = false;
   
+  /** True while a Replace All over all documents waits for the scan of the document files.  The machine must not be
+    * used until the replacements have been made. */
+  private volatile boolean _isReplacingAll = false;
+  
   public boolean isFindReplaceActive() { return _isFindReplaceActive; }
   
   /** Listens for changes to the cursor position in order to reset the start position */
@@ -555,6 +560,7 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
 
   /** Performs "find all" command. */
   private void _findAll() {
+    if (_isReplacingAll) return;
     // The following line was moved to _findAll(...) so it is executed by FindResultsPanel._findAgain
 //    _machine.setSearchBackwards(false);
     
@@ -604,6 +610,7 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
                       final boolean wholeWord, final boolean noComments, final boolean noTestCases, final OpenDefinitionsDocument startDoc, 
                       final RegionManager<MovingDocumentRegion> rm, final MovingDocumentRegion region, final FindResultsPanel panel) {
     
+    if (_isReplacingAll) return;
     _machine.setSearchBackwards(false);
 
     final int searchLen = searchStr.length();
@@ -639,20 +646,27 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
     
     _frame.setStatusMessage("Finding All");
     repaint();
-        
-    _frame.hourglassOn();
+    
+    ParallelFinder finder = null;
     int count = 0;
-    try {
-      /* Accumulate all occurrences of searchStr in results. */
-      count = _machine.processAll(new Runnable1<FindResult>() { public void run(FindResult fr) { results.add(fr); }}, region);
+    if (searchAll) {
+      /* Search all documents in the background; the listener adds the regions as the matches in each document arrive. */
+      finder = _machine.processAllInBackground(new FindAllListener(searchLen, rm, panel));
     }
-    finally { 
-      _frame.hourglassOff(); 
-      
-      // extracted from run() above because findAll occasionally left active document in inconsistent state 
+    else {
+      _frame.hourglassOn();
+      try {
+        /* Accumulate all occurrences of searchStr in results. */
+        count = _machine.processAll(new Runnable1<FindResult>() { public void run(FindResult fr) { results.add(fr); }}, region);
+      }
+      finally { 
+        _frame.hourglassOff(); 
+        
+        // extracted from run() above because findAll occasionally left active document in inconsistent state 
 //      _model.setActiveDocument(startDoc);
-      _model.refreshActiveDocument();
-    } 
+        _model.refreshActiveDocument();
+      } 
+    }
 //    _frame.clearStatusMessage(); 
     /* Restore state of FindReplaceMachine */
 //    System.out.println("Restoring FindReplaceMachine");
@@ -668,6 +682,11 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
     _machine.setIgnoreTestCases(oldNoTestCases);
     _machine.setPosition(oldPosition);
     
+    if (finder != null) {
+      panel.setSearch(finder);
+      return;
+    }
+    
 //    System.out.println("Adding found regions to corresponding documents");
     for (FindResult fr: results) {
       
@@ -700,8 +719,51 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
     _frame.setStatusMessage("Found " + count + " occurrence" + ((count == 1) ? "" : "s") + ".");
   }
   
+  /** Receives the results of a "find all" search through all documents running in the background. */
+  private class FindAllListener implements ParallelFinder.Listener {
+    private final int _searchLen;
+    private final RegionManager<MovingDocumentRegion> _rm;
+    private final FindResultsPanel _panel;
+    private volatile int _found = 0;
+    
+    FindAllListener(int searchLen, RegionManager<MovingDocumentRegion> rm, FindResultsPanel panel) {
+      _searchLen = searchLen;
+      _rm = rm;
+      _panel = panel;
+    }
+    
+    public void resultsFound(List<FindResult> results) {
+      for (FindResult fr: results) {
+        final OpenDefinitionsDocument doc = fr.getDocument();
+        
+        final int end = fr.getFoundOffset();
+        final int start = end - _searchLen;
+        final int lineStart = doc._getLineStartPos(start);
+        final int lineEnd = doc._getLineEndPos(end);
+        
+        _rm.addRegion(new MovingDocumentRegion(doc, start, end, lineStart, lineEnd));
+      }
+      if (_found == 0) _frame.showFindResultsPanel(_panel);
+      _found += results.size();
+      _frame.setStatusMessage("Finding All: found " + _found + " occurrence" + ((_found == 1) ? "" : "s") + " so far");
+    }
+    
+    public void searchFinished(int count, boolean cancelled) {
+      _panel.updateButtons();
+      _model.refreshActiveDocument();
+      if (cancelled) {
+        _frame.setStatusMessage("Stopped after finding " + count + " occurrence" + ((count == 1) ? "" : "s") + ".");
+        return;
+      }
+      if (count == 0) _panel.freeResources();
+      Toolkit.getDefaultToolkit().beep();
+      _frame.setStatusMessage("Found " + count + " occurrence" + ((count == 1) ? "" : "s") + ".");
+    }
+  }
+  
   /** Performs the "replace all" command. */
   private void _replaceAll() {
+    if (_isReplacingAll) return;
     _frame.updateStatusField("Replacing All");
 //    _updateMachine();
     _machine.setFindWord(_findField.getText());
@@ -716,7 +778,40 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
 
     _machine.setSelection(region);
     _frame.clearStatusMessage();
-    final int count = _machine.replaceAll();
+    
+    if (! _machine.getSearchAllDocuments()) {
+      _replacedAll(_machine.replaceAll());
+      return;
+    }
+    
+    // The files of the documents that are not in memory are scanned in the background; disable the controls until
+    // the replacements have been made.
+    final Component[] controls = new Component[] {
+      _findNextButton, _findPreviousButton, _findAllButton, _replaceButton, _replaceFindNextButton, 
+      _replaceFindPreviousButton, _replaceAllButton, _findField, _replaceField, _ignoreCommentsAndStrings, _matchCase,
+      _searchAllDocuments, _matchWholeWord, _ignoreTestCases, _searchSelectionOnly
+    };
+    final boolean[] enabled = new boolean[controls.length];
+    for (int i = 0; i < controls.length; i++) {
+      enabled[i] = controls[i].isEnabled();
+      controls[i].setEnabled(false);
+    }
+    _isReplacingAll = true;
+    _frame.hourglassOn();
+    _machine.replaceAllInBackground(new Runnable1<Integer>() {
+      public void run(Integer count) {
+        _frame.hourglassOff();
+        _isReplacingAll = false;
+        for (int i = 0; i < controls.length; i++) controls[i].setEnabled(enabled[i]);
+        _replacedAll(count);
+      }
+    });
+  }
+  
+  /** Reports the completion of a Replace All.
+    * @param count the number of replacements
+    */
+  private void _replacedAll(int count) {
     Toolkit.getDefaultToolkit().beep();
     _frame.setStatusMessage("Replaced " + count + " occurrence" + ((count == 1) ? "" : "s") + ".");
     _replaceAction.setEnabled(false);
@@ -726,6 +821,7 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
   }
   
   private void _replaceFindNext() {
+    if (_isReplacingAll) return;
     _frame.updateStatusField("Replacing and Finding Next");
     if (isSearchBackwards() == true) {
       _machine.positionChanged();
@@ -755,6 +851,7 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
   }
   
   private void _replaceFindPrevious() {
+    if (_isReplacingAll) return;
     _frame.updateStatusField("Replacing and Finding Previous");
     if (isSearchBackwards() == false) {
       _machine.positionChanged();
@@ -806,6 +903,7 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
   }
   
   private void _replace() {
+    if (_isReplacingAll) return;
     _frame.updateStatusField("Replacing");
 //    _updateMachine();
     _machine.setFindWord(_findField.getText());
@@ -874,6 +972,7 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
   /** Abstracted out since this is called from findNext and findPrevious. */
   private void _doFind() {
     
+    if (_isReplacingAll) return;
     if (_findField.getText().length() > 0) {
 
       _updateMachine();
@@ -55,6 +55,7 @@ import javax.swing.border.MatteBorder;
 
 import edu.rice.cs.drjava.model.MovingDocumentRegion;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
+import edu.rice.cs.drjava.model.ParallelFinder;
 import edu.rice.cs.drjava.model.RegionManager;
 import edu.rice.cs.drjava.model.RegionManagerListener;
 import edu.rice.cs.drjava.config.*;
@@ -81,11 +82,13 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
   private final MovingDocumentRegion _region; //document region used for search limited selection function
     
   private volatile JButton _findAgainButton;
+  private volatile JButton _stopButton;
   private volatile JButton _goToButton;
   private volatile JButton _bookmarkButton;
   private volatile JButton _removeButton;
   private volatile JComboBox<Color> _colorBox;
   private volatile int _lastIndex;
+  private volatile ParallelFinder _search = null;  // search filling this panel in the background, if any
   
   /** Saved option listeners kept in this field so they can be removed for garbage collection  */
   private final LinkedList<Pair<Option<Color>, OptionListener<Color>>> _colorOptionListeners = 
@@ -212,6 +215,11 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
       public void actionPerformed(ActionEvent ae) { _findAgain(); }
     };
     _findAgainButton = new JButton(findAgainAction);
+    
+    Action stopAction = new AbstractAction("Stop") {
+      public void actionPerformed(ActionEvent ae) { stopSearch(); }
+    };
+    _stopButton = new JButton(stopAction);
 
     Action goToAction = new AbstractAction("Go to") {
       public void actionPerformed(ActionEvent ae) { goToRegion(); }
@@ -277,7 +285,7 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
                                               DefinitionsPane.FIND_RESULTS_PAINTERS[_lastIndex]);
     
     updateButtons();
-    return new JComponent[] { _findAgainButton, _goToButton, _bookmarkButton, _removeButton, highlightPanel, _colorBox};
+    return new JComponent[] { _findAgainButton, _stopButton, _goToButton, _bookmarkButton, _removeButton, highlightPanel, _colorBox};
   }
   
   /** @return the selected painter for these find results. */
@@ -285,8 +293,29 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
     return DefinitionsPane.FIND_RESULTS_PAINTERS[_lastIndex];
   }
   
+  /** Sets the background search that adds its results to this panel.
+    * @param search the running search
+    */
+  public void setSearch(ParallelFinder search) {
+    _search = search;
+    updateButtons();
+  }
+  
+  /** @return true if a background search is still adding results to this panel. */
+  public boolean isSearching() {
+    ParallelFinder search = _search;
+    return search != null && ! search.isFinished();
+  }
+  
+  /** Cancels the background search adding results to this panel, if one is running. */
+  public void stopSearch() {
+    if (isSearching()) _search.cancel();
+    updateButtons();
+  }
+  
   /** Find again. */
   private void _findAgain() {
+    stopSearch();
     _updateButtons();   // force an update buttons operation
     OpenDefinitionsDocument odd = null;
     if (_searchAll) odd = getGlobalModel().getActiveDocument();
@@ -336,6 +365,7 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
     OpenDefinitionsDocument odd = null;
     if (_doc != null) { odd = _doc.get(); }
     _findAgainButton.setEnabled(odd != null || _searchAll);
+    _stopButton.setEnabled(isSearching());
     _goToButton.setEnabled(regs.size() == 1);
     _bookmarkButton.setEnabled(regs.size() > 0);
     _removeButton.setEnabled(regs.size() > 0);
@@ -381,6 +411,7 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
   @Override
   protected void _close() {
 //    System.err.println("FindResultsPanel.close() called on " + this);
+    stopSearch();
     getRegionManager().clearRegions();  // removes and unhighlights each region; regionListener closes the panel at the end
     getGlobalModel().removeFindResultsManager(getRegionManager());  // removes manager from global model (should be done by listener!)
     _frame.removeCurrentLocationHighlight();
@@ -2325,6 +2325,26 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     }
   }
   
+  /** Opens the output trimmed from DrJava's output console. */
+  private final Action _openTrimmedConsoleAction = new AbstractAction("Open Discarded Console Output") {
+    public void actionPerformed(ActionEvent ae) { _openTrimmedOutput(_model.getConsoleDocument()); }
+  };
+  
+  /** Opens the temporary file holding the output trimmed from the head of a console document, if there is one.
+   * @param doc the console or interactions document
+   */
+  private void _openTrimmedOutput(ConsoleDocument doc) {
+    final File f = doc.getSpillFile();
+    if (f == null || ! f.exists()) {
+      JOptionPane.showMessageDialog(MainFrame.this,
+                                    "No output has been discarded from this pane.\n" +
+                                    "Output is only saved if \"Save Discarded Output to a Temporary File\" is enabled.",
+                                    "No Discarded Output", JOptionPane.INFORMATION_MESSAGE);
+      return;
+    }
+    open(new FileOpenSelector() { public File[] getFiles() { return new File[] { f }; } });
+  }
+  
   /** Clears DrJava's output console. */
   private final Action _clearConsoleAction = new AbstractAction("Clear Console") {
     public void actionPerformed(ActionEvent ae) { _model.resetConsole(); }
@@ -3009,6 +3029,11 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     }
   };
     
+  /** Opens the output trimmed from the interactions window. */
+  private final Action _openTrimmedInteractionsAction = new AbstractAction("Open Discarded Interactions Output") {
+    public void actionPerformed(ActionEvent ae) { _openTrimmedOutput(_model.getInteractionsDocument()); }
+  };
+    
   /** Save the commands in the interactions window's history to a file */
   private final Action _saveHistoryAction = new AbstractAction("Save Interactions History...") {
     public void actionPerformed(ActionEvent ae) {
@@ -4743,12 +4768,14 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
   public void setStatusMessage(String msg) { 
 //    System.out.println("Setting status message to '" + msg + "'");
     _statusReport.setText(msg); 
+    _statusReport.setToolTipText(null);
   }
   
   /** Sets the message text in the status bar to the null string. */
   public void clearStatusMessage() {
 //    System.out.println("Clearing status message!");
     _statusReport.setText(""); 
+    _statusReport.setToolTipText(null);
   }
   
   /** Sets the font of the status bar message
@@ -8150,6 +8177,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     _interactionsPanePopupMenu.add(_printInteractionsPreviewAction);
     _interactionsPanePopupMenu.addSeparator();
     _interactionsPanePopupMenu.add(_saveInteractionsCopyAction);
+    _interactionsPanePopupMenu.add(_openTrimmedInteractionsAction);
     _interactionsPanePopupMenu.addSeparator();
     _interactionsPanePopupMenu.add(_executeHistoryAction);
     _interactionsPanePopupMenu.add(_loadHistoryScriptAction);
@@ -8176,6 +8204,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     _consolePanePopupMenu = new JPopupMenu();
     _consolePanePopupMenu.add(_clearConsoleAction);
     _consolePanePopupMenu.add(_saveConsoleCopyAction);
+    _consolePanePopupMenu.add(_openTrimmedConsoleAction);
     _consolePanePopupMenu.addSeparator();
     _consolePanePopupMenu.add(_printConsoleAction);
     _consolePanePopupMenu.add(_printConsolePreviewAction);
@@ -9058,6 +9087,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     public void regionRemoved(final Breakpoint bp) { }    
     public void watchSet(final DebugWatchData w) { }
     public void watchRemoved(final DebugWatchData w) { }
+    public void watchesUpdated() { }
     public void threadStarted() { }
     public void nonCurrThreadDied() { }
   }
@@ -9530,6 +9560,15 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
       _model.refreshActiveDocument();
     }
     
+    /** Shows the duration of the compilation in the status bar, with the duration of each phase in its tool tip. */
+    public void compilePhaseTimes(Map<String, Long> phaseTimes) {
+      assert EventQueue.isDispatchThread();
+      long total = 0;
+      for (long t : phaseTimes.values()) total += t;
+      setStatusMessage("Compilation took " + total + " ms");
+      _statusReport.setToolTipText("Compilation phase times (ms): " + phaseTimes);
+    }
+    
     /** Called if a compilation is aborted. */
     public void compileAborted(Exception e) {
       /* Should probably display a simple popup */
@@ -9622,6 +9661,9 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
       _model.refreshActiveDocument();
     }
     
+    /** Called with the phase times of each test run; not displayed. */
+    public void junitPhaseTimes(Map<String, Long> phaseTimes) { }
+    
     /** Fire just before javadoc asynchronous thread is started. Only runs in the event thread. */
     public void javadocStarted() {
       
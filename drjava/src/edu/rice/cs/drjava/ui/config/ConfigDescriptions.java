@@ -514,6 +514,14 @@ public class ConfigDescriptions {
         "Maximum Lines in \"Follow File\" Window",
         "<html>The maximum number of lines to keep in a \"Follow File\"<br>"+
         "or \"External Process\" pane. Enter 0 for unlimited.</html>");
+    add(OptionConstants.DOCUMENT_CACHE_MEMORY, 
+        "Memory for Unmodified Documents (MB)",
+        "<html>The approximate amount of memory in megabytes that unmodified documents may<br>"+
+        "occupy before DrJava releases the least recently used ones. Enter 0 for unlimited.</html>");
+    add(OptionConstants.DOCUMENT_CACHE_COMPRESSION, 
+        "Compress Released Documents",
+        "<html>Whether DrJava should keep the text of released documents compressed in memory<br>"+
+        "instead of uncompressed, trading some time when they are reopened for less memory.</html>");
     
 // Any lightweight parsing has been disabled until we have something that is beneficial and works better in the background.
 //    add(OptionConstants.LIGHTWEIGHT_PARSING_ENABLED, 
@@ -559,6 +567,17 @@ public class ConfigDescriptions {
     add(OptionConstants.SHOW_FALLTHROUGH_WARNINGS, "Show Fall-Through Warnings",
         "<html>Warn about <code>switch</code> block cases that fall through to the next case.</html>");
     
+    
+    add(OptionConstants.INCREMENTAL_COMPILATION, "Incremental Compilation",
+        "<html>If a build directory is set, only compile files that changed since they were last compiled,<br>"+
+        "and the files that depend on them.  Changing a constant used by other files requires<br>"+
+        "turning this option off for one compilation.</html>");
+    
+    
+    add(OptionConstants.WARM_COMPILER, "Keep Compiler Warm",
+        "<html>Keep the compiler's index of the class path jar files in memory between compilations.<br>"+
+        "The index is rebuilt when the class path changes or a jar file is replaced.</html>");
+    
     /*
      * The drop down box containing the compiler names
      */
@@ -587,6 +606,12 @@ public class ConfigDescriptions {
     
     add(OptionConstants.HISTORY_MAX_SIZE, "Size of Interactions History",
         "The number of interactions to remember in the history.");
+    add(OptionConstants.CONSOLE_MAX_LENGTH, "Maximum Length of Interactions and Console",
+        "<html>The number of characters to keep in the Interactions and Console panes.<br>"+
+        "Older output is discarded once a pane grows past this length. 0 means unlimited.</html>");
+    add(OptionConstants.CONSOLE_SPILL_TRIMMED, "Save Discarded Output to a Temporary File",
+        "<html>Whether output discarded from the Interactions and Console panes is saved<br>"+
+        "to a temporary file that can be opened from the pane's context menu.</html>");
     add(OptionConstants.DIALOG_AUTOIMPORT_ENABLED, 
         "Enable the \"Auto Import\" Dialog",
         "<html>Whether DrJava should open the \"Auto Import\" dialog when<br>"+
@@ -608,6 +633,11 @@ public class ConfigDescriptions {
         "Require Variable Type",
         "<html>Whether DrJava should require a variable type for<br>"+
         "variable declarations in the Interactions Pane.</html>");
+    add(OptionConstants.DYNAMICJAVA_COMPILE_STATEMENTS, 
+        "Compile Loops and Methods",
+        "<html>Whether DrJava should compile loops and method bodies that<br>"+
+        "use only primitive values to bytecode, rather than interpreting<br>"+
+        "them, in the Interactions Pane.</html>");
     
     /** Add all of the components for the JUnit panel of the preferences window. */
     add(OptionConstants.JUNIT_LOCATION_ENABLED, "Use external JUnit",
@@ -637,6 +667,13 @@ public class ConfigDescriptions {
     add(OptionConstants.FORCE_TEST_SUFFIX,
         "Require test classes in projects to end in \"Test\"",
         "Whether to force test classes in projects to end in \"Test\".");
+    
+    add(OptionConstants.JUNIT_PERSISTENT_RUNNER,
+        "Reuse Test Class Information Between Runs",
+        "<html>Whether unit testing remembers which class files belong to which sources,<br>" +
+        "keeps the classes loaded from unchanged jar files, and skips reloading<br>" +
+        "classes that are not tests as long as no class file has changed.<br>" +
+        "Classes in jar files take precedence over classes in directories.</html>");
 
     add(OptionConstants.LANGUAGE_LEVEL,
         "Language Level",
@@ -1070,6 +1070,8 @@ public class ConfigFrame extends SwingFrame {
     addOptionComponent(panel, newIntegerOptionComponent(OptionConstants.REMOTE_CONTROL_PORT));
     addOptionComponent(panel, newIntegerOptionComponent(OptionConstants.FOLLOW_FILE_DELAY));
     addOptionComponent(panel, newIntegerOptionComponent(OptionConstants.FOLLOW_FILE_LINES));
+    addOptionComponent(panel, newIntegerOptionComponent(OptionConstants.DOCUMENT_CACHE_MEMORY));
+    addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.DOCUMENT_CACHE_COMPRESSION));
     
 // Any lightweight parsing has been disabled until we have something that is beneficial and works better in the background.
 //    addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.LIGHTWEIGHT_PARSING_ENABLED));
@@ -1227,6 +1229,14 @@ public class ConfigFrame extends SwingFrame {
     addOptionComponent(panel, 
                        newBooleanOptionComponent(OptionConstants.SHOW_FALLTHROUGH_WARNINGS, false)
                          .setEntireColumn(true));
+    
+    addOptionComponent(panel, 
+                       newBooleanOptionComponent(OptionConstants.INCREMENTAL_COMPILATION, false)
+                         .setEntireColumn(true));
+    
+    addOptionComponent(panel, 
+                       newBooleanOptionComponent(OptionConstants.WARM_COMPILER, false)
+                         .setEntireColumn(true));
     addOptionComponent(panel, 
                        new LabelComponent("<html><br><br>Note: Some of these options may not be effective, depending on the<br>"+
                                           "compiler you are using.</html>",
@@ -1297,6 +1307,8 @@ public class ConfigFrame extends SwingFrame {
     addOptionComponent(panel, new LabelComponent("<html>&nbsp;</html>", this, true));
       
     addOptionComponent(panel, newIntegerOptionComponent(OptionConstants.HISTORY_MAX_SIZE));
+    addOptionComponent(panel, newIntegerOptionComponent(OptionConstants.CONSOLE_MAX_LENGTH));
+    addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.CONSOLE_SPILL_TRIMMED));
     addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.DIALOG_AUTOIMPORT_ENABLED));
     VectorStringOptionComponent autoImportClasses =
       new VectorStringOptionComponent(OptionConstants.INTERACTIONS_AUTO_IMPORT_CLASSES,
@@ -1332,6 +1344,7 @@ public class ConfigFrame extends SwingFrame {
                        newForcedChoiceOptionComponent(OptionConstants.DYNAMICJAVA_ACCESS_CONTROL));
     addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.DYNAMICJAVA_REQUIRE_SEMICOLON));
     addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.DYNAMICJAVA_REQUIRE_VARIABLE_TYPE));
+    addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.DYNAMICJAVA_COMPILE_STATEMENTS));
     
     panel.displayComponents();
   }
@@ -1580,6 +1593,8 @@ public class ConfigFrame extends SwingFrame {
       newBooleanOptionComponent(OptionConstants.FORCE_TEST_SUFFIX,false)
       .setEntireColumn(true);
     addOptionComponent(panel, forceTestSuffix);
+    addOptionComponent(panel, newBooleanOptionComponent(OptionConstants.JUNIT_PERSISTENT_RUNNER, false)
+                         .setEntireColumn(true));
     
     panel.displayComponents();
   }
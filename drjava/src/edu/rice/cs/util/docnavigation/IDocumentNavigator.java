@@ -58,6 +58,13 @@ public interface IDocumentNavigator<ItemT extends INavigatorItem> extends IAWTCo
     */
   public void addDocument(ItemT doc, String path);
   
+  /** Adds a batch of {@code INavigatorItem}s to this navigator, each in a position relative to the corresponding path.
+    * The result is the same as adding the documents one at a time, but the navigator may update its view only once.
+    * @param docs the documents to be added into this navigator.
+    * @param paths the relative paths, parallel to docs, to insert the INavigatorItems at.
+    */
+  public void addDocuments(List<ItemT> docs, List<String> paths);
+  
   /** @return the currently selected navigator item, or null if no navigator item is selected. */
   public ItemT getCurrent();
   
@@ -214,7 +214,116 @@ public class JTreeSortNavigator<ItemT extends INavigatorItem> extends JTree
       this.expandPath(new TreePath(lastNode.getPath()));
     }
   }
-  
+
+  /** Adds a batch of {@code INavigatorItem}s to this navigator.  Places each document exactly where
+    * {@link #addDocument(INavigatorItem, String)} would, but builds the new nodes without notifying the tree model,
+    * sorts each modified folder once, and then fires a single insertion event per folder.  Opening a project with
+    * many files therefore does not pay for a sorted insertion and a tree update per file.  Only runs in event thread.
+    * @param docs the documents to be added into this navigator.
+    * @param paths in navigator to parent directories of the corresponding docs
+    */
+  public void addDocuments(java.util.List<ItemT> docs, java.util.List<String> paths) {
+    assert (EventQueue.isDispatchThread() || Utilities.TEST_MODE);
+    synchronized(_model) { // lock for mutation
+      DefaultMutableTreeNode modelRoot = (DefaultMutableTreeNode) _model.getRoot();
+      Set<DefaultMutableTreeNode> newNodes = new HashSet<DefaultMutableTreeNode>();
+      LinkedHashSet<InnerNode<?, ItemT>> changed = new LinkedHashSet<InnerNode<?, ItemT>>();
+      LinkedHashSet<GroupNode<ItemT>> changedRoots = new LinkedHashSet<GroupNode<ItemT>>();
+
+      Iterator<String> pathIter = paths.iterator();
+      for (ItemT doc: docs) {
+        String path = pathIter.next();
+
+        /* Identify root matching doc if any */
+        GroupNode<ItemT> root = null;
+        for (GroupNode<ItemT> r: _roots) {
+          if (r.getFilter().accept(doc)) {
+            root = r;
+            break;
+          }
+        }
+        if (root == null) continue;
+        changedRoots.add(root);
+
+        /* Embed path in matching root, creating (unsorted) folder nodes if necessary */
+        StringTokenizer tok = new StringTokenizer(path, File.separator);
+        final StringBuilder pathSoFarBuf = new StringBuilder();
+        InnerNode<?, ItemT> lastNode = root;
+        while (tok.hasMoreTokens()) {
+          pathSoFarBuf.append(tok.nextToken()).append('/');
+          String pathSoFar = pathSoFarBuf.toString();
+          InnerNode<?, ItemT> thisNode;
+          if (! _path2node.containsFirst(pathSoFar)) {
+            thisNode = new FileNode<ItemT>(new File(pathSoFar));
+            lastNode.add(thisNode);
+            newNodes.add(thisNode);
+            changed.add(lastNode);
+            _path2node.add(pathSoFar, thisNode);
+          }
+          else thisNode = _path2node.value(pathSoFar);
+          lastNode = thisNode;
+        }
+
+        LeafNode<ItemT> child = new LeafNode<ItemT>(doc);
+        _doc2node.put(doc, child);
+        lastNode.add(child);
+        newNodes.add(child);
+        changed.add(lastNode);
+      }
+
+      /* Sort the modified folders; a stable sort leaves existing nodes in the order the sorted insertions produced */
+      for (InnerNode<?, ItemT> parent: changed) sortChildren(parent);
+
+      /* Notify the model: a group that is not yet displayed is inserted whole; otherwise each folder that existed
+       * before this batch reports its new children (which include any new subfolders). */
+      Set<TreeNode> insertedRoots = new HashSet<TreeNode>();
+      for (GroupNode<ItemT> root: changedRoots) {
+        if (modelRoot.getIndex(root) == -1) {
+          addTopLevelGroupToRoot(root);
+          insertedRoots.add(root);
+        }
+      }
+      for (InnerNode<?, ItemT> parent: changed) {
+        TreeNode group = parent;
+        while (! _roots.contains(group)) group = group.getParent();
+        if (newNodes.contains(parent) || insertedRoots.contains(group)) continue;
+        int[] indices = new int[parent.getChildCount()];
+        int count = 0;
+        for (int i = 0; i < indices.length; i++) {
+          if (newNodes.contains(parent.getChildAt(i))) indices[count++] = i;
+        }
+        _model.nodesWereInserted(parent, Arrays.copyOf(indices, count));
+      }
+      for (InnerNode<?, ItemT> parent: changed) this.expandPath(new TreePath(parent.getPath()));
+    }
+  }
+
+  /** Sorts the children of parent in the order established by insertNodeSortedInto and insertFolderSortedInto: folders
+    * before documents, each ordered by name ignoring case.  Does not notify the model.  Assumes that _model lock is
+    * already held.
+    * @param parent the node whose children should be sorted
+    */
+  private void sortChildren(InnerNode<?, ItemT> parent) {
+    ArrayList<DefaultMutableTreeNode> kids = new ArrayList<DefaultMutableTreeNode>(parent.getChildCount());
+    for (int i = 0; i < parent.getChildCount(); i++) kids.add((DefaultMutableTreeNode) parent.getChildAt(i));
+    Collections.sort(kids, new Comparator<DefaultMutableTreeNode>() {
+      public int compare(DefaultMutableTreeNode a, DefaultMutableTreeNode b) {
+        boolean aIsFolder = a instanceof InnerNode<?,?>;
+        boolean bIsFolder = b instanceof InnerNode<?,?>;
+        if (aIsFolder != bIsFolder) return aIsFolder ? -1 : 1;
+        return sortKey(a).compareTo(sortKey(b));
+      }
+    });
+    parent.removeAllChildren();
+    for (DefaultMutableTreeNode kid: kids) parent.add(kid);
+  }
+
+  /** @return the name by which a child node is sorted within its folder */
+  private static String sortKey(DefaultMutableTreeNode node) {
+    if (node instanceof LeafNode<?>) return ((LeafNode<?>) node).getData().getName().toUpperCase();
+    return node.toString().toUpperCase();
+  }
+
   private void addTopLevelGroupToRoot(InnerNode<?, ItemT> parent) {
     assert (EventQueue.isDispatchThread() || Utilities.TEST_MODE);
     synchronized(_model) { // lock for mutation
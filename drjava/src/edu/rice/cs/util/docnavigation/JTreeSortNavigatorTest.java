@@ -321,6 +321,68 @@ public class JTreeSortNavigatorTest extends DrJavaTestCase {
     assertEquals("Wrong item 2", auxi3, l.get(1));
   }
   
+  /** Tests that adding documents as a batch produces the same tree as adding them one at a time. */
+  public void testAddDocuments() {
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        JTreeSortNavigator<DummyINavigatorItem> single = makeTree();
+        JTreeSortNavigator<DummyINavigatorItem> batch = makeTree();
+        java.util.List<DummyINavigatorItem> docs = new java.util.ArrayList<DummyINavigatorItem>();
+        java.util.List<String> paths = new java.util.ArrayList<String>();
+        String[][] items = {
+          { "item3", "b" }, { "Item2", "a" }, { "auxitem1", "" }, { "item1", "b" }, { "item4", "a" + File.separator + "c" },
+          { "item0", "" }, { "item5", "B" }, { "item2", "a" }
+        };
+        for (String[] item: items) {
+          DummyINavigatorItem doc = new DummyINavigatorItem(item[0]);
+          single.addDocument(doc, item[1]);
+          docs.add(doc);
+          paths.add(item[1]);
+        }
+        batch.addDocuments(docs, paths);
+        assertEquals("batch tree", dump(single.getModel().getRoot()), dump(batch.getModel().getRoot()));
+        assertEquals("doc count", docs.size(), batch.getDocumentCount());
+        
+        // a second batch extends existing folders and creates new ones
+        docs.clear();
+        paths.clear();
+        String[][] more = { { "item6", "a" }, { "item7", "d" }, { "auxitem0", "" }, { "item00", "" } };
+        for (String[] item: more) {
+          DummyINavigatorItem doc = new DummyINavigatorItem(item[0]);
+          single.addDocument(doc, item[1]);
+          docs.add(doc);
+          paths.add(item[1]);
+        }
+        batch.addDocuments(docs, paths);
+        assertEquals("extended batch tree", dump(single.getModel().getRoot()), dump(batch.getModel().getRoot()));
+        assertEquals("extended batch rows", single.getRowCount(), batch.getRowCount());
+      }
+    });
+  }
+  
+  private JTreeSortNavigator<DummyINavigatorItem> makeTree() {
+    JTreeSortNavigator<DummyINavigatorItem> t = new JTreeSortNavigator<DummyINavigatorItem>("project");
+    t.addTopLevelGroup(SOURCE_BIN_NAME, new INavigatorItemFilter<INavigatorItem>() {
+      public boolean accept(INavigatorItem n) { return !n.getName().startsWith("aux"); }
+    });
+    t.addTopLevelGroup(EXTERNAL_BIN_NAME, new INavigatorItemFilter<INavigatorItem>() {
+      public boolean accept(INavigatorItem n) { return n.getName().startsWith("aux"); }
+    });
+    return t;
+  }
+  
+  /** @return a string showing the structure of the tree below node */
+  private static String dump(Object node) {
+    DefaultMutableTreeNode n = (DefaultMutableTreeNode) node;
+    StringBuilder sb = new StringBuilder(n.toString());
+    if (n.getChildCount() > 0) {
+      sb.append('(');
+      for (int i = 0; i < n.getChildCount(); i++) sb.append(dump(n.getChildAt(i))).append(' ');
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+  
   /** Test of getting the list of selected items.
    */
   public void testGetNamesOfSelectedTopLevelGroup() {
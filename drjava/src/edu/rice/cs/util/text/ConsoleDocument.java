@@ -75,6 +75,9 @@ public class ConsoleDocument implements ConsoleDocumentInterface {
   /** Style for System.in */
   public static final String SYSTEM_IN_STYLE = "System.in";
   
+  /** Number of characters past the nominal cut that _trimHead searches for a line break. */
+  private static final int LINE_SEARCH_LIMIT = 1024;
+  
   /** The embedded document storing the text and _hasPrompt property for this console model. */
   protected final ConsoleDocumentInterface _document;
   
@@ -90,6 +93,15 @@ public class ConsoleDocument implements ConsoleDocumentInterface {
   /** The book object used for printing that represents several pages */
   protected volatile DrJavaBook _book;
   
+  /** Maximum number of characters retained in this document, or 0 if the document may grow without limit. */
+  private volatile int _maxLength = 0;
+  
+  /** Whether text trimmed from the head of this document is appended to _spillFile. */
+  private volatile boolean _spillTrimmedText = false;
+  
+  /** Temporary file holding the text trimmed from the head of this document; null until the first spill. */
+  private volatile File _spillFile = null;
+  
   /** Creates a new ConsoleDocument with the given embedded ConsoleDocumentInterface (a SwingDocument in native DrJava).
     * @param doc the embedded ConsoleDocumentInterface object
     */
@@ -139,6 +151,27 @@ public class ConsoleDocument implements ConsoleDocumentInterface {
     _promptPos = newPos; 
   }
   
+  /** @return the maximum number of characters retained in this document, or 0 if the length is not bounded. */
+  public int getMaxLength() { return _maxLength; }
+  
+  /** Bounds the number of characters retained in this document.  Once the document grows past maxLength, the oldest
+    * text above the prompt is discarded in chunks of about maxLength/8 characters so that the cost of trimming is
+    * amortized over many inserts.  The prompt, the current input and the interactions history are never trimmed.
+    * @param maxLength the maximum length, or 0 to let the document grow without limit
+    */
+  public void setMaxLength(int maxLength) { _maxLength = Math.max(0, maxLength); }
+  
+  /** @return whether text trimmed from the head of this document is saved to a temporary file. */
+  public boolean getSpillTrimmedText() { return _spillTrimmedText; }
+  
+  /** Sets whether text trimmed from the head of this document is appended to a temporary file.
+    * @param spill true to save trimmed text
+    */
+  public void setSpillTrimmedText(boolean spill) { _spillTrimmedText = spill; }
+  
+  /** @return the temporary file holding trimmed text, or null if no text has been saved to a file yet. */
+  public File getSpillFile() { return _spillFile; }
+  
   /** Sets a runnable action to use as a beep.
     * @param beep Runnable beep command
     */
@@ -165,6 +198,7 @@ public class ConsoleDocument implements ConsoleDocumentInterface {
       _promptPos = len + _prompt.length();
       forceInsertText(len, _prompt, DEFAULT_STYLE); // need forceAppend!
       _document.setHasPrompt(true);
+      _trimHead();
     }
     catch (EditDocumentException e) { throw new UnexpectedException(e);  }
   }
@@ -216,6 +250,7 @@ public class ConsoleDocument implements ConsoleDocumentInterface {
 //      System.err.println("_promptPos before update = " + _promptPos);
       _promptPos = _promptPos + text.length();
       forceInsertText(pos, text, style);
+      _trimHead();
     }
     catch (EditDocumentException ble) { throw new UnexpectedException(ble); }
   }
@@ -244,6 +279,7 @@ public class ConsoleDocument implements ConsoleDocumentInterface {
     int offs = _document.getLength();
     _addToStyleLists(offs, str, style);
     _document.insertText(offs, str, style);
+    _trimHead();
   }
   
   /** Inserts a string into the document at the given offset and  style, regardless of the edit condition.
@@ -268,6 +304,52 @@ public class ConsoleDocument implements ConsoleDocumentInterface {
       ((SwingDocument)_document).addColoring(offs, offs + str.length(), style);
   }
   
+  /** Discards text from the head of the document once it is longer than _maxLength, shrinking it to about 7/8 of 
+    * _maxLength.  The cut is moved forward to the next line break when one is close by, and it never reaches past the 
+    * start of the prompt (or _promptPos if there is no prompt), so the editable region is left intact.  If 
+    * _spillTrimmedText is set, the discarded text is appended to _spillFile first.  Only runs in the event thread 
+    * except for legacy test code.
+    */
+  private void _trimHead() {
+    final int max = _maxLength;
+    final int len = _document.getLength();
+    if (max == 0 || len <= max) return;
+    
+    final int limit = Math.min(_getPositionBeforePrompt(), _promptPos);
+    int cut = Math.min(len - (max - max / 8), limit);
+    if (cut <= 0) return;
+    
+    // Prefer to cut just after a newline so that the first retained line is complete
+    int end = Math.min(limit, cut + LINE_SEARCH_LIMIT);
+    if (end > cut) {
+      int nl = _document.getDocText(cut, end - cut).indexOf('\n');
+      if (nl >= 0) cut = cut + nl + 1;
+    }
+    
+    if (_spillTrimmedText) _spill(_document.getDocText(0, cut));
+    _document.forceRemoveText(0, cut);
+    _promptPos = _promptPos - cut;
+    if (_document instanceof SwingDocument) ((SwingDocument)_document).trimColoring(cut);
+  }
+  
+  /** Appends text trimmed from the head of the document to _spillFile, creating the file on first use.  Failures are 
+    * ignored; the text is then simply discarded as if spilling were disabled.
+    * @param text the trimmed text
+    */
+  private void _spill(String text) {
+    try {
+      if (_spillFile == null) {
+        File f = File.createTempFile("DrJava-console", ".txt");
+        f.deleteOnExit();
+        _spillFile = f;
+      }
+      Writer w = new BufferedWriter(new FileWriter(_spillFile, true));
+      try { w.write(text); }
+      finally { w.close(); }
+    }
+    catch (IOException ioe) { /* discard the text */ }
+  }
+  
   /** Removes a portion of the document, if the edit condition (including promptPos) allows it.
     * @param offs Offset to start deleting from
     * @param len Number of characters to remove
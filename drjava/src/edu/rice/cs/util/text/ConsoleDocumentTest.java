@@ -36,11 +36,13 @@
 
 package edu.rice.cs.util.text;
 
+import java.io.File;
 import javax.swing.text.BadLocationException;
 
 import edu.rice.cs.drjava.model.repl.InteractionsDJDocument;
 import edu.rice.cs.drjava.DrJavaTestCase;
 import edu.rice.cs.util.swing.Utilities;
+import edu.rice.cs.plt.io.IOUtil;
 
 /** Tests ConsoleDocument.
   * @version $Id$
@@ -125,4 +127,37 @@ public class ConsoleDocumentTest extends DrJavaTestCase {
     _doc.setPromptPos(_doc.getLength());
     assertEquals("promptPos is character position at end of document", _doc.getLength(), _doc.getPromptPos());
   }
+  
+  /** Tests that a bounded document discards whole lines from its head and keeps the prompt and current input. */
+  public void testTrimHead() throws EditDocumentException {
+    _doc.setMaxLength(100);
+    _doc.setPrompt("> ");
+    _doc.insertPrompt();
+    _doc.insertText(_doc.getPromptPos(), "abc", null);
+    for (int i = 0; i < 50; i++) _doc.insertBeforeLastPrompt("line " + i + "\n", ConsoleDocument.DEFAULT_STYLE);
+    
+    String text = _doc.getText();
+    assertTrue("document should be trimmed", text.length() <= 100);
+    assertTrue("trimmed at a line break", text.startsWith("line "));
+    assertTrue("most recent output kept", text.endsWith("line 49\n> abc"));
+    assertEquals("prompt position", text.length() - 3, _doc.getPromptPos());
+    assertEquals("current input", "abc", _doc.getCurrentInput());
+    assertNull("no spill file", _doc.getSpillFile());
+  }
+  
+  /** Tests that trimmed text is saved to the spill file. */
+  public void testSpillTrimmedText() throws Exception {
+    _doc.setMaxLength(100);
+    _doc.setSpillTrimmedText(true);
+    StringBuilder all = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      String line = "line " + i + "\n";
+      all.append(line);
+      _doc.insertBeforeLastPrompt(line, ConsoleDocument.DEFAULT_STYLE);
+    }
+    File spill = _doc.getSpillFile();
+    assertNotNull("spill file created", spill);
+    assertEquals("trimmed and retained text", all.toString(), IOUtil.toString(spill) + _doc.getText());
+    assertEquals("prompt position", _doc.getLength(), _doc.getPromptPos());
+  }
 }
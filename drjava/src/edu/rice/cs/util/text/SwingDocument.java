@@ -97,6 +97,12 @@ public class SwingDocument extends DefaultStyledDocument implements EditDocument
    */
   public void addColoring(int start, int end, String style) { }
   
+  /** Discards the colorings of the first len characters and shifts the remaining colorings left by len.  Called after 
+    * the first len characters have been removed from the document.  Does nothing here.
+    * @param len the number of characters removed from the head of the document
+    */
+  public void trimColoring(int len) { }
+  
   /** Gets the object which can determine whether an insert or remove edit should be applied, based on the inputs.
     * @return an Object to determine legality of inputs
     */
@@ -37,4 +37,9 @@ public class Options {
   public boolean prohibitBoxing() { return false; }
   /** Disallow unchecked casting conversion. */
   public boolean prohibitUncheckedCasts() { return true; }
+  /**
+   * Compile loops and method bodies to bytecode where possible, rather than interpreting them
+   * (see {@link edu.rice.cs.dynamicjava.interpreter.StatementCompiler}).
+   */
+  public boolean compileStatements() { return false; }
 }
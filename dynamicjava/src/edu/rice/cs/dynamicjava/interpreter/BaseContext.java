@@ -25,6 +25,7 @@ public class BaseContext implements TypeContext {
   public LocalVariable getLocalVariable(String name, TypeSystem ts) { return null; }
   public Access.Module accessModule() { return new TopLevelAccessModule(""); }
   public Type getReturnType() { return null; }
+  public FrameLayout frameLayout() { return null; }
   public DJClass getThis() { return null; }
   public DJClass getThis(String className) { return null; }
   public DJClass getThis(Type expected, TypeSystem ts) { return null; }
@@ -221,9 +221,10 @@ public class ClassChecker {
       Type returnT = sigChecker.check(node.getReturnType());
       setErasedType(node, _opt.typeSystem().erasedClass(returnT));
       
+      FrameLayout frame = setFrameLayout(node, new FrameLayout());
       for (FormalParameter param : node.getParameters()) {
         Type t = sigChecker.check(param.getType());
-        setVariable(param, new LocalVariable(param.getName(), t, param.getModifiers().isFinal()));
+        setVariable(param, new LocalVariable(param.getName(), t, param.getModifiers().isFinal(), frame));
       }
       
       for (TypeName tn : node.getExceptions()) { sigChecker.check(tn); }
@@ -271,9 +272,10 @@ public class ClassChecker {
       Iterable<TypeParameter> tparams = node.getTypeParams().unwrap(Collections.<TypeParameter>emptyList());
       sigChecker.checkTypeParameters(tparams);
       
+      FrameLayout frame = setFrameLayout(node, new FrameLayout());
       for (FormalParameter param : node.getParameters()) {
         Type t = sigChecker.check(param.getType());
-        setVariable(param, new LocalVariable(param.getName(), t, param.getModifiers().isFinal()));
+        setVariable(param, new LocalVariable(param.getName(), t, param.getModifiers().isFinal(), frame));
       }
       
       for (TypeName tn : node.getExceptions()) { sigChecker.check(tn); }
@@ -344,7 +346,7 @@ public class ClassChecker {
       if (node.getBody() != null) {
         DJMethod m = getMethod(node);
         TypeContext sigContext = new FunctionSignatureContext(_bodyContext, m);
-        TypeContext bodyContext = new FunctionContext(sigContext, m);
+        TypeContext bodyContext = new FrameContext(new FunctionContext(sigContext, m), getFrameLayout(node));
         node.getBody().acceptVisitor(new StatementChecker(bodyContext, _opt));
       }
       return null;
@@ -353,7 +355,7 @@ public class ClassChecker {
     @Override public Void visit(ConstructorDeclaration node) {
       DJConstructor k = getConstructor(node);
       TypeContext sigContext = new FunctionSignatureContext(_bodyContext, k);
-      TypeContext bodyContext = new FunctionContext(sigContext, k);
+      TypeContext bodyContext = new FrameContext(new FunctionContext(sigContext, k), getFrameLayout(node));
       ExpressionChecker callChecker = new ExpressionChecker(bodyContext, _opt);
       ConstructorCall call = node.getConstructorCall();
       ExecutionError error = null;
@@ -394,13 +396,15 @@ public class ClassChecker {
     }
     
     @Override public Void visit(ClassInitializer node) {
-      TypeContext c = new InitializerContext(_bodyContext, true, _c);
+      TypeContext c = new FrameContext(new InitializerContext(_bodyContext, true, _c),
+                                       setFrameLayout(node, new FrameLayout()));
       node.getBlock().acceptVisitor(new StatementChecker(c, _opt));
       return null;
     }
     
     @Override public Void visit(InstanceInitializer node) {
-      TypeContext c = new InitializerContext(_bodyContext, false, _c);
+      TypeContext c = new FrameContext(new InitializerContext(_bodyContext, false, _c),
+                                       setFrameLayout(node, new FrameLayout()));
       node.getBlock().acceptVisitor(new StatementChecker(c, _opt));
       return null;
     }
@@ -179,4 +179,7 @@ public class ClassContext extends DelegatingContext {
    */
   @Override public Iterable<Type> getDeclaredThrownTypes() { return IterUtil.empty(); }
   
+  /** A class body has no frame of its own; its methods and initializers are given {@link FrameContext}s. */
+  @Override public FrameLayout frameLayout() { return null; }
+  
 }
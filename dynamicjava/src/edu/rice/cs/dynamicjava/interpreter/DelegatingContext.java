@@ -228,6 +228,10 @@ public abstract class DelegatingContext implements TypeContext {
     return _next.getDeclaredThrownTypes();
   }
   
+  public FrameLayout frameLayout() {
+    return _next.frameLayout();
+  }
+  
   public ClassLoader getClassLoader() {
     return _next.getClassLoader();
   }
@@ -12,6 +12,8 @@ import koala.dynamicjava.tree.visitor.*;
 
 import edu.rice.cs.dynamicjava.Options;
 import edu.rice.cs.dynamicjava.symbol.LocalVariable;
+import edu.rice.cs.dynamicjava.symbol.type.PrimitiveType;
+import edu.rice.cs.dynamicjava.symbol.type.Type;
 
 import static koala.dynamicjava.interpreter.NodeProperties.*;
 
@@ -317,8 +319,10 @@ public class ExpressionEvaluator extends AbstractVisitor<Object> implements Lamb
     Object right = value(node.getRightExpression());
     try {
       Object result = op.value(left, right);
-      // The result might need to be boxed, but the representation of boxed values
-      // and primitive values is identical, so nothing needs to be done
+      // The promoted result is narrowed to the type of the variable (JLS 15.26.2).  It might need to be
+      // boxed, but the representation of boxed values and primitive values is identical.
+      Type t = getType(node);
+      if (t instanceof PrimitiveType) { result = convert(result, _options.typeSystem().erasedClass(t).value()); }
       setter.set(result);
       return result;
     }
@@ -0,0 +1,23 @@
+package edu.rice.cs.dynamicjava.interpreter;
+
+/**
+ * The context of a body that is evaluated in its own runtime frame (a function body, an initializer,
+ * or a top-level interpreter session).  Local variables declared in this context are allocated
+ * slots in the given layout.
+ */
+public class FrameContext extends DelegatingContext {
+
+  private final FrameLayout _layout;
+
+  public FrameContext(TypeContext next, FrameLayout layout) {
+    super(next);
+    _layout = layout;
+  }
+
+  protected FrameContext duplicate(TypeContext next) {
+    return new FrameContext(next, _layout);
+  }
+
+  @Override public FrameLayout frameLayout() { return _layout; }
+
+}
@@ -0,0 +1,24 @@
+package edu.rice.cs.dynamicjava.interpreter;
+
+/**
+ * The layout of a runtime frame: the local variables of a function body, an initializer, or a
+ * top-level interpreter session.  During static checking, each local variable declared in such a
+ * body is allocated a slot; at runtime, a {@link RuntimeBindings} created for the layout holds the
+ * variables' values in an array, so that no map lookup or allocation is needed to declare, read,
+ * or write a variable.  Every instance is considered unique.
+ */
+public class FrameLayout {
+
+  private volatile int _size;
+
+  public FrameLayout() { _size = 0; }
+
+  /** Allocate a new slot.  A top-level layout may grow after frames for it have been created. */
+  public synchronized int allocate() { return _size++; }
+
+  /** The number of slots allocated so far. */
+  public int size() { return _size; }
+
+  public String toString() { return "FrameLayout(" + _size + ")@" + Integer.toHexString(hashCode()); }
+
+}
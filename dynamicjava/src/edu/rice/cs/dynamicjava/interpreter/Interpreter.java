@@ -22,8 +22,10 @@ public class Interpreter {
   
   public Interpreter(Options opt, TypeContext typeContext, RuntimeBindings bindings) {
     _opt = opt;
-    _typeContext = typeContext;
-    _bindings = bindings;
+    // top-level variables are stored in a single frame that grows as they are declared
+    FrameLayout frame = new FrameLayout();
+    _typeContext = new FrameContext(typeContext, frame);
+    _bindings = new RuntimeBindings(bindings, frame);
     // Force potentially expensive objects/classes to initialize now:
     _opt.typeSystem();
     new JavaCCParser(new StringReader(""), _opt).parseStream();
@@ -0,0 +1,89 @@
+package edu.rice.cs.dynamicjava.interpreter;
+
+import edu.rice.cs.plt.tuple.Option;
+import edu.rice.cs.plt.tuple.Pair;
+
+import edu.rice.cs.dynamicjava.Options;
+
+/**
+ * Compares the running time of interpreted (tree-walking) evaluation with that of statements
+ * compiled to bytecode by the {@link StatementCompiler}.  Each benchmark declares some variables
+ * (and perhaps methods), times a statement, and checks that both modes produce the same result.
+ * Usage: {@code InterpreterBenchmark [runs]}, where {@code runs} (default 3) is the number of
+ * times each benchmark is timed in each mode; the best time is reported.
+ */
+public class InterpreterBenchmark {
+
+  private static final Options INTERPRETED = Options.DEFAULT;
+
+  private static final Options COMPILED = new Options() {
+    @Override public boolean compileStatements() { return true; }
+  };
+
+  /** Each benchmark is a name, a declaration, a statement to time, and an expression for the result. */
+  private static final String[][] BENCHMARKS = {
+    { "Counting loop",
+      "int sum = 0;",
+      "for (int i = 0; i < 1000000; i++) { sum += i; }",
+      "sum" },
+    { "Nested loops",
+      "long count = 0;",
+      "for (int i = 0; i < 500; i++) { for (int j = 0; j < 500; j++) { if ((i ^ j) % 3 == 0) count++; } }",
+      "count" },
+    { "Floating point",
+      "double x = 0;",
+      "for (int i = 1; i <= 500000; i++) { x += 1.0 / ((double) i * i); }",
+      "x" },
+    { "While loop",
+      "long steps = 0;",
+      "for (long n = 1; n < 3000; n++) { long m = n; while (m != 1) { m = (m % 2 == 0) ? m / 2 : 3 * m + 1; steps++; } }",
+      "steps" },
+    { "Method body",
+      "int gcd(int a, int b) { while (b != 0) { int t = a % b; a = b; b = t; } return a; } long total = 0;",
+      "for (int i = 1; i < 150; i++) { for (int j = 1; j < 150; j++) { total += gcd(i, j); } }",
+      "total" },
+    { "Library calls",
+      "long calls = 0; java.util.List<Integer> list = new java.util.ArrayList<Integer>();",
+      "for (int i = 0; i < 100000; i++) { calls += Math.max(i, Integer.bitCount(i)); list.add(i % 7); }",
+      "calls + list.size()" },
+    { "Unsupported (interpreted in both modes)",
+      "StringBuilder sb = new StringBuilder();",
+      "for (int i = 0; i < 20000; i++) { sb.append(i % 10); }",
+      "sb.length()" }
+  };
+
+  public static void main(String... args) throws InterpreterException {
+    int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+    System.out.println(String.format("%-42s %14s %14s %9s", "Benchmark", "Interpreted", "Compiled", "Speedup"));
+    for (String[] b : BENCHMARKS) {
+      long interpreted = Long.MAX_VALUE;
+      long compiled = Long.MAX_VALUE;
+      for (int i = 0; i < runs; i++) {
+        Pair<Long, Option<Object>> interpretedRun = run(INTERPRETED, b);
+        Pair<Long, Option<Object>> compiledRun = run(COMPILED, b);
+        if (!interpretedRun.second().equals(compiledRun.second())) {
+          throw new IllegalStateException(b[0] + ": interpreted result is " + interpretedRun.second() +
+                                          ", but compiled result is " + compiledRun.second());
+        }
+        interpreted = Math.min(interpreted, interpretedRun.first());
+        compiled = Math.min(compiled, compiledRun.first());
+      }
+      System.out.println(String.format("%-42s %11d ms %11d ms %8.1fx", b[0], interpreted / 1000000,
+                                       compiled / 1000000, (double) interpreted / compiled));
+    }
+  }
+
+  /**
+   * Run the given benchmark in a fresh interpreter.
+   * @return  The time, in nanoseconds, of the timed statement, and the value of the result expression.
+   */
+  private static Pair<Long, Option<Object>> run(Options opt, String[] benchmark) throws InterpreterException {
+    Interpreter i = new Interpreter(opt);
+    i.interpret(benchmark[1]);
+    long start = System.nanoTime();
+    i.interpret(benchmark[2]);
+    long time = System.nanoTime() - start;
+    return Pair.make(time, i.interpret(benchmark[3]));
+  }
+
+}
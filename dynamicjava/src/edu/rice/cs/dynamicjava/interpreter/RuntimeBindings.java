@@ -1,10 +1,10 @@
 package edu.rice.cs.dynamicjava.interpreter;
 
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Collections;
-import edu.rice.cs.plt.tuple.Pair;
-import edu.rice.cs.plt.iter.IterUtil;
 
 import edu.rice.cs.dynamicjava.symbol.*;
 import edu.rice.cs.dynamicjava.symbol.type.Type;
@@ -16,22 +16,31 @@ import edu.rice.cs.dynamicjava.symbol.type.VariableType;
   * the calling context.  Without this flexibility, it would have to be determined at what point
   * (if any) in the calling context's chain of environments the function declaration and the calling
   * context share a common lexical scope.
+  *
+  * <p>A local variable that was allocated a slot during static checking (see {@link FrameLayout}) is
+  * stored in a <em>frame</em>: an instance created for the variable's layout, which holds the values of
+  * all the layout's variables in an array.  Declaring, reading, or writing such a variable allocates
+  * nothing, and a variable of the innermost frame is found without a search.  Other variables (those
+  * provided by a debugger, for example) are bound individually in maps.</p>
+  *
+  * <p>Since a frame is reused as a body executes, bindings that are retained beyond the current
+  * evaluation (by an instance of a local class) must be {@link #capture captured}.</p>
   */
 public class RuntimeBindings {
   
   public static final RuntimeBindings EMPTY = new RuntimeBindings();
   
   private final RuntimeBindings _parent;
+  private final FrameLayout _frame; // null if these bindings are not a frame
+  private Object[] _slots; // null if not a frame; grows with a top-level layout
+  private final boolean _captured; // true if this frame is a copy made by capture()
   private final Map<LocalVariable, Object> _vars;
   private final Map<VariableType, Type> _tvars; // might be useful someday...
   private final Map<DJClass, Object> _thisVals;
   
   public RuntimeBindings(RuntimeBindings parent, Map<LocalVariable, Object> vars,
                          Map<VariableType, Type> tvars, Map<DJClass, Object> thisVals) {
-    _parent = parent;
-    _vars = new HashMap<LocalVariable, Object>(vars);
-    _tvars = new HashMap<VariableType, Type>(tvars);
-    _thisVals = new HashMap<DJClass, Object>(thisVals);
+    this(parent, null, null, false, copy(vars), copy(tvars), copy(thisVals));
   }
   
   private RuntimeBindings() {
@@ -49,9 +58,46 @@ public class RuntimeBindings {
          Collections.<DJClass, Object>emptyMap());
   }
   
+  /** Create an empty frame for the given layout. */
+  public RuntimeBindings(RuntimeBindings parent, FrameLayout frame) {
+    this(parent, frame, new Object[frame.size()], false, Collections.<LocalVariable, Object>emptyMap(),
+         Collections.<VariableType, Type>emptyMap(), Collections.<DJClass, Object>emptyMap());
+  }
+  
+  /**
+   * Create a frame for the given layout in which the given variables (typically, a function's
+   * parameters) are bound.  Variables without a slot in {@code frame} are bound individually.
+   */
+  public RuntimeBindings(RuntimeBindings parent, FrameLayout frame, Iterable<LocalVariable> vars,
+                         Iterable<Object> vals) {
+    this(parent, frame, new Object[frame.size()], false,
+         inFrame(vars, frame) ? Collections.<LocalVariable, Object>emptyMap()
+                              : new HashMap<LocalVariable, Object>(),
+         Collections.<VariableType, Type>emptyMap(), Collections.<DJClass, Object>emptyMap());
+    Iterator<Object> valsIter = vals.iterator();
+    for (LocalVariable v : vars) {
+      Object val = valsIter.next();
+      if (v.frame() == frame) { _slots[v.slot()] = val; }
+      else { _vars.put(v, val); }
+    }
+  }
+  
+  private RuntimeBindings(RuntimeBindings parent, FrameLayout frame, Object[] slots, boolean captured,
+                          Map<LocalVariable, Object> vars, Map<VariableType, Type> tvars,
+                          Map<DJClass, Object> thisVals) {
+    _parent = parent;
+    _frame = frame;
+    _slots = slots;
+    _captured = captured;
+    _vars = vars;
+    _tvars = tvars;
+    _thisVals = thisVals;
+  }
+  
   private static <K, V> Map<K, V> makeMap(Iterable<? extends K> keys, Iterable<? extends V> vals) {
     Map<K, V> result = new HashMap<K, V>();
-    for (Pair<K, V> entry : IterUtil.zip(keys, vals)) { result.put(entry.first(), entry.second()); }
+    Iterator<? extends V> valsIter = vals.iterator();
+    for (K key : keys) { result.put(key, valsIter.next()); }
     return result;
   }
   
@@ -60,16 +106,49 @@ public class RuntimeBindings {
            Collections.<VariableType, Type>emptyMap(), Collections.singletonMap(thisClass, thisObj));
   }
   
+  private static boolean inFrame(Iterable<LocalVariable> vars, FrameLayout frame) {
+    for (LocalVariable v : vars) { if (v.frame() != frame) { return false; } }
+    return true;
+  }
+  
+  /** Copy the given map, unless it is empty (and so will never be modified). */
+  private static <K, V> Map<K, V> copy(Map<K, V> m) {
+    return m.isEmpty() ? Collections.<K, V>emptyMap() : new HashMap<K, V>(m);
+  }
+  
   public Object get(LocalVariable v) {
-    if (_vars.containsKey(v)) { return _vars.get(v); }
-    else if (_parent != null) { return _parent.get(v); }
-    else { throw new IllegalArgumentException("Variable " + v + " is undefined"); }
+    RuntimeBindings b = lookup(v);
+    if (b.hasSlot(v)) {
+      Object val = b.slots(v.slot())[v.slot()];
+      return (val instanceof Cell) ? ((Cell) val).value : val;
+    }
+    else { return b._vars.get(v); }
   }
   
   public void set(LocalVariable v, Object val) {
-    if (_vars.containsKey(v)) { _vars.put(v, val); }
-    else if (_parent != null) { _parent.set(v, val); }
-    else { throw new IllegalArgumentException("Variable " + v + " is undefined"); }
+    RuntimeBindings b = lookup(v);
+    if (b.hasSlot(v)) {
+      Object[] slots = b.slots(v.slot());
+      Object current = slots[v.slot()];
+      if (current instanceof Cell) { ((Cell) current).value = val; }
+      else { slots[v.slot()] = val; }
+    }
+    else { b._vars.put(v, val); }
+  }
+  
+  /**
+   * Bind a newly-declared variable to the given value.  If a frame for the variable's layout is
+   * available, the variable's slot is reinitialized (so no previous capture of the variable is
+   * affected), and these bindings are returned; otherwise, bindings extending these are created.
+   */
+  public RuntimeBindings bind(LocalVariable v, Object val) {
+    FrameLayout frame = v.frame();
+    if (frame != null) {
+      for (RuntimeBindings b = this; b != null; b = b._parent) {
+        if (b._frame == frame) { b.slots(v.slot())[v.slot()] = val; return this; }
+      }
+    }
+    return new RuntimeBindings(this, v, val);
   }
 
   public Type get(VariableType v) {
@@ -83,5 +162,65 @@ public class RuntimeBindings {
     else if (_parent != null) { return _parent.getThis(c); }
     else { throw new IllegalArgumentException("This value " + c + " is undefined"); }
   }
+  
+  /**
+   * The nearest frame for the given layout in this chain of bindings, or these bindings if there is
+   * none.  Used to find the environment in which a local function was declared, so that recursive
+   * calls do not lengthen the chain.
+   */
+  public RuntimeBindings enclosingFrame(FrameLayout frame) {
+    if (frame != null) {
+      for (RuntimeBindings b = this; b != null; b = b._parent) {
+        if (b._frame == frame) { return b; }
+      }
+    }
+    return this;
+  }
+  
+  /**
+   * Produce bindings that may be retained beyond the current evaluation (by an instance of a local
+   * class).  The innermost frame continues to be reused as its body executes, so it is copied.  Before
+   * copying, each of its values is moved into a cell shared by the frame and the copy: assignments
+   * are then visible in both, while a subsequent re-declaration (in the next iteration of a loop, for
+   * example) gives the frame a fresh value without affecting the copy.  This matches the behavior of
+   * binding each declaration in a new environment.
+   */
+  public RuntimeBindings capture() {
+    if (_frame != null) {
+      if (_captured) { return this; }
+      for (int i = 0; i < _slots.length; i++) {
+        if (!(_slots[i] instanceof Cell)) { _slots[i] = new Cell(_slots[i]); }
+      }
+      return new RuntimeBindings(_parent, _frame, _slots.clone(), true, _vars, _tvars, _thisVals);
+    }
+    else if (_parent == null) { return this; }
+    else {
+      RuntimeBindings parent = _parent.capture();
+      if (parent == _parent) { return this; }
+      else { return new RuntimeBindings(parent, null, null, false, _vars, _tvars, _thisVals); }
+    }
+  }
+  
+  /** Find the bindings in this chain that hold the given variable. */
+  private RuntimeBindings lookup(LocalVariable v) {
+    for (RuntimeBindings b = this; b != null; b = b._parent) {
+      if (b.hasSlot(v) || b._vars.containsKey(v)) { return b; }
+    }
+    throw new IllegalArgumentException("Variable " + v + " is undefined");
+  }
+  
+  private boolean hasSlot(LocalVariable v) { return _frame != null && _frame == v.frame(); }
+  
+  /** Get the slot array, growing it if the layout has been extended to include the given slot. */
+  private Object[] slots(int slot) {
+    if (slot >= _slots.length) { _slots = Arrays.copyOf(_slots, _frame.size()); }
+    return _slots;
+  }
+  
+  /** A variable shared by a frame and its captured copies. */
+  private static final class Cell {
+    public Object value;
+    public Cell(Object val) { value = val; }
+  }
 
 }
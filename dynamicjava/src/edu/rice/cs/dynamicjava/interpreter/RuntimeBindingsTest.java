@@ -0,0 +1,125 @@
+package edu.rice.cs.dynamicjava.interpreter;
+
+import junit.framework.TestCase;
+import edu.rice.cs.plt.tuple.Option;
+
+import edu.rice.cs.dynamicjava.Options;
+
+/**
+ * Regression tests for the slot-indexed frames of RuntimeBindings: variables captured by local and
+ * anonymous classes, recursive local functions, and the top-level frame of an interactions session.
+ * Each test runs with statements interpreted, and then compiled to bytecode where possible.
+ */
+public class RuntimeBindingsTest extends TestCase {
+
+  private static final Options COMPILE_STATEMENTS = new Options() {
+    @Override public boolean compileStatements() { return true; }
+  };
+
+  private Interpreter _interpreter;
+
+  /** Interpret each piece of code in turn, in a new session for each mode, and check the last result. */
+  private void assertResult(Object expected, String... code) throws InterpreterException {
+    for (Options opt : new Options[]{ Options.DEFAULT, COMPILE_STATEMENTS }) {
+      _interpreter = new Interpreter(opt);
+      _interpreter.interpret("import java.util.*;");
+      _interpreter.interpret("interface IntThunk { int value(); }");
+      Option<Object> result = Option.none();
+      for (String s : code) { result = _interpreter.interpret(s); }
+      assertEquals((opt == COMPILE_STATEMENTS ? "compiled: " : "interpreted: ") + code[code.length-1],
+                   Option.some(expected), result);
+    }
+  }
+
+  public void testAnonymousClassCapturesLoopVariable() throws InterpreterException {
+    assertResult("012",
+                 "List<IntThunk> cs = new ArrayList<IntThunk>();\n" +
+                 "for (int i = 0; i < 3; i++) {\n" +
+                 "  final int j = i;\n" +
+                 "  cs.add(new IntThunk() { public int value() { return j; } });\n" +
+                 "}\n" +
+                 "String s = \"\";\n" +
+                 "for (IntThunk c : cs) { s += c.value(); }\n" +
+                 "s");
+  }
+
+  public void testAnonymousClassCapturesForEachVariable() throws InterpreterException {
+    assertResult("456",
+                 "List<IntThunk> cs = new ArrayList<IntThunk>();\n" +
+                 "for (final int k : new int[]{ 4, 5, 6 }) {\n" +
+                 "  cs.add(new IntThunk() { public int value() { return k; } });\n" +
+                 "}\n" +
+                 "String s = \"\";\n" +
+                 "for (IntThunk c : cs) { s += c.value(); }\n" +
+                 "s");
+  }
+
+  public void testLocalClassCapturesLoopVariable() throws InterpreterException {
+    assertResult("01020",
+                 "List<IntThunk> cs = new ArrayList<IntThunk>();\n" +
+                 "for (int i = 0; i < 3; i++) {\n" +
+                 "  final int j = i * 10;\n" +
+                 "  class Local implements IntThunk { public int value() { return j; } }\n" +
+                 "  cs.add(new Local());\n" +
+                 "}\n" +
+                 "String s = \"\";\n" +
+                 "for (IntThunk c : cs) { s += c.value(); }\n" +
+                 "s");
+  }
+
+  public void testRecursiveLocalFunction() throws InterpreterException {
+    assertResult(3628800,
+                 "int factorial(int n) { return n <= 1 ? 1 : n * factorial(n - 1); }",
+                 "factorial(10)");
+    // each invocation has its own locals
+    assertResult(5050,
+                 "int sum(int n) { int acc = n; if (n > 0) { acc += sum(n - 1); } return acc; }\n" +
+                 "sum(100)");
+  }
+
+  public void testRecursiveLocalFunctionCapturedByClass() throws InterpreterException {
+    assertResult(55,
+                 "int fib(int n) { return n < 2 ? n : fib(n - 1) + fib(n - 2); }",
+                 "IntThunk c = new IntThunk() { public int value() { return fib(10); } };",
+                 "c.value()");
+  }
+
+  public void testRedeclareTopLevelVariable() throws InterpreterException {
+    assertResult("two",
+                 "int x = 1;",
+                 "String x = \"two\";",
+                 "x");
+    // a class that captured the first declaration still sees it
+    assertResult(3,
+                 "final int y = 1;",
+                 "IntThunk c = new IntThunk() { public int value() { return y; } };",
+                 "final int y = 2;",
+                 "c.value() + y");
+  }
+
+  public void testWriteAfterCapture() throws InterpreterException {
+    // assignments after the capture are visible to the class
+    assertResult(2,
+                 "int n = 1;",
+                 "IntThunk c = new IntThunk() { public int value() { return n; } };",
+                 "n = 2;",
+                 "c.value()");
+    // assignments by the class are visible to the session
+    assertResult(5,
+                 "int m = 1;",
+                 "Runnable r = new Runnable() { public void run() { m = 5; } };",
+                 "r.run();",
+                 "m");
+    // the same within a single method body
+    assertResult(12,
+                 "int f() {\n" +
+                 "  int v = 1;\n" +
+                 "  Runnable r = new Runnable() { public void run() { v += 10; } };\n" +
+                 "  v = 2;\n" +
+                 "  r.run();\n" +
+                 "  return v;\n" +
+                 "}",
+                 "f()");
+  }
+
+}
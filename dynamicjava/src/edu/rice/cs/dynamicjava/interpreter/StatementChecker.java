@@ -287,7 +287,8 @@ public class StatementChecker extends AbstractVisitor<TypeContext> implements La
     if (node.getType() == null) {
       // We infer the variable's type.  We can assume the initializer is non-null.
       Type initT = checkType(node.getInitializer());
-      LocalVariable v = new LocalVariable(node.getName(), initT, node.getModifiers().isFinal());
+      LocalVariable v = new LocalVariable(node.getName(), initT, node.getModifiers().isFinal(),
+                                          context.frameLayout());
       setVariable(node, v);
       setErasedType(node, ts.erasedClass(initT));
       return new LocalContext(context, v);
@@ -295,7 +296,8 @@ public class StatementChecker extends AbstractVisitor<TypeContext> implements La
     else {
       boolean initialized = (node.getInitializer() != null);
       Type t = checkTypeName(node.getType());
-      LocalVariable v = new LocalVariable(node.getName(), t, initialized && node.getModifiers().isFinal());
+      LocalVariable v = new LocalVariable(node.getName(), t, initialized && node.getModifiers().isFinal(),
+                                          context.frameLayout());
       setVariable(node, v);
       setErasedType(node, ts.erasedClass(t));
       TypeContext newContext = new LocalContext(context, v);
@@ -343,7 +345,8 @@ public class StatementChecker extends AbstractVisitor<TypeContext> implements La
    * ClassMemberChecker).
    */
   @Override public TypeContext visit(MethodDeclaration node) {
-    LocalFunction f = new LocalFunction(node);
+    LocalFunction f = new LocalFunction(node, context.frameLayout());
+    FrameLayout frame = setFrameLayout(node, new FrameLayout());
     
     TypeContext sigContext = new FunctionSignatureContext(context, f);
     TypeNameChecker sigChecker = new TypeNameChecker(sigContext, opt);
@@ -355,7 +358,7 @@ public class StatementChecker extends AbstractVisitor<TypeContext> implements La
     setErasedType(node, ts.erasedClass(returnT));
     for (FormalParameter p : node.getParameters()) {
       Type t = sigChecker.check(p.getType());
-      setVariable(p, new LocalVariable(p.getName(), t, p.getModifiers().isFinal()));
+      setVariable(p, new LocalVariable(p.getName(), t, p.getModifiers().isFinal(), frame));
     }
     for (ReferenceTypeName n : node.getExceptions()) { sigChecker.check(n); }
     
@@ -363,7 +366,7 @@ public class StatementChecker extends AbstractVisitor<TypeContext> implements La
       setErrorStrings(node, node.getName());
       throw new ExecutionError("missing.method.body", node);
     }
-    TypeContext bodyContext = new FunctionContext(sigContext, f);
+    TypeContext bodyContext = new FrameContext(new FunctionContext(sigContext, f), frame);
     node.getBody().acceptVisitor(new StatementChecker(bodyContext, opt));
     
     return new LocalContext(context, f);
@@ -444,7 +447,8 @@ public class StatementChecker extends AbstractVisitor<TypeContext> implements La
   @Override public TypeContext visit(ForEachStatement node) {
     FormalParameter p = node.getParameter();
     Type paramT = checkTypeName(p.getType());
-    LocalVariable var = setVariable(p, new LocalVariable(p.getName(), paramT, p.getModifiers().isFinal()));
+    LocalVariable var = setVariable(p, new LocalVariable(p.getName(), paramT, p.getModifiers().isFinal(),
+                                                         context.frameLayout()));
     TypeContext newContext = new LocalContext(context, var);
     Type collType = checkType(node.getCollection());
 
@@ -618,7 +622,8 @@ public class StatementChecker extends AbstractVisitor<TypeContext> implements La
       if (!ts.isReifiable(caughtT)) {
         throw new ExecutionError("reifiable.type", c);
       }
-      setVariable(p, new LocalVariable(p.getName(), caughtT, p.getModifiers().isFinal()));
+      setVariable(p, new LocalVariable(p.getName(), caughtT, p.getModifiers().isFinal(),
+                                       context.frameLayout()));
       setErasedType(c, ts.erasedClass(caughtT));
       caughtTypes.add(caughtT);
     }
@@ -0,0 +1,837 @@
+package edu.rice.cs.dynamicjava.interpreter;
+
+import java.util.*;
+import edu.rice.cs.plt.lambda.WrappedException;
+import edu.rice.cs.plt.reflect.ReflectUtil;
+import edu.rice.cs.plt.tuple.Option;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import edu.rice.cs.dynamicjava.symbol.LocalVariable;
+import edu.rice.cs.dynamicjava.symbol.TypeSystem;
+import edu.rice.cs.dynamicjava.symbol.type.*;
+import koala.dynamicjava.tree.*;
+import koala.dynamicjava.tree.visitor.*;
+import koala.dynamicjava.interpreter.NodeProperties;
+
+import static org.objectweb.asm.Opcodes.*;
+import static koala.dynamicjava.interpreter.NodeProperties.*;
+import static edu.rice.cs.plt.debug.DebugUtil.debug;
+
+/**
+ * Compiles a statement (typically a loop or a method body) that has been processed by the
+ * {@link StatementChecker} to bytecode, so that it can be executed without walking the tree.  Only a
+ * subset of the language is supported: local variables of primitive types; primitive literals,
+ * operators, assignments, increments, and casts; and the statements {@code if}, {@code while},
+ * {@code do}, {@code for}, {@code break}, {@code continue}, and {@code return}.  Any other construct
+ * (a method call, a field or array access, a reference-typed expression, a {@code switch}, a
+ * {@code try}, a jump out of the statement, etc.) makes the statement unsupported, and it must be
+ * evaluated by the {@link StatementEvaluator} instead.
+ * <p>
+ * All local variables of a compiled statement live in JVM local variable slots.  Variables declared
+ * outside the statement are read from the {@link RuntimeBindings} on entry and, if they are assigned,
+ * written back on exit -- whether the statement completes normally, returns, or throws an exception.
+ * Each compiled statement is a separate class, defined by its own class loader, so that it can be
+ * unloaded along with the tree.  A compiled class looks something like the following:</p>
+ * <pre>
+ * public final class DynamicJavaCompiledStatement implements StatementCompiler.Code {
+ *   public Object run(Object[] vars) {
+ *     int sum = (Integer) vars[0]; // a free variable
+ *     try {
+ *       for (int i = 0; i &lt; 10000000; i++) { sum += i; }
+ *       return null; // or Option.some(value) for a return statement
+ *     }
+ *     finally { vars[0] = sum; } // only for assigned free variables
+ *   }
+ * }
+ * </pre>
+ */
+public class StatementCompiler {
+
+  /** The name of each compiled class (every class is defined by a different class loader). */
+  private static final String CLASS_NAME = "DynamicJavaCompiledStatement";
+
+  private static final String CODE_NAME = org.objectweb.asm.Type.getInternalName(Code.class);
+  private static final String OPTION_NAME = org.objectweb.asm.Type.getInternalName(Option.class);
+  private static final String OBJECT_DESCRIPTOR = org.objectweb.asm.Type.getDescriptor(Object.class);
+  private static final String OPTION_DESCRIPTOR = org.objectweb.asm.Type.getDescriptor(Option.class);
+  private static final String RUN_DESCRIPTOR = "([" + OBJECT_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR;
+
+  // slots 0 and 1 are "this" and the "vars" parameter
+  private static final int RESULT_SLOT = 2;
+  private static final int EXCEPTION_SLOT = 3;
+  private static final int FIRST_VARIABLE_SLOT = 4;
+
+  /**
+   * Get the compiled form of the given statement, compiling it if this has not yet been attempted.
+   * The result is recorded as a property of the statement.
+   * @return  The compiled statement, or "none" if the statement cannot be compiled.
+   */
+  public static Option<CompiledStatement> compile(Node stmt) {
+    synchronized (stmt) {
+      if (hasCompiledStatement(stmt)) { return getCompiledStatement(stmt); }
+      Option<CompiledStatement> result;
+      try { result = Option.some(new StatementCompiler(stmt).compile()); }
+      catch (UnsupportedException e) {
+        debug.logValue("Statement is not compilable", e.getMessage());
+        result = Option.none();
+      }
+      catch (LinkageError e) {
+        // the generated code is not valid -- fall back to interpretation
+        debug.log("Unable to load compiled statement", e);
+        result = Option.none();
+      }
+      return setCompiledStatement(stmt, result);
+    }
+  }
+
+
+  /** The interface implemented by compiled classes. */
+  public static interface Code {
+    /**
+     * Execute the statement.
+     * @param vars  The values of the statement's free variables.  Assigned variables are updated on exit.
+     * @return  {@code null} if the statement completed normally; otherwise, the {@code Option} value of
+     *          a {@code return} statement.
+     */
+    public Object run(Object[] vars);
+  }
+
+  /** A compiled statement, along with a description of the free variables it reads and writes. */
+  public static class CompiledStatement {
+    private final Code _code;
+    private final LocalVariable[] _vars;
+    private final Class<?>[] _types;
+    private final boolean[] _assigned;
+
+    private CompiledStatement(Code code, LocalVariable[] vars, Class<?>[] types, boolean[] assigned) {
+      _code = code;
+      _vars = vars;
+      _types = types;
+      _assigned = assigned;
+    }
+
+    /**
+     * Execute the statement in the given environment.  As in the {@link StatementEvaluator}, exceptions
+     * are wrapped in {@link EvaluatorException}s, which in turn are wrapped in {@code WrappedException}s.
+     * @throws StatementEvaluator.ReturnException  If the statement executed a {@code return} statement.
+     */
+    public void execute(RuntimeBindings bindings) {
+      Object[] vals = new Object[_vars.length];
+      for (int i = 0; i < _vars.length; i++) {
+        vals[i] = ExpressionEvaluator.convert(bindings.get(_vars[i]), _types[i]);
+      }
+      Object result;
+      try { result = _code.run(vals); }
+      catch (Throwable t) { throw new WrappedException(new EvaluatorException(t, CLASS_NAME + ".run")); }
+      finally {
+        for (int i = 0; i < _vars.length; i++) {
+          if (_assigned[i]) { bindings.set(_vars[i], vals[i]); }
+        }
+      }
+      if (result != null) {
+        Option<?> value = (Option<?>) result;
+        if (value.isSome()) { throw new StatementEvaluator.ReturnException(value.unwrap()); }
+        else { throw new StatementEvaluator.ReturnException(); }
+      }
+    }
+  }
+
+
+  private final Node _stmt;
+  private final Map<LocalVariable, Integer> _slots;
+  private final List<LocalVariable> _freeVars;
+  private final Set<LocalVariable> _assigned;
+  private int _nextSlot;
+  private MethodVisitor _mv;
+  private LinkedList<JumpTarget> _targets;
+  private Label _exit;
+
+  private StatementCompiler(Node stmt) {
+    _stmt = stmt;
+    _slots = new HashMap<LocalVariable, Integer>();
+    _freeVars = new ArrayList<LocalVariable>();
+    _assigned = new HashSet<LocalVariable>();
+    _nextSlot = FIRST_VARIABLE_SLOT;
+  }
+
+  /**
+   * Generate and load the code.  The method body is generated twice: the first pass, with output
+   * discarded, checks that the statement is supported and finds its free and assigned variables, which
+   * must be known in order to produce the method's prologue and exception handler.
+   */
+  private CompiledStatement compile() {
+    _mv = new MethodVisitor(ASM5) {};
+    generateRun();
+
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, CLASS_NAME, null, "java/lang/Object",
+             new String[]{ CODE_NAME });
+    MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    init.visitCode();
+    init.visitVarInsn(ALOAD, 0);
+    init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    init.visitInsn(RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+    _mv = cw.visitMethod(ACC_PUBLIC, "run", RUN_DESCRIPTOR, null, null);
+    _mv.visitCode();
+    generateRun();
+    _mv.visitMaxs(0, 0);
+    _mv.visitEnd();
+    cw.visitEnd();
+
+    Code code;
+    try { code = (Code) new CodeLoader().define(cw.toByteArray()).newInstance(); }
+    catch (InstantiationException e) { throw new RuntimeException(e); }
+    catch (IllegalAccessException e) { throw new RuntimeException(e); }
+
+    int size = _freeVars.size();
+    LocalVariable[] vars = _freeVars.toArray(new LocalVariable[size]);
+    Class<?>[] types = new Class<?>[size];
+    boolean[] assigned = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      types[i] = variableClass(vars[i]);
+      assigned[i] = _assigned.contains(vars[i]);
+    }
+    return new CompiledStatement(code, vars, types, assigned);
+  }
+
+  private void generateRun() {
+    _targets = new LinkedList<JumpTarget>();
+    _exit = new Label();
+    Label start = new Label();
+    Label end = new Label();
+    Label handler = new Label();
+    boolean writesFreeVars = false;
+    for (LocalVariable v : _freeVars) { writesFreeVars |= _assigned.contains(v); }
+    if (writesFreeVars) { _mv.visitTryCatchBlock(start, end, handler, null); }
+
+    for (int i = 0; i < _freeVars.size(); i++) {
+      LocalVariable v = _freeVars.get(i);
+      Class<?> c = variableClass(v);
+      _mv.visitVarInsn(ALOAD, 1);
+      pushInt(i);
+      _mv.visitInsn(AALOAD);
+      unbox(c);
+      _mv.visitVarInsn(asmType(c).getOpcode(ISTORE), _slots.get(v));
+    }
+    _mv.visitLabel(start);
+    _mv.visitInsn(NOP); // guarantees a non-empty protected range
+    _stmt.acceptVisitor(new StatementVisitor());
+    _mv.visitInsn(ACONST_NULL);
+    _mv.visitVarInsn(ASTORE, RESULT_SLOT);
+    _mv.visitLabel(end);
+    _mv.visitLabel(_exit);
+    writeBackFreeVars();
+    _mv.visitVarInsn(ALOAD, RESULT_SLOT);
+    _mv.visitInsn(ARETURN);
+
+    if (writesFreeVars) {
+      _mv.visitLabel(handler);
+      _mv.visitVarInsn(ASTORE, EXCEPTION_SLOT);
+      writeBackFreeVars();
+      _mv.visitVarInsn(ALOAD, EXCEPTION_SLOT);
+      _mv.visitInsn(ATHROW);
+    }
+  }
+
+  private void writeBackFreeVars() {
+    for (int i = 0; i < _freeVars.size(); i++) {
+      LocalVariable v = _freeVars.get(i);
+      if (_assigned.contains(v)) {
+        Class<?> c = variableClass(v);
+        _mv.visitVarInsn(ALOAD, 1);
+        pushInt(i);
+        _mv.visitVarInsn(asmType(c).getOpcode(ILOAD), _slots.get(v));
+        box(c);
+        _mv.visitInsn(AASTORE);
+      }
+    }
+  }
+
+
+  /** Thrown when the statement contains a construct that cannot be compiled. */
+  private static class UnsupportedException extends RuntimeException {
+    public UnsupportedException(Node n) { super(n.getClass().getSimpleName() + " at " + n.getSourceInfo()); }
+  }
+
+  /** Defines a single compiled class. */
+  private static class CodeLoader extends ClassLoader {
+    public CodeLoader() { super(StatementCompiler.class.getClassLoader()); }
+    public Class<?> define(byte[] bytes) { return defineClass(CLASS_NAME, bytes, 0, bytes.length); }
+  }
+
+  /**
+   * An enclosing statement that may be the target of a {@code break} (and, if {@code continueLabel}
+   * is non-null, of a {@code continue}).  {@code label} is the name of a labeled statement.
+   */
+  private static class JumpTarget {
+    public final Node node;
+    public final String label;
+    public final Label breakLabel;
+    public final Label continueLabel;
+    public JumpTarget(Node n, String l, Label b, Label c) {
+      node = n; label = l; breakLabel = b; continueLabel = c;
+    }
+  }
+
+
+  /* * * * * * * * * *
+   * STATEMENTS
+   * * * * * * * * * */
+
+  private class StatementVisitor extends AbstractVisitor<Void> {
+
+    @Override public Void defaultCase(Node node) { throw new UnsupportedException(node); }
+
+    @Override public Void visit(EmptyStatement node) { return null; }
+
+    @Override public Void visit(BlockStatement node) {
+      for (Node n : node.getStatements()) { n.acceptVisitor(this); }
+      return null;
+    }
+
+    @Override public Void visit(VariableDeclaration node) {
+      LocalVariable v = getVariable(node);
+      Class<?> c = variableClass(v);
+      int slot = declare(v);
+      if (node.getInitializer() == null) { pushZero(c); }
+      else { convert(compileExpression(node.getInitializer()), c); }
+      _mv.visitVarInsn(asmType(c).getOpcode(ISTORE), slot);
+      return null;
+    }
+
+    @Override public Void visit(ExpressionStatement node) {
+      if (hasStatementTranslation(node)) { return getStatementTranslation(node).acceptVisitor(this); }
+      // a statement without a semicolon may produce a value to be displayed
+      if (!node.getHasSemicolon() && !getType(node.getExpression()).equals(TypeSystem.VOID)) {
+        throw new UnsupportedException(node);
+      }
+      pop(compileExpression(node.getExpression()));
+      return null;
+    }
+
+    @Override public Void visit(IfThenStatement node) {
+      Label end = new Label();
+      compileCondition(node.getCondition());
+      _mv.visitJumpInsn(IFEQ, end);
+      node.getThenStatement().acceptVisitor(this);
+      _mv.visitLabel(end);
+      return null;
+    }
+
+    @Override public Void visit(IfThenElseStatement node) {
+      Label elseLabel = new Label();
+      Label end = new Label();
+      compileCondition(node.getCondition());
+      _mv.visitJumpInsn(IFEQ, elseLabel);
+      node.getThenStatement().acceptVisitor(this);
+      _mv.visitJumpInsn(GOTO, end);
+      _mv.visitLabel(elseLabel);
+      node.getElseStatement().acceptVisitor(this);
+      _mv.visitLabel(end);
+      return null;
+    }
+
+    @Override public Void visit(WhileStatement node) {
+      Label test = new Label();
+      Label end = new Label();
+      _mv.visitLabel(test);
+      compileCondition(node.getCondition());
+      _mv.visitJumpInsn(IFEQ, end);
+      compileLoopBody(node, node.getBody(), end, test);
+      _mv.visitJumpInsn(GOTO, test);
+      _mv.visitLabel(end);
+      return null;
+    }
+
+    @Override public Void visit(DoStatement node) {
+      Label top = new Label();
+      Label test = new Label();
+      Label end = new Label();
+      _mv.visitLabel(top);
+      compileLoopBody(node, node.getBody(), end, test);
+      _mv.visitLabel(test);
+      compileCondition(node.getCondition());
+      _mv.visitJumpInsn(IFNE, top);
+      _mv.visitLabel(end);
+      return null;
+    }
+
+    @Override public Void visit(ForStatement node) {
+      if (node.getInitialization() != null) {
+        for (Node n : node.getInitialization()) { n.acceptVisitor(this); }
+      }
+      Label test = new Label();
+      Label update = new Label();
+      Label end = new Label();
+      _mv.visitLabel(test);
+      if (node.getCondition() != null) {
+        compileCondition(node.getCondition());
+        _mv.visitJumpInsn(IFEQ, end);
+      }
+      compileLoopBody(node, node.getBody(), end, update);
+      _mv.visitLabel(update);
+      if (node.getUpdate() != null) {
+        for (Node n : node.getUpdate()) { n.acceptVisitor(this); }
+      }
+      _mv.visitJumpInsn(GOTO, test);
+      _mv.visitLabel(end);
+      return null;
+    }
+
+    private void compileLoopBody(Node loop, Node body, Label breakLabel, Label continueLabel) {
+      _targets.addFirst(new JumpTarget(loop, null, breakLabel, continueLabel));
+      body.acceptVisitor(this);
+      _targets.removeFirst();
+    }
+
+    @Override public Void visit(LabeledStatement node) {
+      Label end = new Label();
+      _targets.addFirst(new JumpTarget(node, node.getLabel(), end, null));
+      node.getStatement().acceptVisitor(this);
+      _targets.removeFirst();
+      _mv.visitLabel(end);
+      return null;
+    }
+
+    @Override public Void visit(BreakStatement node) {
+      for (JumpTarget t : _targets) {
+        boolean matches = (node.getLabel() == null) ? t.continueLabel != null : node.getLabel().equals(t.label);
+        if (matches) { _mv.visitJumpInsn(GOTO, t.breakLabel); return null; }
+      }
+      throw new UnsupportedException(node); // the target is outside of the compiled statement
+    }
+
+    @Override public Void visit(ContinueStatement node) {
+      for (JumpTarget t : _targets) {
+        if (t.continueLabel != null &&
+            (node.getLabel() == null || ((ContinueTarget) t.node).hasLabel(node.getLabel()))) {
+          _mv.visitJumpInsn(GOTO, t.continueLabel);
+          return null;
+        }
+      }
+      throw new UnsupportedException(node); // the target is outside of the compiled statement
+    }
+
+    @Override public Void visit(ReturnStatement node) {
+      if (node.getExpression() == null) {
+        _mv.visitMethodInsn(INVOKESTATIC, OPTION_NAME, "none", "()" + OPTION_DESCRIPTOR, false);
+      }
+      else {
+        box(compileExpression(node.getExpression()));
+        _mv.visitMethodInsn(INVOKESTATIC, OPTION_NAME, "some",
+                            "(" + OBJECT_DESCRIPTOR + ")" + OPTION_DESCRIPTOR, false);
+      }
+      _mv.visitVarInsn(ASTORE, RESULT_SLOT);
+      _mv.visitJumpInsn(GOTO, _exit);
+      return null;
+    }
+
+  }
+
+
+  /* * * * * * * * * *
+   * EXPRESSIONS
+   * * * * * * * * * */
+
+  /**
+   * Generate code to push the value of the given expression, following the same rules as
+   * {@link ExpressionEvaluator#value}.
+   * @return  The (primitive) class of the pushed value
+   */
+  private Class<?> compileExpression(Expression exp) {
+    Class<?> result;
+    if (hasValue(exp)) { result = pushConstant(getValue(exp), exp); }
+    else if (hasTranslation(exp)) { result = compileExpression(getTranslation(exp)); }
+    else { result = exp.acceptVisitor(new ExpressionVisitor()); }
+    if (hasConvertedType(exp)) {
+      Class<?> target = getConvertedType(exp).value();
+      convert(result, target);
+      result = target;
+    }
+    if (hasCheckedType(exp)) { throw new UnsupportedException(exp); }
+    return result;
+  }
+
+  private void compileCondition(Expression exp) {
+    if (!compileExpression(exp).equals(boolean.class)) { throw new UnsupportedException(exp); }
+  }
+
+  private class ExpressionVisitor extends AbstractVisitor<Class<?>> {
+
+    @Override public Class<?> defaultCase(Node node) { throw new UnsupportedException(node); }
+
+    @Override public Class<?> visit(Literal node) { return pushConstant(node.getValue(), node); }
+
+    @Override public Class<?> visit(VariableAccess node) {
+      LocalVariable v = getVariable(node);
+      Class<?> c = variableClass(v);
+      _mv.visitVarInsn(asmType(c).getOpcode(ILOAD), access(v));
+      return c;
+    }
+
+    @Override public Class<?> visit(CastExpression node) {
+      // conversions are attached to the operand
+      return compileExpression(node.getExpression());
+    }
+
+    @Override public Class<?> visit(NotExpression node) {
+      compileCondition(node.getExpression());
+      _mv.visitInsn(ICONST_1);
+      _mv.visitInsn(IXOR);
+      return boolean.class;
+    }
+
+    @Override public Class<?> visit(ComplementExpression node) {
+      Class<?> c = compileExpression(node.getExpression());
+      if (c.equals(long.class)) { _mv.visitLdcInsn(-1L); }
+      else { _mv.visitInsn(ICONST_M1); }
+      _mv.visitInsn(asmType(c).getOpcode(IXOR));
+      return c;
+    }
+
+    @Override public Class<?> visit(PlusExpression node) { return compileExpression(node.getExpression()); }
+
+    @Override public Class<?> visit(MinusExpression node) {
+      Class<?> c = compileExpression(node.getExpression());
+      _mv.visitInsn(asmType(c).getOpcode(INEG));
+      return c;
+    }
+
+    @Override public Class<?> visit(AddExpression node) {
+      if (getOperation(node) != ExpressionEvaluator.ADD) { throw new UnsupportedException(node); }
+      return compileBinary(node, IADD);
+    }
+    @Override public Class<?> visit(SubtractExpression node) { return compileBinary(node, ISUB); }
+    @Override public Class<?> visit(MultiplyExpression node) { return compileBinary(node, IMUL); }
+    @Override public Class<?> visit(DivideExpression node) { return compileBinary(node, IDIV); }
+    @Override public Class<?> visit(RemainderExpression node) { return compileBinary(node, IREM); }
+    @Override public Class<?> visit(BitAndExpression node) { return compileBinary(node, IAND); }
+    @Override public Class<?> visit(BitOrExpression node) { return compileBinary(node, IOR); }
+    @Override public Class<?> visit(ExclusiveOrExpression node) { return compileBinary(node, IXOR); }
+    @Override public Class<?> visit(ShiftLeftExpression node) { return compileBinary(node, ISHL); }
+    @Override public Class<?> visit(ShiftRightExpression node) { return compileBinary(node, ISHR); }
+    @Override public Class<?> visit(UnsignedShiftRightExpression node) { return compileBinary(node, IUSHR); }
+
+    private Class<?> compileBinary(BinaryExpression node, int opcode) {
+      Class<?> left = compileExpression(node.getLeftExpression());
+      Class<?> right = compileExpression(node.getRightExpression());
+      return compileOperation(node, opcode, left, right);
+    }
+
+    @Override public Class<?> visit(EqualExpression node) {
+      if (getOperation(node) != ExpressionEvaluator.PRIMITIVE_EQUAL) { throw new UnsupportedException(node); }
+      return compileComparison(node, IF_ICMPEQ, IFEQ, FCMPL, DCMPL);
+    }
+
+    @Override public Class<?> visit(NotEqualExpression node) {
+      if (getOperation(node) != ExpressionEvaluator.PRIMITIVE_NOT_EQUAL) { throw new UnsupportedException(node); }
+      return compileComparison(node, IF_ICMPNE, IFNE, FCMPL, DCMPL);
+    }
+
+    // For floating-point comparisons, the choice of FCMPG or FCMPL guarantees that NaN compares false
+    @Override public Class<?> visit(LessExpression node) {
+      return compileComparison(node, IF_ICMPLT, IFLT, FCMPG, DCMPG);
+    }
+    @Override public Class<?> visit(LessOrEqualExpression node) {
+      return compileComparison(node, IF_ICMPLE, IFLE, FCMPG, DCMPG);
+    }
+    @Override public Class<?> visit(GreaterExpression node) {
+      return compileComparison(node, IF_ICMPGT, IFGT, FCMPL, DCMPL);
+    }
+    @Override public Class<?> visit(GreaterOrEqualExpression node) {
+      return compileComparison(node, IF_ICMPGE, IFGE, FCMPL, DCMPL);
+    }
+
+    private Class<?> compileComparison(BinaryExpression node, int intJump, int jump, int floatCmp, int doubleCmp) {
+      Class<?> left = compileExpression(node.getLeftExpression());
+      Class<?> right = compileExpression(node.getRightExpression());
+      if (!left.equals(right)) { throw new UnsupportedException(node); }
+      Label isTrue = new Label();
+      Label end = new Label();
+      if (left.equals(long.class)) { _mv.visitInsn(LCMP); _mv.visitJumpInsn(jump, isTrue); }
+      else if (left.equals(float.class)) { _mv.visitInsn(floatCmp); _mv.visitJumpInsn(jump, isTrue); }
+      else if (left.equals(double.class)) { _mv.visitInsn(doubleCmp); _mv.visitJumpInsn(jump, isTrue); }
+      else { _mv.visitJumpInsn(intJump, isTrue); }
+      _mv.visitInsn(ICONST_0);
+      _mv.visitJumpInsn(GOTO, end);
+      _mv.visitLabel(isTrue);
+      _mv.visitInsn(ICONST_1);
+      _mv.visitLabel(end);
+      return boolean.class;
+    }
+
+    @Override public Class<?> visit(AndExpression node) {
+      Label isFalse = new Label();
+      Label end = new Label();
+      compileCondition(node.getLeftExpression());
+      _mv.visitJumpInsn(IFEQ, isFalse);
+      compileCondition(node.getRightExpression());
+      _mv.visitJumpInsn(IFEQ, isFalse);
+      _mv.visitInsn(ICONST_1);
+      _mv.visitJumpInsn(GOTO, end);
+      _mv.visitLabel(isFalse);
+      _mv.visitInsn(ICONST_0);
+      _mv.visitLabel(end);
+      return boolean.class;
+    }
+
+    @Override public Class<?> visit(OrExpression node) {
+      Label isTrue = new Label();
+      Label end = new Label();
+      compileCondition(node.getLeftExpression());
+      _mv.visitJumpInsn(IFNE, isTrue);
+      compileCondition(node.getRightExpression());
+      _mv.visitJumpInsn(IFNE, isTrue);
+      _mv.visitInsn(ICONST_0);
+      _mv.visitJumpInsn(GOTO, end);
+      _mv.visitLabel(isTrue);
+      _mv.visitInsn(ICONST_1);
+      _mv.visitLabel(end);
+      return boolean.class;
+    }
+
+    @Override public Class<?> visit(ConditionalExpression node) {
+      Class<?> c = primitiveClass(getType(node), node);
+      Label elseLabel = new Label();
+      Label end = new Label();
+      compileCondition(node.getConditionExpression());
+      _mv.visitJumpInsn(IFEQ, elseLabel);
+      convert(compileExpression(node.getIfTrueExpression()), c);
+      _mv.visitJumpInsn(GOTO, end);
+      _mv.visitLabel(elseLabel);
+      convert(compileExpression(node.getIfFalseExpression()), c);
+      _mv.visitLabel(end);
+      return c;
+    }
+
+    @Override public Class<?> visit(SimpleAssignExpression node) {
+      LocalVariable v = assignedVariable(node.getLeftExpression());
+      Class<?> c = variableClass(v);
+      convert(compileExpression(node.getRightExpression()), c);
+      return store(v, c);
+    }
+
+    @Override public Class<?> visit(AddAssignExpression node) {
+      if (getOperation(node) != ExpressionEvaluator.ADD) { throw new UnsupportedException(node); }
+      return compileOpAssign(node, IADD);
+    }
+    @Override public Class<?> visit(SubtractAssignExpression node) { return compileOpAssign(node, ISUB); }
+    @Override public Class<?> visit(MultiplyAssignExpression node) { return compileOpAssign(node, IMUL); }
+    @Override public Class<?> visit(DivideAssignExpression node) { return compileOpAssign(node, IDIV); }
+    @Override public Class<?> visit(RemainderAssignExpression node) { return compileOpAssign(node, IREM); }
+    @Override public Class<?> visit(BitAndAssignExpression node) { return compileOpAssign(node, IAND); }
+    @Override public Class<?> visit(BitOrAssignExpression node) { return compileOpAssign(node, IOR); }
+    @Override public Class<?> visit(ExclusiveOrAssignExpression node) { return compileOpAssign(node, IXOR); }
+    @Override public Class<?> visit(ShiftLeftAssignExpression node) { return compileOpAssign(node, ISHL); }
+    @Override public Class<?> visit(ShiftRightAssignExpression node) { return compileOpAssign(node, ISHR); }
+    @Override public Class<?> visit(UnsignedShiftRightAssignExpression node) {
+      return compileOpAssign(node, IUSHR);
+    }
+
+    /** Narrows the result to the type of the variable, as in JLS 15.26.2. */
+    private Class<?> compileOpAssign(AssignExpression node, int opcode) {
+      LocalVariable v = assignedVariable(node.getLeftExpression());
+      Class<?> c = variableClass(v);
+      Class<?> left = compileExpression(NodeProperties.getLeftExpression(node));
+      Class<?> right = compileExpression(node.getRightExpression());
+      convert(compileOperation(node, opcode, left, right), c);
+      return store(v, c);
+    }
+
+    @Override public Class<?> visit(PreIncrement node) { return compileIncrement(node, IADD, false); }
+    @Override public Class<?> visit(PreDecrement node) { return compileIncrement(node, ISUB, false); }
+    @Override public Class<?> visit(PostIncrement node) { return compileIncrement(node, IADD, true); }
+    @Override public Class<?> visit(PostDecrement node) { return compileIncrement(node, ISUB, true); }
+
+    private Class<?> compileIncrement(UnaryExpression node, int opcode, boolean post) {
+      LocalVariable v = assignedVariable(node.getExpression());
+      Class<?> c = variableClass(v);
+      if (c.equals(boolean.class)) { throw new UnsupportedException(node); }
+      org.objectweb.asm.Type t = asmType(c);
+      _mv.visitVarInsn(t.getOpcode(ILOAD), access(v));
+      if (post) { dup(c); }
+      if (c.equals(long.class)) { _mv.visitInsn(LCONST_1); }
+      else if (c.equals(float.class)) { _mv.visitInsn(FCONST_1); }
+      else if (c.equals(double.class)) { _mv.visitInsn(DCONST_1); }
+      else { _mv.visitInsn(ICONST_1); }
+      _mv.visitInsn(t.getOpcode(opcode));
+      convert(stackClass(c), c);
+      if (post) { _mv.visitVarInsn(t.getOpcode(ISTORE), access(v)); return c; }
+      else { return store(v, c); }
+    }
+
+    /**
+     * Apply a binary operator to the values on the stack.  Except for shifts, the operands must have
+     * been promoted to the same type.
+     */
+    private Class<?> compileOperation(Node node, int opcode, Class<?> left, Class<?> right) {
+      if (opcode == ISHL || opcode == ISHR || opcode == IUSHR) {
+        if (right.equals(long.class)) { _mv.visitInsn(L2I); }
+        else if (!stackClass(right).equals(int.class)) { throw new UnsupportedException(node); }
+      }
+      else if (!left.equals(right)) { throw new UnsupportedException(node); }
+      _mv.visitInsn(asmType(left).getOpcode(opcode));
+      return left;
+    }
+
+  }
+
+
+  /* * * * * * * * * *
+   * VARIABLES AND VALUES
+   * * * * * * * * * */
+
+  /** The slot of a variable declared by the compiled statement. */
+  private int declare(LocalVariable v) {
+    Integer result = _slots.get(v);
+    if (result == null) {
+      result = _nextSlot;
+      _slots.put(v, result);
+      _nextSlot += asmType(variableClass(v)).getSize();
+    }
+    return result;
+  }
+
+  /** The slot of a variable that is read or written; if it has not been declared, it is a free variable. */
+  private int access(LocalVariable v) {
+    if (!_slots.containsKey(v)) { _freeVars.add(v); }
+    return declare(v);
+  }
+
+  /** The local variable that is the target of an assignment or increment. */
+  private LocalVariable assignedVariable(Expression exp) {
+    while (hasTranslation(exp)) { exp = getTranslation(exp); }
+    if (!(exp instanceof VariableAccess)) { throw new UnsupportedException(exp); }
+    LocalVariable result = getVariable(exp);
+    _assigned.add(result);
+    return result;
+  }
+
+  /** Store the value on the stack in the given variable, leaving a copy on the stack. */
+  private Class<?> store(LocalVariable v, Class<?> c) {
+    dup(c);
+    _mv.visitVarInsn(asmType(c).getOpcode(ISTORE), access(v));
+    return c;
+  }
+
+  private Class<?> variableClass(LocalVariable v) {
+    return primitiveClass(v.type(), _stmt);
+  }
+
+  /** The primitive class corresponding to {@code t}; throws an UnsupportedException if there is none. */
+  private static Class<?> primitiveClass(Type t, Node n) {
+    if (t instanceof BooleanType) { return boolean.class; }
+    else if (t instanceof CharType) { return char.class; }
+    else if (t instanceof ByteType) { return byte.class; }
+    else if (t instanceof ShortType) { return short.class; }
+    else if (t instanceof IntType) { return int.class; }
+    else if (t instanceof LongType) { return long.class; }
+    else if (t instanceof FloatType) { return float.class; }
+    else if (t instanceof DoubleType) { return double.class; }
+    else { throw new UnsupportedException(n); }
+  }
+
+  /** The class of a value of class {@code c} on the operand stack (boolean, byte, char, and short are ints). */
+  private static Class<?> stackClass(Class<?> c) {
+    if (c.equals(long.class) || c.equals(float.class) || c.equals(double.class)) { return c; }
+    else { return int.class; }
+  }
+
+  private static org.objectweb.asm.Type asmType(Class<?> c) { return org.objectweb.asm.Type.getType(c); }
+
+  /** Push a primitive constant.  Other values (strings, null) are unsupported. */
+  private Class<?> pushConstant(Object val, Node n) {
+    if (val instanceof Boolean) { pushInt(((Boolean) val) ? 1 : 0); return boolean.class; }
+    else if (val instanceof Character) { pushInt((Character) val); return char.class; }
+    else if (val instanceof Byte) { pushInt((Byte) val); return byte.class; }
+    else if (val instanceof Short) { pushInt((Short) val); return short.class; }
+    else if (val instanceof Integer) { pushInt((Integer) val); return int.class; }
+    else if (val instanceof Long) {
+      long l = (Long) val;
+      if (l == 0l || l == 1l) { _mv.visitInsn(LCONST_0 + (int) l); }
+      else { _mv.visitLdcInsn(val); }
+      return long.class;
+    }
+    else if (val instanceof Float) {
+      float f = (Float) val;
+      if (Float.floatToRawIntBits(f) == 0 || f == 1.0f || f == 2.0f) { _mv.visitInsn(FCONST_0 + (int) f); }
+      else { _mv.visitLdcInsn(val); }
+      return float.class;
+    }
+    else if (val instanceof Double) {
+      double d = (Double) val;
+      if (Double.doubleToRawLongBits(d) == 0l || d == 1.0) { _mv.visitInsn(DCONST_0 + (int) d); }
+      else { _mv.visitLdcInsn(val); }
+      return double.class;
+    }
+    else { throw new UnsupportedException(n); }
+  }
+
+  private void pushInt(int i) {
+    if (i >= -1 && i <= 5) { _mv.visitInsn(ICONST_0 + i); }
+    else if (i >= Byte.MIN_VALUE && i <= Byte.MAX_VALUE) { _mv.visitIntInsn(BIPUSH, i); }
+    else if (i >= Short.MIN_VALUE && i <= Short.MAX_VALUE) { _mv.visitIntInsn(SIPUSH, i); }
+    else { _mv.visitLdcInsn(i); }
+  }
+
+  private void pushZero(Class<?> c) {
+    if (c.equals(long.class)) { _mv.visitInsn(LCONST_0); }
+    else if (c.equals(float.class)) { _mv.visitInsn(FCONST_0); }
+    else if (c.equals(double.class)) { _mv.visitInsn(DCONST_0); }
+    else { _mv.visitInsn(ICONST_0); }
+  }
+
+  private void pop(Class<?> c) {
+    _mv.visitInsn(asmType(c).getSize() == 2 ? POP2 : POP);
+  }
+
+  private void dup(Class<?> c) {
+    _mv.visitInsn(asmType(c).getSize() == 2 ? DUP2 : DUP);
+  }
+
+  private void box(Class<?> c) {
+    String boxed = org.objectweb.asm.Type.getInternalName(ReflectUtil.box(c));
+    _mv.visitMethodInsn(INVOKESTATIC, boxed, "valueOf",
+                        "(" + asmType(c).getDescriptor() + ")L" + boxed + ";", false);
+  }
+
+  private void unbox(Class<?> c) {
+    String boxed = org.objectweb.asm.Type.getInternalName(ReflectUtil.box(c));
+    _mv.visitTypeInsn(CHECKCAST, boxed);
+    _mv.visitMethodInsn(INVOKEVIRTUAL, boxed, c.getName() + "Value", "()" + asmType(c).getDescriptor(), false);
+  }
+
+  /** Convert the primitive value on the stack from class {@code from} to class {@code to} (JLS 5.1.2, 5.1.3). */
+  private void convert(Class<?> from, Class<?> to) {
+    if (from.equals(to)) { return; }
+    if (from.equals(boolean.class) || to.equals(boolean.class)) {
+      throw new IllegalArgumentException("Can't convert from " + from + " to " + to);
+    }
+    Class<?> fromStack = stackClass(from);
+    Class<?> toStack = stackClass(to);
+    if (!fromStack.equals(toStack)) {
+      if (fromStack.equals(int.class)) {
+        _mv.visitInsn(toStack.equals(long.class) ? I2L : toStack.equals(float.class) ? I2F : I2D);
+      }
+      else if (fromStack.equals(long.class)) {
+        _mv.visitInsn(toStack.equals(int.class) ? L2I : toStack.equals(float.class) ? L2F : L2D);
+      }
+      else if (fromStack.equals(float.class)) {
+        _mv.visitInsn(toStack.equals(int.class) ? F2I : toStack.equals(long.class) ? F2L : F2D);
+      }
+      else {
+        _mv.visitInsn(toStack.equals(int.class) ? D2I : toStack.equals(long.class) ? D2L : D2F);
+      }
+    }
+    // narrow ints to the smaller integral types, unless the value is already in range
+    if (to.equals(byte.class)) { _mv.visitInsn(I2B); }
+    else if (to.equals(short.class) && !from.equals(byte.class)) { _mv.visitInsn(I2S); }
+    else if (to.equals(char.class)) { _mv.visitInsn(I2C); }
+  }
+
+}
@@ -0,0 +1,127 @@
+package edu.rice.cs.dynamicjava.interpreter;
+
+import java.io.StringReader;
+import java.util.List;
+
+import junit.framework.TestCase;
+import edu.rice.cs.plt.tuple.Option;
+import edu.rice.cs.plt.lambda.WrappedException;
+
+import koala.dynamicjava.tree.Node;
+import koala.dynamicjava.parser.wrapper.JavaCCParser;
+
+import edu.rice.cs.dynamicjava.Options;
+
+/**
+ * Tests the {@link StatementCompiler} directly: statements are checked in a top-level frame, and the
+ * last one is compiled and executed in the bindings produced by interpreting the others.
+ */
+public class StatementCompilerTest extends TestCase {
+
+  private static final Options COMPILE_STATEMENTS = new Options() {
+    @Override public boolean compileStatements() { return true; }
+  };
+
+  private TypeContext _context;
+  private RuntimeBindings _bindings;
+
+  @Override protected void setUp() {
+    FrameLayout frame = new FrameLayout();
+    _context = new FrameContext(new ImportContext(getClass().getClassLoader(), Options.DEFAULT), frame);
+    _bindings = new RuntimeBindings(RuntimeBindings.EMPTY, frame);
+  }
+
+  /** Check the given statements, interpret all but the last, and return the last, checked but not run. */
+  private Node prepare(String code) {
+    List<Node> tree = new JavaCCParser(new StringReader(code), Options.DEFAULT).parseStream();
+    _context = new StatementChecker(_context, Options.DEFAULT).checkList(tree);
+    _bindings = new StatementEvaluator(_bindings, Options.DEFAULT).evaluateSequence(tree.subList(0, tree.size()-1))
+      .bindings();
+    return tree.get(tree.size()-1);
+  }
+
+  /** Compile the last of the given statements, which must be compilable, and execute it. */
+  private void compileAndExecute(String code) {
+    Option<StatementCompiler.CompiledStatement> compiled = StatementCompiler.compile(prepare(code));
+    assertTrue("compiled", compiled.isSome());
+    compiled.unwrap().execute(_bindings);
+  }
+
+  /** The value of a variable in the current bindings. */
+  private Object value(String name) {
+    List<Node> tree = new JavaCCParser(new StringReader(name), Options.DEFAULT).parseStream();
+    new StatementChecker(_context, Options.DEFAULT).checkList(tree);
+    return new StatementEvaluator(_bindings, Options.DEFAULT).evaluateSequence(tree).value().unwrap();
+  }
+
+  public void testForLoop() {
+    compileAndExecute("int sum = 0; long product = 1;\n" +
+                      "for (int i = 1; i <= 10; i++) { sum += i; product *= i; }");
+    assertEquals(55, value("sum"));
+    assertEquals(3628800L, value("product"));
+  }
+
+  public void testWhileLoop() {
+    compileAndExecute("int n = 27; int steps = 0; double x = 0;\n" +
+                      "while (n != 1) { if (n % 2 == 0) { n /= 2; } else { n = 3 * n + 1; } steps++; x += 0.5; }");
+    assertEquals(1, value("n"));
+    assertEquals(111, value("steps"));
+    assertEquals(55.5, value("x"));
+  }
+
+  public void testResultIsRemembered() {
+    Node loop = prepare("int k = 0; while (k < 3) { k++; }");
+    Option<StatementCompiler.CompiledStatement> compiled = StatementCompiler.compile(loop);
+    assertTrue(compiled.isSome());
+    assertSame(compiled.unwrap(), StatementCompiler.compile(loop).unwrap());
+  }
+
+  public void testVariablesWrittenBackOnException() {
+    try {
+      compileAndExecute("int count = 0; int quotient = 0;\n" +
+                        "for (int i = 0; i < 10; i++) { count++; quotient = 6 / (3 - i); }");
+      fail("expected an ArithmeticException");
+    }
+    catch (WrappedException e) {
+      assertTrue(e.getCause() instanceof EvaluatorException);
+      assertTrue(e.getCause().getCause() instanceof ArithmeticException);
+    }
+    // the fourth iteration divides by zero after incrementing count
+    assertEquals(4, value("count"));
+    assertEquals(6, value("quotient"));
+  }
+
+  public void testUnsupportedStatementIsInterpreted() throws InterpreterException {
+    // strings and method calls are not compiled
+    assertTrue(StatementCompiler.compile(prepare("String s = \"\"; for (int i = 0; i < 3; i++) { s += i; }"))
+               .isNone());
+    assertTrue(StatementCompiler.compile(prepare("int m = 0; while (m < 3) { m = Math.max(m, 2) + 1; }"))
+               .isNone());
+
+    Interpreter interpreter = new Interpreter(COMPILE_STATEMENTS);
+    interpreter.interpret("String s = \"\"; for (int i = 0; i < 3; i++) { s += i; }");
+    assertEquals(Option.some("012"), interpreter.interpret("s"));
+  }
+
+  /**
+   * Compound assignments narrow the result to the type of the variable (JLS 15.26.2), both when
+   * compiled and when interpreted.
+   */
+  public void testCompoundAssignmentNarrowing() throws InterpreterException {
+    compileAndExecute("byte b = 100; short sh = 1; char c = 'a'; int n = 1;\n" +
+                      "for (int i = 0; i < 1; i++) { b += 200; sh *= 100000; c += 1; n += 1.5; }");
+    assertEquals((byte) 44, value("b"));
+    assertEquals((short) -31072, value("sh"));
+    assertEquals('b', value("c"));
+    assertEquals(2, value("n"));
+
+    Interpreter interpreter = new Interpreter(Options.DEFAULT);
+    interpreter.interpret("byte b = 100; short sh = 1; char c = 'a'; int n = 1;\n" +
+                          "b += 200; sh *= 100000; c += 1; n += 1.5;");
+    assertEquals(Option.some((byte) 44), interpreter.interpret("b"));
+    assertEquals(Option.some((short) -31072), interpreter.interpret("sh"));
+    assertEquals(Option.some('b'), interpreter.interpret("c"));
+    assertEquals(Option.some(2), interpreter.interpret("n"));
+  }
+
+}
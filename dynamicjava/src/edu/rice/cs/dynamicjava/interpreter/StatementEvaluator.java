@@ -62,8 +62,11 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
   
   public Result evaluateSequence(Iterable<? extends Node> nodes) {
     Result result = new Result(_bindings);
+    StatementEvaluator eval = this;
     for (Node n : nodes) {
-      result = n.acceptVisitor(new StatementEvaluator(result.bindings(), _opt));
+      result = n.acceptVisitor(eval);
+      // declarations usually bind variables in the current frame; only create a new evaluator if necessary
+      if (result.bindings() != eval._bindings) { eval = new StatementEvaluator(result.bindings(), _opt); }
     }
     return result;
   }
@@ -84,7 +87,7 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
     // even when an initializer is present, there may be a reference to the uninitialized
     // variable in the initializer
     Object init = SymbolUtil.initialValue(getErasedType(node).value());
-    RuntimeBindings newB = new RuntimeBindings(_bindings, getVariable(node), init);
+    RuntimeBindings newB = _bindings.bind(getVariable(node), init);
     if (node.getInitializer() != null) {
       newB.set(getVariable(node), new ExpressionEvaluator(newB, _opt).value(node.getInitializer()));
     }
@@ -112,6 +115,7 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
   }
 
   @Override public Result visit(WhileStatement node) {
+    if (executeCompiled(node)) { return new Result(_bindings); }
     ExpressionEvaluator eval = new ExpressionEvaluator(_bindings, _opt);
     try {
       while ((Boolean) eval.value(node.getCondition())) {
@@ -132,7 +136,7 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
     // expression (that was done in a previous implementation), but it is 
     // easier to just evaluate this directly
     LocalVariable param = getVariable(node.getParameter());
-    RuntimeBindings newB = new RuntimeBindings(_bindings, param, null);
+    RuntimeBindings newB = _bindings.bind(param, null);
     final Object iterable = new ExpressionEvaluator(newB, _opt).value(node.getCollection());
     if (iterable == null) { throw new WrappedException(new EvaluatorException(new NullPointerException())); }
     Iterator<?> iter;
@@ -170,8 +174,9 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
         catch (Throwable t) { throw new WrappedException(new EvaluatorException(t)); }
         
         try {
-          newB.set(param, elt);
-          node.getBody().acceptVisitor(seval);
+          // bind rather than set, so that a class that captured the previous element keeps it
+          RuntimeBindings eltB = newB.bind(param, elt);
+          node.getBody().acceptVisitor((eltB == newB) ? seval : new StatementEvaluator(eltB, _opt));
         }
         catch (ContinueException e) {
           if (e.hasLabel() && !node.hasLabel(e.label())) { throw e; }
@@ -185,6 +190,7 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
   }
   
   @Override public Result visit(ForStatement node) {
+    if (executeCompiled(node)) { return new Result(_bindings); }
     RuntimeBindings newB = _bindings;
     if (node.getInitialization() != null) {
       newB = evaluateSequence(node.getInitialization()).bindings();
@@ -209,6 +215,7 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
   }
 
   @Override public Result visit(DoStatement node) {
+    if (executeCompiled(node)) { return new Result(_bindings); }
     ExpressionEvaluator eval = new ExpressionEvaluator(_bindings, _opt);
     try {
       do {
@@ -288,7 +295,7 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
         for (CatchStatement cs : node.getCatchStatements()) {
           if (getErasedType(cs).value().isInstance(t)) {
             handled = true;
-            RuntimeBindings newB = new RuntimeBindings(_bindings, getVariable(cs.getException()), t);
+            RuntimeBindings newB = _bindings.bind(getVariable(cs.getException()), t);
             cs.getBlock().acceptVisitor(new StatementEvaluator(newB, _opt));
             break;
           }
@@ -366,6 +373,22 @@ public class StatementEvaluator extends AbstractVisitor<StatementEvaluator.Resul
     return evaluateSequence(node.getStatements());
   }
   
+  /**
+   * If the options allow it, compile the given statement to bytecode (see {@link StatementCompiler})
+   * and execute it.
+   * @return  {@code true} if the statement was executed; {@code false} if it must be interpreted.
+   */
+  public boolean executeCompiled(Node node) {
+    if (_opt.compileStatements()) {
+      Option<StatementCompiler.CompiledStatement> compiled = StatementCompiler.compile(node);
+      if (compiled.isSome()) {
+        compiled.unwrap().execute(_bindings);
+        return true;
+      }
+    }
+    return false;
+  }
+  
   
   public static class ControlFlowException extends RuntimeException {}
 
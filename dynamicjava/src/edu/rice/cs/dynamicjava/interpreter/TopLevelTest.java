@@ -38,9 +38,14 @@ public class TopLevelTest {
     benchmarks.add(JLBench.benchmarksForZipEntries(jlbenchJar, "edu/rice/cs/jlbench/benchmarks/java5/", excludes));
     benchmarks.add(JLBench.benchmarksForFiles(new File("testFiles/jlbench/"), excludes));
     
+    // run each benchmark with statements interpreted, and then compiled to bytecode where possible
+    Options compileStatements = new Options() {
+      @Override public boolean compileStatements() { return true; }
+    };
     TestSuite result = new TestSuite();
     for (Benchmark b : IterUtil.collapse(benchmarks)) {
       result.addTest(new JLBenchTestWrapper(b, Options.DEFAULT));
+      result.addTest(new JLBenchTestWrapper(b, compileStatements));
     }
     return result;
   }
@@ -72,7 +77,9 @@ public class TopLevelTest {
       finally { result.endTest(this); }
     }
     
-    public String toString() { return "<" + _b.name() + ">"; }
+    public String toString() {
+      return "<" + _b.name() + (_opt.compileStatements() ? " (compiled)" : "") + ">";
+    }
     
     private void turnOffLogging(TestResult result) {
       try {
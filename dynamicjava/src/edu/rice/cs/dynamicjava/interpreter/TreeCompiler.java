@@ -1291,8 +1291,9 @@ public class TreeCompiler {
      */
     public Object evaluateMethod(String key, RuntimeBindings bindings, Object[] args) throws Throwable {
       MethodDeclaration decl = _methods.get(key);
-      RuntimeBindings methodBindings = bindArgs(bindings, decl.getParameters(), args);
-      return evaluateBlock(decl.getBody(), NodeProperties.getErasedType(decl).value(), methodBindings);
+      RuntimeBindings methodBindings = bindArgs(bindings, decl, decl.getParameters(), args);
+      return evaluateBlock(decl.getBody(), NodeProperties.getErasedType(decl).value(),
+                           methodBindings, true);
     }
     
     /**
@@ -1318,7 +1319,7 @@ public class TreeCompiler {
       Expression exp;
       if (index == -1) { exp = decl.getConstructorCall().getExpression(); }
       else { exp = decl.getConstructorCall().getArguments().get(index); }
-      RuntimeBindings constructorBindings = bindArgs(bindings, decl.getParameters(), args);
+      RuntimeBindings constructorBindings = bindArgs(bindings, decl, decl.getParameters(), args);
       return evaluateExpression(exp, constructorBindings);
     }
     
@@ -1330,8 +1331,9 @@ public class TreeCompiler {
     public void evaluateConstructorBody(String key, RuntimeBindings bindings, Object[] args)
       throws Throwable {
       ConstructorDeclaration decl = _constructors.get(key);
-      RuntimeBindings constructorBindings = bindArgs(bindings, decl.getParameters(), args);
-      evaluateBlock(new BlockStatement(decl.getStatements()), void.class, constructorBindings);
+      RuntimeBindings constructorBindings = bindArgs(bindings, decl, decl.getParameters(), args);
+      // the block is created anew on each call, so compiling it would not pay off
+      evaluateBlock(new BlockStatement(decl.getStatements()), void.class, constructorBindings, false);
     }
     
     /**
@@ -1341,7 +1343,11 @@ public class TreeCompiler {
      */
     public void evaluateInitializer(String key, RuntimeBindings bindings) throws Throwable {
       Initializer decl = _initializers.get(key);
-      evaluateBlock(decl.getBlock(), void.class, bindings);
+      RuntimeBindings initializerBindings = bindings;
+      if (NodeProperties.hasFrameLayout(decl)) {
+        initializerBindings = new RuntimeBindings(bindings, NodeProperties.getFrameLayout(decl));
+      }
+      evaluateBlock(decl.getBlock(), void.class, initializerBindings, false);
     }
     
     /**
@@ -1349,15 +1355,21 @@ public class TreeCompiler {
      * necessary because constructors cannot pass "this" to a method until after the super constructor
      * has run; in the mean time, other methods of this class or constructors of its inner classes may
      * have been invoked, requiring some way to produce the complete bindings.
-     * @param bindings  A set of bindings to extend.
+     * @param bindings  A set of bindings to extend.  Since they are retained by the new instance, they
+     *                  are {@linkplain RuntimeBindings#capture captured}.
      */
     public BindingsFactory makeBindingsFactory(RuntimeBindings bindings) {
-      return new BindingsFactory(bindings, _treeClass);
+      return new BindingsFactory(bindings.capture(), _treeClass);
     }
     
-    private RuntimeBindings bindArgs(RuntimeBindings parent, List<FormalParameter> params,
+    /** Create a frame for the given method or constructor declaration, binding its parameters. */
+    private RuntimeBindings bindArgs(RuntimeBindings parent, Node decl, List<FormalParameter> params,
                                      Object[] args) {
-      return new RuntimeBindings(parent, extractVars(params), IterUtil.asIterable(args));
+      if (NodeProperties.hasFrameLayout(decl)) {
+        return new RuntimeBindings(parent, NodeProperties.getFrameLayout(decl), extractVars(params),
+                                   IterUtil.asIterable(args));
+      }
+      else { return new RuntimeBindings(parent, extractVars(params), IterUtil.asIterable(args)); }
     }
     
     private Object evaluateExpression(Expression exp, RuntimeBindings bindings) throws Throwable {
@@ -1370,10 +1382,15 @@ public class TreeCompiler {
       }
     }
     
+    /**
+     * @param compile  Whether the block may be compiled to bytecode (if the options allow it).  Blocks
+     *                 that are only evaluated once, or that are not part of the tree, should not be.
+     */
     private Object evaluateBlock(BlockStatement block, Class<?> returnType,
-                                 RuntimeBindings bindings) throws Throwable {
+                                 RuntimeBindings bindings, boolean compile) throws Throwable {
       try {
-        block.acceptVisitor(new StatementEvaluator(bindings, _opt));
+        StatementEvaluator eval = new StatementEvaluator(bindings, _opt);
+        if (!compile || !eval.executeCompiled(block)) { block.acceptVisitor(eval); }
         // if we didn't return, produce null or a zero primitive
         return SymbolUtil.initialValue(returnType);
       }
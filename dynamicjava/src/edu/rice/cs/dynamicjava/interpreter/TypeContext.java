@@ -156,6 +156,12 @@ public interface TypeContext {
    */
   public Iterable<Type> getDeclaredThrownTypes();
   
+  /**
+   * The layout of the runtime frame in which local variables declared in the current context are
+   * stored, or {@code null} if there is no such frame (variables are then bound individually).
+   */
+  public FrameLayout frameLayout();
+  
   /**
    * Return the class loader for the current scope.  Allows class loaders to be defined in
    * later scopes with the returned loader as a parent.
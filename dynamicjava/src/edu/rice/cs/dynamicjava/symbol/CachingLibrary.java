@@ -0,0 +1,76 @@
+package edu.rice.cs.dynamicjava.symbol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.rice.cs.plt.iter.IterUtil;
+
+/**
+ * A library that remembers the result of every lookup in another library, including lookups that
+ * found no class.  Repeated references to a class (and the many unsuccessful probes made when resolving
+ * a simple name against on-demand imports) are then answered without consulting the class loader, and
+ * the same {@code DJClass} object is returned each time.  Since the underlying library's contents may
+ * change (for example, when entries are added to a class path), clients are responsible for calling
+ * {@link #clear} when that happens.  Note that a miss stays cached until then: a class file that later
+ * appears in a directory or jar already on the class path (because it was written by a tool the client
+ * does not know about) remains invisible.  Counters describing the cost of lookups are maintained so that
+ * clients can measure the effect of the cache.
+ */
+public class CachingLibrary implements Library {
+
+  private final Library _library;
+  private final Map<String, Iterable<DJClass>> _cache;
+  private long _lookups;
+  private long _hits;
+  private long _misses;
+  private long _loadTime;
+
+  public CachingLibrary(Library library) {
+    _library = library;
+    _cache = new HashMap<String, Iterable<DJClass>>();
+    _lookups = 0;
+    _hits = 0;
+    _misses = 0;
+    _loadTime = 0;
+  }
+
+  public Iterable<DJClass> declaredClasses(String fullName) {
+    synchronized (_cache) {
+      _lookups++;
+      Iterable<DJClass> result = _cache.get(fullName);
+      if (result != null) { _hits++; return result; }
+    }
+    // don't hold the lock while loading; a concurrent lookup of the same name may load it twice
+    long start = System.nanoTime();
+    Iterable<DJClass> result = IterUtil.snapshot(_library.declaredClasses(fullName));
+    long time = System.nanoTime() - start;
+    synchronized (_cache) {
+      _loadTime += time;
+      if (IterUtil.isEmpty(result)) { _misses++; }
+      Iterable<DJClass> prev = _cache.get(fullName);
+      if (prev != null) { return prev; }
+      _cache.put(fullName, result);
+      return result;
+    }
+  }
+
+  public ClassLoader classLoader() { return _library.classLoader(); }
+
+  /** Forget all cached lookups.  Subsequent lookups will consult the underlying library again. */
+  public void clear() {
+    synchronized (_cache) { _cache.clear(); }
+  }
+
+  /** The number of lookups made in this library. */
+  public long lookups() { synchronized (_cache) { return _lookups; } }
+
+  /** The number of lookups that were answered from the cache. */
+  public long hits() { synchronized (_cache) { return _hits; } }
+
+  /** The number of lookups that consulted the underlying library and found no class. */
+  public long misses() { synchronized (_cache) { return _misses; } }
+
+  /** The total time, in nanoseconds, spent in lookups in the underlying library. */
+  public long loadTime() { synchronized (_cache) { return _loadTime; } }
+
+}
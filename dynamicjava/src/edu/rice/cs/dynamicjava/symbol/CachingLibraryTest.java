@@ -0,0 +1,73 @@
+package edu.rice.cs.dynamicjava.symbol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import edu.rice.cs.plt.iter.IterUtil;
+
+public class CachingLibraryTest extends TestCase {
+
+  /** A library that delegates to the class library of this class's loader and counts the lookups of each name. */
+  private static class CountingLibrary implements Library {
+    private final Library _library = SymbolUtil.classLibrary(CachingLibraryTest.class.getClassLoader());
+    private final Map<String, Integer> _counts = new HashMap<String, Integer>();
+    public Iterable<DJClass> declaredClasses(String fullName) {
+      Integer c = _counts.get(fullName);
+      _counts.put(fullName, (c == null) ? 1 : c + 1);
+      return _library.declaredClasses(fullName);
+    }
+    public ClassLoader classLoader() { return _library.classLoader(); }
+    public int count(String fullName) {
+      Integer c = _counts.get(fullName);
+      return (c == null) ? 0 : c;
+    }
+  }
+
+  private CountingLibrary _underlying;
+  private CachingLibrary _library;
+
+  public void setUp() {
+    _underlying = new CountingLibrary();
+    _library = new CachingLibrary(_underlying);
+  }
+
+  public void testFoundClassIsCached() {
+    Iterable<DJClass> first = _library.declaredClasses("java.lang.String");
+    assertEquals(1, IterUtil.sizeOf(first));
+    assertEquals("java.lang.String", IterUtil.first(first).fullName());
+    Iterable<DJClass> second = _library.declaredClasses("java.lang.String");
+    assertSame(IterUtil.first(first), IterUtil.first(second));
+    assertEquals(1, _underlying.count("java.lang.String"));
+    assertEquals(2, _library.lookups());
+    assertEquals(1, _library.hits());
+    assertEquals(0, _library.misses());
+  }
+
+  public void testMissingClassIsCached() {
+    assertTrue(IterUtil.isEmpty(_library.declaredClasses("java.lang.NoSuchClass")));
+    assertTrue(IterUtil.isEmpty(_library.declaredClasses("java.lang.NoSuchClass")));
+    assertEquals(1, _underlying.count("java.lang.NoSuchClass"));
+    assertEquals(2, _library.lookups());
+    assertEquals(1, _library.hits());
+    assertEquals(1, _library.misses());
+  }
+
+  public void testClear() {
+    DJClass string = IterUtil.first(_library.declaredClasses("java.lang.String"));
+    _library.declaredClasses("java.lang.NoSuchClass");
+    _library.clear();
+
+    assertEquals(string.fullName(), IterUtil.first(_library.declaredClasses("java.lang.String")).fullName());
+    assertTrue(IterUtil.isEmpty(_library.declaredClasses("java.lang.NoSuchClass")));
+    assertEquals(2, _underlying.count("java.lang.String"));
+    assertEquals(2, _underlying.count("java.lang.NoSuchClass"));
+    assertEquals(0, _library.hits());
+    assertEquals(2, _library.misses());
+  }
+
+  public void testClassLoader() {
+    assertSame(_underlying.classLoader(), _library.classLoader());
+  }
+
+}
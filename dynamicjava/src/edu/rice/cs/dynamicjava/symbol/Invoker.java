@@ -0,0 +1,333 @@
+package edu.rice.cs.dynamicjava.symbol;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import static org.objectweb.asm.Opcodes.*;
+import static edu.rice.cs.plt.debug.DebugUtil.debug;
+
+/**
+ * A direct call to a particular method or constructor, in the form of a generated class.  Invoking
+ * a member through {@link Method#invoke} or {@link Constructor#newInstance} checks accessibility,
+ * copies and unboxes the arguments, and (in a typical JVM) runs native code until the member has
+ * been called a number of times; a generated invoker is simply bytecode that casts its arguments and
+ * makes the call, so that it can be inlined by the JVM like any other code.  Generating a class is
+ * expensive, though, so a member should only be given an invoker after it has been called
+ * {@link #THRESHOLD} times.
+ *
+ * <p>An invoker is only generated for a public member of a public (and exported) class whose
+ * parameters have public types: the generated class is defined by its own class loader (so that it
+ * can be unloaded along with the member's class), and so has no access to anything else.  Members
+ * that are sensitive to their caller, like {@link Class#forName(String)}, are also excluded, because
+ * the generated class would be treated as the caller.  In any of these cases, {@link #make} returns
+ * {@code null}, and the member should continue to be invoked reflectively.</p>
+ */
+public abstract class Invoker {
+
+  /** The number of (reflective) calls to a member after which an invoker should be generated. */
+  public static final int THRESHOLD = 16;
+
+  /** The name of each generated class, used to filter the class's frame out of stack traces. */
+  public static final String CLASS_NAME = "DynamicJavaInvoker";
+
+  /** Alternative stack elements for {@link edu.rice.cs.dynamicjava.interpreter.EvaluatorException}. */
+  public static final String[] EXTRA_STACK = new String[]{ CLASS_NAME + ".invoke" };
+
+  private static final String INVOKER_NAME = Invoker.class.getName();
+  private static final String INVOKER_INTERNAL_NAME = internalName(Invoker.class);
+  private static final String INVOKE_DESCRIPTOR = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+  // Classes whose methods may be sensitive to their caller (in JVMs that don't annotate such methods)
+  private static final String[] CALLER_SENSITIVE_CLASSES = {
+    "java.lang.Class", "java.lang.ClassLoader", "java.lang.Package", "java.lang.Runtime",
+    "java.lang.SecurityManager", "java.lang.System", "java.lang.Thread",
+    "java.security.AccessController", "java.sql.DriverManager", "java.util.ResourceBundle",
+    "java.util.ServiceLoader", "java.util.logging.Logger"
+  };
+
+  // Java 9 and later: Class.getModule() and Module.isExported(String); null in earlier versions
+  private static final Method GET_MODULE;
+  private static final Method IS_EXPORTED;
+  static {
+    Method getModule = null;
+    Method isExported = null;
+    try {
+      getModule = Class.class.getMethod("getModule");
+      isExported = getModule.getReturnType().getMethod("isExported", String.class);
+    }
+    catch (NoSuchMethodException e) { getModule = null; isExported = null; }
+    GET_MODULE = getModule;
+    IS_EXPORTED = isExported;
+  }
+
+  protected Invoker() {}
+
+  /**
+   * Invoke the member.  {@code receiver} is ignored for a static method or a constructor.
+   * @throws Throwable  Any exception thrown by the member, without any wrapping.
+   */
+  public abstract Object invoke(Object receiver, Object[] args) throws Throwable;
+
+  /** Generate an invoker for the given method, or return {@code null} if that is not possible. */
+  public static Invoker make(Method m) {
+    Class<?> c = m.getDeclaringClass();
+    int mods = m.getModifiers();
+    if (!Modifier.isPublic(mods) || !isAccessible(c) || !areAccessible(m.getParameterTypes()) ||
+        (c.isInterface() && Modifier.isStatic(mods)) || isCallerSensitive(m)) {
+      return null;
+    }
+    String owner = internalName(c);
+    String descriptor = methodDescriptor(m.getParameterTypes(), m.getReturnType());
+    ClassWriter cw = startClass();
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "invoke", INVOKE_DESCRIPTOR, null, null);
+    mv.visitCode();
+    if (Modifier.isStatic(mods)) {
+      loadArgs(mv, m.getParameterTypes());
+      mv.visitMethodInsn(INVOKESTATIC, owner, m.getName(), descriptor, false);
+    }
+    else {
+      mv.visitVarInsn(ALOAD, 1);
+      mv.visitTypeInsn(CHECKCAST, owner);
+      loadArgs(mv, m.getParameterTypes());
+      if (c.isInterface()) { mv.visitMethodInsn(INVOKEINTERFACE, owner, m.getName(), descriptor, true); }
+      else { mv.visitMethodInsn(INVOKEVIRTUAL, owner, m.getName(), descriptor, false); }
+    }
+    box(mv, m.getReturnType());
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    return define(cw, m);
+  }
+
+  /** Generate an invoker for the given constructor, or return {@code null} if that is not possible. */
+  public static Invoker make(Constructor<?> k) {
+    Class<?> c = k.getDeclaringClass();
+    if (!Modifier.isPublic(k.getModifiers()) || Modifier.isAbstract(c.getModifiers()) ||
+        !isAccessible(c) || !areAccessible(k.getParameterTypes())) {
+      return null;
+    }
+    String owner = internalName(c);
+    ClassWriter cw = startClass();
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "invoke", INVOKE_DESCRIPTOR, null, null);
+    mv.visitCode();
+    mv.visitTypeInsn(NEW, owner);
+    mv.visitInsn(DUP);
+    loadArgs(mv, k.getParameterTypes());
+    mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>", methodDescriptor(k.getParameterTypes(), void.class),
+                       false);
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    return define(cw, k);
+  }
+
+  /*
+   * Conversions of an argument to a primitive parameter type, called by generated code.  As in
+   * Method.invoke (and unlike a cast), a boxed value of a narrower primitive type is widened.
+   */
+
+  public static boolean toBoolean(Object o) {
+    if (o instanceof Boolean) { return (Boolean) o; }
+    else { throw mismatch(o); }
+  }
+
+  public static char toChar(Object o) {
+    if (o instanceof Character) { return (Character) o; }
+    else { throw mismatch(o); }
+  }
+
+  public static byte toByte(Object o) {
+    if (o instanceof Byte) { return (Byte) o; }
+    else { throw mismatch(o); }
+  }
+
+  public static short toShort(Object o) {
+    if (o instanceof Short || o instanceof Byte) { return ((Number) o).shortValue(); }
+    else { throw mismatch(o); }
+  }
+
+  public static int toInt(Object o) {
+    if (o instanceof Integer || o instanceof Short || o instanceof Byte) { return ((Number) o).intValue(); }
+    else if (o instanceof Character) { return (Character) o; }
+    else { throw mismatch(o); }
+  }
+
+  public static long toLong(Object o) {
+    if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte) {
+      return ((Number) o).longValue();
+    }
+    else if (o instanceof Character) { return (Character) o; }
+    else { throw mismatch(o); }
+  }
+
+  public static float toFloat(Object o) {
+    if (o instanceof Float || o instanceof Long || o instanceof Integer || o instanceof Short ||
+        o instanceof Byte) {
+      return ((Number) o).floatValue();
+    }
+    else if (o instanceof Character) { return (Character) o; }
+    else { throw mismatch(o); }
+  }
+
+  public static double toDouble(Object o) {
+    if (o instanceof Double || o instanceof Float || o instanceof Long || o instanceof Integer ||
+        o instanceof Short || o instanceof Byte) {
+      return ((Number) o).doubleValue();
+    }
+    else if (o instanceof Character) { return (Character) o; }
+    else { throw mismatch(o); }
+  }
+
+  private static IllegalArgumentException mismatch(Object o) {
+    String type = (o == null) ? "null" : o.getClass().getName();
+    return new IllegalArgumentException("argument type mismatch: " + type);
+  }
+
+  /** Whether code in an arbitrary class loader can refer to the given class. */
+  private static boolean isAccessible(Class<?> c) {
+    while (c.isArray()) { c = c.getComponentType(); }
+    if (c.isPrimitive()) { return true; }
+    for (Class<?> outer = c; outer != null; outer = outer.getEnclosingClass()) {
+      if (!Modifier.isPublic(outer.getModifiers())) { return false; }
+    }
+    return isExported(c);
+  }
+
+  private static boolean areAccessible(Class<?>[] cs) {
+    for (Class<?> c : cs) { if (!isAccessible(c)) { return false; } }
+    return true;
+  }
+
+  private static boolean isExported(Class<?> c) {
+    if (GET_MODULE == null) { return true; }
+    String name = c.getName();
+    int dot = name.lastIndexOf('.');
+    if (dot == -1) { return true; }
+    try { return (Boolean) IS_EXPORTED.invoke(GET_MODULE.invoke(c), name.substring(0, dot)); }
+    catch (Exception e) { debug.log(e); return false; }
+  }
+
+  private static boolean isCallerSensitive(Method m) {
+    for (Annotation a : m.getAnnotations()) {
+      if (a.annotationType().getName().endsWith(".CallerSensitive")) { return true; }
+    }
+    String className = m.getDeclaringClass().getName();
+    if (className.startsWith("java.lang.reflect.") || className.startsWith("java.lang.invoke.")) {
+      return true;
+    }
+    for (String sensitive : CALLER_SENSITIVE_CLASSES) {
+      if (className.equals(sensitive)) { return true; }
+    }
+    return false;
+  }
+
+  private static ClassWriter startClass() {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, CLASS_NAME, null,
+             INVOKER_INTERNAL_NAME, null);
+    MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    init.visitCode();
+    init.visitVarInsn(ALOAD, 0);
+    init.visitMethodInsn(INVOKESPECIAL, INVOKER_INTERNAL_NAME, "<init>", "()V", false);
+    init.visitInsn(RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+    return cw;
+  }
+
+  /** Push each element of the argument array, cast (or unboxed) to the corresponding parameter type. */
+  private static void loadArgs(MethodVisitor mv, Class<?>[] paramTypes) {
+    for (int i = 0; i < paramTypes.length; i++) {
+      Class<?> t = paramTypes[i];
+      mv.visitVarInsn(ALOAD, 2);
+      mv.visitLdcInsn(i);
+      mv.visitInsn(AALOAD);
+      if (t.isPrimitive()) {
+        String name = t.getName();
+        String helper = "to" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        mv.visitMethodInsn(INVOKESTATIC, INVOKER_INTERNAL_NAME, helper, "(Ljava/lang/Object;)" + descriptor(t),
+                           false);
+      }
+      else if (!t.equals(Object.class)) { mv.visitTypeInsn(CHECKCAST, internalName(t)); }
+    }
+  }
+
+  /** Convert the value on the stack (of the given type) to an object. */
+  private static void box(MethodVisitor mv, Class<?> t) {
+    if (t.equals(void.class)) { mv.visitInsn(ACONST_NULL); }
+    else if (t.isPrimitive()) {
+      String boxed = internalName(boxedClass(t));
+      mv.visitMethodInsn(INVOKESTATIC, boxed, "valueOf", "(" + descriptor(t) + ")L" + boxed + ";", false);
+    }
+  }
+
+  /** Define the class, returning an instance, or {@code null} if it can't be loaded. */
+  private static Invoker define(ClassWriter cw, Member member) {
+    try {
+      byte[] bytes = cw.toByteArray();
+      InvokerLoader loader = new InvokerLoader(member.getDeclaringClass().getClassLoader());
+      return (Invoker) loader.define(bytes).newInstance();
+    }
+    catch (Throwable t) {
+      // LinkageErrors (a class that is not visible to its own loader, say) or security restrictions
+      debug.log(t);
+      return null;
+    }
+  }
+
+  private static Class<?> boxedClass(Class<?> c) {
+    if (c.equals(boolean.class)) { return Boolean.class; }
+    else if (c.equals(char.class)) { return Character.class; }
+    else if (c.equals(byte.class)) { return Byte.class; }
+    else if (c.equals(short.class)) { return Short.class; }
+    else if (c.equals(int.class)) { return Integer.class; }
+    else if (c.equals(long.class)) { return Long.class; }
+    else if (c.equals(float.class)) { return Float.class; }
+    else if (c.equals(double.class)) { return Double.class; }
+    else { throw new IllegalArgumentException("Not a primitive: " + c); }
+  }
+
+  private static String internalName(Class<?> c) {
+    return c.isArray() ? descriptor(c) : c.getName().replace('.', '/');
+  }
+
+  private static String methodDescriptor(Class<?>[] params, Class<?> ret) {
+    StringBuilder result = new StringBuilder("(");
+    for (Class<?> p : params) { result.append(descriptor(p)); }
+    return result.append(')').append(descriptor(ret)).toString();
+  }
+
+  private static String descriptor(Class<?> c) {
+    if (c.isArray()) { return "[" + descriptor(c.getComponentType()); }
+    else if (c.equals(void.class)) { return "V"; }
+    else if (c.equals(boolean.class)) { return "Z"; }
+    else if (c.equals(char.class)) { return "C"; }
+    else if (c.equals(byte.class)) { return "B"; }
+    else if (c.equals(short.class)) { return "S"; }
+    else if (c.equals(int.class)) { return "I"; }
+    else if (c.equals(long.class)) { return "J"; }
+    else if (c.equals(float.class)) { return "F"; }
+    else if (c.equals(double.class)) { return "D"; }
+    else { return "L" + internalName(c) + ";"; }
+  }
+
+  /**
+   * Defines a single invoker class.  The member's class, and the types of its parameters, are
+   * resolved by the member's class loader; the Invoker class itself is always this class.
+   */
+  private static class InvokerLoader extends ClassLoader {
+    public InvokerLoader(ClassLoader parent) { super(parent); }
+    public Class<?> define(byte[] bytes) { return defineClass(CLASS_NAME, bytes, 0, bytes.length); }
+    @Override protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (name.equals(INVOKER_NAME)) { return Invoker.class; }
+      else { return super.loadClass(name, resolve); }
+    }
+  }
+
+}
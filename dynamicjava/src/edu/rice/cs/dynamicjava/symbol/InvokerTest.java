@@ -0,0 +1,187 @@
+package edu.rice.cs.dynamicjava.symbol;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import edu.rice.cs.plt.iter.IterUtil;
+
+import edu.rice.cs.dynamicjava.Options;
+import edu.rice.cs.dynamicjava.interpreter.EvaluatorException;
+import edu.rice.cs.dynamicjava.interpreter.RuntimeBindings;
+
+public class InvokerTest extends TestCase {
+
+  /** Members to be invoked, with results that depend on all of their arguments. */
+  public static class Target {
+    public final String state;
+    public Target() { state = "()"; }
+    public Target(int i, String s) { state = "(" + i + "," + s + ")"; }
+    Target(String s) { state = s; }
+
+    public static boolean not(boolean b) { return !b; }
+    public static char next(char c) { return (char) (c + 1); }
+    public static byte negate(byte b) { return (byte) -b; }
+    public static short twice(short s) { return (short) (2 * s); }
+    public static int sum(int a, int b) { return a + b; }
+    public static long square(long l) { return l * l; }
+    public static float half(float f) { return f / 2; }
+    public static double third(double d) { return d / 3; }
+    public static int length(int[] is) { return is.length; }
+    public static String join(String s, Object o, List<?> l) { return s + o + l; }
+    public static void nothing() {}
+    public String describe(int i) { return state + i; }
+    public static Object fail(String message) { throw new IllegalStateException(message); }
+    public static String caller() { return new Throwable().getStackTrace()[1].getClassName(); }
+
+    String hidden() { return "hidden"; }
+    public static String usesHidden(Hidden h) { return "usesHidden"; }
+  }
+
+  static class Hidden {
+    public static String visible() { return "visible"; }
+  }
+
+  public static abstract class Abstract {
+    public Abstract() {}
+  }
+
+  private static Method method(String name) {
+    for (Method m : Target.class.getDeclaredMethods()) { if (m.getName().equals(name)) { return m; } }
+    throw new IllegalArgumentException(name);
+  }
+
+  /** Invoke m both reflectively and through an invoker, checking that the results are the same. */
+  private static Object invokeBoth(Method m, Object receiver, Object... args) throws Throwable {
+    Object expected = m.invoke(receiver, args);
+    Invoker invoker = Invoker.make(m);
+    assertNotNull("invoker for " + m, invoker);
+    Object actual = invoker.invoke(receiver, args);
+    assertEquals(m.toString(), expected, actual);
+    return actual;
+  }
+
+  public void testPrimitivesAndBoxing() throws Throwable {
+    assertEquals(false, invokeBoth(method("not"), null, true));
+    assertEquals('b', invokeBoth(method("next"), null, 'a'));
+    assertEquals((byte) -3, invokeBoth(method("negate"), null, (byte) 3));
+    assertEquals((short) 8, invokeBoth(method("twice"), null, (short) 4));
+    assertEquals(7, invokeBoth(method("sum"), null, 3, 4));
+    assertEquals(81L, invokeBoth(method("square"), null, 9L));
+    assertEquals(1.5f, invokeBoth(method("half"), null, 3f));
+    assertEquals(1.0, invokeBoth(method("third"), null, 3.0));
+    assertNull(invokeBoth(method("nothing"), null));
+  }
+
+  public void testWidening() throws Throwable {
+    // Method.invoke widens boxed primitives; so should an invoker
+    assertEquals(98, invokeBoth(method("sum"), null, (byte) 1, 'a'));
+    assertEquals(25L, invokeBoth(method("square"), null, (short) 5));
+    assertEquals(2.0f, invokeBoth(method("half"), null, 4L));
+    assertEquals(33.0, invokeBoth(method("third"), null, 'c'));
+    assertEquals((short) 6, invokeBoth(method("twice"), null, (byte) 3));
+  }
+
+  public void testMismatch() throws Throwable {
+    Method m = method("sum");
+    Object[][] badArgs = { { 1L, 2 }, { 1, null }, { "1", 2 }, { 1.0f, 2 } };
+    for (Object[] args : badArgs) {
+      try { m.invoke(null, args); fail("reflection accepted " + Arrays.toString(args)); }
+      catch (IllegalArgumentException e) { /* expected */ }
+      try { Invoker.make(m).invoke(null, args); fail("invoker accepted " + Arrays.toString(args)); }
+      catch (IllegalArgumentException e) { /* expected */ }
+    }
+    try { Invoker.make(method("length")).invoke(null, new Object[]{ "not an array" }); fail(); }
+    catch (ClassCastException e) { /* expected */ }
+  }
+
+  public void testReferenceArguments() throws Throwable {
+    assertEquals(3, invokeBoth(method("length"), null, new int[3]));
+    List<Object> l = new ArrayList<Object>();
+    l.add(1);
+    assertEquals("a2[1]", invokeBoth(method("join"), null, "a", 2, l));
+    assertEquals("nullnullnull", invokeBoth(method("join"), null, null, null, null));
+    assertEquals("()5", invokeBoth(method("describe"), new Target(), 5));
+    // an interface method
+    assertEquals(1, invokeBoth(List.class.getMethod("size"), l));
+  }
+
+  public void testConstructors() throws Throwable {
+    Constructor<Target> k = Target.class.getConstructor(int.class, String.class);
+    Invoker invoker = Invoker.make(k);
+    assertNotNull(invoker);
+    assertEquals(k.newInstance(1, "x").state, ((Target) invoker.invoke(null, new Object[]{ 1, "x" })).state);
+    assertEquals("(98,null)", ((Target) invoker.invoke(null, new Object[]{ 'b', null })).state);
+    assertNull("abstract class", Invoker.make(Abstract.class.getConstructor()));
+    assertNull("non-public constructor", Invoker.make(Target.class.getDeclaredConstructor(String.class)));
+  }
+
+  public void testExceptions() throws Throwable {
+    Method m = method("fail");
+    try { m.invoke(null, "reflective"); fail(); }
+    catch (InvocationTargetException e) {
+      assertEquals(IllegalStateException.class, e.getCause().getClass());
+      assertEquals("reflective", e.getCause().getMessage());
+    }
+    try { Invoker.make(m).invoke(null, new Object[]{ "generated" }); fail(); }
+    catch (IllegalStateException e) { assertEquals("generated", e.getMessage()); }
+  }
+
+  public void testFilters() throws Exception {
+    assertNull("non-public method", Invoker.make(Target.class.getDeclaredMethod("hidden")));
+    assertNull("method of non-public class", Invoker.make(Hidden.class.getMethod("visible")));
+    assertNull("non-public parameter type", Invoker.make(method("usesHidden")));
+    assertNull("caller sensitive", Invoker.make(Class.class.getMethod("forName", String.class)));
+    assertNull("caller sensitive", Invoker.make(Method.class.getMethod("invoke", Object.class, Object[].class)));
+    assertNull("caller sensitive", Invoker.make(Thread.class.getMethod("getContextClassLoader")));
+    assertNotNull(Invoker.make(String.class.getMethod("length")));
+
+    // Java 9 and later: a public class in a package that is not exported
+    Class<?> unexported;
+    try { unexported = Class.forName("jdk.internal.misc.VM"); }
+    catch (ClassNotFoundException e) { unexported = null; }
+    if (unexported != null) {
+      assertNull("non-exported class", Invoker.make(unexported.getMethod("isBooted")));
+    }
+  }
+
+  /** Evaluate a member the way the interpreter does, well past the threshold at which an invoker is generated. */
+  public void testEvaluatePastThreshold() throws Exception {
+    JavaClass c = new JavaClass(Target.class);
+    DJMethod sum = null, fail = null, caller = null, hidden = null;
+    for (DJMethod m : c.declaredMethods()) {
+      if (m.declaredName().equals("sum")) { sum = m; }
+      else if (m.declaredName().equals("fail")) { fail = m; }
+      else if (m.declaredName().equals("caller")) { caller = m; }
+      else if (m.declaredName().equals("hidden")) { hidden = m; }
+    }
+    Target receiver = new Target();
+    for (int i = 0; i < 3 * Invoker.THRESHOLD; i++) {
+      boolean generated = i >= Invoker.THRESHOLD - 1;
+      assertEquals(i + 1, evaluate(sum, null, i, 1));
+      assertEquals("hidden", evaluate(hidden, receiver));
+      String callerName = (String) evaluate(caller, null);
+      assertEquals("call " + i + " made by " + callerName, generated, callerName.equals(Invoker.CLASS_NAME));
+      try { evaluate(fail, null, "message " + i); fail(); }
+      catch (EvaluatorException e) {
+        Throwable cause = e.getCause();
+        assertEquals(IllegalStateException.class, cause.getClass());
+        assertEquals("message " + i, cause.getMessage());
+        StackTraceElement[] stack = cause.getStackTrace();
+        assertEquals("fail", stack[0].getMethodName());
+        for (StackTraceElement elt : stack) {
+          assertFalse("invoker frame is filtered out", elt.getClassName().equals(Invoker.CLASS_NAME));
+        }
+      }
+    }
+  }
+
+  private static Object evaluate(DJMethod m, Object receiver, Object... args) throws EvaluatorException {
+    return m.evaluate(receiver, IterUtil.asIterable(args), RuntimeBindings.EMPTY, Options.DEFAULT);
+  }
+
+}
@@ -56,17 +56,17 @@ public class Java5Class extends JavaClass {
     return superC == null ? superIs : IterUtil.compose(superC, superIs);
   }
   
-  @Override public Iterable<DJField> declaredFields() {
+  @Override protected Iterable<DJField> makeDeclaredFields() {
     // CONVERT_FIELD is shadowed here to create a Java5Field
     return IterUtil.mapSnapshot(IterUtil.asIterable(_c.getDeclaredFields()), CONVERT_FIELD);
   }
   
-  @Override public Iterable<DJConstructor> declaredConstructors() {
+  @Override protected Iterable<DJConstructor> makeDeclaredConstructors() {
     // CONVERT_CONSTRUCTOR is shadowed here to create a Java5Constructor
     return IterUtil.mapSnapshot(IterUtil.asIterable(_c.getDeclaredConstructors()), CONVERT_CONSTRUCTOR);
   }
   
-  @Override public Iterable<DJMethod> declaredMethods() {
+  @Override protected Iterable<DJMethod> makeDeclaredMethods() {
     // CONVERT_METHOD is shadowed here to create a Java5Method
     Iterable<Method> ms = IterUtil.filter(IterUtil.asIterable(_c.getDeclaredMethods()), IS_NOT_BRIDGE);
     return IterUtil.mapSnapshot(ms, CONVERT_METHOD);
@@ -76,7 +76,7 @@ public class Java5Class extends JavaClass {
     public boolean contains(Method m) { return !m.isBridge(); }
   };
   
-  @Override public Iterable<DJClass> declaredClasses() {
+  @Override protected Iterable<DJClass> makeDeclaredClasses() {
     // CONVERT_CLASS is shadowed here to create a Java5Class
     return IterUtil.mapSnapshot(IterUtil.asIterable(_c.getDeclaredClasses()), CONVERT_CLASS);
   }
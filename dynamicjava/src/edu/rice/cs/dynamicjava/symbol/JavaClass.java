@@ -30,7 +30,27 @@ public class JavaClass implements DJClass {
   
   protected Class<?> _c;
   
-  public JavaClass(Class<?> c) { _c = c; }
+  // Member tables, computed on first use (reflection and the wrapping of each member are expensive)
+  private final Thunk<Iterable<DJField>> _fields;
+  private final Thunk<Iterable<DJConstructor>> _constructors;
+  private final Thunk<Iterable<DJMethod>> _methods;
+  private final Thunk<Iterable<DJClass>> _classes;
+  
+  public JavaClass(Class<?> c) {
+    _c = c;
+    _fields = LazyThunk.make(new Thunk<Iterable<DJField>>() {
+      public Iterable<DJField> value() { return makeDeclaredFields(); }
+    });
+    _constructors = LazyThunk.make(new Thunk<Iterable<DJConstructor>>() {
+      public Iterable<DJConstructor> value() { return makeDeclaredConstructors(); }
+    });
+    _methods = LazyThunk.make(new Thunk<Iterable<DJMethod>>() {
+      public Iterable<DJMethod> value() { return makeDeclaredMethods(); }
+    });
+    _classes = LazyThunk.make(new Thunk<Iterable<DJClass>>() {
+      public Iterable<DJClass> value() { return makeDeclaredClasses(); }
+    });
+  }
   
   public String packageName() {
     String name = _c.getName();
@@ -83,19 +103,28 @@ public class JavaClass implements DJClass {
     return superC == null ? superIs : IterUtil.compose(superC, superIs);
   }
   
-  public Iterable<DJField> declaredFields() {
+  public final Iterable<DJField> declaredFields() { return _fields.value(); }
+  public final Iterable<DJConstructor> declaredConstructors() { return _constructors.value(); }
+  public final Iterable<DJMethod> declaredMethods() { return _methods.value(); }
+  public final Iterable<DJClass> declaredClasses() { return _classes.value(); }
+  
+  /** Create the (immutable) result of {@link #declaredFields}.  Invoked at most once per instance. */
+  protected Iterable<DJField> makeDeclaredFields() {
     return IterUtil.mapSnapshot(IterUtil.asIterable(_c.getDeclaredFields()), CONVERT_FIELD);
   }
   
-  public Iterable<DJConstructor> declaredConstructors() {
+  /** Create the (immutable) result of {@link #declaredConstructors}.  Invoked at most once per instance. */
+  protected Iterable<DJConstructor> makeDeclaredConstructors() {
     return IterUtil.mapSnapshot(IterUtil.asIterable(_c.getDeclaredConstructors()), CONVERT_CONSTRUCTOR);
   }
   
-  public Iterable<DJMethod> declaredMethods() {
+  /** Create the (immutable) result of {@link #declaredMethods}.  Invoked at most once per instance. */
+  protected Iterable<DJMethod> makeDeclaredMethods() {
     return IterUtil.mapSnapshot(IterUtil.asIterable(_c.getDeclaredMethods()), CONVERT_METHOD);
   }
   
-  public Iterable<DJClass> declaredClasses() {
+  /** Create the (immutable) result of {@link #declaredClasses}.  Invoked at most once per instance. */
+  protected Iterable<DJClass> makeDeclaredClasses() {
     return IterUtil.mapSnapshot(IterUtil.asIterable(_c.getDeclaredClasses()), CONVERT_CLASS);
   }
   
@@ -159,7 +188,8 @@ public class JavaClass implements DJClass {
 
   protected class JavaField implements DJField {
     protected final Field _f;
-    public JavaField(Field f) { _f = f; }
+    private volatile boolean _accessible; // whether setAccessible has been attempted
+    public JavaField(Field f) { _f = f; _accessible = false; }
     public String declaredName() { return _f.getName(); }
     public DJClass declaringClass() { return JavaClass.this; }
     public Type type() { return classAsType(_f.getType()); }
@@ -187,8 +217,7 @@ public class JavaClass implements DJClass {
           if (!isStatic() && receiver == null) {
             throw new WrappedException(new EvaluatorException(new NullPointerException()));
           }
-          try { _f.setAccessible(true); }
-          catch (SecurityException e) { debug.log(e); /* ignore -- we can't relax accessibility */ }
+          makeAccessible();
           try { return _f.get(receiver); }
           catch (IllegalAccessException e) {
             // should have been caught by static analysis
@@ -208,8 +237,7 @@ public class JavaClass implements DJClass {
           if (!isStatic() && receiver == null) {
             throw new WrappedException(new EvaluatorException(new NullPointerException()));
           }
-          try { _f.setAccessible(true); }
-          catch (SecurityException e) { debug.log(e); /* ignore -- we can't relax accessibility */ }
+          makeAccessible();
           try { _f.set(receiver, o); }
           catch (IllegalAccessException e) {
             // should have been caught by static analysis
@@ -228,6 +256,14 @@ public class JavaClass implements DJClass {
       };
     }
       
+    private void makeAccessible() {
+      if (!_accessible) {
+        try { _f.setAccessible(true); }
+        catch (SecurityException e) { debug.log(e); /* ignore -- we can't relax accessibility */ }
+        _accessible = true;
+      }
+    }
+      
     public String toString() { return "JavaField(" + declaredName() + ")"; }
 }
 
@@ -253,9 +289,15 @@ public class JavaClass implements DJClass {
     protected final Constructor<?> _k;
     protected final Type _outerType;
     private final Thunk<Iterable<LocalVariable>> _params;
+    private volatile boolean _accessible; // whether setAccessible has been attempted
+    private int _calls; // reflective calls so far; approximate, as it is not synchronized
+    private volatile Invoker _invoker; // null until generated
     
     public JavaConstructor(Constructor<?> k) {
       _k = k;
+      _accessible = false;
+      _calls = 0;
+      _invoker = null;
       DJClass outer = SymbolUtil.dynamicOuterClass(JavaClass.this);
       _outerType = (outer == null) ? null : SymbolUtil.thisType(outer);
       _params = makeParamThunk(); /* allows overriding */
@@ -290,10 +332,19 @@ public class JavaClass implements DJClass {
         args = IterUtil.compose(outer, args);
       }
       
-      try { _k.setAccessible(true); }
-      catch (SecurityException e) { debug.log(e); /* ignore -- we can't relax accessibility */ }
+      Object[] argsArray = argsArray(args);
+      Invoker invoker = _invoker;
+      if (invoker == null && ++_calls == Invoker.THRESHOLD) { _invoker = invoker = Invoker.make(_k); }
+      if (invoker != null) {
+        try { return invoker.invoke(null, argsArray); }
+        catch (Throwable t) { throw new EvaluatorException(t, Invoker.EXTRA_STACK); }
+      }
       
-      Object[] argsArray = IterUtil.toArray(args, Object.class);
+      if (!_accessible) {
+        try { _k.setAccessible(true); }
+        catch (SecurityException e) { debug.log(e); /* ignore -- we can't relax accessibility */ }
+        _accessible = true;
+      }
       try {
         return _k.newInstance(argsArray);
       }
@@ -331,7 +382,16 @@ public class JavaClass implements DJClass {
   protected class JavaMethod implements DJMethod {
     protected final Method _m;
     private final Thunk<Iterable<LocalVariable>> _params;
-    public JavaMethod(Method m) { _m = m; _params = makeParamThunk(); /* allows overriding */ }
+    private volatile boolean _accessible; // whether setAccessible has been attempted
+    private int _calls; // reflective calls so far; approximate, as it is not synchronized
+    private volatile Invoker _invoker; // null until generated
+    public JavaMethod(Method m) {
+      _m = m;
+      _params = makeParamThunk(); /* allows overriding */
+      _accessible = false;
+      _calls = 0;
+      _invoker = null;
+    }
     protected Thunk<Iterable<LocalVariable>> makeParamThunk() { return paramFactory(_m.getParameterTypes()); }
     public String declaredName() { return _m.getName(); }
     public DJClass declaringClass() { return JavaClass.this; }
@@ -354,10 +414,19 @@ public class JavaClass implements DJClass {
         throw new WrappedException(new EvaluatorException(new NullPointerException()));
       }
       
-      try { _m.setAccessible(true); }
-      catch (SecurityException e) { debug.log(e); /* ignore -- we can't relax accessibility */ }
+      Object[] argsArray = argsArray(args);
+      Invoker invoker = _invoker;
+      if (invoker == null && ++_calls == Invoker.THRESHOLD) { _invoker = invoker = Invoker.make(_m); }
+      if (invoker != null) {
+        try { return invoker.invoke(receiver, argsArray); }
+        catch (Throwable t) { throw new EvaluatorException(t, Invoker.EXTRA_STACK); }
+      }
       
-      Object[] argsArray = IterUtil.toArray(args, Object.class);
+      if (!_accessible) {
+        try { _m.setAccessible(true); }
+        catch (SecurityException e) { debug.log(e); /* ignore -- we can't relax accessibility */ }
+        _accessible = true;
+      }
       try {
         return _m.invoke(receiver, argsArray);
       }
@@ -387,6 +456,22 @@ public class JavaClass implements DJClass {
                    "sun.reflect.NativeMethodAccessorImpl.invoke",
                    "sun.reflect.NativeMethodAccessorImpl.invoke0" };
   
+  private static final Object[] NO_ARGS = new Object[0];
+  
+  /**
+   * Copy the arguments of a call to an array.  An empty array is shared, since neither reflection nor
+   * an {@link Invoker} modifies it; a nonempty array can't be reused across calls, because a call may be
+   * reentrant or concurrent.
+   */
+  private static Object[] argsArray(Iterable<Object> args) {
+    int size = IterUtil.sizeOf(args);
+    if (size == 0) { return NO_ARGS; }
+    Object[] result = new Object[size];
+    int i = 0;
+    for (Object arg : args) { result[i++] = arg; }
+    return result;
+  }
+  
   private static Thunk<Iterable<LocalVariable>> paramFactory(final Class<?>[] cs) {
     // Caches LocalVariables so we don't create duplicates
     return LazyThunk.make(new Thunk<Iterable<LocalVariable>>() {
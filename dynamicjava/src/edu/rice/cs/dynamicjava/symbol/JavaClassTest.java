@@ -0,0 +1,92 @@
+package edu.rice.cs.dynamicjava.symbol;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import edu.rice.cs.plt.iter.IterUtil;
+
+public class JavaClassTest extends TestCase {
+
+  public static class Members {
+    public int x;
+    public String y;
+    public Members() {}
+    public Members(int x) { this.x = x; }
+    public void m() {}
+    public int m(int i) { return i; }
+    public static class Inner {}
+  }
+
+  /** A generic class whose compareTo has a bridge method. */
+  public static class Bridged implements Comparable<Bridged> {
+    public int compareTo(Bridged b) { return 0; }
+  }
+
+  /** Counts the invocations of the member table factories. */
+  private static class CountingClass extends Java5Class {
+    int fields = 0, constructors = 0, methods = 0, classes = 0;
+    public CountingClass(Class<?> c) { super(c); }
+    @Override protected Iterable<DJField> makeDeclaredFields() { fields++; return super.makeDeclaredFields(); }
+    @Override protected Iterable<DJConstructor> makeDeclaredConstructors() {
+      constructors++;
+      return super.makeDeclaredConstructors();
+    }
+    @Override protected Iterable<DJMethod> makeDeclaredMethods() { methods++; return super.makeDeclaredMethods(); }
+    @Override protected Iterable<DJClass> makeDeclaredClasses() { classes++; return super.makeDeclaredClasses(); }
+  }
+
+  private static Set<String> variableNames(Iterable<? extends Variable> vs) {
+    Set<String> result = new TreeSet<String>();
+    for (Variable v : vs) { result.add(v.declaredName()); }
+    return result;
+  }
+
+  private static Set<String> functionNames(Iterable<? extends Function> fs) {
+    Set<String> result = new TreeSet<String>();
+    for (Function f : fs) { result.add(f.declaredName() + "/" + IterUtil.sizeOf(f.parameters())); }
+    return result;
+  }
+
+  private static Set<String> classNames(Iterable<? extends DJClass> cs) {
+    Set<String> result = new TreeSet<String>();
+    for (DJClass c : cs) { result.add(c.declaredName()); }
+    return result;
+  }
+
+  private static Set<String> set(String... names) { return new TreeSet<String>(Arrays.asList(names)); }
+
+  private void checkMembers(JavaClass c) {
+    assertEquals(set("x", "y"), variableNames(c.declaredFields()));
+    assertEquals(set("Members/0", "Members/1"), functionNames(c.declaredConstructors()));
+    assertEquals(set("m/0", "m/1"), functionNames(c.declaredMethods()));
+    assertEquals(set("Inner"), classNames(c.declaredClasses()));
+  }
+
+  public void testMembers() {
+    checkMembers(new JavaClass(Members.class));
+    checkMembers(new Java5Class(Members.class));
+  }
+
+  public void testBridgeMethods() {
+    assertEquals(2, IterUtil.sizeOf(new JavaClass(Bridged.class).declaredMethods()));
+    assertEquals(1, IterUtil.sizeOf(new Java5Class(Bridged.class).declaredMethods()));
+  }
+
+  public void testTablesAreComputedOnce() {
+    CountingClass c = new CountingClass(Members.class);
+    assertEquals(0, c.fields + c.constructors + c.methods + c.classes);
+    checkMembers(c);
+    assertSame(c.declaredFields(), c.declaredFields());
+    assertSame(c.declaredConstructors(), c.declaredConstructors());
+    assertSame(c.declaredMethods(), c.declaredMethods());
+    assertSame(c.declaredClasses(), c.declaredClasses());
+    checkMembers(c);
+    assertEquals(1, c.fields);
+    assertEquals(1, c.constructors);
+    assertEquals(1, c.methods);
+    assertEquals(1, c.classes);
+  }
+
+}
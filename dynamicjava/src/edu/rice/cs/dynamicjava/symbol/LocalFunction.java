@@ -6,6 +6,7 @@ import edu.rice.cs.plt.iter.IterUtil;
 import edu.rice.cs.plt.lambda.WrappedException;
 
 import edu.rice.cs.dynamicjava.Options;
+import edu.rice.cs.dynamicjava.interpreter.FrameLayout;
 import edu.rice.cs.dynamicjava.interpreter.RuntimeBindings;
 import edu.rice.cs.dynamicjava.interpreter.EvaluatorException;
 import edu.rice.cs.dynamicjava.interpreter.StatementEvaluator;
@@ -20,9 +21,20 @@ import koala.dynamicjava.interpreter.NodeProperties;
 public class LocalFunction implements Function {
   
   private MethodDeclaration _ast;
+  private FrameLayout _enclosingFrame;
   
   public LocalFunction(MethodDeclaration ast) {
+    this(ast, null);
+  }
+  
+  /**
+   * @param enclosingFrame  The layout of the frame in which the function is declared, or {@code null}.
+   *                        When the function is called, its body extends the nearest such frame in the
+   *                        calling context (rather than the calling context itself).
+   */
+  public LocalFunction(MethodDeclaration ast, FrameLayout enclosingFrame) {
     _ast = ast;
+    _enclosingFrame = enclosingFrame;
   }
   
   public String declaredName() { return _ast.getName(); }
@@ -44,9 +56,15 @@ public class LocalFunction implements Function {
   
   public Object evaluate(Iterable<Object> args, RuntimeBindings bindings, Options options)
     throws EvaluatorException {
-    RuntimeBindings bodyBindings = new RuntimeBindings(bindings, parameters(), args);
+    RuntimeBindings parent = bindings.enclosingFrame(_enclosingFrame);
+    RuntimeBindings bodyBindings;
+    if (NodeProperties.hasFrameLayout(_ast)) {
+      bodyBindings = new RuntimeBindings(parent, NodeProperties.getFrameLayout(_ast), parameters(), args);
+    }
+    else { bodyBindings = new RuntimeBindings(parent, parameters(), args); }
     try {
-      _ast.getBody().acceptVisitor(new StatementEvaluator(bodyBindings, options));
+      StatementEvaluator eval = new StatementEvaluator(bodyBindings, options);
+      if (!eval.executeCompiled(_ast.getBody())) { _ast.getBody().acceptVisitor(eval); }
       // if there was no return, return null or an appropriate zero primitive
       return SymbolUtil.initialValue(NodeProperties.getErasedType(_ast).value());
     }
@@ -1,5 +1,6 @@
 package edu.rice.cs.dynamicjava.symbol;
 
+import edu.rice.cs.dynamicjava.interpreter.FrameLayout;
 import edu.rice.cs.dynamicjava.symbol.type.Type;
 
 /** Represents a local variable declaration.  To allow usage as a key in maps, every instance is
@@ -9,6 +10,8 @@ public class LocalVariable implements Variable {
   private final String _name;
   private final Type _type;
   private final boolean _isFinal;
+  private final FrameLayout _frame;
+  private final int _slot;
   
   /**
    * Create a local variable with the given name, type, and "final" modifier.  Until sophisticated
@@ -16,9 +19,19 @@ public class LocalVariable implements Variable {
    * should be considered non-final.
    */
   public LocalVariable(String name, Type type, boolean isFinal) {
+    this(name, type, isFinal, null);
+  }
+  
+  /**
+   * Create a local variable that is stored in a slot of the given frame layout.  If {@code frame}
+   * is {@code null}, the variable is bound individually at runtime.
+   */
+  public LocalVariable(String name, Type type, boolean isFinal, FrameLayout frame) {
     _name = name;
     _type = type;
     _isFinal = isFinal;
+    _frame = frame;
+    _slot = (frame == null) ? -1 : frame.allocate();
   }
   
   public String declaredName() { return _name; }
@@ -27,6 +40,12 @@ public class LocalVariable implements Variable {
   
   public boolean isFinal() { return _isFinal; }
   
+  /** The layout of the frame in which the variable is stored, or {@code null} if it has no slot. */
+  public FrameLayout frame() { return _frame; }
+  
+  /** The variable's index in its frame, or {@code -1} if it has no slot. */
+  public int slot() { return _slot; }
+  
   public String toString() {
     return "LocalVariable(" + _name + ": " + _type + ")@" + Integer.toHexString(hashCode());
   }
@@ -52,6 +52,22 @@ public abstract class StandardTypeSystem extends TypeSystem {
    */
   private final boolean _strictClassEquality;
   
+  /** The maximum number of entries in {@link #_resolutions}. */
+  static final int RESOLUTION_CACHE_SIZE = 1024;
+  
+  /**
+   * The function chosen by each recent method or constructor lookup, keyed by a list describing the lookup (see
+   * {@link #resolutionKey}).  A repeated lookup only needs to check that the remembered function still applies to
+   * the arguments, skipping the search of the type hierarchy and the comparison of overloads.  Accessed only while
+   * holding its lock; least-recently-used entries are discarded first.
+   */
+  private final Map<List<Object>, Function> _resolutions =
+    new LinkedHashMap<List<Object>, Function>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<List<Object>, Function> e) {
+        return size() > RESOLUTION_CACHE_SIZE;
+      }
+    };
+  
   protected StandardTypeSystem(Options opt, boolean boxingInMostSpecific, boolean useExplicitTypeArgs,
                                 boolean strictClassEquality) {
     _opt  = opt;
@@ -1347,6 +1363,14 @@ public abstract class StandardTypeSystem extends TypeSystem {
         }
       });
     
+    List<Object> key = resolutionKey(t, null, false, typeArgs, args, expected, accessModule);
+    DJConstructor cached = (DJConstructor) cachedResolution(key);
+    if (cached != null) {
+      Iterable<FunctionInvocationCandidate<DJConstructor>> cs =
+        bestInvocations(IterUtil.singleton(cached), typeArgs, args, expected);
+      if (IterUtil.sizeOf(cs) == 1) { return makeConstructorInvocation(IterUtil.first(cs)); }
+    }
+    
     Iterable<DJConstructor> accessible = IterUtil.filter(constructors, new Predicate<DJConstructor>() {
       public boolean contains(DJConstructor k) { return accessible(k, accessModule); }
     });
@@ -1363,14 +1387,55 @@ public abstract class StandardTypeSystem extends TypeSystem {
     }
     else {
       FunctionInvocationCandidate<DJConstructor> c = IterUtil.first(cs);
-      DJConstructor k = c.function();
-      SubstitutionMap sigma = c.substitution();
-      return new ConstructorInvocation(k, c.typeArguments(), c.arguments(), substitute(k.thrownTypes(), sigma));
+      cacheResolution(key, c.function());
+      return makeConstructorInvocation(c);
     }
     
     } finally { debug.logEnd(); }
   }
   
+  private ConstructorInvocation makeConstructorInvocation(FunctionInvocationCandidate<DJConstructor> c) {
+    DJConstructor k = c.function();
+    SubstitutionMap sigma = c.substitution();
+    return new ConstructorInvocation(k, c.typeArguments(), c.arguments(), substitute(k.thrownTypes(), sigma));
+  }
+  
+  /**
+   * Produce a key for {@link #_resolutions} describing a method or constructor lookup, or {@code null} if the
+   * lookup should not be cached.  Lookups in a parameterized type with wildcard arguments are not cached, because
+   * the functions found are instantiated with fresh capture variables each time.  (Argument types that contain
+   * capture variables simply never produce a match.)
+   * @param name  The method name, or {@code null} for a constructor lookup
+   */
+  private List<Object> resolutionKey(Type t, String name, boolean onlyStatic, Iterable<? extends Type> typeArgs,
+                                     Iterable<? extends Expression> args, Option<Type> expected,
+                                     Access.Module accessModule) {
+    boolean cacheable = t.apply(new TypeAbstractVisitor<Boolean>() {
+      public Boolean defaultCase(Type t) { return false; }
+      @Override public Boolean forSimpleClassType(SimpleClassType t) { return true; }
+      @Override public Boolean forRawClassType(RawClassType t) { return true; }
+      @Override public Boolean forParameterizedClassType(ParameterizedClassType t) {
+        for (Type arg : t.typeArguments()) { if (arg instanceof Wildcard) { return false; } }
+        return true;
+      }
+    });
+    if (!cacheable) { return null; }
+    return Arrays.<Object>asList(t, name, onlyStatic, CollectUtil.makeArrayList(typeArgs),
+                                 CollectUtil.makeArrayList(IterUtil.map(args, NodeProperties.NODE_TYPE)),
+                                 expected, accessModule);
+  }
+  
+  /** Get the function chosen by a previous lookup with the given key, or {@code null} if there is none. */
+  Function cachedResolution(List<Object> key) {
+    if (key == null) { return null; }
+    synchronized (_resolutions) { return _resolutions.get(key); }
+  }
+  
+  /** Remember the function chosen by a lookup with the given key (ignored if the key is {@code null}). */
+  void cacheResolution(List<Object> key, Function f) {
+    if (key != null) { synchronized (_resolutions) { _resolutions.put(key, f); } }
+  }
+  
   public boolean containsMethod(Type t, String name, Access.Module accessModule) {
     return new MethodFinder(name, accessModule, false).hasMatch(t);
   }
@@ -1853,6 +1918,14 @@ public abstract class StandardTypeSystem extends TypeSystem {
         findSingleMethod(Type t, Iterable<? extends Type> targs, Iterable<? extends Expression> args,
                          Option<Type> expected) throws UnmatchedLookupException {
       debug.logStart(new String[]{"t","name","onlyStatic"}, wrap(t), _name, _onlyStatic); try {
+      
+      List<Object> key = resolutionKey(t, _name, _onlyStatic, targs, args, expected, _accessModule);
+      DJMethod cached = (DJMethod) cachedResolution(key);
+      if (cached != null) {
+        Iterable<FunctionInvocationCandidate<DJMethod>> best =
+          bestInvocations(IterUtil.singleton(cached), targs, args, expected);
+        if (IterUtil.sizeOf(best) == 1) { return IterUtil.first(best); }
+      }
         
       PredicateSet<DJMethod> candidates = findAll(t);
       Iterable<FunctionInvocationCandidate<DJMethod>> best = bestInvocations(candidates, targs, args, expected);
@@ -1865,7 +1938,11 @@ public abstract class StandardTypeSystem extends TypeSystem {
         });
         throw new AmbiguousFunctionLookupException(ms);
       }
-      else { return IterUtil.first(best); }
+      else {
+        FunctionInvocationCandidate<DJMethod> result = IterUtil.first(best);
+        cacheResolution(key, result.function());
+        return result;
+      }
       
       } finally { debug.logEnd(); }
     }
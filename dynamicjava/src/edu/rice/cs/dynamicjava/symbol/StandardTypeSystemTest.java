@@ -0,0 +1,108 @@
+package edu.rice.cs.dynamicjava.symbol;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import edu.rice.cs.plt.iter.IterUtil;
+
+import edu.rice.cs.dynamicjava.Options;
+import edu.rice.cs.dynamicjava.interpreter.Interpreter;
+import edu.rice.cs.dynamicjava.interpreter.InterpreterException;
+
+public class StandardTypeSystemTest extends TestCase {
+  
+  /** Overloaded, generic, and varargs members whose results identify the member that was invoked. */
+  public static class Over {
+    public final String name;
+    public Over() { name = "Over()"; }
+    public Over(int i) { name = "Over(int)"; }
+    public Over(Object o) { name = "Over(Object)"; }
+    public Over(String s, int... is) { name = "Over(String,int...)" + is.length; }
+    
+    public static String f(int x) { return "f(int)"; }
+    public static String f(long x) { return "f(long)"; }
+    public static String f(Integer x) { return "f(Integer)"; }
+    public static String f(Object x) { return "f(Object)"; }
+    
+    public static String g(int... xs) { return "g(int...)" + xs.length; }
+    public static String g(String s, Object... xs) { return "g(String,Object...)" + xs.length; }
+    
+    public static <T> T id(T x) { return x; }
+    public static <T extends Comparable<? super T>> T max(T a, T b) { return a.compareTo(b) >= 0 ? a : b; }
+    public static <T> List<T> list(T... xs) { return Arrays.asList(xs); }
+    
+    public String h(Number n) { return "h(Number)"; }
+    public String h(Integer i) { return "h(Integer)"; }
+  }
+  
+  private static final String O = "edu.rice.cs.dynamicjava.symbol.StandardTypeSystemTest.Over";
+  
+  /** Calls, paired with their expected results. */
+  private static final Object[][] CALLS = {
+    { O + ".f(1)", "f(int)" },
+    { O + ".f(1L)", "f(long)" },
+    { O + ".f('a')", "f(int)" },
+    { O + ".f(Integer.valueOf(1))", "f(Integer)" },
+    { O + ".f(\"s\")", "f(Object)" },
+    { O + ".f(1.0)", "f(Object)" },
+    { O + ".g()", "g(int...)0" },
+    { O + ".g(1, 2)", "g(int...)2" },
+    { O + ".g(\"a\")", "g(String,Object...)0" },
+    { O + ".g(\"a\", 1, \"b\")", "g(String,Object...)2" },
+    { O + ".id(\"x\")", "x" },
+    { O + ".id(3)", 3 },
+    { O + ".max(2, 5)", 5 },
+    { O + ".max(\"a\", \"b\")", "b" },
+    { O + ".list(1, 2, 3).size()", 3 },
+    { O + ".list(\"a\").get(0)", "a" },
+    { "new " + O + "().name", "Over()" },
+    { "new " + O + "(1).name", "Over(int)" },
+    { "new " + O + "(\"s\").name", "Over(Object)" },
+    { "new " + O + "(\"s\", 1, 2).name", "Over(String,int...)2" },
+    { "new " + O + "().h(1)", "h(Integer)" },
+    { "new " + O + "().h(1.5)", "h(Number)" },
+  };
+  
+  /** Options with a type system of their own, so that its resolution cache starts out empty. */
+  private static Options newOptions() { return new Options() {}; }
+  
+  private static Object eval(Interpreter i, String code) throws InterpreterException {
+    return i.interpret(code).unwrap();
+  }
+  
+  public void testCachedResolutionMatchesUncached() throws InterpreterException {
+    Interpreter shared = new Interpreter(newOptions());
+    for (Object[] call : CALLS) {
+      String code = (String) call[0];
+      assertEquals(code, call[1], eval(new Interpreter(newOptions()), code));
+      assertEquals(code, call[1], eval(shared, code));
+    }
+    // every lookup has now been cached by the shared interpreter's type system
+    for (Object[] call : CALLS) {
+      String code = (String) call[0];
+      assertEquals(code, call[1], eval(shared, code));
+    }
+  }
+  
+  public void testCacheEvictsLeastRecentlyUsed() {
+    StandardTypeSystem ts = (StandardTypeSystem) newOptions().typeSystem();
+    Function f = IterUtil.first(new JavaClass(Over.class).declaredMethods());
+    for (int i = 0; i < StandardTypeSystem.RESOLUTION_CACHE_SIZE; i++) {
+      ts.cacheResolution(Arrays.<Object>asList(i), f);
+    }
+    assertSame(f, ts.cachedResolution(Arrays.<Object>asList(0)));
+    ts.cacheResolution(Arrays.<Object>asList(-1), f);
+    assertSame("recently used entry is kept", f, ts.cachedResolution(Arrays.<Object>asList(0)));
+    assertNull("eldest entry is evicted", ts.cachedResolution(Arrays.<Object>asList(1)));
+    assertSame(f, ts.cachedResolution(Arrays.<Object>asList(-1)));
+    assertSame(f, ts.cachedResolution(Arrays.<Object>asList(StandardTypeSystem.RESOLUTION_CACHE_SIZE - 1)));
+  }
+  
+  public void testUncacheableKey() {
+    StandardTypeSystem ts = (StandardTypeSystem) newOptions().typeSystem();
+    ts.cacheResolution(null, IterUtil.first(new JavaClass(Over.class).declaredMethods()));
+    assertNull(ts.cachedResolution(null));
+  }
+  
+}
@@ -32,12 +32,15 @@ import koala.dynamicjava.interpreter.error.ExecutionError;
 import koala.dynamicjava.tree.Node;
 import koala.dynamicjava.tree.Expression;
 import edu.rice.cs.dynamicjava.interpreter.TypeContext;
+import edu.rice.cs.dynamicjava.interpreter.FrameLayout;
+import edu.rice.cs.dynamicjava.interpreter.StatementCompiler;
 import edu.rice.cs.dynamicjava.symbol.*;
 import edu.rice.cs.dynamicjava.symbol.type.Type;
 import edu.rice.cs.dynamicjava.symbol.type.VariableType;
 import edu.rice.cs.plt.lambda.Thunk;
 import edu.rice.cs.plt.lambda.Lambda;
 import edu.rice.cs.plt.lambda.Lambda2;
+import edu.rice.cs.plt.tuple.Option;
 
 /**
  * This class provides concrete methods to facilitate attaching and reading auxiliary properties
@@ -450,6 +453,45 @@ public class NodeProperties {
       return n.hasProperty(OPERATION);
     }
 
+    /**
+     * A FrameLayout -- the layout of the runtime frame of a function, constructor, or initializer body
+     */
+    public final static String FRAME_LAYOUT = "frameLayout";
+
+    public static FrameLayout getFrameLayout(Node n) {
+      return (FrameLayout) n.getProperty(FRAME_LAYOUT);
+    }
+
+    public static FrameLayout setFrameLayout(Node n, FrameLayout l) {
+      n.setProperty(FRAME_LAYOUT, l);
+      return l;
+    }
+
+    public static boolean hasFrameLayout(Node n) {
+      return n.hasProperty(FRAME_LAYOUT);
+    }
+
+    /**
+     * An Option<StatementCompiler.CompiledStatement> -- the result of an attempt to compile a statement
+     * to bytecode (none if the statement uses unsupported constructs)
+     */
+    public final static String COMPILED_STATEMENT = "compiledStatement";
+
+    @SuppressWarnings("unchecked")
+    public static Option<StatementCompiler.CompiledStatement> getCompiledStatement(Node n) {
+      return (Option<StatementCompiler.CompiledStatement>) n.getProperty(COMPILED_STATEMENT);
+    }
+
+    public static Option<StatementCompiler.CompiledStatement>
+      setCompiledStatement(Node n, Option<StatementCompiler.CompiledStatement> c) {
+      n.setProperty(COMPILED_STATEMENT, c);
+      return c;
+    }
+
+    public static boolean hasCompiledStatement(Node n) {
+      return n.hasProperty(COMPILED_STATEMENT);
+    }
+
     /**
      * This class contains only static method and constants,
      * so it is not useful to create instances of it.
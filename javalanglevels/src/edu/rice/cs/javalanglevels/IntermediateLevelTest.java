@@ -142,6 +142,81 @@ public class IntermediateLevelTest extends TestCase {
   }
   
   
+  /** Converters called from several threads at once take turns after parsing, and should report the same errors as
+    * when they are called one at a time. */
+  public void testConcurrentCallersTakeTurns() throws InterruptedException {
+    final File[] testFiles = new File(directory, "shouldBreak").listFiles(new FileFilter() {
+      public boolean accept(File pathName) { return pathName.getAbsolutePath().endsWith(".dj1"); }
+    });
+    final Options options = new Options(JavaVersion.JAVA_8, EmptyIterable.<File>make());
+    String[] expected = new String[testFiles.length];
+    for (int i = 0; i < testFiles.length; i++) {
+      expected[i] = new LanguageLevelConverter().convert(new File[] { testFiles[i] }, options).toString();
+    }
+
+    final String[] actual = new String[testFiles.length];
+    Thread[] threads = new Thread[testFiles.length];
+    for (int i = 0; i < testFiles.length; i++) {
+      final int index = i;
+      threads[i] = new Thread() {
+        public void run() {
+          actual[index] = new LanguageLevelConverter().convert(new File[] { testFiles[index] }, options).toString();
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread t : threads) t.join();
+    for (int i = 0; i < testFiles.length; i++) {
+      assertEquals("Errors in " + testFiles[i].getName(), expected[i], actual[i]);
+    }
+  }
+
+  /** Converting many files in one call parses them on several threads; the errors and the generated files should be
+    * the same as when they are parsed one after the other. */
+  public void testParallelParsing() throws IOException {
+    FileFilter dj1Filter = new FileFilter() {
+      public boolean accept(File pathName) { return pathName.getAbsolutePath().endsWith(".dj1"); }
+    };
+    File[] goodFiles = directory.listFiles(dj1Filter);
+    File[] badFiles = new File(directory, "shouldBreak").listFiles(dj1Filter);
+    assertTrue("enough files to parse in parallel", goodFiles.length >= 4 && badFiles.length >= 4);
+
+    _readConverted(goodFiles);  // the files left by other tests would change the conversion
+    int oldThreads = LanguageLevelConverter._parseThreads;
+    try {
+      LanguageLevelConverter._parseThreads = 1;
+      String serialErrors = _convert(goodFiles) + _convert(badFiles);
+      Map<File, String> serialOutput = _readConverted(goodFiles);
+
+      LanguageLevelConverter._parseThreads = 4;
+      String parallelErrors = _convert(goodFiles) + _convert(badFiles);
+      Map<File, String> parallelOutput = _readConverted(goodFiles);
+
+      assertEquals("same errors", serialErrors, parallelErrors);
+      assertEquals("same generated files", serialOutput, parallelOutput);
+    }
+    finally { LanguageLevelConverter._parseThreads = oldThreads; }
+  }
+
+  /** Converts files in a single call and returns the errors it reports. */
+  private static String _convert(File[] files) {
+    return new LanguageLevelConverter().convert(files, new Options(JavaVersion.JAVA_8, EmptyIterable.<File>make()))
+      .toString();
+  }
+
+  /** Reads and deletes the .java files generated from the given language level files; a file that was not generated
+    * maps to null. */
+  private static Map<File, String> _readConverted(File[] files) throws IOException {
+    Map<File, String> result = new HashMap<File, String>();
+    for (File f : files) {
+      String path = f.getPath();
+      File converted = new File(path.substring(0, path.length() - 4) + ".java");
+      result.put(f, converted.exists() ? IOUtil.toString(converted) : null);
+      converted.delete();
+    }
+    return result;
+  }
+
   /** Make sure that 1.4 augmentation rules are correctly followed for Yay.dj1*/
   public void test14Augmentation() {
     File[] arrayF = new File[]{ new File("testFiles/forIntermediateLevelTest/Yay.dj1")};
@@ -38,7 +38,13 @@ package edu.rice.cs.javalanglevels;
 
 import java.lang.reflect.Modifier;
 import java.io.*;
+import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.objectweb.asm.*;
 
@@ -59,6 +65,10 @@ import edu.rice.cs.plt.reflect.PathClassLoader;
 /** An instance of this class converts a language level file to a .java file of the same name by first visiting the 
   * file to error-check it, and then by augmenting the file.  This class is tested at the top level in the
   * AdvancedLevelTest, ElementaryLevelTest, and IntermediateLevelTest.
+  * <p>
+  * Conversions are not reentrant: they share the static symbolTable, _newSDs, and OPT, and the static fields of the
+  * visitors, type checkers, and Augmentor.  Only the parsing of each file runs in parallel.  Everything after it is
+  * serialized on CONVERSION_LOCK, so converters on different threads are safe but do not run their passes at once.
   */
 public class LanguageLevelConverter {
   
@@ -69,11 +79,16 @@ public class LanguageLevelConverter {
   
   /** Hashtable for a shared symbolTable.  Since this field is static, only one instance of
     * LanguageLevelConverter should exist at a time.  If we create a
-    * LanguageLevelConverter instance for each translation, we must drop the static attribute. */
+    * LanguageLevelConverter instance for each translation, we must drop the static attribute.  Until then, conversions
+    * on different threads take turns using it; see CONVERSION_LOCK. */
   public static final Symboltable symbolTable = new Symboltable();
   
   public static Options OPT = Options.DEFAULT;
   
+  /** Signatures of the library classes read by conversions.  Unlike symbolTable, it is not cleared by each conversion;
+    * it is emptied only when the class path changes. */
+  public static final LibraryClassCache LIBRARY_CLASSES = new LibraryClassCache();
+  
   /* For Corky's version: set this to false */
   private static final boolean SAFE_SUPPORT_CODE = false;
   public static final int INPUT_BUFFER_SIZE = 8192;  // This reportedly is the current default in the JDK.
@@ -87,7 +102,20 @@ public class LanguageLevelConverter {
     * LanguageLevelConverter instance for each translation, we must drop the static attribute. */
   public static final Hashtable<SymbolData, LanguageLevelVisitor> _newSDs = 
     new Hashtable<SymbolData, LanguageLevelVisitor>();
-  
+
+  /** Guards the static state shared by conversions: symbolTable, _newSDs, OPT, and the static fields of the visitors,
+    * type checkers, and Augmentor.  A conversion holds it from the conformance pass on, so converters running on
+    * different threads parse their files concurrently but take turns for the rest.  Removing it requires moving that
+    * state into a per-conversion object (see the TODO above). */
+  private static final Object CONVERSION_LOCK = new Object();
+
+  /** The maximum number of threads used to parse the files of a conversion; at 1, files are parsed on the calling
+    * thread.  Not final so that tests can compare parallel and serial parsing. */
+  static volatile int _parseThreads = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+  /** Conversions of fewer files than this parse them on the calling thread. */
+  private static final int PARALLEL_PARSE_THRESHOLD = 4;
+
   /**Holds any parse exceptions that are encountered*/
   private LinkedList<JExprParseException> _parseExceptions = new LinkedList<JExprParseException>();
   
@@ -156,8 +184,9 @@ public class LanguageLevelConverter {
     return _classFile2SymbolData(qualifiedClassName, null);
   }
   
-  /** Uses the ASM class reader to read the class file corresponding to the class in the specified directory, and uses
-    * the information from ASM to build a SymbolData corresponding to the class.  Ensures that the returned SymbolData
+  /** Uses the ASM class reader to read the class file corresponding to the class in the specified directory (unless
+    * the signature of a library class is already in LIBRARY_CLASSES), and uses the information from ASM to build a
+    * SymbolData corresponding to the class.  Ensures that the returned SymbolData
     * (if any) is inserted in the symbolTable.  Silently fails returning null instead of throwing an exception.
     * Relies on fact that a static variable, namely LanguageLevelConverter.symbolTable holds the symbol table. UGHH!!
     * There should be a symbol table object and this method should be an instance method of that object!!
@@ -168,22 +197,30 @@ public class LanguageLevelConverter {
   public static SymbolData _classFile2SymbolData(final String qualifiedClassName, final String programRoot) {
     _log.log("***** _classFile2SymbolData(" + qualifiedClassName + ", " + programRoot + ") called");
     
-    ClassReader reader = null;
-    try {
-      String fileName = qualifiedClassName.replace('.', '/') + ".class";
-      _log.log("***** reading class file: " + fileName);
-      InputStream stream = RESOURCES.value().getResourceAsStream(fileName);
-      if (stream == null && programRoot != null) {
-        stream = PathClassLoader.getResourceInPathAsStream(fileName, new File(programRoot));
-      }
-      if (stream == null) { 
-        _log.log("***** class file was empty! *****");
-        return null; 
+    // Array types have no class files
+    if (qualifiedClassName.endsWith("[]")) return null;
+    
+    LibraryClassCache.ClassSignature signature = LIBRARY_CLASSES.get(qualifiedClassName, OPT);
+    if (signature == null) {
+      try {
+        String fileName = qualifiedClassName.replace('.', '/') + ".class";
+        _log.log("***** reading class file: " + fileName);
+        URL url = RESOURCES.value().getResource(fileName);
+        InputStream stream = (url == null) ? null : url.openStream();
+        if (stream == null && programRoot != null) {
+          stream = PathClassLoader.getResourceInPathAsStream(fileName, new File(programRoot));
+        }
+        if (stream == null) { 
+          _log.log("***** class file was empty! *****");
+          return null; 
+        }
+        // Let IOUtil handle the stream here, because it closes it when it's done, unlike ASM.
+        signature = LibraryClassCache.ClassSignature.read(new ClassReader(IOUtil.toByteArray(stream)));
+        // Only classes in jar files are cached; class files in directories may change at any time
+        if (url != null && url.getProtocol().equals("jar")) LIBRARY_CLASSES.put(qualifiedClassName, signature, OPT);
       }
-      // Let IOUtil handle the stream here, because it closes it when it's done, unlike ASM.
-      reader = new ClassReader(IOUtil.toByteArray(stream));
+      catch (IOException e) { return null; }
     }
-    catch (IOException e) { return null; }
     
     // Class file found; create the symbol table entry
     final SymbolData sd;
@@ -301,7 +338,7 @@ public class LanguageLevelConverter {
       
     };
     _log.log("***** Loading member signatures for file system class " + qualifiedClassName + " and all of its unloaded supertypes");
-    reader.accept(extractData, ClassReader.SKIP_CODE);
+    signature.accept(extractData);
 //    System.err.println("####### Finished loading " + qualifiedClassName);
     
     // Remove the class from the list of continuations to resolve.
@@ -369,7 +406,94 @@ public class LanguageLevelConverter {
   
   /** Add the visitor error to the list of errors, */
   private void _addVisitorError(Pair<String, JExpressionIF> ve) { _visitorErrors.addLast(ve); }
-  
+
+  /** The result of reading and parsing one of the files passed to convert. */
+  private static class ParsedFile {
+    public final File file;
+    /** True if the file has no lines, in which case it is skipped. */
+    public boolean isEmpty = false;
+    /** The parsed file; null if it was not parsed. */
+    public SourceFile sourceFile = null;
+    /** The names of the top-level classes defined in sourceFile. */
+    public Set<String> topLevelClasses = null;
+    public ParseException parseException = null;
+    public IOException ioException = null;
+    public ParsedFile(File f) { file = f; }
+  }
+
+  /** Read and parse the given files, returning the results in the same order.  Many files are parsed by a short-lived
+    * pool of threads; the parser has no shared state, so the results do not depend on the order of parsing. */
+  private static List<ParsedFile> _parseFiles(File[] files) {
+    ArrayList<ParsedFile> results = new ArrayList<ParsedFile>(files.length);
+    int threads = _parseThreads;
+    if (files.length < PARALLEL_PARSE_THRESHOLD || threads < 2) {
+      for (File f : files) results.add(_parseFile(f));
+      return results;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.length));
+    try {
+      ArrayList<Future<ParsedFile>> futures = new ArrayList<Future<ParsedFile>>(files.length);
+      for (final File f : files) {
+        futures.add(pool.submit(new Callable<ParsedFile>() { public ParsedFile call() { return _parseFile(f); } }));
+      }
+      for (Future<ParsedFile> future : futures) results.add(future.get());
+      return results;
+    }
+    catch (InterruptedException e) { throw new UnexpectedException(e); }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new UnexpectedException(e.getCause());
+    }
+    finally { pool.shutdown(); }
+  }
+
+  /** Read the given file and, if it is a language level or Java file, parse it and find its top-level classes. */
+  private static ParsedFile _parseFile(File f) {
+    ParsedFile result = new ParsedFile(f);
+    try {
+      // Check for a null file
+      BufferedReader tempBr = new BufferedReader(new FileReader(f));
+      String firstLine = tempBr.readLine();
+      tempBr.close();
+      if (firstLine == null) {
+        result.isEmpty = true;
+        return result;
+      }
+
+      if (isJavaFile(f)) {  /* a .dj0, .dj1, .dj2,, .dj, or .java file; all but .dj and .java are legacy */
+        JExprParser jep = new JExprParser(f);
+        try {
+          _log.log("Parsing " + f);
+          final SourceFile sf = jep.SourceFile();
+          // Parse the classes in sf
+          final Set<String> topLevelClasses = new HashSet<String>();
+          for (TypeDefBase t: sf.getTypes()) {
+            t.visit(new JExpressionIFAbstractVisitor<Void>() {
+              public Void forClassDef(ClassDef that) {
+                String className = that.getName().getText();
+                _log.log("Class '" + className + "' found in file " + sf);
+                topLevelClasses.add(className);
+                return null;
+              }
+              public Void defaultCase(JExpressionIF that) { return null; }
+            });
+          }
+          result.sourceFile = sf;
+          result.topLevelClasses = topLevelClasses;
+          _log.log("Completed parsing " + f);
+        }
+        catch (ParseException pe) {
+          _log.log("GENERATED (non-Parse) exception in parsing file " + f);
+          result.parseException = pe;
+        }
+        catch (Exception pe) { throw new UnexpectedException(pe); }  // catch any other Exceptions thrown in parsing
+      }
+    }
+    catch (IOException ioe) { result.ioException = ioe; }
+    return result;
+  }
+
   
   /** Parse, Visit, Type Check, and Convert any language level files in the array of files. */
   public Pair<LinkedList<JExprParseException>, LinkedList<Pair<String, JExpressionIF>>>
@@ -381,13 +505,24 @@ public class LanguageLevelConverter {
   /** Parse, visit, type check, and convert any language level files (and unconverted LL files they reference) in files/
     * @param files  The array of files to process.
     * @param sourceToTopLevelClassMap  A map from source files to names of top-level classes created from that source file;
-    *        it is initially empty and subsequently filled out by this method */
+    *        it is initially empty and subsequently filled out by this method
+    * Only parsing overlaps with conversions on other threads; the remaining passes wait for CONVERSION_LOCK. */
   // "Visit" is an extremely vague notion; I presume it means construct a symbol table for the file.
   public Pair<LinkedList<JExprParseException>, LinkedList<Pair<String, JExpressionIF>>>
     convert(File[] files, Options options, Map<File,Set<String>> sourceToTopLevelClassMap) {
-    
+
 //    System.err.println("LanguageLevelConverter.convert called on files:  " + Arrays.toString(files));
     _log.log("LanguageLevelConverter.convert called on files:  " + Arrays.toString(files));
+
+    /* Parsing does not touch the symbol table, so it is done before taking CONVERSION_LOCK. */
+    List<ParsedFile> parsedFiles = _parseFiles(files);
+    synchronized(CONVERSION_LOCK) { return _convert(parsedFiles, options, sourceToTopLevelClassMap); }
+  }
+
+  /** Visit, type check, and convert the parsed files, in the order given.  The caller must hold CONVERSION_LOCK. */
+  private Pair<LinkedList<JExprParseException>, LinkedList<Pair<String, JExpressionIF>>>
+    _convert(List<ParsedFile> parsedFiles, Options options, Map<File,Set<String>> sourceToTopLevelClassMap) {
+
     OPT = options;
 //    System.err.println("Options = " + options);
     assert symbolTable != null;
@@ -445,94 +580,63 @@ public class LanguageLevelConverter {
     /* Maintains the list of Full Java files, which are parsed for symbols and checked for gross errors. */
     LinkedList<File> javaFiles = new LinkedList<File>();
     
-    /** First pass: classfication and conformance checking */
-    for (File f : files) {    
-      try {
-//        if (filesNotToCheck.contains(f)) continue;  // Detects equal File objects
-        
-        // Check for a null file
-        BufferedReader tempBr = new BufferedReader(new FileReader(f));
-        String firstLine = tempBr.readLine();
-        tempBr.close();
-        if (firstLine == null) continue;
+    /** First pass: classfication and conformance checking.  The files were parsed by _parseFiles. */
+    for (ParsedFile pf : parsedFiles) {
+      File f = pf.file;
+      if (pf.ioException != null) {
+        // The NullLiteral is a hack to get a JExpression with the correct SourceInfo inside.
+        _addVisitorError(new Pair<String, JExpressionIF>(pf.ioException.getMessage(), new NullLiteral(SourceInfo.NONE)));
+        continue;
+      }
+      if (pf.isEmpty) continue;
+      
+      if (isAdvancedFile(f))  advanced.addLast(f);
+      else if (isFullJavaFile(f)) javaFiles.addLast(f);
+      
+      if (isJavaFile(f)) {  /* a .dj0, .dj1, .dj2,, .dj, or .java file; all but .dj and .java are legacy */
+        if (pf.parseException != null) {
+          // If there is a ParseException, go to next file.
+          _addParseException(pf.parseException);
+          continue;
+        }
+        SourceFile sf = pf.sourceFile;
+        sourceToTopLevelClassMap.put(f, pf.topLevelClasses);
         
-        if (isAdvancedFile(f))  advanced.addLast(f);
-        else if (isFullJavaFile(f)) javaFiles.addLast(f);
+        LinkedList<String> importedPackageBase = new LinkedList<String>();
+        importedPackageBase.add("java.lang");
         
-        if (isJavaFile(f)) {  /* a .dj0, .dj1, .dj2,, .dj, or .java file; all but .dj and .java are legacy */
-          System.out.flush();
-          SourceFile sf = null;
-          JExprParser jep = new JExprParser(f);
-          try { 
-            _log.log("Parsing " + f);
-            sf = jep.SourceFile();  // Does the SourceFile method parse the file f embedded in jep?  NO!
-            // Parse the classes in sf
-            final Set<String> topLevelClasses = new HashSet<String>();
-            final SourceFile fsf = sf;
-            for (TypeDefBase t: sf.getTypes()) {
-              t.visit(new JExpressionIFAbstractVisitor<Void>() {
-                public Void forClassDef(ClassDef that) {
-                  String className = that.getName().getText();
-                  _log.log("Class '" + className + "' found in file " + fsf);
-                  topLevelClasses.add(className); 
-                  return null; 
-                }
-                public Void defaultCase(JExpressionIF that) { return null; }
-              });
-            }
-            sourceToTopLevelClassMap.put(f, topLevelClasses);
-            _log.log("Completed parsing " + f);
-          } 
-          catch (ParseException pe) {
-            // If there is a ParseException, go to next file.
-            _addParseException(pe);
-            _log.log("GENERATED (non-Parse) exception in parsing file " + sf);
-            continue;
-          }
-          catch (Exception pe) { throw new UnexpectedException(pe); }  // catch any other Exceptions thrown in parsing
-          
-          LinkedList<String> importedPackageBase = new LinkedList<String>();
-          importedPackageBase.add("java.lang");
-            
-          // Now create a LanguageLevelVisitor to do the first pass over the file.
-          LanguageLevelVisitor llv;
-          if (isLanguageLevelFile(f)) { // Intermediate is the only language level other than full Java.
-            llv = new IntermediateVisitor(f,
-                                          importedPackageBase,
-                                          new LinkedList<Pair<String, JExpressionIF>>(),
-                                          new Hashtable<String, Triple<SourceInfo, LanguageLevelVisitor, SymbolData>>(),
-                                          new LinkedList<Command>(),
-                                          languageLevelVisitedFiles);
-          }
-          else {
-            assert isAdvancedFile(f) || isFullJavaFile(f);  // Advanced files are treated exactly like full Java.
-            llv = new FullJavaVisitor(f,
-                                      importedPackageBase,
-                                      new LinkedList<Pair<String, JExpressionIF>>(),
-                                      new Hashtable<String, Triple<SourceInfo, LanguageLevelVisitor, SymbolData>>(), 
-                                      new LinkedList<Command>(),
-                                      languageLevelVisitedFiles);
-          }
-          
-          // Conformance checking pass
-          sf.visit(llv);
-//          _log.log("\nDUMPING SYMBOLTABLE AFTER PHASE 1 PROCESSING OF " + f + "\n\n" + symbolTable + "\n");
-          visited.add(new Triple<LanguageLevelVisitor, SourceFile, File>(llv, sf, f));
-          _log.log("\nCONTINUATIONS AFTER PHASE 1 PROCESSING OF " + f + "\n\n" + llv.continuations + "\n");
-          _log.log("\nERRORS AFTER PHASE 1 PROCESSING OF " + f + "\n\n" + llv.errors + "\n");
-//          if (! llv.errors.isEmpty()) Utilities.show("errors after " + f + "\n" + llv.errors);
-          //add the continuations to the hash table.
-          continuations.putAll(llv.continuations);
-          fixUps.addAll(llv.fixUps);
-          languageLevelVisitorErrors.addAll(llv.errors);
+        // Now create a LanguageLevelVisitor to do the first pass over the file.
+        LanguageLevelVisitor llv;
+        if (isLanguageLevelFile(f)) { // Intermediate is the only language level other than full Java.
+          llv = new IntermediateVisitor(f,
+                                        importedPackageBase,
+                                        new LinkedList<Pair<String, JExpressionIF>>(),
+                                        new Hashtable<String, Triple<SourceInfo, LanguageLevelVisitor, SymbolData>>(),
+                                        new LinkedList<Command>(),
+                                        languageLevelVisitedFiles);
         }
-      }
-      catch (IOException ioe) {
-        // The NullLiteral is a hack to get a JExpression with the correct SourceInfo inside.
-        _addVisitorError(new Pair<String, JExpressionIF>(ioe.getMessage(), new NullLiteral(SourceInfo.NONE)));
+        else {
+          assert isAdvancedFile(f) || isFullJavaFile(f);  // Advanced files are treated exactly like full Java.
+          llv = new FullJavaVisitor(f,
+                                    importedPackageBase,
+                                    new LinkedList<Pair<String, JExpressionIF>>(),
+                                    new Hashtable<String, Triple<SourceInfo, LanguageLevelVisitor, SymbolData>>(), 
+                                    new LinkedList<Command>(),
+                                    languageLevelVisitedFiles);
+        }
+        
+        // Conformance checking pass
+        sf.visit(llv);
+//        _log.log("\nDUMPING SYMBOLTABLE AFTER PHASE 1 PROCESSING OF " + f + "\n\n" + symbolTable + "\n");
+        visited.add(new Triple<LanguageLevelVisitor, SourceFile, File>(llv, sf, f));
+        _log.log("\nCONTINUATIONS AFTER PHASE 1 PROCESSING OF " + f + "\n\n" + llv.continuations + "\n");
+        _log.log("\nERRORS AFTER PHASE 1 PROCESSING OF " + f + "\n\n" + llv.errors + "\n");
+        //add the continuations to the hash table.
+        continuations.putAll(llv.continuations);
+        fixUps.addAll(llv.fixUps);
+        languageLevelVisitorErrors.addAll(llv.errors);
       }
     }
-
     /* Resolve continuations created in conformance pass and log any generated errors.  TODO: refactor use of 
      * getSymbolData with a flag; create a new method for resolving continuations.  Use a common helper.  */
     LanguageLevelVisitor.errors = new LinkedList<Pair<String, JExpressionIF>>(); //clear out error list
@@ -658,6 +762,9 @@ public class LanguageLevelConverter {
 //      }
 //  }
     
+    // Save the signatures of the library classes read so far for later sessions
+    LIBRARY_CLASSES.save();
+    
     // If there were any errors in the llv pass or the type checking pass, just return them.
     if (_parseExceptions.size() > 0 || _visitorErrors.size() > 0) {
       return new Pair<LinkedList<JExprParseException>, 
@@ -0,0 +1,388 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2010, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.javalanglevels;
+
+import java.io.*;
+import java.util.*;
+
+import org.objectweb.asm.*;
+
+import edu.rice.cs.javalanglevels.util.Log;
+
+import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.iter.IterUtil;
+
+import junit.framework.TestCase;
+
+/** A cache of the member signatures of library classes: classes read from jar files on the boot class path or the 
+  * class path.  Every conversion clears the symbol table, so without this cache each conversion would search the
+  * class path for, and parse, every library class file it touches.  The cached signatures are shared by all
+  * conversions with the same class path and can be saved to a file between sessions.
+  * <p>The cache holds signatures rather than SymbolDatas because the SymbolDatas built from a class file depend on the
+  * symbol table of the conversion in progress (for example, a method signature containing an array type is only 
+  * recorded if the array type is already defined), and because a conversion may modify them.  Rebuilding a SymbolData
+  * from a cached signature is cheap.</p>
+  * <p>The signatures are valid for a <em>stamp</em> recording the path of every class path entry together with the 
+  * modification time and size of the jar files.  When the stamp changes, the cache is emptied.  Classes read from 
+  * directories are never cached, since they may change at any time.</p>
+  */
+public class LibraryClassCache {
+  
+  public static final Log _log = new Log("LibraryClassCache.txt", false);
+  
+  /** The first line of a cache file; changes whenever the format changes. */
+  private static final String HEADER = "Language Levels library class cache 1";
+  
+  /** The cached signatures, keyed by fully qualified class name. */
+  private final HashMap<String, ClassSignature> _signatures = new HashMap<String, ClassSignature>();
+  
+  /** The options whose class path _stamp describes; compared by identity, as in LanguageLevelConverter.RESOURCES. */
+  private Options _options = null;
+  
+  /** The stamp of the class path for which _signatures were read; null if not yet computed. */
+  private String _stamp = null;
+  
+  /** The file in which the cache is saved, or null if the cache is not saved. */
+  private File _file = null;
+  
+  /** Whether _signatures contains entries that are not yet saved. */
+  private boolean _dirty = false;
+  
+  /** Sets the file in which the cache is saved between sessions, and discards the signatures in memory; they are 
+    * reloaded from the file when next needed.
+    * @param f  the cache file, or null to keep the cache in memory only
+    */
+  public synchronized void setFile(File f) {
+    _file = f;
+    _options = null;
+    _stamp = null;
+    _signatures.clear();
+    _dirty = false;
+  }
+  
+  /** @return the file in which the cache is saved, or null if it is not saved */
+  public synchronized File getFile() { return _file; }
+  
+  /** @return the number of cached signatures */
+  public synchronized int size() { return _signatures.size(); }
+  
+  /** Looks up the signature of a library class for the class path of the given options.
+    * @param className  the fully qualified name of the class
+    * @param opt  the options of the conversion in progress
+    * @return the cached signature, or null if the class has not been cached
+    */
+  public synchronized ClassSignature get(String className, Options opt) {
+    _checkOptions(opt);
+    return _signatures.get(className);
+  }
+  
+  /** Records the signature of a library class read from a jar file on the class path of the given options. 
+    * @param className  the fully qualified name of the class
+    * @param sig  the class file signature
+    * @param opt  the options of the conversion in progress
+    */
+  public synchronized void put(String className, ClassSignature sig, Options opt) {
+    _checkOptions(opt);
+    _signatures.put(className, sig);
+    _dirty = true;
+  }
+  
+  /** Writes the cache to its file, if there is one and there are unsaved signatures.  Failures are ignored; the cache
+    * is only an optimization. */
+  public synchronized void save() {
+    if (_file == null || ! _dirty || _stamp == null) return;
+    File temp = new File(_file.getPath() + ".tmp");
+    try {
+      PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8")));
+      try {
+        out.println(HEADER);
+        out.println(_stamp);
+        for (ClassSignature sig: _signatures.values()) sig.write(out);
+      }
+      finally { out.close(); }
+      if (out.checkError()) throw new IOException("write failed");
+      if (! temp.renameTo(_file)) {
+        _file.delete();
+        if (! temp.renameTo(_file)) throw new IOException("cannot rename " + temp);
+      }
+      _dirty = false;
+    }
+    catch(IOException e) {
+      _log.log("***** could not save " + _file + ": " + e);
+      temp.delete();
+    }
+  }
+  
+  /** Empties the cache if opt has a different class path than the options for which it was filled, loading the cache
+    * file if it was written for the new class path. */
+  private void _checkOptions(Options opt) {
+    if (opt == _options) return;
+    _options = opt;
+    String stamp = stamp(opt);
+    if (stamp.equals(_stamp)) return;
+    _stamp = stamp;
+    _signatures.clear();
+    _dirty = false;
+    if (_file != null && _file.isFile()) _load();
+  }
+  
+  /** Reads the cache file, ignoring it if it was written for another class path or cannot be read. */
+  private void _load() {
+    try {
+      BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(_file), "UTF-8"));
+      try {
+        if (! HEADER.equals(in.readLine()) || ! _stamp.equals(in.readLine())) return;
+        String line = in.readLine();
+        while (line != null) {
+          String[] words = _split(line);
+          if (words.length != 5 || ! words[0].equals("C")) throw new IOException("class expected: " + line);
+          ClassSignature sig = new ClassSignature(Integer.parseInt(words[2]), words[1], _fromWord(words[3]), 
+                                                  _split(words[4], ','));
+          for (line = in.readLine(); line != null && ! line.startsWith("C "); line = in.readLine()) {
+            String[] m = _split(line);
+            if (m.length == 4 && m[0].equals("F")) sig.addField(Integer.parseInt(m[1]), m[2], m[3]);
+            else if (m.length == 5 && m[0].equals("M")) {
+              sig.addMethod(Integer.parseInt(m[1]), m[2], m[3], _split(m[4], ','));
+            }
+            else throw new IOException("member expected: " + line);
+          }
+          _signatures.put(sig.getName().replace('/', '.'), sig);
+        }
+        _log.log("***** loaded " + _signatures.size() + " signatures from " + _file);
+      }
+      finally { in.close(); }
+    }
+    catch(IOException e) { _discard(e); }
+    catch(RuntimeException e) { _discard(e); }  // malformed file
+  }
+  
+  private void _discard(Exception e) {
+    _log.log("***** discarding " + _file + ": " + e);
+    _signatures.clear();
+  }
+  
+  /** Describes the class path of the given options: the boot class path and class path entries, and for each jar
+    * file its modification time and size.
+    * @param opt  the options of a conversion
+    * @return a string that changes whenever a jar file on the class path changes
+    */
+  public static String stamp(Options opt) {
+    StringBuilder sb = new StringBuilder();
+    for (File f: IterUtil.<File>compose(opt.bootClassPath(), opt.classPath())) {
+      sb.append(f.getAbsolutePath());
+      if (f.isFile()) sb.append('@').append(f.lastModified()).append('#').append(f.length());
+      sb.append(File.pathSeparatorChar);
+    }
+    return sb.toString();
+  }
+  
+  private static String[] _split(String s) { return s.split(" "); }
+  
+  /** Splits a list written by _toWord. */
+  private static String[] _split(String s, char c) {
+    if (s.equals("-")) return new String[0];
+    return s.split(String.valueOf(c));
+  }
+  
+  /** @return s, or "-" if s is null or empty; class names and descriptors contain neither spaces nor commas */
+  private static String _toWord(String s) { return (s == null || s.length() == 0) ? "-" : s; }
+  
+  private static String _toWord(String[] s) {
+    StringBuilder sb = new StringBuilder();
+    for (String e: s) {
+      if (sb.length() > 0) sb.append(',');
+      sb.append(e);
+    }
+    return _toWord(sb.toString());
+  }
+  
+  private static String _fromWord(String s) { return s.equals("-") ? null : s; }
+  
+  /** The parts of a class file used by LanguageLevelConverter._classFile2SymbolData: the class header and the 
+    * signatures of its fields and non-private methods. */
+  public static class ClassSignature {
+    private final int _access;
+    private final String _name;
+    private final String _superName;
+    private final String[] _interfaces;
+    private final List<Member> _fields = new ArrayList<Member>();
+    private final List<Member> _methods = new ArrayList<Member>();
+    
+    public ClassSignature(int access, String name, String superName, String[] interfaces) {
+      _access = access;
+      _name = name;
+      _superName = superName;
+      _interfaces = (interfaces == null) ? new String[0] : interfaces;
+    }
+    
+    /** @return the internal (slash-separated) name of the class */
+    public String getName() { return _name; }
+    
+    public void addField(int access, String name, String desc) {
+      _fields.add(new Member(access, name, desc, null));
+    }
+    
+    public void addMethod(int access, String name, String desc, String[] exceptions) {
+      _methods.add(new Member(access, name, desc, (exceptions == null) ? new String[0] : exceptions));
+    }
+    
+    /** Replays the class header and members to the given visitor, in the order in which a ClassReader visits them. 
+      * The visitor receives copies of the arrays, so it may modify them. */
+    public void accept(ClassVisitor cv) {
+      cv.visit(Opcodes.V1_1, _access, _name, null, _superName, _interfaces.clone());
+      for (Member f: _fields) cv.visitField(f.access, f.name, f.desc, null, null);
+      for (Member m: _methods) cv.visitMethod(m.access, m.name, m.desc, null, m.exceptions.clone());
+      cv.visitEnd();
+    }
+    
+    /** Reads the signature of a class file.
+      * @param reader  a reader for the class file
+      * @return the signature of the class
+      */
+    public static ClassSignature read(ClassReader reader) {
+      final ClassSignature[] result = new ClassSignature[1];
+      reader.accept(new ClassVisitor(Opcodes.ASM4) {
+        public void visit(int version, int access, String name, String sig, String sup, String[] interfaces) {
+          result[0] = new ClassSignature(access, name, sup, interfaces);
+        }
+        public FieldVisitor visitField(int access, String name, String desc, String sig, Object value) {
+          result[0].addField(access, name, desc);
+          return null;
+        }
+        public MethodVisitor visitMethod(int access, String name, String desc, String sig, String[] exceptions) {
+          // private methods are invisible in class files; see LanguageLevelConverter._classFile2SymbolData
+          if ((access & Opcodes.ACC_PRIVATE) == 0) result[0].addMethod(access, name, desc, exceptions);
+          return null;
+        }
+      }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+      return result[0];
+    }
+    
+    /** Writes this signature as lines of space-separated words. */
+    void write(PrintWriter out) {
+      out.println("C " + _name + " " + _access + " " + _toWord(_superName) + " " + _toWord(_interfaces));
+      for (Member f: _fields) out.println("F " + f.access + " " + f.name + " " + f.desc);
+      for (Member m: _methods) out.println("M " + m.access + " " + m.name + " " + m.desc + " " + _toWord(m.exceptions));
+    }
+  }
+  
+  /** A field or method of a ClassSignature. */
+  private static class Member {
+    final int access;
+    final String name;
+    final String desc;
+    final String[] exceptions;  // null for fields
+    Member(int a, String n, String d, String[] e) { access = a; name = n; desc = d; exceptions = e; }
+  }
+  
+  /** Tests the methods of the above class. */
+  public static class LibraryClassCacheTest extends TestCase {
+    
+    private File _dir;
+    
+    public LibraryClassCacheTest() { this(""); }
+    public LibraryClassCacheTest(String name) { super(name); }
+    
+    public void setUp() throws IOException { _dir = IOUtil.createAndMarkTempDirectory("llcache", ""); }
+    public void tearDown() { IOUtil.deleteRecursively(_dir); }
+    
+    /** @return the signature of a class on the class path of this test */
+    private ClassSignature _read(Class<?> c) throws IOException {
+      InputStream in = ClassLoader.getSystemResourceAsStream(c.getName().replace('.', '/') + ".class");
+      return ClassSignature.read(new ClassReader(IOUtil.toByteArray(in)));
+    }
+    
+    /** @return the events a ClassVisitor receives from sig, one per line */
+    private static String _replay(ClassSignature sig) {
+      final StringBuilder sb = new StringBuilder();
+      sig.accept(new ClassVisitor(Opcodes.ASM4) {
+        public void visit(int version, int access, String name, String sig, String sup, String[] interfaces) {
+          sb.append(access + " " + name + " " + sup + " " + Arrays.toString(interfaces) + "\n");
+        }
+        public FieldVisitor visitField(int access, String name, String desc, String sig, Object value) {
+          sb.append("field " + access + " " + name + " " + desc + "\n");
+          return null;
+        }
+        public MethodVisitor visitMethod(int access, String name, String desc, String sig, String[] exceptions) {
+          sb.append("method " + access + " " + name + " " + desc + " " + Arrays.toString(exceptions) + "\n");
+          return null;
+        }
+      });
+      return sb.toString();
+    }
+    
+    public void testRead() throws IOException {
+      String events = _replay(_read(Member.class));
+      assertTrue("class header", events.startsWith(Opcodes.ACC_SUPER + " edu/rice/cs/javalanglevels/LibraryClassCache$Member java/lang/Object []"));
+      assertTrue("fields recorded", events.contains("field " + Opcodes.ACC_FINAL + " desc Ljava/lang/String;\n"));
+      assertTrue("methods recorded", events.contains("method 0 <init> (ILjava/lang/String;Ljava/lang/String;[Ljava/lang/String;)V []"));
+      assertFalse("private methods omitted", _replay(_read(LibraryClassCache.class)).contains("_checkOptions"));
+    }
+    
+    public void testSaveAndLoad() throws IOException {
+      File jar = new File(_dir, "lib.jar");
+      IOUtil.writeStringToFile(jar, "not really a jar");
+      Options opt = new Options(edu.rice.cs.plt.reflect.JavaVersion.JAVA_8, IterUtil.make(jar), IterUtil.<File>empty());
+      File f = new File(_dir, "cache");
+      
+      LibraryClassCache cache = new LibraryClassCache();
+      cache.setFile(f);
+      assertNull("empty cache", cache.get("java.lang.String", opt));
+      ClassSignature sig = _read(String.class);
+      cache.put("java.lang.String", sig, opt);
+      cache.put("edu.rice.cs.javalanglevels.LibraryClassCache", _read(LibraryClassCache.class), opt);
+      cache.save();
+      assertTrue("cache file written", f.isFile());
+      
+      LibraryClassCache loaded = new LibraryClassCache();
+      loaded.setFile(f);
+      Options sameOpt = new Options(edu.rice.cs.plt.reflect.JavaVersion.JAVA_8, IterUtil.make(jar), 
+                                    IterUtil.<File>empty());
+      assertEquals("loaded signature", _replay(sig), _replay(loaded.get("java.lang.String", sameOpt)));
+      assertEquals("both signatures loaded", 2, loaded.size());
+      
+      // a jar file on the class path changes
+      assertTrue(jar.setLastModified(jar.lastModified() - 10000));
+      LibraryClassCache stale = new LibraryClassCache();
+      stale.setFile(f);
+      Options changedOpt = new Options(edu.rice.cs.plt.reflect.JavaVersion.JAVA_8, IterUtil.make(jar), 
+                                       IterUtil.<File>empty());
+      assertNull("stale cache discarded", stale.get("java.lang.String", changedOpt));
+      assertEquals("stale cache empty", 0, stale.size());
+    }
+  }
+}
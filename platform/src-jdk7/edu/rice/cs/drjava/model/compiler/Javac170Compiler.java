@@ -53,6 +53,8 @@ import javax.tools.ToolProvider;
 
 // DJError class is not in the same package as this
 import edu.rice.cs.drjava.model.DJError;
+import edu.rice.cs.drjava.DrJava;
+import edu.rice.cs.drjava.config.OptionConstants;
 
 import edu.rice.cs.plt.reflect.JavaVersion;
 import edu.rice.cs.plt.io.IOUtil;
@@ -67,6 +69,9 @@ import static edu.rice.cs.plt.debug.DebugUtil.error;
  */
 public class Javac170Compiler extends JavacCompiler { // Javac170FilteringCompiler {
   
+  /** The file manager kept alive between compilations if the WARM_COMPILER option is set. */
+  final FileManagerCache _fileManagerCache = new FileManagerCache();
+  
   public Javac170Compiler(JavaVersion.FullVersion version, String location, List<? extends File> defaultBootClassPath) {
     super(version, location, defaultBootClassPath);
   }
@@ -142,9 +147,37 @@ public class Javac170Compiler extends JavacCompiler { // Javac170FilteringCompil
       return errors;
     }
     
-    /** Default FileManager provided by Context class */
     DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
-    StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);    
+    if (DrJava.getConfig().getSetting(OptionConstants.WARM_COMPILER).booleanValue()) {
+      // The cached file manager may only be used by one compilation at a time
+      synchronized(_fileManagerCache) {
+        StandardJavaFileManager fileManager = 
+          _fileManagerCache.acquire(compiler, classPath, (bootClassPath == null) ? _defaultBootClassPath : bootClassPath,
+                                    diagnostics);
+        try { _compile(compiler, fileManager, diagnostics, options, files, errors); }
+        finally { _fileManagerCache.release(fileManager); }
+      }
+    }
+    else {
+      _fileManagerCache.close();
+      /** Default FileManager provided by Context class */
+      StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+      if (_compile(compiler, fileManager, diagnostics, options, files, errors)) {
+        try { fileManager.close(); }
+        catch(IOException e) { error.log(e); }
+      }
+    }
+    
+    debug.logEnd("compile()");
+    return errors;
+  }
+  
+  /** Runs a compilation task with the given file manager and adds the resulting errors and warnings to errors.
+    * @return false iff the compiler threw an exception
+    */
+  private boolean _compile(JavaCompiler compiler, StandardJavaFileManager fileManager, 
+                           DiagnosticCollector<JavaFileObject> diagnostics, Iterable<String> options, 
+                           List<? extends File> files, LinkedList<DJError> errors) {
     Iterable<? extends JavaFileObject> fileObjects = fileManager.getJavaFileObjectsFromFiles(files);
     
     try {
@@ -177,15 +210,13 @@ public class Javac170Compiler extends JavacCompiler { // Javac170FilteringCompil
           errors.add(new DJError(d.getMessage(null), isWarning));
         }
       }
-      fileManager.close();
+      return true;
     }
     catch(Throwable t) {  // compiler threw an exception/error (typically out of memory error)
       errors.addFirst(new DJError("Compile exception: " + t, false));
       error.log(t);
+      return false;
     }
-    
-    debug.logEnd("compile()");
-    return errors;
   }
   
   private Iterable<String> _createOptions(List<? extends File> classPath, List<? extends File> sourcePath, File destination, 
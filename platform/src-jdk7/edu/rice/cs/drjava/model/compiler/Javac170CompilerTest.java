@@ -7,6 +7,8 @@ import edu.rice.cs.plt.reflect.JavaVersion;
 
 // DJError class is not in the same package as this
 import edu.rice.cs.drjava.model.DJError;
+import edu.rice.cs.drjava.DrJava;
+import edu.rice.cs.drjava.config.OptionConstants;
 
 import junit.framework.TestCase;
 
@@ -18,6 +20,17 @@ public class Javac170CompilerTest extends TestCase {
     assertTrue(doCompile(c, "testFiles/IterableTest.java").isEmpty());
   }
   
+  public void testCompileWithWarmFileManager() {
+    DrJava.getConfig().setSetting(OptionConstants.WARM_COMPILER, Boolean.TRUE);
+    try {
+      Javac170Compiler c = new Javac170Compiler(JavaVersion.CURRENT_FULL, "", null);
+      assertTrue(doCompile(c, "testFiles/IterableTest.java").isEmpty());
+      assertTrue(doCompile(c, "testFiles/IterableTest.java").isEmpty());
+      assertEquals("file manager reused", 1, c._fileManagerCache.getReuses());
+    }
+    finally { DrJava.getConfig().setSetting(OptionConstants.WARM_COMPILER, Boolean.FALSE); }
+  }
+  
   private static List<? extends DJError> doCompile(CompilerInterface c, String... files) {
     return c.compile(fileList(files), null, null, null, null, null, true);
   }